@@ -0,0 +1,109 @@
+package co.za.Main.Benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import co.za.Main.MarketData.Backtester;
+import co.za.Main.MarketData.HoldingStrategy;
+import co.za.Main.MarketData.RateTickFile;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.Trade_Function;
+
+/**
+ * Replays a generated random-walk tick file through {@link Backtester} on one thread and on the
+ * common pool, against pricing each trade with a {@link Trade_Function} as the model was used
+ * before the backtester, e.g.
+ *   BacktestBenchmark 20000000 60
+ *
+ * The file is written to the temporary directory and deleted afterwards. One trade opens on every
+ * tick, so all rows report the time per tick.
+ */
+public final class BacktestBenchmark {
+
+    private static final int TRADE_FUNCTION_TRADES = 200_000;
+
+    private BacktestBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        long ticks = args.length > 0 ? Long.parseLong(args[0]) : 20_000_000L;
+        long holdTicks = args.length > 1 ? Long.parseLong(args[1]) : 60;
+        HoldingStrategy strategy = new HoldingStrategy(TradeAction.SELL, true, 0.01, 1, 1, 10_000, holdTicks, 1);
+
+        Path path = Files.createTempFile("trade-backtest-", ".bin");
+        try {
+            long started = System.nanoTime();
+            writeRandomWalk(path, ticks);
+            System.out.printf("Wrote %,d ticks (%,d MB) in %.1f s; hold %d ticks, one entry per tick%n",
+                ticks, Files.size(path) >> 20, (System.nanoTime() - started) / 1e9, holdTicks);
+
+            ForkJoinPool oneThread = new ForkJoinPool(1);
+            try (RateTickFile file = RateTickFile.open(path)) {
+                RateTickFile.Window window = file.map(0, Math.min(ticks, TRADE_FUNCTION_TRADES + holdTicks));
+                long trades = Math.min(strategy.trades(ticks), TRADE_FUNCTION_TRADES);
+                BigDecimal spread = BigDecimal.valueOf(strategy.spread());
+                BigDecimal rateBK = BigDecimal.valueOf(strategy.rateBK());
+                BigDecimal rateKN = BigDecimal.valueOf(strategy.rateKN());
+                BigDecimal tradeAmount = BigDecimal.valueOf(strategy.tradeAmount());
+
+                Benchmark.Result perTrade = Benchmark.measure("Trade_Function per trade", (int) trades, i -> {
+                    Trade_Function function = new Trade_Function(strategy.action(), spread, rateBK, rateKN, tradeAmount,
+                        BigDecimal.valueOf(window.rate(i)), BigDecimal.valueOf(window.rate(i + holdTicks)));
+                    function.setBasedOnMarketRate(strategy.basedOnMarketRate());
+                    return function.returnProfit(tradeAmount);
+                });
+                Benchmark.Result sequential = Benchmark.measure("Backtester, 1 thread", 1, ticks,
+                    i -> run(new Backtester(file, oneThread), strategy));
+                Benchmark.Result parallel = Benchmark.measure("Backtester, common pool", 1, ticks,
+                    i -> run(new Backtester(file), strategy));
+                Benchmark.printSpeedup(perTrade, sequential);
+                Benchmark.printSpeedup(sequential, parallel);
+            } finally {
+                oneThread.shutdown();
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static Object run(Backtester backtester, HoldingStrategy strategy) {
+        try {
+            return backtester.run(strategy, 20);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Streams the file in the RateTickFile layout, so series larger than the heap can be generated
+    private static void writeRandomWalk(Path path, long ticks) throws IOException {
+        SplittableRandom random = new SplittableRandom(7);
+        double rate = 17.7;
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+            buffer.putInt(RateTickFile.MAGIC).putInt(RateTickFile.VERSION).putLong(ticks);
+            for (long i = 0; i < ticks; i++) {
+                if (buffer.remaining() < RateTickFile.TICK_BYTES) {
+                    drain(out, buffer);
+                }
+                rate *= 1 + random.nextGaussian() * 1e-4;
+                buffer.putLong(1_700_000_000_000L + i * 1000L).putDouble(rate);
+            }
+            drain(out, buffer);
+        }
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,73 @@
+package co.za.Main.Benchmarks;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * A small timing harness for the command-line benchmarks in this package.
+ *
+ * Each measurement runs the operation for a few untimed warm-up rounds so the JIT has compiled it,
+ * then for several timed rounds, and reports the median and best time per item. Every result is
+ * published to a volatile field, so the work cannot be optimised away.
+ *
+ * The numbers are for comparing approaches on one machine: run on an otherwise idle machine and
+ * compare rows printed by the same run.
+ */
+public final class Benchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static volatile Object sink;
+
+    private Benchmark() {
+    }
+
+    public record Result(String label, double medianNanos, double bestNanos) {
+
+        public double opsPerSecond() {
+            return 1e9 / medianNanos;
+        }
+    }
+
+    /**
+     * Times {@code operation(i)} for i in [0, operations) per round and prints one line.
+     */
+    public static Result measure(String label, int operations, IntFunction<?> operation) {
+        return measure(label, operations, 1, operation);
+    }
+
+    /**
+     * As {@link #measure(String, int, IntFunction)} for operations that each process
+     * {@code itemsPerOperation} items, such as a batch or a replay, reporting the time per item.
+     */
+    public static Result measure(String label, int operations, long itemsPerOperation, IntFunction<?> operation) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(operations, operation);
+        }
+        double[] nanosPerItem = new double[MEASURED_ROUNDS];
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            nanosPerItem[round] = (double) run(operations, operation) / operations / itemsPerOperation;
+        }
+        Arrays.sort(nanosPerItem);
+
+        Result result = new Result(label, nanosPerItem[MEASURED_ROUNDS / 2], nanosPerItem[0]);
+        System.out.printf("%-40s %10.3f us  (best %.3f us, %,.0f/s)%n",
+            label, result.medianNanos() / 1000, result.bestNanos() / 1000, result.opsPerSecond());
+        return result;
+    }
+
+    public static void printSpeedup(Result baseline, Result candidate) {
+        double ratio = baseline.medianNanos() / candidate.medianNanos();
+        System.out.printf("%s: %.2fx %s than %s%n", candidate.label(), ratio >= 1 ? ratio : 1 / ratio,
+            ratio >= 1 ? "faster" : "slower", baseline.label());
+    }
+
+    private static long run(int operations, IntFunction<?> operation) {
+        long started = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            sink = operation.apply(i);
+        }
+        return System.nanoTime() - started;
+    }
+}
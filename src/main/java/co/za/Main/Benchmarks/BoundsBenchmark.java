@@ -0,0 +1,122 @@
+package co.za.Main.Benchmarks;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeBounds;
+import co.za.Main.TradeModules.TradeEngine;
+import co.za.Main.TradeModules.Trade_Function;
+import co.za.Main.WebTradeApplication.TradeTableSnapshot;
+import co.za.Main.WebTradeApplication.WebQueryImplementation;
+
+/**
+ * Compares the interval bounds engine with the corner method for a whole /api/query table: all
+ * five outputs from one snapshot, as {@link WebQueryImplementation#calculate} runs them.
+ *
+ * "ten objects" is the original corner method, which built two {@link Trade_Function}s per output;
+ * "corners" is the current one, which shares two curves across the outputs that allow it.
+ *
+ * The queries cycle through a set of input tables so no single one stays hot, e.g.
+ *   BoundsBenchmark 200000 SELL true
+ */
+public final class BoundsBenchmark {
+
+    private static final int TABLES = 64;
+
+    private BoundsBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        TradeAction action = args.length > 1 ? TradeAction.valueOf(args[1].toUpperCase()) : TradeAction.SELL;
+        boolean basedOnMarketRate = args.length <= 2 || Boolean.parseBoolean(args[2]);
+        BigDecimal spread = new BigDecimal("0.01");
+        BigDecimal rateBK = new BigDecimal("17.7055");
+        BigDecimal rateKN = BigDecimal.ONE;
+
+        TradeTableSnapshot[] tables = new TradeTableSnapshot[TABLES];
+        for (int i = 0; i < TABLES; i++) {
+            tables[i] = table(i);
+        }
+
+        System.out.printf("%,d queries per round, %s, %s mode, %d input tables%n",
+            queries, action, basedOnMarketRate ? "market" : "execution", TABLES);
+        Benchmark.Result tenObjects = Benchmark.measure("corners (ten objects, original)", queries, i ->
+            tenObjectCorners(action, basedOnMarketRate, spread, rateBK, rateKN, tables[i % TABLES]));
+        Benchmark.Result corners = Benchmark.measure("corners (big_decimal)", queries, i ->
+            new WebQueryImplementation(action, basedOnMarketRate, spread, rateBK, rateKN,
+                TradeEngine.BIG_DECIMAL, TradeBounds.CORNERS).calculate(tables[i % TABLES]));
+        Benchmark.Result cornersDouble = Benchmark.measure("corners (double)", queries, i ->
+            new WebQueryImplementation(action, basedOnMarketRate, spread, rateBK, rateKN,
+                TradeEngine.DOUBLE, TradeBounds.CORNERS).calculate(tables[i % TABLES]));
+        Benchmark.Result interval = Benchmark.measure("interval", queries, i ->
+            new WebQueryImplementation(action, basedOnMarketRate, spread, rateBK, rateKN,
+                TradeEngine.BIG_DECIMAL, TradeBounds.INTERVAL).calculate(tables[i % TABLES]));
+
+        Benchmark.printSpeedup(tenObjects, interval);
+        Benchmark.printSpeedup(corners, interval);
+        Benchmark.printSpeedup(cornersDouble, interval);
+    }
+
+    // The corner method as first written: two Trade_Functions per output, ten in all
+    private static BigDecimal[] tenObjectCorners(TradeAction action, boolean basedOnMarketRate, BigDecimal spread,
+                                                 BigDecimal rateBK, BigDecimal rateKN, TradeTableSnapshot table) {
+        BigDecimal tradeProfitMin = table.minimum("tradeprofit");
+        BigDecimal tradeProfitMax = table.maximum("tradeprofit");
+        BigDecimal tradeAmountMin = table.minimum("tradeamount");
+        BigDecimal tradeAmountMax = table.maximum("tradeamount");
+        BigDecimal openingMin = table.minimum("openingvalue");
+        BigDecimal openingMax = table.maximum("openingvalue");
+        BigDecimal closingMin = table.minimum("closingvalue");
+        BigDecimal closingMax = table.maximum("closingvalue");
+        BigDecimal one = BigDecimal.ONE;
+
+        return new BigDecimal[] {
+            function(action, basedOnMarketRate, spread, rateBK, rateKN, tradeAmountMin, openingMin, closingMax)
+                .returnProfit(tradeAmountMin),
+            function(action, basedOnMarketRate, spread, rateBK, rateKN, tradeAmountMax, openingMax, closingMin)
+                .returnProfit(tradeAmountMax),
+            function(action, basedOnMarketRate, spread, rateBK, rateKN, tradeAmountMax, openingMin, closingMax)
+                .returnProfitFactor(tradeProfitMin, tradeAmountMax),
+            function(action, basedOnMarketRate, spread, rateBK, rateKN, tradeAmountMin, openingMax, closingMin)
+                .returnProfitFactor(tradeProfitMax, tradeAmountMin),
+            function(action, basedOnMarketRate, spread, rateBK, rateKN, one, openingMin, closingMax)
+                .returnTradeAmount(tradeProfitMin, one),
+            function(action, basedOnMarketRate, spread, rateBK, rateKN, one, openingMax, closingMin)
+                .returnTradeAmount(tradeProfitMax, one),
+            function(action, basedOnMarketRate, spread, rateBK, rateKN, tradeAmountMax, one, closingMax)
+                .returnOpening(tradeProfitMin, tradeAmountMax),
+            function(action, basedOnMarketRate, spread, rateBK, rateKN, tradeAmountMin, one, closingMin)
+                .returnOpening(tradeProfitMax, tradeAmountMin),
+            function(action, basedOnMarketRate, spread, rateBK, rateKN, tradeAmountMax, openingMin, one)
+                .returnClosing(tradeProfitMin, tradeAmountMax),
+            function(action, basedOnMarketRate, spread, rateBK, rateKN, tradeAmountMin, openingMax, one)
+                .returnClosing(tradeProfitMax, tradeAmountMin)
+        };
+    }
+
+    private static Trade_Function function(TradeAction action, boolean basedOnMarketRate, BigDecimal spread,
+                                           BigDecimal rateBK, BigDecimal rateKN, BigDecimal tradeAmount,
+                                           BigDecimal opening, BigDecimal closing) {
+        Trade_Function function = new Trade_Function(action, spread, rateBK, rateKN, tradeAmount, opening, closing);
+        function.setBasedOnMarketRate(basedOnMarketRate);
+        return function;
+    }
+
+    // Ranges around the example trade, clear of break-even, shifted a little per table
+    static TradeTableSnapshot table(int index) {
+        BigDecimal shift = BigDecimal.valueOf(index, 3);
+        Map<String, TradeTableSnapshot.Row> rows = new HashMap<>();
+        rows.put("tradeprofit", row("tradeprofit", new BigDecimal("250").add(shift), new BigDecimal("2000").add(shift)));
+        rows.put("profitfactor", row("profitfactor", BigDecimal.ZERO, BigDecimal.ZERO));
+        rows.put("tradeamount", row("tradeamount", new BigDecimal("10000").add(shift), new BigDecimal("25000").add(shift)));
+        rows.put("openingvalue", row("openingvalue", new BigDecimal("17.7").add(shift), new BigDecimal("17.9").add(shift)));
+        rows.put("closingvalue", row("closingvalue", new BigDecimal("17.3").add(shift), new BigDecimal("17.5").add(shift)));
+        return new TradeTableSnapshot(rows);
+    }
+
+    private static TradeTableSnapshot.Row row(String variable, BigDecimal minimum, BigDecimal maximum) {
+        return new TradeTableSnapshot.Row(variable, maximum, minimum, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,98 @@
+package co.za.Main.Benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import co.za.Main.MarketData.LivePnlEngine;
+import co.za.Main.MarketData.LiveRateFeed;
+import co.za.Main.MarketData.TickFeedSimulator;
+import co.za.Main.Metrics.LatencyHistogram;
+import co.za.Main.TradeModules.TradeAction;
+
+/**
+ * Drives the live pipeline end to end, as the server runs it: the {@link TickFeedSimulator}
+ * writes ticks to a loopback socket, {@link LiveRateFeed} parses them into the ring and
+ * {@link LivePnlEngine} re-marks the positions on each tick's symbol, e.g.
+ *   LiveBenchmark 2000 10 200 4
+ * for 2000 ticks/s over 10 seconds with 200 positions spread across 4 symbols.
+ *
+ * A paced run reports tick-to-P&L latency percentiles; a second run sends ticks as fast as the
+ * socket takes them and reports throughput.
+ */
+public final class LiveBenchmark {
+
+    private static final long WARMUP_SECONDS = 2;
+    private static final long SATURATION_TICKS = 2_000_000;
+
+    private LiveBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        double ticksPerSecond = args.length > 0 ? Double.parseDouble(args[0]) : 2000;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        int positions = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int symbolCount = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        String[] symbols = new String[symbolCount];
+        double[] rates = new double[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols[i] = "SYM" + i;
+            rates[i] = 17.7055 + i;
+        }
+
+        try (LivePnlEngine engine = new LivePnlEngine(65536);
+             LiveRateFeed feed = LiveRateFeed.socket(engine, 0);
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(), feed.getPort());
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            for (int i = 0; i < positions; i++) {
+                int symbol = i % symbolCount;
+                engine.open(symbols[symbol], i % 2 == 0 ? TradeAction.SELL : TradeAction.BUY, true, 0.01, 1, 1,
+                    10_000, rates[symbol]);
+            }
+            TickFeedSimulator simulator = new TickFeedSimulator(symbols, rates, 1e-4, 42);
+            System.out.printf("%d positions on %d symbols, %s%n", positions, symbolCount, feed.getDescription());
+
+            long warmup = (long) (ticksPerSecond * WARMUP_SECONDS);
+            simulator.run(out, warmup, ticksPerSecond);
+            awaitProcessed(engine, warmup);
+            engine.getLatency().reset();
+
+            long ticks = (long) (ticksPerSecond * seconds);
+            simulator.run(out, ticks, ticksPerSecond);
+            awaitProcessed(engine, warmup + ticks);
+            LatencyHistogram.Snapshot latency = engine.getLatency().snapshot();
+            System.out.printf("%,d ticks at %,.0f/s: mean %.1f us, p50 %.1f us, p90 %.1f us, p99 %.1f us, p99.9 %.1f us,"
+                    + " max %.1f us, %.2f%% under 1 ms%n",
+                latency.getCount(), ticksPerSecond, latency.getMean() / 1000, latency.percentile(50) / 1000.0,
+                latency.percentile(90) / 1000.0, latency.percentile(99) / 1000.0, latency.percentile(99.9) / 1000.0,
+                latency.getMax() / 1000.0,
+                100.0 * latency.countAtOrBelow(TimeUnit.MILLISECONDS.toNanos(1)) / latency.getCount());
+
+            long before = engine.getProcessed();
+            long remarkedBefore = engine.getRemarked();
+            long started = System.nanoTime();
+            simulator.run(out, SATURATION_TICKS, 0);
+            awaitProcessed(engine, before + SATURATION_TICKS);
+            double elapsed = (System.nanoTime() - started) / 1e9;
+            System.out.printf("Saturated: %,d ticks in %.2f s, %,.0f ticks/s, %,.0f position re-marks/s, %d ring stalls%n",
+                SATURATION_TICKS, elapsed, SATURATION_TICKS / elapsed, (engine.getRemarked() - remarkedBefore) / elapsed,
+                engine.getStalls());
+        }
+    }
+
+    private static void awaitProcessed(LivePnlEngine engine, long ticks) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (engine.getProcessed() < ticks) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Only " + engine.getProcessed() + " of " + ticks + " ticks processed");
+            }
+            Thread.sleep(1);
+        }
+    }
+}
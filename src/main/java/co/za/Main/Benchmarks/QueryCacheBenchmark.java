@@ -0,0 +1,113 @@
+package co.za.Main.Benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import co.za.Main.WebTradeApplication.JsonParseException;
+import co.za.Main.WebTradeApplication.QueryResult;
+import co.za.Main.WebTradeApplication.QueryResultCache;
+import co.za.Main.WebTradeApplication.TradeRequests;
+import co.za.Main.WebTradeApplication.TradeTableSnapshot;
+import co.za.Main.WebTradeApplication.WebQueryImplementation;
+
+/**
+ * Times an /api/query served from {@link QueryResultCache} against one calculated afresh, in
+ * process, e.g.
+ *   QueryCacheBenchmark 200000
+ *
+ * Given a server's base URL as well, it also times keep-alive round trips to that server's
+ * /api/query: the same query repeated, which the cache answers, and a new spread on every request,
+ * which it cannot. The uncached requests write their results to that server's table, so point it
+ * at a development server:
+ *   QueryCacheBenchmark 200000 http://localhost:8080 3000
+ */
+public final class QueryCacheBenchmark {
+
+    private static final int QUERIES = 64;
+
+    private QueryCacheBenchmark() {
+    }
+
+    public static void main(String[] args) throws JsonParseException {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        String[] bodies = new String[QUERIES];
+        QueryResultCache cache = new QueryResultCache(QUERIES * 2, 600_000);
+        TradeTableSnapshot inputs = BoundsBenchmark.table(0);
+        for (int i = 0; i < QUERIES; i++) {
+            bodies[i] = body("0.01" + i);
+            TradeRequests.QueryRequest request = TradeRequests.QueryRequest.parse(bodies[i]);
+            cache.put(QueryResultCache.Key.of(request, inputs), new QueryResultCache.Entry(calculate(request, inputs), ""));
+        }
+
+        System.out.printf("%d distinct queries, %,d per round%n", QUERIES, lookups);
+        Benchmark.Result miss = Benchmark.measure("parse + calculate", lookups, i -> {
+            try {
+                return calculate(TradeRequests.QueryRequest.parse(bodies[i % QUERIES]), inputs);
+            } catch (JsonParseException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Benchmark.Result hit = Benchmark.measure("parse + key + cache lookup", lookups, i -> {
+            try {
+                TradeRequests.QueryRequest request = TradeRequests.QueryRequest.parse(bodies[i % QUERIES]);
+                return cache.get(QueryResultCache.Key.of(request, inputs));
+            } catch (JsonParseException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Benchmark.printSpeedup(miss, hit);
+
+        if (args.length > 1) {
+            int requests = args.length > 2 ? Integer.parseInt(args[2]) : 3000;
+            roundTrips(URI.create(args[1].replaceAll("/+$", "") + "/api/query"), requests);
+        }
+    }
+
+    private static void roundTrips(URI uri, int requests) {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String repeated = body("0.01");
+        AtomicLong unique = new AtomicLong();
+
+        System.out.printf("%,d requests per round to %s, one connection kept alive%n", requests, uri);
+        Benchmark.Result uncached = Benchmark.measure("HTTP round trip, new query", requests,
+            i -> post(client, uri, body("0.01" + unique.incrementAndGet())));
+        Benchmark.Result cached = Benchmark.measure("HTTP round trip, repeated query", requests,
+            i -> post(client, uri, repeated));
+        Benchmark.printSpeedup(uncached, cached);
+    }
+
+    private static String post(HttpClient client, URI uri, String body) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+            }
+            return response.body();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<QueryResult> calculate(TradeRequests.QueryRequest request, TradeTableSnapshot inputs) {
+        return new WebQueryImplementation(request.tradeAction(), request.basedOnMarketRate(), request.spread(),
+            request.rateBK(), request.rateKN(), request.engine(), request.bounds()).calculate(inputs);
+    }
+
+    private static String body(String spread) {
+        return "{\"tradeAction\":\"SELL\",\"basedOnMarketRate\":true,\"spread\":" + spread
+            + ",\"rateBK\":17.7055,\"rateKN\":1}";
+    }
+}
@@ -0,0 +1,97 @@
+package co.za.Main.Benchmarks;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeSolver;
+import co.za.Main.TradeModules.Trade_Function;
+
+/**
+ * Compares {@link TradeSolver} batches with inverting the profit formula one scenario at a time
+ * through {@link Trade_Function}, for a profit target, e.g.
+ *   SolverBenchmark 1000000 SELL true
+ *
+ * The one-at-a-time rows run on a slice of the batch, since they are far slower; all rows report
+ * the time per scenario.
+ */
+public final class SolverBenchmark {
+
+    private static final int SINGLE_SCENARIOS = 50_000;
+    // Whole batches solved per timed round
+    private static final int BATCHES = 5;
+    private static final double SPREAD = 0.01;
+    private static final double RATE_BK = 17.7055;
+    private static final double RATE_KN = 1;
+
+    private SolverBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        TradeAction action = args.length > 1 ? TradeAction.valueOf(args[1].toUpperCase()) : TradeAction.SELL;
+        boolean basedOnMarketRate = args.length <= 2 || Boolean.parseBoolean(args[2]);
+
+        SplittableRandom random = new SplittableRandom(42);
+        double[] target = new double[size];
+        double[] opening = new double[size];
+        double[] closing = new double[size];
+        double[] tradeAmount = new double[size];
+        double[] spread = new double[size];
+        for (int i = 0; i < size; i++) {
+            target[i] = random.nextDouble(100, 1000);
+            opening[i] = random.nextDouble(17.5, 17.9);
+            closing[i] = random.nextDouble(17.3, 17.7);
+            tradeAmount[i] = random.nextDouble(10_000, 25_000);
+            spread[i] = SPREAD;
+        }
+        TradeSolver.Scenarios scenarios = new TradeSolver.Scenarios(target, opening, closing, tradeAmount, spread);
+
+        int singles = Math.min(size, SINGLE_SCENARIOS);
+        BigDecimal[] targets = decimals(target, singles);
+        BigDecimal[] openings = decimals(opening, singles);
+        BigDecimal[] closings = decimals(closing, singles);
+        BigDecimal[] amounts = decimals(tradeAmount, singles);
+        BigDecimal spreadDecimal = BigDecimal.valueOf(SPREAD);
+        BigDecimal rateBK = BigDecimal.valueOf(RATE_BK);
+        BigDecimal rateKN = BigDecimal.valueOf(RATE_KN);
+
+        ForkJoinPool oneThread = new ForkJoinPool(1);
+        TradeSolver sequential = new TradeSolver(action, basedOnMarketRate, RATE_BK, RATE_KN, oneThread);
+        TradeSolver parallel = new TradeSolver(action, basedOnMarketRate, RATE_BK, RATE_KN);
+
+        System.out.printf("%,d scenarios per batch, %s, %s mode, %d threads in the common pool%n",
+            size, action, basedOnMarketRate ? "market" : "execution", ForkJoinPool.commonPool().getParallelism());
+        for (TradeSolver.Unknown unknown : new TradeSolver.Unknown[] {
+                TradeSolver.Unknown.OPENING, TradeSolver.Unknown.CLOSING, TradeSolver.Unknown.TRADE_AMOUNT}) {
+            String name = unknown.name().toLowerCase();
+            Benchmark.Result single = Benchmark.measure(name + ": Trade_Function", singles, i -> {
+                Trade_Function function = new Trade_Function(action, spreadDecimal, rateBK, rateKN,
+                    unknown == TradeSolver.Unknown.TRADE_AMOUNT ? BigDecimal.ONE : amounts[i],
+                    unknown == TradeSolver.Unknown.OPENING ? BigDecimal.ONE : openings[i],
+                    unknown == TradeSolver.Unknown.CLOSING ? BigDecimal.ONE : closings[i]);
+                function.setBasedOnMarketRate(basedOnMarketRate);
+                return switch (unknown) {
+                    case OPENING -> function.returnOpening(targets[i], amounts[i]);
+                    case CLOSING -> function.returnClosing(targets[i], amounts[i]);
+                    default -> function.returnTradeAmount(targets[i], BigDecimal.ONE);
+                };
+            });
+            Benchmark.Result oneCore = Benchmark.measure(name + ": TradeSolver, 1 thread", BATCHES, size,
+                i -> sequential.solve(TradeSolver.Target.PROFIT, unknown, scenarios));
+            Benchmark.Result allCores = Benchmark.measure(name + ": TradeSolver, common pool", BATCHES, size,
+                i -> parallel.solve(TradeSolver.Target.PROFIT, unknown, scenarios));
+            Benchmark.printSpeedup(single, oneCore);
+            Benchmark.printSpeedup(oneCore, allCores);
+        }
+        oneThread.shutdown();
+    }
+
+    private static BigDecimal[] decimals(double[] values, int count) {
+        BigDecimal[] decimals = new BigDecimal[count];
+        for (int i = 0; i < count; i++) {
+            decimals[i] = BigDecimal.valueOf(values[i]);
+        }
+        return decimals;
+    }
+}
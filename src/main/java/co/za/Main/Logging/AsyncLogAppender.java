@@ -0,0 +1,270 @@
+package co.za.Main.Logging;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes log lines on a background thread, so the threads that log never wait on console I/O.
+ *
+ * Lines go into a fixed ring of slots that any number of threads claim with a compare-and-set on
+ * the tail; each slot carries a sequence number that says whether it is free or holds a published
+ * line. One writer thread drains the ring in order, formats the lines and writes them out a batch
+ * at a time. When the ring is empty it parks until a caller publishes a line and unparks it, so an
+ * idle appender costs nothing. When the ring is full the line is dropped and counted rather than making the caller
+ * wait. Lines logged after {@link #close()} are written directly.
+ *
+ * Lines at WARN and above can go to a separate writer, as the server sends them to standard error.
+ */
+public final class AsyncLogAppender implements AutoCloseable {
+
+    private static final DateTimeFormatter TIME =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    // How often flush() checks on the writer
+    private static final long FLUSH_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int DRAIN_BATCH = 256;
+
+    private static final class Slot {
+        long timestamp;
+        LogLevel level;
+        String logger;
+        String thread;
+        String message;
+        Throwable error;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    // slot i is free for position p when its sequence is p, and holds position p's line when it is p + 1
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final Writer out;
+    private final Writer errors;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    public AsyncLogAppender(int capacity, Writer out) {
+        this(capacity, out, out);
+    }
+
+    /**
+     * @param errors where WARN and ERROR lines go; everything else goes to {@code out}
+     */
+    public AsyncLogAppender(int capacity, Writer out, Writer errors) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Log buffer size must be a power of two of at least 2: " + capacity);
+        }
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        this.out = out;
+        this.errors = errors;
+        this.writerThread = new Thread(this::writeLoop, "trade-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues a line for the writer thread.
+     *
+     * @return false if the ring was full and the line was dropped
+     */
+    public boolean append(LogLevel level, String logger, String message, Throwable error) {
+        long timestamp = System.currentTimeMillis();
+        String thread = Thread.currentThread().getName();
+        if (!running) {
+            writeDirect(timestamp, level, logger, thread, message, error);
+            return true;
+        }
+
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.getAcquire(index) - position;
+            if (difference == 0) {
+                if (tail.weakCompareAndSetVolatile(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The writer has not freed this slot since the last lap
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        Slot slot = slots[(int) (position & mask)];
+        slot.timestamp = timestamp;
+        slot.level = level;
+        slot.logger = logger;
+        slot.thread = thread;
+        slot.message = message;
+        slot.error = error;
+        appended.incrementAndGet();
+        sequences.setRelease((int) (position & mask), position + 1);
+        // Pairs with the fence in writeLoop: either we see it parked, or it sees the line
+        VarHandle.fullFence();
+        if (parked) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+    private void writeLoop() {
+        StringBuilder batch = new StringBuilder(8192);
+        StringBuilder errorBatch = new StringBuilder(1024);
+        while (running) {
+            if (drain(batch, errorBatch) == 0) {
+                parked = true;
+                VarHandle.fullFence();
+                if (isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            }
+        }
+        // Lines published before close() still go out
+        while (drain(batch, errorBatch) > 0) {
+        }
+    }
+
+    private boolean isEmpty() {
+        return sequences.getAcquire((int) (head & mask)) != head + 1;
+    }
+
+    private int drain(StringBuilder batch, StringBuilder errorBatch) {
+        int count = 0;
+        while (count < DRAIN_BATCH) {
+            int index = (int) (head & mask);
+            if (sequences.getAcquire(index) != head + 1) {
+                break;
+            }
+            Slot slot = slots[index];
+            // With a single writer every line stays in one batch, so the order is kept
+            StringBuilder target = isError(slot.level) && errors != out ? errorBatch : batch;
+            format(target, slot.timestamp, slot.level, slot.logger, slot.thread, slot.message, slot.error);
+            slot.message = null;
+            slot.error = null;
+            sequences.setRelease(index, head + slots.length);
+            head++;
+            count++;
+        }
+        if (count > 0) {
+            write(out, batch);
+            write(errors, errorBatch);
+            written.addAndGet(count);
+        }
+        return count;
+    }
+
+    private void writeDirect(long timestamp, LogLevel level, String logger, String thread, String message, Throwable error) {
+        StringBuilder line = new StringBuilder(128);
+        format(line, timestamp, level, logger, thread, message, error);
+        write(isError(level) ? errors : out, line);
+    }
+
+    private static boolean isError(LogLevel level) {
+        return level.compareTo(LogLevel.WARN) >= 0;
+    }
+
+    private static void format(StringBuilder line, long timestamp, LogLevel level, String logger, String thread,
+                               String message, Throwable error) {
+        TIME.formatTo(Instant.ofEpochMilli(timestamp), line);
+        line.append(' ').append(level.name());
+        for (int pad = level.name().length(); pad < 5; pad++) {
+            line.append(' ');
+        }
+        line.append(" [").append(thread).append("] ").append(logger).append(" - ").append(message).append('\n');
+        if (error != null) {
+            StringWriter trace = new StringWriter();
+            error.printStackTrace(new PrintWriter(trace));
+            line.append(trace);
+        }
+    }
+
+    private static void write(Writer writer, StringBuilder text) {
+        if (text.length() == 0) {
+            return;
+        }
+        synchronized (writer) {
+            try {
+                writer.append(text);
+                writer.flush();
+            } catch (IOException e) {
+                // Nowhere left to report it; the lines are lost
+            }
+        }
+        text.setLength(0);
+    }
+
+    /**
+     * Waits until every line appended so far has been written, or the timeout passes.
+     *
+     * @return true if everything was written
+     */
+    public boolean flush(long timeoutMs) {
+        long target = appended.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (written.get() < target) {
+            if (System.nanoTime() - deadline > 0 || !writerThread.isAlive()) {
+                return false;
+            }
+            LockSupport.parkNanos(FLUSH_POLL_NANOS);
+        }
+        return true;
+    }
+
+    public long getAppended() {
+        return appended.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    /** Lines dropped because the ring was full. */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Writes out everything queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
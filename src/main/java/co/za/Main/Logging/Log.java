@@ -0,0 +1,125 @@
+package co.za.Main.Logging;
+
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * A named logger. Every logger shares one level and one {@link AsyncLogAppender}, so logging from
+ * a request thread only queues the line. WARN and ERROR lines go to standard error, the rest to
+ * standard output, through whatever {@link System#out} and {@link System#err} are when the line
+ * is written, so redirecting them with {@link System#setOut} captures the log too.
+ *
+ * Build messages for debug lines inside {@code if (LOG.isDebugEnabled())} when they take more
+ * than a constant string, so that nothing is formatted, or looked up, when debug is off.
+ *
+ * trade.log.level      - debug, info, warn, error or off (default info)
+ * trade.log.bufferSize - lines the appender can hold before it drops new ones; a power of two (default 8192)
+ */
+public final class Log {
+
+    private static volatile LogLevel level = LogLevel.fromName(System.getProperty("trade.log.level", "info"));
+    private static final AsyncLogAppender APPENDER = new AsyncLogAppender(
+        Integer.getInteger("trade.log.bufferSize", 8192),
+        new StandardStream(false),
+        new StandardStream(true));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(APPENDER::close, "trade-log-shutdown"));
+    }
+
+    private final String name;
+
+    private Log(String name) {
+        this.name = name;
+    }
+
+    public static Log get(Class<?> owner) {
+        return new Log(owner.getSimpleName());
+    }
+
+    public static LogLevel getLevel() {
+        return level;
+    }
+
+    public static void setLevel(LogLevel newLevel) {
+        level = newLevel;
+    }
+
+    /** The shared appender, for its counters and for flushing before exit. */
+    public static AsyncLogAppender appender() {
+        return APPENDER;
+    }
+
+    public boolean isEnabled(LogLevel lineLevel) {
+        return lineLevel.compareTo(level) >= 0 && lineLevel != LogLevel.OFF;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(LogLevel.DEBUG);
+    }
+
+    public void debug(String message) {
+        log(LogLevel.DEBUG, message, null);
+    }
+
+    public void info(String message) {
+        log(LogLevel.INFO, message, null);
+    }
+
+    public void warn(String message) {
+        log(LogLevel.WARN, message, null);
+    }
+
+    public void warn(String message, Throwable error) {
+        log(LogLevel.WARN, message, error);
+    }
+
+    public void error(String message) {
+        log(LogLevel.ERROR, message, null);
+    }
+
+    public void error(String message, Throwable error) {
+        log(LogLevel.ERROR, message, error);
+    }
+
+    private void log(LogLevel lineLevel, String message, Throwable error) {
+        if (isEnabled(lineLevel)) {
+            APPENDER.append(lineLevel, name, message, error);
+        }
+    }
+
+    // Looks the stream up on every write; the appender hands over a whole batch at a time
+    private static final class StandardStream extends Writer {
+        private final boolean error;
+
+        StandardStream(boolean error) {
+            this.error = error;
+        }
+
+        private PrintStream stream() {
+            return error ? System.err : System.out;
+        }
+
+        @Override
+        public Writer append(CharSequence text) {
+            stream().append(text);
+            return this;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            stream().append(CharBuffer.wrap(buffer, offset, length));
+        }
+
+        @Override
+        public void flush() {
+            stream().flush();
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package co.za.Main.Logging;
+
+/**
+ * Severity of a log line. A logger set to one level writes that level and everything above it.
+ */
+public enum LogLevel {
+    DEBUG, INFO, WARN, ERROR, OFF;
+
+    public static LogLevel fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level: " + name + " (debug, info, warn, error or off)");
+        }
+    }
+}
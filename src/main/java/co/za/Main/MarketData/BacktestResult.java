@@ -0,0 +1,101 @@
+package co.za.Main.MarketData;
+
+/**
+ * Outcome of a {@link Backtester} run: realised P&L statistics over every trade, and the equity
+ * curve (cumulative realised P&L, starting from zero) sampled at up to the requested number of
+ * points, each taken when a trade closes.
+ */
+public final class BacktestResult {
+
+    private final long ticks;
+    private final long trades;
+    private final long wins;
+    private final double totalProfit;
+    private final double meanProfit;
+    private final double standardDeviation;
+    private final double bestTrade;
+    private final double worstTrade;
+    private final double maxDrawdown;
+    private final long[] curveTimestamps;
+    private final double[] curveEquity;
+    private final long elapsedNanos;
+
+    BacktestResult(long ticks, long trades, long wins, double totalProfit, double meanProfit,
+                   double standardDeviation, double bestTrade, double worstTrade, double maxDrawdown,
+                   long[] curveTimestamps, double[] curveEquity, long elapsedNanos) {
+        this.ticks = ticks;
+        this.trades = trades;
+        this.wins = wins;
+        this.totalProfit = totalProfit;
+        this.meanProfit = meanProfit;
+        this.standardDeviation = standardDeviation;
+        this.bestTrade = bestTrade;
+        this.worstTrade = worstTrade;
+        this.maxDrawdown = maxDrawdown;
+        this.curveTimestamps = curveTimestamps;
+        this.curveEquity = curveEquity;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getTrades() {
+        return trades;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public double winRate() {
+        return trades == 0 ? Double.NaN : (double) wins / trades;
+    }
+
+    public double getTotalProfit() {
+        return totalProfit;
+    }
+
+    public double getMeanProfit() {
+        return meanProfit;
+    }
+
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public double getBestTrade() {
+        return bestTrade;
+    }
+
+    public double getWorstTrade() {
+        return worstTrade;
+    }
+
+    /** Largest fall in equity from a previous peak, including the starting equity of zero. */
+    public double getMaxDrawdown() {
+        return maxDrawdown;
+    }
+
+    public int curvePoints() {
+        return curveEquity.length;
+    }
+
+    /** Timestamp of the tick that closed the trade at curve point {@code index}. */
+    public long curveTimestamp(int index) {
+        return curveTimestamps[index];
+    }
+
+    public double curveEquity(int index) {
+        return curveEquity[index];
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double ticksPerSecond() {
+        return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,201 @@
+package co.za.Main.MarketData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import co.za.Main.TradeModules.TradeAction;
+
+/**
+ * Replays a {@link RateTickFile} through a {@link HoldingStrategy} and reports the realised P&L.
+ *
+ * The trades are split into segments covering about {@link #SEGMENT_TICKS} ticks each. A segment
+ * maps just the ticks its trades open and close on, so memory use is bounded by the segment size
+ * times the parallelism, however long the series. Segments run on a fork-join pool and each
+ * produces a {@link Summary}.
+ *
+ * Summaries combine associatively, which is what lets the drawdown be split across segments: a
+ * segment records its net P&L, the highest and lowest points its own equity reaches from zero,
+ * and its worst internal drawdown. The drawdown of two segments together is then the larger of
+ * their own drawdowns and the fall from the first segment's peak to the second's low point.
+ * Summaries are combined in file order, so results do not depend on scheduling.
+ */
+public final class Backtester {
+
+    static final long SEGMENT_TICKS = 1 << 20;
+
+    private final RateTickFile file;
+    private final ForkJoinPool pool;
+
+    public Backtester(RateTickFile file) {
+        this(file, ForkJoinPool.commonPool());
+    }
+
+    public Backtester(RateTickFile file, ForkJoinPool pool) {
+        this.file = file;
+        this.pool = pool;
+    }
+
+    public BacktestResult run(HoldingStrategy strategy, int curvePoints) throws IOException {
+        if (curvePoints < 1) {
+            throw new IllegalArgumentException("The equity curve needs at least one point: " + curvePoints);
+        }
+        long start = System.nanoTime();
+        long trades = strategy.trades(file.ticks());
+        if (trades == 0) {
+            return new BacktestResult(file.ticks(), 0, 0, 0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, 0,
+                new long[0], new double[0], System.nanoTime() - start);
+        }
+
+        long tradesPerSegment = Math.max(1, SEGMENT_TICKS / strategy.entryEvery());
+        long segmentCount = (trades + tradesPerSegment - 1) / tradesPerSegment;
+        if (segmentCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many segments: " + segmentCount);
+        }
+        int segments = (int) segmentCount;
+
+        long stride = (trades + curvePoints - 1) / curvePoints;
+        int samples = (int) ((trades + stride - 1) / stride);
+        long[] curveTimestamps = new long[samples];
+        double[] curveEquity = new double[samples];
+
+        Summary[] summaries = new Summary[segments];
+        Runnable work = () -> IntStream.range(0, segments).parallel().forEach(segment -> {
+            long first = segment * tradesPerSegment;
+            long end = Math.min(trades, first + tradesPerSegment);
+            try {
+                summaries[segment] = runSegment(strategy, first, end, stride, curveTimestamps, curveEquity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            if (pool == ForkJoinPool.commonPool()) {
+                work.run();
+            } else {
+                pool.submit(work).join();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // Curve points hold equity relative to their segment's start; shift them by what came before
+        Summary total = summaries[0];
+        double[] offsets = new double[segments];
+        for (int segment = 1; segment < segments; segment++) {
+            offsets[segment] = total.sum;
+            total = total.then(summaries[segment]);
+        }
+        for (int sample = 0; sample < samples; sample++) {
+            long trade = Math.min((sample + 1) * stride, trades) - 1;
+            curveEquity[sample] += offsets[(int) (trade / tradesPerSegment)];
+        }
+
+        double standardDeviation = total.count > 1 ? Math.sqrt(total.squares / (total.count - 1)) : 0;
+        return new BacktestResult(file.ticks(), total.count, total.wins, total.sum, total.mean, standardDeviation,
+            total.best, total.worst, total.maxDrawdown, curveTimestamps, curveEquity, System.nanoTime() - start);
+    }
+
+    private Summary runSegment(HoldingStrategy strategy, long first, long end, long stride,
+                               long[] curveTimestamps, double[] curveEquity) throws IOException {
+        long every = strategy.entryEvery();
+        long hold = strategy.holdTicks();
+        long trades = strategy.trades(file.ticks());
+        RateTickFile.Window openings = file.map(first * every, (end - 1) * every + 1);
+        RateTickFile.Window closings = file.map(first * every + hold, (end - 1) * every + hold + 1);
+
+        Summary summary = new Summary();
+        double equity = 0;
+        double peak = 0;
+        for (long trade = first; trade < end; trade++) {
+            long openTick = trade * every;
+            long closeTick = openTick + hold;
+            double profit = strategy.profit(openings.rate(openTick), closings.rate(closeTick));
+
+            summary.count++;
+            double delta = profit - summary.mean;
+            summary.mean += delta / summary.count;
+            summary.squares += delta * (profit - summary.mean);
+            if (profit > 0) {
+                summary.wins++;
+            }
+            summary.best = Math.max(summary.best, profit);
+            summary.worst = Math.min(summary.worst, profit);
+
+            equity += profit;
+            peak = Math.max(peak, equity);
+            summary.maxDrawdown = Math.max(summary.maxDrawdown, peak - equity);
+            summary.lowest = Math.min(summary.lowest, equity);
+
+            long sample = trade / stride;
+            if (trade == Math.min((sample + 1) * stride, trades) - 1) {
+                curveTimestamps[(int) sample] = closings.timestamp(closeTick);
+                curveEquity[(int) sample] = equity;
+            }
+        }
+        summary.sum = equity;
+        summary.highest = peak;
+        return summary;
+    }
+
+    /**
+     * Statistics of a run of consecutive trades, with equity measured from zero at its start.
+     */
+    static final class Summary {
+        long count;
+        long wins;
+        double mean;
+        double squares;
+        double best = Double.NEGATIVE_INFINITY;
+        double worst = Double.POSITIVE_INFINITY;
+        double sum;
+        double highest;
+        double lowest;
+        double maxDrawdown;
+
+        /** This run followed by {@code next}. */
+        Summary then(Summary next) {
+            Summary combined = new Summary();
+            combined.count = count + next.count;
+            combined.wins = wins + next.wins;
+            double delta = next.mean - mean;
+            combined.mean = mean + delta * next.count / combined.count;
+            combined.squares = squares + next.squares + delta * delta * ((double) count * next.count / combined.count);
+            combined.best = Math.max(best, next.best);
+            combined.worst = Math.min(worst, next.worst);
+            combined.sum = sum + next.sum;
+            combined.highest = Math.max(highest, sum + next.highest);
+            combined.lowest = Math.min(lowest, sum + next.lowest);
+            combined.maxDrawdown = Math.max(Math.max(maxDrawdown, next.maxDrawdown), highest - (sum + next.lowest));
+            return combined;
+        }
+    }
+
+    /**
+     * Command-line backtest, e.g.
+     *   Backtester usdzar.bin SELL true 0.01 1 1 10000 60 60
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 9) {
+            System.err.println("Usage: Backtester <ticks.bin> <SELL|BUY> <basedOnMarketRate> <spread> <rateBK> <rateKN>"
+                + " <tradeAmount> <holdTicks> <entryEvery>");
+            System.exit(1);
+        }
+        HoldingStrategy strategy = new HoldingStrategy(TradeAction.valueOf(args[1].toUpperCase()),
+            Boolean.parseBoolean(args[2]), Double.parseDouble(args[3]), Double.parseDouble(args[4]),
+            Double.parseDouble(args[5]), Double.parseDouble(args[6]), Long.parseLong(args[7]), Long.parseLong(args[8]));
+        try (RateTickFile file = RateTickFile.open(Path.of(args[0]))) {
+            BacktestResult result = new Backtester(file).run(strategy, 20);
+            System.out.printf("%,d ticks, %,d trades in %.1f ms (%,.0f ticks/s)%n", result.getTicks(), result.getTrades(),
+                result.getElapsedNanos() / 1e6, result.ticksPerSecond());
+            System.out.printf("Total P&L %.2f, mean %.4f, sd %.4f, win rate %.1f%%, best %.2f, worst %.2f, max drawdown %.2f%n",
+                result.getTotalProfit(), result.getMeanProfit(), result.getStandardDeviation(), result.winRate() * 100,
+                result.getBestTrade(), result.getWorstTrade(), result.getMaxDrawdown());
+            for (int i = 0; i < result.curvePoints(); i++) {
+                System.out.printf("  %s  %.2f%n", Instant.ofEpochMilli(result.curveTimestamp(i)), result.curveEquity(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package co.za.Main.MarketData;
+
+import co.za.Main.TradeModules.FastTradeFunction;
+import co.za.Main.TradeModules.TradeAction;
+
+/**
+ * Opens a trade of {@code tradeAmount} every {@code entryEvery} ticks and closes it
+ * {@code holdTicks} ticks later, taking the tick rates as the opening and closing rates (market
+ * rates when {@code basedOnMarketRate}, so the spread is paid on both legs).
+ */
+public record HoldingStrategy(TradeAction action, boolean basedOnMarketRate, double spread,
+                              double rateBK, double rateKN, double tradeAmount,
+                              long holdTicks, long entryEvery) {
+
+    public HoldingStrategy {
+        if (action != TradeAction.SELL && action != TradeAction.BUY) {
+            throw new IllegalArgumentException("Unsupported TradeAction: " + action);
+        }
+        if (holdTicks < 1) {
+            throw new IllegalArgumentException("A trade must be held for at least one tick: " + holdTicks);
+        }
+        if (entryEvery < 1) {
+            throw new IllegalArgumentException("Trades must be at least one tick apart: " + entryEvery);
+        }
+    }
+
+    /** Trades that fit in a series of {@code ticks}, each needing its closing tick inside it. */
+    public long trades(long ticks) {
+        return ticks > holdTicks ? (ticks - holdTicks - 1) / entryEvery + 1 : 0;
+    }
+
+    public double profit(double opening, double closing) {
+        double openingFactor = FastTradeFunction.openingFactor(action, basedOnMarketRate, spread, opening);
+        double closingFactor = FastTradeFunction.closingFactor(action, basedOnMarketRate, spread, closing);
+        return tradeAmount * rateBK * rateKN * (openingFactor * closingFactor - 1);
+    }
+}
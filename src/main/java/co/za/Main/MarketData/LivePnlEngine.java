@@ -0,0 +1,282 @@
+package co.za.Main.MarketData;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import co.za.Main.Metrics.LatencyHistogram;
+import co.za.Main.TradeModules.TradeAction;
+
+/**
+ * Keeps open positions marked to market as rate ticks arrive.
+ *
+ * One feed thread publishes ticks into a {@link TickRingBuffer}; one compute thread drains it.
+ * Positions are grouped by symbol, so a tick re-marks only the positions on its own symbol. Each
+ * symbol's positions are a copy-on-write array: opening or closing a position copies it under the
+ * symbol's lock, and the compute thread reads whichever array is current without locking.
+ *
+ * The compute thread spins briefly when the ring runs dry and then parks; the feed unparks it
+ * after publishing, so an idle engine costs nothing and a busy one never sleeps. Tick-to-P&L
+ * latency runs from when the feed read the tick to when its positions have been re-marked.
+ *
+ * trade.live.ringSize - ring capacity in ticks, a power of two (default 65536)
+ */
+public final class LivePnlEngine implements AutoCloseable {
+
+    public record Quote(String symbol, double rate, long timestamp, long ticks, int positions) {
+    }
+
+    static final int MAX_SYMBOLS = 4096;
+    private static final int DRAIN_BATCH = 256;
+    private static final int SPIN_TRIES = 1000;
+    // Only a safety net; publishing unparks the compute thread directly
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final LivePosition[] NO_POSITIONS = new LivePosition[0];
+
+    private final TickRingBuffer ring;
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private volatile Book[] books = new Book[0];
+    private final AtomicLong nextPositionId = new AtomicLong(1);
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong stalls = new AtomicLong();
+    private final AtomicLong remarked = new AtomicLong();
+
+    private final Thread computeThread;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    public LivePnlEngine(int ringCapacity) {
+        this.ring = new TickRingBuffer(ringCapacity);
+        this.computeThread = new Thread(this::computeLoop, "trade-live-compute");
+        computeThread.setDaemon(true);
+        computeThread.start();
+    }
+
+    public static LivePnlEngine fromSystemProperties() {
+        return new LivePnlEngine(Integer.getInteger("trade.live.ringSize", 65536));
+    }
+
+    private static final class Book {
+        final String symbol;
+        volatile Quote quote;
+        volatile LivePosition[] positions = NO_POSITIONS;
+        long ticks;
+
+        Book(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    /**
+     * Id of {@code symbol}, registering it on first use.
+     */
+    public int symbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        synchronized (symbolIds) {
+            id = symbolIds.get(symbol);
+            if (id != null) {
+                return id;
+            }
+            Book[] current = books;
+            if (current.length >= MAX_SYMBOLS) {
+                throw new IllegalArgumentException("Too many symbols; at most " + MAX_SYMBOLS + " are tracked");
+            }
+            Book[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = new Book(symbol);
+            // The book is visible before its id is, so the compute thread always finds it
+            books = grown;
+            symbolIds.put(symbol, current.length);
+            return current.length;
+        }
+    }
+
+    /**
+     * Queues a tick for the compute thread, waiting while the ring is full. Must only be called
+     * from a single feed thread.
+     *
+     * @param receivedNanos {@link System#nanoTime()} when the tick was read, the start of its latency
+     * @return false if the engine closed before the tick could be queued
+     */
+    public boolean publish(int symbol, double rate, long timestamp, long receivedNanos) {
+        if (!ring.offer(symbol, rate, timestamp, receivedNanos)) {
+            stalls.incrementAndGet();
+            do {
+                if (!running) {
+                    return false;
+                }
+                wake();
+                Thread.yield();
+            } while (!ring.offer(symbol, rate, timestamp, receivedNanos));
+        }
+        published.incrementAndGet();
+        wake();
+        return true;
+    }
+
+    private void wake() {
+        // Pairs with the fence in computeLoop: either we see it parked, or it sees the tick
+        VarHandle.fullFence();
+        if (parked) {
+            LockSupport.unpark(computeThread);
+        }
+    }
+
+    private void computeLoop() {
+        int idle = 0;
+        while (running) {
+            if (ring.drain(this::onTick, DRAIN_BATCH) > 0) {
+                idle = 0;
+            } else if (++idle < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                parked = true;
+                VarHandle.fullFence();
+                if (ring.isEmpty() && running) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                parked = false;
+                idle = 0;
+            }
+        }
+    }
+
+    private void onTick(int symbol, double rate, long timestamp, long receivedNanos) {
+        Book book = books[symbol];
+        book.ticks++;
+        LivePosition[] positions = book.positions;
+        book.quote = new Quote(book.symbol, rate, timestamp, book.ticks, positions.length);
+        for (LivePosition position : positions) {
+            position.remark(rate, timestamp);
+        }
+        remarked.addAndGet(positions.length);
+        processed.incrementAndGet();
+        latency.record(System.nanoTime() - receivedNanos);
+    }
+
+    /**
+     * Opens a position on {@code symbol} at {@code opening}, or at the symbol's latest rate when
+     * {@code opening} is NaN. The position is marked at the latest rate straight away if the symbol
+     * has ticked.
+     */
+    public LivePosition open(String symbol, TradeAction action, boolean basedOnMarketRate, double spread,
+                             double rateBK, double rateKN, double tradeAmount, double opening) {
+        int id = symbolId(symbol);
+        Book book = books[id];
+        Quote quote = book.quote;
+        if (Double.isNaN(opening)) {
+            if (quote == null) {
+                throw new IllegalStateException("No rate has arrived for " + symbol + "; give an opening rate");
+            }
+            opening = quote.rate();
+        }
+        LivePosition position = new LivePosition(nextPositionId.getAndIncrement(), symbol, action, basedOnMarketRate,
+            spread, rateBK, rateKN, tradeAmount, opening, System.currentTimeMillis());
+        synchronized (book) {
+            LivePosition[] current = book.positions;
+            LivePosition[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = position;
+            book.positions = grown;
+        }
+        // Read after the position is in the book: any later tick re-marks it anyway
+        quote = book.quote;
+        if (quote != null) {
+            position.markIfUnmarked(quote.rate(), quote.timestamp());
+        }
+        return position;
+    }
+
+    /**
+     * Closes position {@code id}.
+     *
+     * @return the closed position with its final mark, or null if no position has that id
+     */
+    public LivePosition close(long id) {
+        for (Book book : books) {
+            synchronized (book) {
+                LivePosition[] current = book.positions;
+                for (int i = 0; i < current.length; i++) {
+                    if (current[i].getId() == id) {
+                        LivePosition[] shrunk = new LivePosition[current.length - 1];
+                        System.arraycopy(current, 0, shrunk, 0, i);
+                        System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                        book.positions = shrunk;
+                        return current[i];
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    public List<LivePosition> positions() {
+        List<LivePosition> positions = new ArrayList<>();
+        for (Book book : books) {
+            positions.addAll(Arrays.asList(book.positions));
+        }
+        return positions;
+    }
+
+    /** Latest quote of every symbol that has ticked, with its current position count. */
+    public List<Quote> quotes() {
+        List<Quote> quotes = new ArrayList<>();
+        for (Book book : books) {
+            Quote quote = book.quote;
+            if (quote != null) {
+                quotes.add(new Quote(quote.symbol(), quote.rate(), quote.timestamp(), quote.ticks(), book.positions.length));
+            }
+        }
+        return quotes;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /** Times the feed found the ring full and had to wait for the compute thread. */
+    public long getStalls() {
+        return stalls.get();
+    }
+
+    /** Position marks computed, across all ticks. */
+    public long getRemarked() {
+        return remarked.get();
+    }
+
+    public int getBacklog() {
+        return ring.size();
+    }
+
+    public int getRingCapacity() {
+        return ring.capacity();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(computeThread);
+        try {
+            computeThread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package co.za.Main.MarketData;
+
+import java.util.concurrent.atomic.AtomicReference;
+import co.za.Main.TradeModules.FastTradeFunction;
+import co.za.Main.TradeModules.TradeAction;
+
+/**
+ * An open trade on one symbol, marked to market at the latest tick.
+ *
+ * The opening factor is fixed when the position opens, so re-marking it for a new rate is just the
+ * closing factor and one multiplication, exactly as {@link FastTradeFunction} prices the trade.
+ */
+public final class LivePosition {
+
+    /** The position's value at one rate: the rate taken as the closing rate, and the resulting profit. */
+    public record Mark(double closing, double profit, long timestamp) {
+    }
+
+    private final long id;
+    private final String symbol;
+    private final TradeAction action;
+    private final boolean basedOnMarketRate;
+    private final double spread;
+    private final double rateBK;
+    private final double rateKN;
+    private final double tradeAmount;
+    private final double opening;
+    private final double openingFactor;
+    private final long openedAt;
+    private final AtomicReference<Mark> mark = new AtomicReference<>();
+
+    LivePosition(long id, String symbol, TradeAction action, boolean basedOnMarketRate, double spread,
+                 double rateBK, double rateKN, double tradeAmount, double opening, long openedAt) {
+        if (action != TradeAction.SELL && action != TradeAction.BUY) {
+            throw new IllegalArgumentException("Unsupported TradeAction: " + action);
+        }
+        if (!(opening > 0) || Double.isInfinite(opening)) {
+            throw new IllegalArgumentException("Opening rate must be positive: " + opening);
+        }
+        this.id = id;
+        this.symbol = symbol;
+        this.action = action;
+        this.basedOnMarketRate = basedOnMarketRate;
+        this.spread = spread;
+        this.rateBK = rateBK;
+        this.rateKN = rateKN;
+        this.tradeAmount = tradeAmount;
+        this.opening = opening;
+        this.openingFactor = FastTradeFunction.openingFactor(action, basedOnMarketRate, spread, opening);
+        this.openedAt = openedAt;
+    }
+
+    public double profitAt(double closing) {
+        double closingFactor = FastTradeFunction.closingFactor(action, basedOnMarketRate, spread, closing);
+        return tradeAmount * rateBK * rateKN * (openingFactor * closingFactor - 1);
+    }
+
+    // Called only by the compute thread, so marks arrive in tick order
+    void remark(double closing, long timestamp) {
+        mark.set(new Mark(closing, profitAt(closing), timestamp));
+    }
+
+    // Gives a newly opened position its first mark unless a tick has already marked it
+    void markIfUnmarked(double closing, long timestamp) {
+        if (mark.get() == null) {
+            mark.compareAndSet(null, new Mark(closing, profitAt(closing), timestamp));
+        }
+    }
+
+    /** Latest mark, or null before the symbol has ticked. */
+    public Mark getMark() {
+        return mark.get();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public TradeAction getAction() {
+        return action;
+    }
+
+    public boolean isBasedOnMarketRate() {
+        return basedOnMarketRate;
+    }
+
+    public double getSpread() {
+        return spread;
+    }
+
+    public double getRateBK() {
+        return rateBK;
+    }
+
+    public double getRateKN() {
+        return rateKN;
+    }
+
+    public double getTradeAmount() {
+        return tradeAmount;
+    }
+
+    public double getOpening() {
+        return opening;
+    }
+
+    public long getOpenedAt() {
+        return openedAt;
+    }
+}
@@ -0,0 +1,272 @@
+package co.za.Main.MarketData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import co.za.Main.Logging.Log;
+
+/**
+ * Reads rate ticks, one per line, and publishes them to a {@link LivePnlEngine}.
+ *
+ * Lines are {@code SYMBOL,rate} or {@code SYMBOL,rate,epochMillis}; without a timestamp the
+ * arrival time is used. Blank lines and lines starting with {@code #} are ignored, and lines that
+ * do not parse are counted and skipped. Ticks come from either
+ *   - a socket on the loopback interface, serving one connection at a time, or
+ *   - a file followed like {@code tail -f}, starting from its current end and reopening it if it
+ *     is truncated or replaced.
+ * Both run on a single thread, which is the ring's only producer.
+ *
+ * trade.live.source - "socket", "tail" or "off" (default)
+ * trade.live.port   - socket port (default 9099)
+ * trade.live.file   - file to follow (default ticks.log)
+ * trade.live.pollMs - how often a followed file is checked for new lines (default 5)
+ */
+public final class LiveRateFeed implements AutoCloseable {
+
+    private static final Log LOG = Log.get(LiveRateFeed.class);
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    private static final int LOGGED_REJECTS = 10;
+
+    @FunctionalInterface
+    private interface Source {
+        void run(LiveRateFeed feed) throws IOException;
+    }
+
+    private final LivePnlEngine engine;
+    private final String description;
+    private final Thread thread;
+    private final AtomicLong lines = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile Closeable current;
+    private final Closeable listener;
+    private final int port;
+
+    private LiveRateFeed(LivePnlEngine engine, String description, Closeable listener, int port, Source source) {
+        this.engine = engine;
+        this.description = description;
+        this.listener = listener;
+        this.port = port;
+        this.thread = new Thread(() -> {
+            try {
+                source.run(this);
+            } catch (IOException e) {
+                if (running) {
+                    LOG.error("Live rate feed " + description + " stopped: " + e.getMessage());
+                }
+            }
+        }, "trade-live-feed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Listens on {@code port} of the loopback interface; 0 picks a free port.
+     */
+    public static LiveRateFeed socket(LivePnlEngine engine, int port) throws IOException {
+        ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+        int bound = server.getLocalPort();
+        return new LiveRateFeed(engine, "socket 127.0.0.1:" + bound, server, bound, feed -> feed.accept(server));
+    }
+
+    public static LiveRateFeed tail(LivePnlEngine engine, Path file, long pollMs) {
+        if (pollMs < 1) {
+            throw new IllegalArgumentException("Poll interval must be at least 1ms: " + pollMs);
+        }
+        return new LiveRateFeed(engine, "tail " + file, null, -1, feed -> feed.follow(file, pollMs));
+    }
+
+    /**
+     * The feed configured by the trade.live.* properties, or null when the source is off.
+     */
+    public static LiveRateFeed fromSystemProperties(LivePnlEngine engine) throws IOException {
+        String source = System.getProperty("trade.live.source", "off").trim().toLowerCase();
+        return switch (source) {
+            case "off" -> null;
+            case "socket" -> socket(engine, Integer.getInteger("trade.live.port", 9099));
+            case "tail" -> tail(engine, Path.of(System.getProperty("trade.live.file", "ticks.log")),
+                Long.getLong("trade.live.pollMs", 5L));
+            default -> throw new IllegalArgumentException("Unknown trade.live.source: " + source + " (socket, tail or off)");
+        };
+    }
+
+    private void accept(ServerSocket server) throws IOException {
+        while (running) {
+            try (Socket socket = server.accept()) {
+                current = socket;
+                socket.setTcpNoDelay(true);
+                pump(socket.getInputStream(), null, null, 0);
+            } catch (IOException e) {
+                if (!running) {
+                    return;
+                }
+                LOG.warn("Live rate connection dropped: " + e.getMessage());
+            }
+        }
+    }
+
+    private void follow(Path file, long pollMs) throws IOException {
+        boolean fromStart = false;
+        while (running) {
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                // Wait for the file to appear; everything in it is then new
+                fromStart = true;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollMs));
+                continue;
+            }
+            try (channel) {
+                current = channel;
+                if (!fromStart) {
+                    channel.position(channel.size());
+                }
+                pump(Channels.newInputStream(channel), channel, file, pollMs);
+            }
+            // The file was truncated or replaced; read the new one from its start
+            fromStart = true;
+        }
+    }
+
+    /**
+     * Publishes every complete line from {@code in}. A socket ends at end of stream; a followed
+     * file ({@code channel} set) waits for more, and returns when the file shrinks or is replaced.
+     */
+    private void pump(InputStream in, FileChannel channel, Path file, long pollMs) throws IOException {
+        byte[] buffer = new byte[MAX_LINE_BYTES];
+        int start = 0;
+        int end = 0;
+        Object key = file == null ? null : fileKey(file);
+        while (running) {
+            if (end == buffer.length) {
+                if (start == 0) {
+                    // A line longer than the buffer can never parse; drop it
+                    reject("line longer than " + MAX_LINE_BYTES + " bytes");
+                    end = 0;
+                } else {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    end -= start;
+                    start = 0;
+                }
+            }
+            int read = in.read(buffer, end, buffer.length - end);
+            if (read < 0) {
+                if (channel == null) {
+                    return;
+                }
+                if (channel.size() < channel.position() || !Objects.equals(key, fileKey(file))) {
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollMs));
+                continue;
+            }
+            long received = System.nanoTime();
+            end += read;
+            for (int i = end - read; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    handle(buffer, start, i, received);
+                    start = i + 1;
+                }
+            }
+            if (start == end) {
+                start = 0;
+                end = 0;
+            }
+        }
+    }
+
+    private static Object fileKey(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void handle(byte[] buffer, int from, int to, long received) {
+        if (to > from && buffer[to - 1] == '\r') {
+            to--;
+        }
+        String line = new String(buffer, from, to - from, StandardCharsets.US_ASCII).trim();
+        if (line.isEmpty() || line.charAt(0) == '#') {
+            return;
+        }
+        lines.incrementAndGet();
+        int first = line.indexOf(',');
+        int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+        try {
+            if (first <= 0) {
+                throw new IllegalArgumentException("expected SYMBOL,rate[,epochMillis]");
+            }
+            String symbol = line.substring(0, first).trim();
+            double rate = Double.parseDouble(line.substring(first + 1, second < 0 ? line.length() : second).trim());
+            if (!(rate > 0) || Double.isInfinite(rate)) {
+                throw new IllegalArgumentException("rate must be positive: " + rate);
+            }
+            long timestamp = second < 0 ? System.currentTimeMillis() : Long.parseLong(line.substring(second + 1).trim());
+            engine.publish(engine.symbolId(symbol), rate, timestamp, received);
+        } catch (IllegalArgumentException e) {
+            reject(e.getMessage() + ": " + line);
+        }
+    }
+
+    private void reject(String reason) {
+        if (rejected.incrementAndGet() <= LOGGED_REJECTS) {
+            LOG.warn("Skipped live rate line, " + reason);
+        }
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /** The socket's bound port, or -1 when following a file. */
+    public int getPort() {
+        return port;
+    }
+
+    public long getLines() {
+        return lines.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            if (listener != null) {
+                listener.close();
+            }
+            Closeable open = current;
+            if (open != null) {
+                open.close();
+            }
+        } catch (IOException e) {
+            LOG.error("Error closing live rate feed: " + e.getMessage());
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package co.za.Main.MarketData;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A file of rate ticks, read through memory mapping so a series of any length is never loaded onto
+ * the heap.
+ *
+ * Layout, big-endian:
+ *   int    magic "TRTK"
+ *   int    version
+ *   long   tick count
+ *   then per tick: long timestamp (epoch milliseconds), double rate
+ *
+ * Ticks are in timestamp order, so tick {@code i} is at byte {@code HEADER_BYTES + i * TICK_BYTES}.
+ */
+public final class RateTickFile implements AutoCloseable {
+
+    /** "TRTK" */
+    public static final int MAGIC = 0x5452544B;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int TICK_BYTES = 16;
+
+    private static final DateTimeFormatter SPACED = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm[:ss][.SSS]");
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long ticks;
+
+    private RateTickFile(Path path, FileChannel channel, long ticks) {
+        this.path = path;
+        this.channel = channel;
+        this.ticks = ticks;
+    }
+
+    public static RateTickFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a rate tick file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + " has unsupported version " + version);
+            }
+            long ticks = header.getLong();
+            long expected = HEADER_BYTES + ticks * TICK_BYTES;
+            if (ticks < 0 || channel.size() != expected) {
+                throw new IOException(path + " holds " + channel.size() + " bytes but its header promises " + expected);
+            }
+            return new RateTickFile(path, channel, ticks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long ticks() {
+        return ticks;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Maps ticks [from, to) read-only. Windows are independent, so threads can each map and read
+     * their own.
+     */
+    public Window map(long from, long to) throws IOException {
+        if (from < 0 || to > ticks || from > to) {
+            throw new IndexOutOfBoundsException("Ticks [" + from + ", " + to + ") outside 0.." + ticks);
+        }
+        long bytes = (to - from) * TICK_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A window of " + (to - from) + " ticks is too large to map at once");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + from * TICK_BYTES, bytes);
+        return new Window(buffer, from, to);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * A mapped run of ticks, addressed by their index in the whole file.
+     */
+    public static final class Window {
+        private final ByteBuffer buffer;
+        private final long first;
+        private final long end;
+
+        Window(ByteBuffer buffer, long first, long end) {
+            this.buffer = buffer;
+            this.first = first;
+            this.end = end;
+        }
+
+        public long timestamp(long tick) {
+            return buffer.getLong(offset(tick));
+        }
+
+        public double rate(long tick) {
+            return buffer.getDouble(offset(tick) + Long.BYTES);
+        }
+
+        private int offset(long tick) {
+            if (tick < first || tick >= end) {
+                throw new IndexOutOfBoundsException("Tick " + tick + " outside mapped window [" + first + ", " + end + ")");
+            }
+            return (int) ((tick - first) * TICK_BYTES);
+        }
+    }
+
+    /**
+     * Writes ticks held in memory; mainly for tests and small generated series.
+     */
+    public static void write(Path path, long[] timestamps, double[] rates) throws IOException {
+        if (timestamps.length != rates.length) {
+            throw new IllegalArgumentException("Need one rate per timestamp");
+        }
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(timestamps.length);
+            for (int i = 0; i < timestamps.length; i++) {
+                if (buffer.remaining() < TICK_BYTES) {
+                    drain(out, buffer);
+                }
+                buffer.putLong(timestamps[i]).putDouble(rates[i]);
+            }
+            drain(out, buffer);
+        }
+    }
+
+    /**
+     * Converts {@code timestamp,rate} CSV to the binary layout in one streaming pass. Timestamps
+     * are epoch milliseconds, ISO-8601 instants ({@code 2024-01-31T09:00:00Z}) or
+     * {@code yyyy-MM-dd HH:mm[:ss][.SSS]} taken as UTC. A first line that does not parse is
+     * skipped as a header; after that, a bad line, a non-positive rate or a timestamp earlier than
+     * the one before fails the conversion with its line number.
+     *
+     * @return the number of ticks written
+     */
+    public static long convertCsv(Path csv, Path binary) throws IOException {
+        long count = 0;
+        long previous = Long.MIN_VALUE;
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             FileChannel out = FileChannel.open(binary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+            // The count is patched in once it is known
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(0);
+
+            String line;
+            long lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                long timestamp;
+                double rate;
+                try {
+                    if (comma < 0) {
+                        throw new IllegalArgumentException("expected timestamp,rate");
+                    }
+                    timestamp = parseTimestamp(line.substring(0, comma).trim());
+                    int next = line.indexOf(',', comma + 1);
+                    rate = Double.parseDouble(line.substring(comma + 1, next < 0 ? line.length() : next).trim());
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    if (lineNumber == 1) {
+                        continue;
+                    }
+                    throw new IOException(csv + " line " + lineNumber + ": " + e.getMessage(), e);
+                }
+                if (!(rate > 0) || Double.isInfinite(rate)) {
+                    throw new IOException(csv + " line " + lineNumber + ": rate must be positive: " + rate);
+                }
+                if (timestamp < previous) {
+                    throw new IOException(csv + " line " + lineNumber + ": timestamp goes backwards");
+                }
+                previous = timestamp;
+
+                if (buffer.remaining() < TICK_BYTES) {
+                    drain(out, buffer);
+                }
+                buffer.putLong(timestamp).putDouble(rate);
+                count++;
+            }
+            drain(out, buffer);
+            out.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count), Integer.BYTES * 2);
+        }
+        return count;
+    }
+
+    private static long parseTimestamp(String text) {
+        if (!text.isEmpty() && (Character.isDigit(text.charAt(0)) || text.charAt(0) == '-') && text.chars().skip(1).allMatch(Character::isDigit)) {
+            return Long.parseLong(text);
+        }
+        if (text.indexOf('T') > 0) {
+            return Instant.parse(text).toEpochMilli();
+        }
+        return LocalDateTime.parse(text, SPACED).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Command-line conversion: RateTickFile <input.csv> <output.bin>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: RateTickFile <input.csv> <output.bin>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        long count = convertCsv(Path.of(args[0]), Path.of(args[1]));
+        System.out.printf("Converted %,d ticks to %s in %.1f ms%n", count, args[1], (System.nanoTime() - start) / 1e6);
+    }
+}
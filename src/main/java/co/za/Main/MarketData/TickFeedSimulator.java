@@ -0,0 +1,114 @@
+package co.za.Main.MarketData;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stand-in for a market data feed: writes random-walk rate ticks in the {@link LiveRateFeed} line
+ * format, at a steady rate, to a socket or appended to a file.
+ *
+ * Each tick moves one symbol's rate by a normally distributed relative step, cycling through the
+ * symbols in turn. Output is flushed whenever the simulator is ahead of schedule, so each tick
+ * leaves as soon as it is due rather than waiting in a buffer.
+ */
+public final class TickFeedSimulator {
+
+    private static final double DEFAULT_VOLATILITY = 1e-4;
+
+    private final String[] symbols;
+    private final double[] rates;
+    private final double volatility;
+    private final SplittableRandom random;
+
+    public TickFeedSimulator(String[] symbols, double[] rates, double volatility, long seed) {
+        if (symbols.length == 0 || symbols.length != rates.length) {
+            throw new IllegalArgumentException("Need at least one symbol, each with a starting rate");
+        }
+        this.symbols = symbols.clone();
+        this.rates = rates.clone();
+        this.volatility = volatility;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Writes {@code ticks} ticks at {@code ticksPerSecond}, or as fast as possible when that is 0.
+     */
+    public void run(Writer out, long ticks, double ticksPerSecond) throws IOException {
+        double intervalNanos = ticksPerSecond > 0 ? 1e9 / ticksPerSecond : 0;
+        long start = System.nanoTime();
+        StringBuilder line = new StringBuilder(64);
+        for (long tick = 0; tick < ticks; tick++) {
+            long due = start + (long) (tick * intervalNanos);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                out.flush();
+                LockSupport.parkNanos(wait);
+            }
+            int symbol = (int) (tick % symbols.length);
+            rates[symbol] *= Math.exp(random.nextGaussian() * volatility);
+            line.setLength(0);
+            line.append(symbols[symbol]).append(',').append(rates[symbol]).append(',')
+                .append(System.currentTimeMillis()).append('\n');
+            out.append(line);
+        }
+        out.flush();
+    }
+
+    /**
+     * Command-line feed, e.g.
+     *   TickFeedSimulator localhost:9099 10000 60 USDZAR=17.7055 EURZAR=19.21
+     *   TickFeedSimulator ticks.log 500 0 USDZAR=17.7055
+     * A duration of 0 runs until stopped.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: TickFeedSimulator <host:port | file> <ticksPerSecond> <seconds> <SYMBOL=rate>...");
+            System.exit(1);
+        }
+        double ticksPerSecond = Double.parseDouble(args[1]);
+        long seconds = Long.parseLong(args[2]);
+        int count = args.length - 3;
+        String[] symbols = new String[count];
+        double[] rates = new double[count];
+        for (int i = 0; i < count; i++) {
+            String[] pair = args[i + 3].split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected SYMBOL=rate: " + args[i + 3]);
+            }
+            symbols[i] = pair[0];
+            rates[i] = Double.parseDouble(pair[1]);
+        }
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("Ticks per second must be positive: " + ticksPerSecond);
+        }
+        long ticks = seconds == 0 ? Long.MAX_VALUE : (long) (ticksPerSecond * seconds);
+        TickFeedSimulator simulator = new TickFeedSimulator(symbols, rates, DEFAULT_VOLATILITY, System.nanoTime());
+
+        String target = args[0];
+        int colon = target.lastIndexOf(':');
+        long start = System.nanoTime();
+        if (colon > 0 && target.substring(colon + 1).chars().allMatch(Character::isDigit)) {
+            try (Socket socket = new Socket(target.substring(0, colon), Integer.parseInt(target.substring(colon + 1)));
+                 Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+                socket.setTcpNoDelay(true);
+                simulator.run(out, ticks, ticksPerSecond);
+            }
+        } else {
+            try (Writer out = Files.newBufferedWriter(Path.of(target), StandardCharsets.US_ASCII,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                simulator.run(out, ticks, ticksPerSecond);
+            }
+        }
+        System.out.printf("Sent %,d ticks in %.1f s%n", ticks, (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
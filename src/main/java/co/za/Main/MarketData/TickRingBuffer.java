@@ -0,0 +1,103 @@
+package co.za.Main.MarketData;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer, single-consumer queue of rate ticks.
+ *
+ * Ticks are stored field by field in preallocated arrays, so neither side allocates or locks.
+ * The producer publishes a slot by advancing {@code tail} with a release store after writing it,
+ * and the consumer frees slots the same way through {@code head}. Each side keeps a cached copy of
+ * the other's counter and only re-reads it when the cache says the ring is full (or empty), so in
+ * steady state neither side touches the other's cache line.
+ *
+ * Exactly one thread may call {@link #offer}, and exactly one (possibly different) thread may
+ * call {@link #drain}.
+ */
+public final class TickRingBuffer {
+
+    @FunctionalInterface
+    public interface TickHandler {
+        void onTick(int symbol, double rate, long timestamp, long receivedNanos);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final int[] symbols;
+    private final double[] rates;
+    private final long[] timestamps;
+    private final long[] receivedNanos;
+
+    // Next slot to read, written only by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write, written only by the producer
+    private final AtomicLong tail = new AtomicLong();
+    private long producerHead;
+    private long consumerTail;
+
+    public TickRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two of at least 2: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.symbols = new int[capacity];
+        this.rates = new double[capacity];
+        this.timestamps = new long[capacity];
+        this.receivedNanos = new long[capacity];
+    }
+
+    /**
+     * Appends a tick, or returns false without waiting when the ring is full.
+     */
+    public boolean offer(int symbol, double rate, long timestamp, long received) {
+        long position = tail.getPlain();
+        if (position - producerHead >= capacity) {
+            producerHead = head.getAcquire();
+            if (position - producerHead >= capacity) {
+                return false;
+            }
+        }
+        int slot = (int) position & mask;
+        symbols[slot] = symbol;
+        rates[slot] = rate;
+        timestamps[slot] = timestamp;
+        receivedNanos[slot] = received;
+        tail.setRelease(position + 1);
+        return true;
+    }
+
+    /**
+     * Hands up to {@code limit} ticks to {@code handler} in arrival order and frees their slots.
+     *
+     * @return the number of ticks handled
+     */
+    public int drain(TickHandler handler, int limit) {
+        long position = head.getPlain();
+        if (position >= consumerTail) {
+            consumerTail = tail.getAcquire();
+            if (position >= consumerTail) {
+                return 0;
+            }
+        }
+        long end = Math.min(consumerTail, position + limit);
+        for (long next = position; next < end; next++) {
+            int slot = (int) next & mask;
+            handler.onTick(symbols[slot], rates[slot], timestamps[slot], receivedNanos[slot]);
+        }
+        head.setRelease(end);
+        return (int) (end - position);
+    }
+
+    public boolean isEmpty() {
+        return head.getAcquire() >= tail.getAcquire();
+    }
+
+    public int size() {
+        return (int) (tail.getAcquire() - head.getAcquire());
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
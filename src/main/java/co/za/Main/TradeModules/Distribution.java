@@ -0,0 +1,91 @@
+package co.za.Main.TradeModules;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A distribution a {@link MonteCarloSimulator} input is drawn from.
+ *
+ * FIXED      - always {@code first}
+ * UNIFORM    - evenly between {@code first} (minimum) and {@code second} (maximum)
+ * NORMAL     - mean {@code first}, standard deviation {@code second}
+ * TRIANGULAR - between {@code first} (minimum) and {@code third} (maximum), most likely at
+ *              {@code second} (mode)
+ *
+ * Use the factory methods; they check the parameters.
+ */
+public record Distribution(Shape shape, double first, double second, double third) {
+
+    public enum Shape {
+        FIXED, UNIFORM, NORMAL, TRIANGULAR;
+
+        public static Shape fromName(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown distribution '" + name + "', expected one of FIXED, UNIFORM, NORMAL, TRIANGULAR");
+            }
+        }
+    }
+
+    public static Distribution fixed(double value) {
+        requireFinite(value);
+        return new Distribution(Shape.FIXED, value, 0, 0);
+    }
+
+    public static Distribution uniform(double minimum, double maximum) {
+        requireFinite(minimum, maximum);
+        if (minimum > maximum) {
+            throw new IllegalArgumentException("Uniform minimum " + minimum + " is above maximum " + maximum);
+        }
+        return new Distribution(Shape.UNIFORM, minimum, maximum, 0);
+    }
+
+    public static Distribution normal(double mean, double standardDeviation) {
+        requireFinite(mean, standardDeviation);
+        if (standardDeviation < 0) {
+            throw new IllegalArgumentException("Standard deviation cannot be negative: " + standardDeviation);
+        }
+        return new Distribution(Shape.NORMAL, mean, standardDeviation, 0);
+    }
+
+    public static Distribution triangular(double minimum, double mode, double maximum) {
+        requireFinite(minimum, mode, maximum);
+        if (minimum > mode || mode > maximum) {
+            throw new IllegalArgumentException("Triangular needs minimum <= mode <= maximum: "
+                + minimum + ", " + mode + ", " + maximum);
+        }
+        return new Distribution(Shape.TRIANGULAR, minimum, mode, maximum);
+    }
+
+    public double sample(RandomGenerator random) {
+        switch (shape) {
+            case FIXED:
+                return first;
+            case UNIFORM:
+                return first + (second - first) * random.nextDouble();
+            case NORMAL:
+                return first + second * random.nextGaussian();
+            case TRIANGULAR:
+                // Inverse of the cumulative distribution
+                double u = random.nextDouble();
+                double range = third - first;
+                if (range == 0) {
+                    return first;
+                }
+                double split = (second - first) / range;
+                return u < split
+                    ? first + Math.sqrt(u * range * (second - first))
+                    : third - Math.sqrt((1 - u) * range * (third - second));
+            default:
+                throw new IllegalStateException("Unhandled distribution: " + shape);
+        }
+    }
+
+    private static void requireFinite(double... values) {
+        for (double value : values) {
+            if (!Double.isFinite(value)) {
+                throw new IllegalArgumentException("Distribution parameters must be finite: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package co.za.Main.TradeModules;
+
+/**
+ * {@link Trade_Function} in {@code double} arithmetic.
+ *
+ * The factors are derived once in the constructor; every {@code return*} call after that is a
+ * handful of multiplications and divisions on primitives and allocates nothing, so it is safe to
+ * call from tight loops on many threads at once.
+ *
+ * Error bound: each operation is correctly rounded (relative error at most 2^-53), and apart from
+ * {@code openingFactor * closingFactor - 1} there is no cancellation, so results are within a few
+ * ulps of the exact value. That one subtraction amplifies the error by
+ * {@code 1 / |openingFactor * closingFactor - 1|}, e.g. about 2000x for a 0.05% move, which still
+ * leaves roughly 12 significant digits. The BigDecimal engine rounds every division to 10 decimal
+ * places, so near break-even it is usually the less accurate of the two.
+ *
+ * Division by zero does not throw; it yields an infinite or NaN result, which callers should check.
+ */
+public final class FastTradeFunction {
+
+    private final TradeAction action;
+    private final double rateProduct;
+    private final double openingFactor;
+    private final double closingFactor;
+
+    public FastTradeFunction(TradeAction action, boolean basedOnMarketRate, double spread,
+                             double rateBK, double rateKN, double opening_value, double closing_value) {
+        if (action != TradeAction.SELL && action != TradeAction.BUY) {
+            throw new IllegalArgumentException("Unsupported TradeAction: " + action);
+        }
+        if (action == TradeAction.SELL && closing_value == 0) {
+            throw new ArithmeticException("Closing execution rate cannot be zero for SELL action");
+        }
+        if (action == TradeAction.BUY && opening_value == 0) {
+            throw new ArithmeticException("Opening execution rate cannot be zero for BUY action");
+        }
+
+        this.action = action;
+        this.rateProduct = rateBK * rateKN;
+        this.openingFactor = openingFactor(action, basedOnMarketRate, spread, opening_value);
+        this.closingFactor = closingFactor(action, basedOnMarketRate, spread, closing_value);
+    }
+
+    /**
+     * The opening leg's factor: the adjusted rate when selling, its reciprocal when buying.
+     * Profit factor for any pair of legs is {@code openingFactor * closingFactor - 1}.
+     */
+    public static double openingFactor(TradeAction action, boolean basedOnMarketRate, double spread, double opening_value) {
+        double halfSpread = basedOnMarketRate ? spread / 2 : 0;
+        // Sell at the bid / buy at the ask
+        return action == TradeAction.SELL ? opening_value - halfSpread : 1 / (opening_value + halfSpread);
+    }
+
+    /**
+     * The closing leg's factor: the reciprocal of the adjusted rate when selling, the rate itself when buying.
+     */
+    public static double closingFactor(TradeAction action, boolean basedOnMarketRate, double spread, double closing_value) {
+        double halfSpread = basedOnMarketRate ? spread / 2 : 0;
+        // Buy back at the ask / sell back at the bid
+        return action == TradeAction.SELL ? 1 / (closing_value + halfSpread) : closing_value - halfSpread;
+    }
+
+    public double returnProfit(double tradeAmount) {
+        return tradeAmount * rateProduct * (openingFactor * closingFactor - 1);
+    }
+
+    public double returnProfitFactor(double tradeProfit, double tradeAmount) {
+        return tradeProfit / (tradeAmount * rateProduct);
+    }
+
+    public double returnTradeAmount(double tradeProfit, double tradeAmount) {
+        return tradeProfit / (rateProduct * (openingFactor * closingFactor - 1));
+    }
+
+    public double returnOpening(double tradeProfit, double tradeAmount) {
+        double factor = (tradeProfit / (tradeAmount * rateProduct) + 1) / closingFactor;
+        return action == TradeAction.SELL ? factor : 1 / factor;
+    }
+
+    public double returnClosing(double tradeProfit, double tradeAmount) {
+        double factor = (tradeProfit / (tradeAmount * rateProduct) + 1) / openingFactor;
+        return action == TradeAction.SELL ? 1 / factor : factor;
+    }
+
+    public TradeAction getAction() {
+        return action;
+    }
+}
@@ -0,0 +1,155 @@
+package co.za.Main.TradeModules;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Exact [min, max] bounds of the five trade outputs over ranges of their inputs.
+ *
+ * Each output is written as a chain of interval operations in which every input range appears
+ * once. For example, when selling, profit is {@code [tradeAmount] * rateBK * rateKN *
+ * ([opening] / [closing] - 1)} and opening is {@code ([tradeProfit] / ([tradeAmount] * rateBK *
+ * rateKN) + 1) * [closing]}, with both rates spread-adjusted in market mode. Each operation takes
+ * the extremes over the end points of its operands, so the sign of every range is accounted for. Because no range is used twice,
+ * the resulting bounds are tight, not just safe: both ends are reached by some combination of
+ * inputs inside the ranges.
+ *
+ * Arithmetic is BigDecimal. Products are exact, and quotients are rounded to 10 places outward
+ * (down for the lower end, up for the upper end), so the true range always lies inside the
+ * returned one. The outputs are the same functions {@link TradeCurve} evaluates at a point.
+ *
+ * A division whose divisor range includes zero has no finite bound; it throws ArithmeticException.
+ */
+public final class IntervalBoundsEngine {
+
+    private static final int SCALE = 10;
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    /**
+     * A closed range of values, min <= max.
+     */
+    public record Interval(BigDecimal min, BigDecimal max) {
+
+        public Interval {
+            if (min.compareTo(max) > 0) {
+                throw new IllegalArgumentException("Interval minimum " + min + " is above maximum " + max);
+            }
+        }
+
+        /**
+         * The range between two end points given in either order.
+         */
+        public static Interval of(BigDecimal a, BigDecimal b) {
+            return a.compareTo(b) <= 0 ? new Interval(a, b) : new Interval(b, a);
+        }
+
+        public static Interval point(BigDecimal value) {
+            return new Interval(value, value);
+        }
+
+        public boolean containsZero() {
+            return min.signum() <= 0 && max.signum() >= 0;
+        }
+
+        Interval add(BigDecimal value) {
+            return new Interval(min.add(value), max.add(value));
+        }
+
+        Interval multiply(BigDecimal value) {
+            return of(min.multiply(value), max.multiply(value));
+        }
+
+        Interval multiply(Interval other) {
+            BigDecimal a = min.multiply(other.min);
+            BigDecimal b = min.multiply(other.max);
+            BigDecimal c = max.multiply(other.min);
+            BigDecimal d = max.multiply(other.max);
+            return new Interval(a.min(b).min(c).min(d), a.max(b).max(c).max(d));
+        }
+
+        Interval divide(Interval divisor, String what) {
+            if (divisor.containsZero()) {
+                throw new ArithmeticException(what + " range includes zero, so the result is unbounded");
+            }
+            // The divisor has one sign, so the signs alone pick the corner for each end and only
+            // two of the four quotients are needed. x / d rises with x when d > 0 and falls when
+            // d < 0; the divisor end nearest zero gives the quotient of largest magnitude.
+            BigDecimal lower;
+            BigDecimal upper;
+            if (divisor.min.signum() > 0) {
+                lower = min.divide(min.signum() >= 0 ? divisor.max : divisor.min, SCALE, RoundingMode.FLOOR);
+                upper = max.divide(max.signum() >= 0 ? divisor.min : divisor.max, SCALE, RoundingMode.CEILING);
+            } else {
+                lower = max.divide(max.signum() >= 0 ? divisor.max : divisor.min, SCALE, RoundingMode.FLOOR);
+                upper = min.divide(min.signum() >= 0 ? divisor.min : divisor.max, SCALE, RoundingMode.CEILING);
+            }
+            return new Interval(lower, upper);
+        }
+    }
+
+    private final TradeAction action;
+    private final boolean basedOnMarketRate;
+    private final BigDecimal halfSpread;
+    private final BigDecimal rateProduct;
+
+    public IntervalBoundsEngine(TradeAction action, boolean basedOnMarketRate, BigDecimal spread,
+                                BigDecimal rateBK, BigDecimal rateKN) {
+        if (action != TradeAction.SELL && action != TradeAction.BUY) {
+            throw new IllegalArgumentException("Unsupported TradeAction: " + action);
+        }
+        this.action = action;
+        this.basedOnMarketRate = basedOnMarketRate;
+        this.halfSpread = spread.divide(TWO, SCALE, RoundingMode.HALF_UP);
+        this.rateProduct = rateBK.multiply(rateKN);
+    }
+
+    public Interval profit(Interval tradeAmount, Interval opening, Interval closing) {
+        return tradeAmount.multiply(rateProduct).multiply(rateRatio(opening, closing).add(BigDecimal.ONE.negate()));
+    }
+
+    public Interval profitFactor(Interval tradeProfit, Interval tradeAmount) {
+        return tradeProfit.divide(tradeAmount.multiply(rateProduct), "Trade amount x rates");
+    }
+
+    public Interval tradeAmount(Interval tradeProfit, Interval opening, Interval closing) {
+        Interval profitPerUnit = rateRatio(opening, closing).add(BigDecimal.ONE.negate()).multiply(rateProduct);
+        return tradeProfit.divide(profitPerUnit, "Profit per unit traded");
+    }
+
+    // Dividing by a reciprocal factor is multiplying by the adjusted rate, which saves a rounding step
+    public Interval opening(Interval tradeProfit, Interval tradeAmount, Interval closing) {
+        Interval growth = profitFactor(tradeProfit, tradeAmount).add(BigDecimal.ONE);
+        return action == TradeAction.SELL
+            ? growth.multiply(closingRate(closing))
+            : closingRate(closing).divide(growth, "Profit factor + 1");
+    }
+
+    public Interval closing(Interval tradeProfit, Interval tradeAmount, Interval opening) {
+        Interval growth = profitFactor(tradeProfit, tradeAmount).add(BigDecimal.ONE);
+        return action == TradeAction.SELL
+            ? openingRate(opening).divide(growth, "Profit factor + 1")
+            : growth.multiply(openingRate(opening));
+    }
+
+    // openingFactor * closingFactor: opening / closing when selling, closing / opening when buying
+    private Interval rateRatio(Interval opening, Interval closing) {
+        return action == TradeAction.SELL
+            ? openingRate(opening).divide(closingRate(closing), "Closing rate")
+            : closingRate(closing).divide(openingRate(opening), "Opening rate");
+    }
+
+    // Execution rates: sell at the bid and buy back at the ask, or buy at the ask and sell back at the bid
+    private Interval openingRate(Interval opening) {
+        if (!basedOnMarketRate) {
+            return opening;
+        }
+        return opening.add(action == TradeAction.SELL ? halfSpread.negate() : halfSpread);
+    }
+
+    private Interval closingRate(Interval closing) {
+        if (!basedOnMarketRate) {
+            return closing;
+        }
+        return closing.add(action == TradeAction.SELL ? halfSpread : halfSpread.negate());
+    }
+}
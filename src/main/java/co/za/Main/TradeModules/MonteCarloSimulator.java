@@ -0,0 +1,216 @@
+package co.za.Main.TradeModules;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates the profit distribution of a trade whose opening rate, closing rate, trade amount and
+ * spread are drawn from {@link Distribution}s, using the {@link FastTradeFunction} formulas.
+ *
+ * Samples are split into fixed-size chunks, and each chunk draws from its own
+ * {@link SplittableRandom} split off a root seeded with the caller's seed in chunk order. A chunk's
+ * samples therefore depend only on the seed and its index, never on which thread ran it, and the
+ * same seed reproduces the same result on any machine.
+ *
+ * Memory is constant in the sample count. The first pass keeps only per-chunk moments and the
+ * range; the second replays the same random streams into fixed-size histograms. Counts are exact
+ * integers, and per-chunk moments are combined in chunk order, so the merged figures are identical
+ * however the work was scheduled.
+ */
+public final class MonteCarloSimulator {
+
+    static final int FINE_BINS = 16 * 1024;
+    private static final int CHUNK_SAMPLES = 64 * 1024;
+
+    private final TradeAction action;
+    private final boolean basedOnMarketRate;
+    private final double rateProduct;
+    private final ForkJoinPool pool;
+
+    public MonteCarloSimulator(TradeAction action, boolean basedOnMarketRate, double rateBK, double rateKN) {
+        this(action, basedOnMarketRate, rateBK, rateKN, ForkJoinPool.commonPool());
+    }
+
+    public MonteCarloSimulator(TradeAction action, boolean basedOnMarketRate, double rateBK, double rateKN,
+                               ForkJoinPool pool) {
+        if (action != TradeAction.SELL && action != TradeAction.BUY) {
+            throw new IllegalArgumentException("Unsupported TradeAction: " + action);
+        }
+        this.action = action;
+        this.basedOnMarketRate = basedOnMarketRate;
+        this.rateProduct = rateBK * rateKN;
+        this.pool = pool;
+    }
+
+    public ProfitDistribution simulate(Distribution opening, Distribution closing, Distribution tradeAmount,
+                                       Distribution spread, long samples, long seed, int bins) {
+        if (samples < 1) {
+            throw new IllegalArgumentException("At least one sample is needed: " + samples);
+        }
+        if (bins < 1) {
+            throw new IllegalArgumentException("At least one histogram bin is needed: " + bins);
+        }
+        long chunkCount = (samples + CHUNK_SAMPLES - 1) / CHUNK_SAMPLES;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many samples: " + samples);
+        }
+        int chunks = (int) chunkCount;
+        Inputs inputs = new Inputs(opening, closing, tradeAmount, spread);
+
+        long start = System.nanoTime();
+
+        // Pass 1: per-chunk count, mean, sum of squared deviations, losses and range
+        long[] accepted = new long[chunks];
+        long[] losses = new long[chunks];
+        double[] means = new double[chunks];
+        double[] squares = new double[chunks];
+        double[] minimums = new double[chunks];
+        double[] maximums = new double[chunks];
+        SplittableRandom[] streams = streams(seed, chunks);
+        run(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            SplittableRandom random = streams[chunk];
+            long count = 0;
+            long negative = 0;
+            double mean = 0;
+            double square = 0;
+            double low = Double.POSITIVE_INFINITY;
+            double high = Double.NEGATIVE_INFINITY;
+            for (long i = 0, size = chunkSize(chunk, samples); i < size; i++) {
+                double profit = draw(inputs, random);
+                if (Double.isNaN(profit)) {
+                    continue;
+                }
+                // Welford's update keeps the variance accurate when the spread is small next to the mean
+                count++;
+                double delta = profit - mean;
+                mean += delta / count;
+                square += delta * (profit - mean);
+                low = Math.min(low, profit);
+                high = Math.max(high, profit);
+                if (profit < 0) {
+                    negative++;
+                }
+            }
+            accepted[chunk] = count;
+            losses[chunk] = negative;
+            means[chunk] = mean;
+            squares[chunk] = square;
+            minimums[chunk] = low;
+            maximums[chunk] = high;
+        }));
+
+        long total = 0;
+        long lossCount = 0;
+        double mean = 0;
+        double square = 0;
+        double minimum = Double.POSITIVE_INFINITY;
+        double maximum = Double.NEGATIVE_INFINITY;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            long count = accepted[chunk];
+            if (count == 0) {
+                continue;
+            }
+            long combined = total + count;
+            double delta = means[chunk] - mean;
+            mean += delta * count / combined;
+            square += squares[chunk] + delta * delta * ((double) total * count / combined);
+            total = combined;
+            lossCount += losses[chunk];
+            minimum = Math.min(minimum, minimums[chunk]);
+            maximum = Math.max(maximum, maximums[chunk]);
+        }
+
+        long[] fine = new long[FINE_BINS];
+        long[] histogram = new long[bins];
+        if (total > 0) {
+            // Pass 2: replay the same streams into the histograms
+            double low = minimum;
+            double range = maximum - minimum;
+            SplittableRandom[] replay = streams(seed, chunks);
+            long[] counts = run(() -> IntStream.range(0, chunks).parallel().collect(
+                () -> new long[FINE_BINS + bins],
+                (bucket, chunk) -> {
+                    SplittableRandom random = replay[chunk];
+                    for (long i = 0, size = chunkSize(chunk, samples); i < size; i++) {
+                        double profit = draw(inputs, random);
+                        if (!Double.isNaN(profit)) {
+                            double position = range == 0 ? 0 : (profit - low) / range;
+                            bucket[bin(position, FINE_BINS)]++;
+                            bucket[FINE_BINS + bin(position, bins)]++;
+                        }
+                    }
+                },
+                (left, right) -> {
+                    for (int i = 0; i < left.length; i++) {
+                        left[i] += right[i];
+                    }
+                }));
+            System.arraycopy(counts, 0, fine, 0, FINE_BINS);
+            System.arraycopy(counts, FINE_BINS, histogram, 0, bins);
+        } else {
+            minimum = Double.NaN;
+            maximum = Double.NaN;
+            mean = Double.NaN;
+        }
+
+        double standardDeviation = total > 1 ? Math.sqrt(square / (total - 1)) : total == 1 ? 0 : Double.NaN;
+        return new ProfitDistribution(samples, samples - total, lossCount, mean, standardDeviation,
+            minimum, maximum, fine, histogram, seed, System.nanoTime() - start);
+    }
+
+    /**
+     * One profit sample, or NaN when the drawn inputs leave the trade undefined. Inputs are always
+     * drawn in the same order so both passes see the same values.
+     */
+    private double draw(Inputs inputs, SplittableRandom random) {
+        double opening = inputs.opening.sample(random);
+        double closing = inputs.closing.sample(random);
+        double tradeAmount = inputs.tradeAmount.sample(random);
+        double spread = inputs.spread.sample(random);
+        if (opening <= 0 || closing <= 0 || tradeAmount < 0 || spread < 0) {
+            return Double.NaN;
+        }
+        double openingFactor = FastTradeFunction.openingFactor(action, basedOnMarketRate, spread, opening);
+        double closingFactor = FastTradeFunction.closingFactor(action, basedOnMarketRate, spread, closing);
+        // A spread wider than twice the rate leaves a negative execution rate
+        if (!(openingFactor > 0) || !(closingFactor > 0)) {
+            return Double.NaN;
+        }
+        double profit = tradeAmount * rateProduct * (openingFactor * closingFactor - 1);
+        return Double.isFinite(profit) ? profit : Double.NaN;
+    }
+
+    private static SplittableRandom[] streams(long seed, int chunks) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            streams[chunk] = root.split();
+        }
+        return streams;
+    }
+
+    private static long chunkSize(int chunk, long samples) {
+        return Math.min(CHUNK_SAMPLES, samples - (long) chunk * CHUNK_SAMPLES);
+    }
+
+    private static int bin(double position, int bins) {
+        return Math.min(bins - 1, (int) (position * bins));
+    }
+
+    // Parallel streams run in the pool of the thread that starts them
+    private <T> T run(Supplier<T> work) {
+        return pool == ForkJoinPool.commonPool() ? work.get() : pool.submit(work::get).join();
+    }
+
+    private void run(Runnable work) {
+        run(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private record Inputs(Distribution opening, Distribution closing, Distribution tradeAmount, Distribution spread) {
+    }
+}
@@ -0,0 +1,130 @@
+package co.za.Main.TradeModules;
+
+/**
+ * Result of a {@link MonteCarloSimulator} run: summary statistics, percentiles and a histogram of
+ * the simulated profit.
+ *
+ * Samples whose drawn inputs make the trade undefined (a non-positive rate, a negative amount or
+ * spread) are counted as rejected and left out of every statistic.
+ *
+ * Percentiles are read from a fine histogram of {@value MonteCarloSimulator#FINE_BINS} bins over
+ * [minimum, maximum] and interpolated within a bin, so they are accurate to
+ * {@code (maximum - minimum) / FINE_BINS}. The histogram returned to callers is a coarser one with
+ * the requested number of equal-width bins over the same range.
+ */
+public final class ProfitDistribution {
+
+    private final long samples;
+    private final long rejected;
+    private final long losses;
+    private final double mean;
+    private final double standardDeviation;
+    private final double minimum;
+    private final double maximum;
+    private final long[] fineCounts;
+    private final long[] histogram;
+    private final long seed;
+    private final long elapsedNanos;
+
+    ProfitDistribution(long samples, long rejected, long losses, double mean, double standardDeviation,
+                       double minimum, double maximum, long[] fineCounts, long[] histogram,
+                       long seed, long elapsedNanos) {
+        this.samples = samples;
+        this.rejected = rejected;
+        this.losses = losses;
+        this.mean = mean;
+        this.standardDeviation = standardDeviation;
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.fineCounts = fineCounts;
+        this.histogram = histogram;
+        this.seed = seed;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Profit at or below which {@code percent} of the accepted samples lie, e.g. 95 for P95.
+     * NaN when every sample was rejected.
+     */
+    public double percentile(double percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percent);
+        }
+        long accepted = accepted();
+        if (accepted == 0) {
+            return Double.NaN;
+        }
+        double target = percent / 100 * accepted;
+        double width = (maximum - minimum) / fineCounts.length;
+        long below = 0;
+        for (int bin = 0; bin < fineCounts.length; bin++) {
+            long count = fineCounts[bin];
+            if (count > 0 && below + count >= target) {
+                double within = (target - below) / count;
+                return Math.min(maximum, Math.max(minimum, minimum + (bin + within) * width));
+            }
+            below += count;
+        }
+        return maximum;
+    }
+
+    public long[] histogram() {
+        return histogram.clone();
+    }
+
+    /** Lower edge of histogram bin {@code index}; {@code binEdge(bins)} is the maximum. */
+    public double binEdge(int index) {
+        return index == histogram.length ? maximum : minimum + (maximum - minimum) * index / histogram.length;
+    }
+
+    public int bins() {
+        return histogram.length;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long accepted() {
+        return samples - rejected;
+    }
+
+    /** Expected profit. */
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public double getMinimum() {
+        return minimum;
+    }
+
+    public double getMaximum() {
+        return maximum;
+    }
+
+    /** Share of accepted samples with a negative profit. */
+    public double lossProbability() {
+        long accepted = accepted();
+        return accepted == 0 ? Double.NaN : (double) losses / accepted;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double samplesPerSecond() {
+        return elapsedNanos == 0 ? 0 : samples * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,15 @@
+package co.za.Main.TradeModules;
+
+import java.math.BigDecimal;
+
+/**
+ * Trade profit and its first derivatives with respect to each input, at one scenario.
+ *
+ * {@code spread} is zero in execution mode, where the rates already include the spread. The rate
+ * and trade amount derivatives follow from profit being linear in each of them, e.g.
+ * {@code rateBK = profit / rateBK}.
+ */
+public record ProfitSensitivities(BigDecimal profit, BigDecimal opening, BigDecimal closing,
+                                  BigDecimal spread, BigDecimal rateBK, BigDecimal rateKN,
+                                  BigDecimal tradeAmount) {
+}
@@ -0,0 +1,142 @@
+package co.za.Main.TradeModules;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Result of a {@link ProfitSurfaceSweep}: profit factor for every opening x closing pair, and
+ * profit for every trade amount x opening x closing triple, held in flat primitive arrays.
+ *
+ * Layout, row-major with the closing rate varying fastest:
+ *   profitFactor[o * closings + c]
+ *   profit[(a * openings + o) * closings + c]
+ *
+ * Points whose rates leave a factor undefined (a zero adjusted rate) hold NaN or infinity.
+ */
+public final class ProfitSurface {
+
+    /** "TPSF" */
+    public static final int BINARY_MAGIC = 0x54505346;
+    public static final int BINARY_VERSION = 1;
+
+    private final double[] openings;
+    private final double[] closings;
+    private final double[] tradeAmounts;
+    private final double[] profitFactor;
+    private final double[] profit;
+    private final long elapsedNanos;
+
+    ProfitSurface(double[] openings, double[] closings, double[] tradeAmounts,
+                  double[] profitFactor, double[] profit, long elapsedNanos) {
+        this.openings = openings;
+        this.closings = closings;
+        this.tradeAmounts = tradeAmounts;
+        this.profitFactor = profitFactor;
+        this.profit = profit;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public double profitFactor(int opening, int closing) {
+        return profitFactor[opening * closings.length + closing];
+    }
+
+    public double profit(int tradeAmount, int opening, int closing) {
+        return profit[(tradeAmount * openings.length + opening) * closings.length + closing];
+    }
+
+    public int openingCount() {
+        return openings.length;
+    }
+
+    public int closingCount() {
+        return closings.length;
+    }
+
+    public int tradeAmountCount() {
+        return tradeAmounts.length;
+    }
+
+    public double opening(int index) {
+        return openings[index];
+    }
+
+    public double closing(int index) {
+        return closings[index];
+    }
+
+    public double tradeAmount(int index) {
+        return tradeAmounts[index];
+    }
+
+    /**
+     * Number of profit points evaluated: trade amounts x openings x closings.
+     */
+    public long points() {
+        return (long) tradeAmounts.length * openings.length * closings.length;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double pointsPerSecond() {
+        return elapsedNanos == 0 ? 0 : points() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Writes one line per profit point: tradeamount,opening,closing,profit,profitfactor,
+     * after a header line. The caller owns and closes the writer.
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("tradeamount,opening,closing,profit,profitfactor\n");
+        StringBuilder line = new StringBuilder(96);
+        int closingCount = closings.length;
+        for (int a = 0; a < tradeAmounts.length; a++) {
+            for (int o = 0; o < openings.length; o++) {
+                int row = o * closingCount;
+                int profitRow = (a * openings.length + o) * closingCount;
+                for (int c = 0; c < closingCount; c++) {
+                    line.setLength(0);
+                    line.append(tradeAmounts[a]).append(',')
+                        .append(openings[o]).append(',')
+                        .append(closings[c]).append(',')
+                        .append(profit[profitRow + c]).append(',')
+                        .append(profitFactor[row + c]).append('\n');
+                    out.append(line);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the surface as big-endian binary:
+     *   int magic ("TPSF"), int version, int openings, int closings, int tradeAmounts,
+     *   double[openings], double[closings], double[tradeAmounts],
+     *   double[openings * closings] profit factor, double[tradeAmounts * openings * closings] profit
+     * in the array layout described on the class. The caller owns and closes the stream.
+     */
+    public void writeBinary(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        data.writeInt(BINARY_MAGIC);
+        data.writeInt(BINARY_VERSION);
+        data.writeInt(openings.length);
+        data.writeInt(closings.length);
+        data.writeInt(tradeAmounts.length);
+        writeDoubles(data, openings);
+        writeDoubles(data, closings);
+        writeDoubles(data, tradeAmounts);
+        writeDoubles(data, profitFactor);
+        writeDoubles(data, profit);
+        data.flush();
+    }
+
+    private static void writeDoubles(DataOutputStream data, double[] values) throws IOException {
+        for (double value : values) {
+            data.writeDouble(value);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package co.za.Main.TradeModules;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates profit and profit factor over a whole opening x closing rate grid, at one or more
+ * trade amounts, using the {@link FastTradeFunction} formulas.
+ *
+ * Profit factor only depends on the two legs, {@code openingFactor * closingFactor - 1}, and
+ * profit is that times {@code tradeAmount * rateBK * rateKN}. So the factors are worked out once
+ * per opening and per closing rate, and every grid point is one multiply-subtract plus one
+ * multiply per trade amount.
+ *
+ * The grid is split into rectangular tiles on a fork-join pool. Each tile writes a disjoint block
+ * of the result arrays, so no locking is needed.
+ */
+public final class ProfitSurfaceSweep {
+
+    // Large enough to amortise task overhead, small enough to keep a tile's rows in cache
+    private static final int TILE_POINTS = 16 * 1024;
+
+    private final TradeAction action;
+    private final boolean basedOnMarketRate;
+    private final double spread;
+    private final double rateProduct;
+    private final ForkJoinPool pool;
+
+    public ProfitSurfaceSweep(TradeAction action, boolean basedOnMarketRate, double spread,
+                              double rateBK, double rateKN) {
+        this(action, basedOnMarketRate, spread, rateBK, rateKN, ForkJoinPool.commonPool());
+    }
+
+    public ProfitSurfaceSweep(TradeAction action, boolean basedOnMarketRate, double spread,
+                              double rateBK, double rateKN, ForkJoinPool pool) {
+        if (action != TradeAction.SELL && action != TradeAction.BUY) {
+            throw new IllegalArgumentException("Unsupported TradeAction: " + action);
+        }
+        this.action = action;
+        this.basedOnMarketRate = basedOnMarketRate;
+        this.spread = spread;
+        this.rateProduct = rateBK * rateKN;
+        this.pool = pool;
+    }
+
+    /**
+     * {@code steps} evenly spaced values from min to max inclusive; a single step gives just min.
+     */
+    public static double[] grid(double min, double max, int steps) {
+        if (steps < 1) {
+            throw new IllegalArgumentException("A grid needs at least one step: " + steps);
+        }
+        double[] values = new double[steps];
+        double step = steps == 1 ? 0 : (max - min) / (steps - 1);
+        for (int i = 0; i < steps; i++) {
+            values[i] = min + step * i;
+        }
+        if (steps > 1) {
+            values[steps - 1] = max;
+        }
+        return values;
+    }
+
+    public ProfitSurface sweep(double[] openings, double[] closings, double[] tradeAmounts) {
+        long points = (long) openings.length * closings.length * Math.max(1, tradeAmounts.length);
+        if (points > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Surface of " + points + " points does not fit in one array");
+        }
+
+        long start = System.nanoTime();
+
+        double[] openingFactors = new double[openings.length];
+        for (int o = 0; o < openings.length; o++) {
+            openingFactors[o] = FastTradeFunction.openingFactor(action, basedOnMarketRate, spread, openings[o]);
+        }
+        double[] closingFactors = new double[closings.length];
+        for (int c = 0; c < closings.length; c++) {
+            closingFactors[c] = FastTradeFunction.closingFactor(action, basedOnMarketRate, spread, closings[c]);
+        }
+        double[] profitPerFactor = new double[tradeAmounts.length];
+        for (int a = 0; a < tradeAmounts.length; a++) {
+            profitPerFactor[a] = tradeAmounts[a] * rateProduct;
+        }
+
+        double[] profitFactor = new double[openings.length * closings.length];
+        double[] profit = new double[tradeAmounts.length * openings.length * closings.length];
+
+        pool.invoke(new Tile(openingFactors, closingFactors, profitPerFactor, profitFactor, profit,
+            0, openings.length, 0, closings.length));
+
+        return new ProfitSurface(openings.clone(), closings.clone(), tradeAmounts.clone(),
+            profitFactor, profit, System.nanoTime() - start);
+    }
+
+    private static final class Tile extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] openingFactors;
+        private final double[] closingFactors;
+        private final double[] profitPerFactor;
+        private final double[] profitFactor;
+        private final double[] profit;
+        private final int rowStart;
+        private final int rowEnd;
+        private final int columnStart;
+        private final int columnEnd;
+
+        Tile(double[] openingFactors, double[] closingFactors, double[] profitPerFactor,
+             double[] profitFactor, double[] profit, int rowStart, int rowEnd, int columnStart, int columnEnd) {
+            this.openingFactors = openingFactors;
+            this.closingFactors = closingFactors;
+            this.profitPerFactor = profitPerFactor;
+            this.profitFactor = profitFactor;
+            this.profit = profit;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.columnStart = columnStart;
+            this.columnEnd = columnEnd;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = rowEnd - rowStart;
+            int columns = columnEnd - columnStart;
+            if ((long) rows * columns <= TILE_POINTS || (rows == 1 && columns == 1)) {
+                computeDirectly();
+                return;
+            }
+            // Split the longer side so tiles stay roughly square
+            if (rows >= columns) {
+                int middle = rowStart + rows / 2;
+                invokeAll(new Tile(openingFactors, closingFactors, profitPerFactor, profitFactor, profit,
+                        rowStart, middle, columnStart, columnEnd),
+                    new Tile(openingFactors, closingFactors, profitPerFactor, profitFactor, profit,
+                        middle, rowEnd, columnStart, columnEnd));
+            } else {
+                int middle = columnStart + columns / 2;
+                invokeAll(new Tile(openingFactors, closingFactors, profitPerFactor, profitFactor, profit,
+                        rowStart, rowEnd, columnStart, middle),
+                    new Tile(openingFactors, closingFactors, profitPerFactor, profitFactor, profit,
+                        rowStart, rowEnd, middle, columnEnd));
+            }
+        }
+
+        private void computeDirectly() {
+            int closingCount = closingFactors.length;
+            int openingCount = openingFactors.length;
+            for (int o = rowStart; o < rowEnd; o++) {
+                double openingFactor = openingFactors[o];
+                int row = o * closingCount;
+                for (int c = columnStart; c < columnEnd; c++) {
+                    profitFactor[row + c] = openingFactor * closingFactors[c] - 1;
+                }
+                for (int a = 0; a < profitPerFactor.length; a++) {
+                    double scale = profitPerFactor[a];
+                    int profitRow = (a * openingCount + o) * closingCount;
+                    for (int c = columnStart; c < columnEnd; c++) {
+                        profit[profitRow + c] = scale * profitFactor[row + c];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Command-line sweep, e.g.
+     *   ProfitSurfaceSweep SELL false 0.01 17.7055 1 17.0 18.0 2000 17.0 18.0 2000 10000,20000,50000 surface.bin
+     * Output ending in .csv is written as CSV, anything else as binary; "-" skips writing and
+     * only reports throughput.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 13) {
+            System.err.println("Usage: ProfitSurfaceSweep <SELL|BUY> <basedOnMarketRate> <spread> <rateBK> <rateKN>"
+                + " <openingMin> <openingMax> <openingSteps> <closingMin> <closingMax> <closingSteps>"
+                + " <tradeAmount,...> <output.csv|output.bin|->");
+            System.exit(1);
+        }
+
+        ProfitSurfaceSweep sweep = new ProfitSurfaceSweep(TradeAction.valueOf(args[0].toUpperCase()),
+            Boolean.parseBoolean(args[1]), Double.parseDouble(args[2]), Double.parseDouble(args[3]), Double.parseDouble(args[4]));
+        double[] openings = grid(Double.parseDouble(args[5]), Double.parseDouble(args[6]), Integer.parseInt(args[7]));
+        double[] closings = grid(Double.parseDouble(args[8]), Double.parseDouble(args[9]), Integer.parseInt(args[10]));
+        double[] tradeAmounts = Arrays.stream(args[11].split(",")).mapToDouble(Double::parseDouble).toArray();
+
+        ProfitSurface surface = sweep.sweep(openings, closings, tradeAmounts);
+        System.out.printf("Swept %,d points in %.1f ms (%,.0f points/s on %d threads)%n",
+            surface.points(), surface.getElapsedNanos() / 1e6, surface.pointsPerSecond(), sweep.pool.getParallelism());
+
+        String output = args[12];
+        if (!"-".equals(output)) {
+            long start = System.nanoTime();
+            try (OutputStream out = new FileOutputStream(output)) {
+                if (output.endsWith(".csv")) {
+                    surface.writeCsv(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024));
+                } else {
+                    surface.writeBinary(out);
+                }
+            }
+            System.out.printf("Wrote %s in %.1f ms%n", output, (System.nanoTime() - start) / 1e6);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package co.za.Main.TradeModules;
+
+/**
+ * How a query turns input ranges into output ranges.
+ *
+ * INTERVAL - {@link IntervalBoundsEngine}, the exact smallest and largest value of each output
+ *            over the input ranges, whatever the signs and trade action (default)
+ * CORNERS  - the original fixed corners, e.g. lowest opening with highest closing for the minimum
+ *            profit, evaluated with the selected {@link TradeEngine}. Only correct for some sign
+ *            and action combinations; kept for comparison.
+ */
+public enum TradeBounds {
+
+    INTERVAL, CORNERS;
+
+    public static TradeBounds fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown bounds method '" + name + "', expected one of INTERVAL, CORNERS");
+        }
+    }
+}
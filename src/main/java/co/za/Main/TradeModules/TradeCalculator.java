@@ -0,0 +1,20 @@
+package co.za.Main.TradeModules;
+
+import java.math.BigDecimal;
+
+/**
+ * The trade calculations shared by every engine, bound to one action, spread, rate pair and
+ * opening/closing rate. Create instances with {@link TradeEngine#create}.
+ */
+public interface TradeCalculator {
+
+    BigDecimal returnProfit(BigDecimal tradeAmount);
+
+    BigDecimal returnProfitFactor(BigDecimal tradeProfit, BigDecimal tradeAmount);
+
+    BigDecimal returnTradeAmount(BigDecimal tradeProfit, BigDecimal tradeAmount);
+
+    BigDecimal returnOpening(BigDecimal tradeProfit, BigDecimal tradeAmount);
+
+    BigDecimal returnClosing(BigDecimal tradeProfit, BigDecimal tradeAmount);
+}
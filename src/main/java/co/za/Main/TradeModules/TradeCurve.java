@@ -0,0 +1,155 @@
+package co.za.Main.TradeModules;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * Immutable equivalent of {@link Trade_Function}.
+ *
+ * Everything that depends only on the action, mode, spread, rates and opening/closing rate is
+ * worked out once in the constructor: the half spread, the spread-adjusted opening and closing
+ * factors, rateBK * rateKN and the profit per unit traded. The {@code return*} methods only
+ * combine those with their arguments, and give exactly the same results as Trade_Function.
+ *
+ * Instances have no mutable state, so one curve can be shared between threads and used as a
+ * cache key; two curves built from numerically equal inputs are equal.
+ */
+public final class TradeCurve implements TradeCalculator {
+
+    private static final int SCALE = 10;
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private final TradeAction action;
+    private final boolean basedOnMarketRate;
+    private final BigDecimal spread;
+    private final BigDecimal rateBK;
+    private final BigDecimal rateKN;
+    private final BigDecimal openingValue;
+    private final BigDecimal closingValue;
+
+    private final BigDecimal halfSpread;
+    private final BigDecimal openingFactor;
+    private final BigDecimal closingFactor;
+    private final BigDecimal rateProduct;
+    // rateBK * rateKN * (openingFactor * closingFactor - 1): profit per unit traded
+    private final BigDecimal profitPerUnit;
+
+    public TradeCurve(TradeAction action, boolean basedOnMarketRate, BigDecimal spread,
+                      BigDecimal rateBK, BigDecimal rateKN, BigDecimal openingValue, BigDecimal closingValue) {
+        this.action = Objects.requireNonNull(action, "action");
+        this.basedOnMarketRate = basedOnMarketRate;
+        this.spread = spread;
+        this.rateBK = rateBK;
+        this.rateKN = rateKN;
+        this.openingValue = openingValue;
+        this.closingValue = closingValue;
+
+        if (action == TradeAction.SELL) {
+            if (closingValue.signum() == 0) {
+                throw new ArithmeticException("Closing execution rate cannot be zero for SELL action");
+            }
+        } else if (action == TradeAction.BUY) {
+            if (openingValue.signum() == 0) {
+                throw new ArithmeticException("Opening execution rate cannot be zero for BUY action");
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported TradeAction: " + action);
+        }
+
+        this.halfSpread = spread.divide(TWO, SCALE, RoundingMode.HALF_UP);
+        if (action == TradeAction.SELL) {
+            BigDecimal adjOpen = basedOnMarketRate ? openingValue.subtract(halfSpread) : openingValue;
+            BigDecimal adjClose = basedOnMarketRate ? closingValue.add(halfSpread) : closingValue;
+            this.openingFactor = adjOpen;
+            this.closingFactor = BigDecimal.ONE.divide(adjClose, SCALE, RoundingMode.HALF_UP);
+        } else {
+            BigDecimal adjOpen = basedOnMarketRate ? openingValue.add(halfSpread) : openingValue;
+            BigDecimal adjClose = basedOnMarketRate ? closingValue.subtract(halfSpread) : closingValue;
+            this.openingFactor = BigDecimal.ONE.divide(adjOpen, SCALE, RoundingMode.HALF_UP);
+            this.closingFactor = adjClose;
+        }
+        this.rateProduct = rateBK.multiply(rateKN);
+        this.profitPerUnit = rateProduct.multiply(openingFactor.multiply(closingFactor).subtract(BigDecimal.ONE));
+    }
+
+    @Override
+    public BigDecimal returnProfit(BigDecimal tradeAmount) {
+        return tradeAmount.multiply(profitPerUnit);
+    }
+
+    @Override
+    public BigDecimal returnProfitFactor(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+        return tradeProfit.divide(tradeAmount.multiply(rateProduct), SCALE, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public BigDecimal returnTradeAmount(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+        return tradeProfit.divide(profitPerUnit, SCALE, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public BigDecimal returnOpening(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+        BigDecimal factor = returnProfitFactor(tradeProfit, tradeAmount).add(BigDecimal.ONE)
+            .divide(closingFactor, SCALE, RoundingMode.HALF_UP);
+        return action == TradeAction.SELL ? factor : BigDecimal.ONE.divide(factor, SCALE, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public BigDecimal returnClosing(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+        BigDecimal factor = returnProfitFactor(tradeProfit, tradeAmount).add(BigDecimal.ONE)
+            .divide(openingFactor, SCALE, RoundingMode.HALF_UP);
+        return action == TradeAction.SELL ? BigDecimal.ONE.divide(factor, SCALE, RoundingMode.HALF_UP) : factor;
+    }
+
+    public TradeAction getAction() {
+        return action;
+    }
+
+    public boolean isBasedOnMarketRate() {
+        return basedOnMarketRate;
+    }
+
+    public BigDecimal getHalfSpread() {
+        return halfSpread;
+    }
+
+    public BigDecimal getOpeningFactor() {
+        return openingFactor;
+    }
+
+    public BigDecimal getClosingFactor() {
+        return closingFactor;
+    }
+
+    public BigDecimal getRateProduct() {
+        return rateProduct;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof TradeCurve curve)) return false;
+        return action == curve.action
+            && basedOnMarketRate == curve.basedOnMarketRate
+            && spread.compareTo(curve.spread) == 0
+            && rateBK.compareTo(curve.rateBK) == 0
+            && rateKN.compareTo(curve.rateKN) == 0
+            && openingValue.compareTo(curve.openingValue) == 0
+            && closingValue.compareTo(curve.closingValue) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        // Strip trailing zeros so 17.70 and 17.7 hash alike, matching compareTo in equals
+        return Objects.hash(action, basedOnMarketRate, spread.stripTrailingZeros(), rateBK.stripTrailingZeros(),
+            rateKN.stripTrailingZeros(), openingValue.stripTrailingZeros(), closingValue.stripTrailingZeros());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TradeCurve[%s, %s, spread=%s, rateBK=%s, rateKN=%s, opening=%s, closing=%s]",
+            action, basedOnMarketRate ? "market" : "execution", spread.toPlainString(), rateBK.toPlainString(),
+            rateKN.toPlainString(), openingValue.toPlainString(), closingValue.toPlainString());
+    }
+}
@@ -0,0 +1,163 @@
+package co.za.Main.TradeModules;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import co.za.Main.Logging.Log;
+
+/**
+ * Selects the arithmetic behind a {@link TradeCalculator}.
+ *
+ * BIG_DECIMAL - {@link TradeCurve}, exact arithmetic with divisions rounded to 10 places (default)
+ * DOUBLE      - {@link FastTradeFunction}, results rounded to 10 places at the end
+ * CROSS_CHECK - runs both, returns the BigDecimal result and reports any result where the two
+ *               differ by more than {@link #CROSS_CHECK_TOLERANCE} relative to max(1, |result|)
+ *
+ * The tolerance can be set with -Dtrade.engine.tolerance (default 1e-4). Differences come almost
+ * entirely from the BigDecimal engine rounding reciprocal rates to 10 places, which the
+ * (openingFactor * closingFactor - 1) term amplifies close to break-even: a 0.07% move on a rate
+ * of 17.7 already gives a relative difference of about 5e-6. A wrong formula or a missed spread
+ * adjustment shows up orders of magnitude above the default.
+ *
+ * Every engine is used through the BigDecimal signatures of {@link TradeCalculator}, because its
+ * callers read their inputs from and write their results to the trade table as BigDecimal. DOUBLE
+ * therefore converts each argument with doubleValue() and allocates the rounded BigDecimal result
+ * on every call; only the {@link FastTradeFunction} underneath is allocation-free. Callers that
+ * already hold primitives, such as {@link ProfitSurfaceSweep} and {@link MonteCarloSimulator}, use
+ * {@link FastTradeFunction} directly rather than going through an engine.
+ */
+public enum TradeEngine {
+
+    BIG_DECIMAL, DOUBLE, CROSS_CHECK;
+
+    public static final double CROSS_CHECK_TOLERANCE =
+        Double.parseDouble(System.getProperty("trade.engine.tolerance", "1e-4"));
+
+    private static final int SCALE = 10;
+    private static final LongAdder MISMATCHES = new LongAdder();
+    private static final Log LOG = Log.get(TradeEngine.class);
+
+    public TradeCalculator create(TradeAction action, boolean basedOnMarketRate, BigDecimal spread,
+                                  BigDecimal rateBK, BigDecimal rateKN,
+                                  BigDecimal opening_value, BigDecimal closing_value) {
+        switch (this) {
+            case DOUBLE:
+                return new DoubleCalculator(new FastTradeFunction(action, basedOnMarketRate, spread.doubleValue(),
+                    rateBK.doubleValue(), rateKN.doubleValue(), opening_value.doubleValue(), closing_value.doubleValue()));
+            case CROSS_CHECK:
+                return new CrossCheckCalculator(
+                    BIG_DECIMAL.create(action, basedOnMarketRate, spread, rateBK, rateKN, opening_value, closing_value),
+                    DOUBLE.create(action, basedOnMarketRate, spread, rateBK, rateKN, opening_value, closing_value));
+            default:
+                return new TradeCurve(action, basedOnMarketRate, spread, rateBK, rateKN, opening_value, closing_value);
+        }
+    }
+
+    /**
+     * Accepts the enum names case-insensitively, with or without underscores or dashes
+     * ("double", "crosscheck", "cross-check", "BIG_DECIMAL").
+     */
+    public static TradeEngine fromName(String name) {
+        String normalised = name.trim().replace("-", "").replace("_", "").toUpperCase();
+        for (TradeEngine engine : values()) {
+            if (engine.name().replace("_", "").equals(normalised)) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Unknown trade engine '" + name + "', expected one of BIG_DECIMAL, DOUBLE, CROSS_CHECK");
+    }
+
+    /**
+     * Number of cross-checked results outside the tolerance since start-up.
+     */
+    public static long mismatches() {
+        return MISMATCHES.sum();
+    }
+
+    private static BigDecimal toDecimal(double value) {
+        if (!Double.isFinite(value)) {
+            throw new ArithmeticException("Result is not finite: " + value);
+        }
+        return new BigDecimal(value).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    // Converts at the BigDecimal boundary on every call; see the class comment
+    private record DoubleCalculator(FastTradeFunction function) implements TradeCalculator {
+
+        @Override
+        public BigDecimal returnProfit(BigDecimal tradeAmount) {
+            return toDecimal(function.returnProfit(tradeAmount.doubleValue()));
+        }
+
+        @Override
+        public BigDecimal returnProfitFactor(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+            return toDecimal(function.returnProfitFactor(tradeProfit.doubleValue(), tradeAmount.doubleValue()));
+        }
+
+        @Override
+        public BigDecimal returnTradeAmount(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+            return toDecimal(function.returnTradeAmount(tradeProfit.doubleValue(), tradeAmount.doubleValue()));
+        }
+
+        @Override
+        public BigDecimal returnOpening(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+            return toDecimal(function.returnOpening(tradeProfit.doubleValue(), tradeAmount.doubleValue()));
+        }
+
+        @Override
+        public BigDecimal returnClosing(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+            return toDecimal(function.returnClosing(tradeProfit.doubleValue(), tradeAmount.doubleValue()));
+        }
+    }
+
+    private record CrossCheckCalculator(TradeCalculator exact, TradeCalculator fast) implements TradeCalculator {
+
+        @Override
+        public BigDecimal returnProfit(BigDecimal tradeAmount) {
+            return check("returnProfit", exact.returnProfit(tradeAmount), () -> fast.returnProfit(tradeAmount));
+        }
+
+        @Override
+        public BigDecimal returnProfitFactor(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+            return check("returnProfitFactor", exact.returnProfitFactor(tradeProfit, tradeAmount),
+                () -> fast.returnProfitFactor(tradeProfit, tradeAmount));
+        }
+
+        @Override
+        public BigDecimal returnTradeAmount(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+            return check("returnTradeAmount", exact.returnTradeAmount(tradeProfit, tradeAmount),
+                () -> fast.returnTradeAmount(tradeProfit, tradeAmount));
+        }
+
+        @Override
+        public BigDecimal returnOpening(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+            return check("returnOpening", exact.returnOpening(tradeProfit, tradeAmount),
+                () -> fast.returnOpening(tradeProfit, tradeAmount));
+        }
+
+        @Override
+        public BigDecimal returnClosing(BigDecimal tradeProfit, BigDecimal tradeAmount) {
+            return check("returnClosing", exact.returnClosing(tradeProfit, tradeAmount),
+                () -> fast.returnClosing(tradeProfit, tradeAmount));
+        }
+
+        private static BigDecimal check(String operation, BigDecimal exactResult, Supplier<BigDecimal> fastResult) {
+            double expected = exactResult.doubleValue();
+            double actual;
+            try {
+                actual = fastResult.get().doubleValue();
+            } catch (ArithmeticException e) {
+                actual = Double.NaN;
+            }
+            double difference = Math.abs(expected - actual);
+            // Written so that a NaN difference counts as a mismatch
+            if (!(difference <= CROSS_CHECK_TOLERANCE * Math.max(1, Math.abs(expected)))) {
+                MISMATCHES.increment();
+                LOG.warn("Engine mismatch in " + operation + ": BigDecimal=" + exactResult.toPlainString()
+                    + ", double=" + actual + ", difference=" + difference);
+            }
+            return exactResult;
+        }
+    }
+}
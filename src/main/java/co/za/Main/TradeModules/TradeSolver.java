@@ -0,0 +1,266 @@
+package co.za.Main.TradeModules;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Solves for the opening rate, closing rate, trade amount or spread that gives a target profit or
+ * profit factor, for whole batches of scenarios in {@code double} arithmetic.
+ *
+ * With {@code h} half the spread in market mode (zero otherwise) and {@code g = 1 + profit factor},
+ * the trade is {@code (open - h) / (close + h) = g} when selling and
+ * {@code (close - h) / (open + h) = g} when buying. That is linear in each of open, close and h, so
+ * every unknown has a closed form and no iteration is needed, e.g. selling needs
+ * {@code open = g * (close + h) + h} and {@code spread = 2 * (open - g * close) / (1 + g)}. A
+ * profit target becomes a profit factor through {@code profit / (tradeAmount * rateBK * rateKN)},
+ * except when solving for the trade amount itself.
+ *
+ * Batches are held as parallel primitive arrays and solved in fixed-size blocks on a fork-join
+ * pool. Within a block the growth factors are computed in one straight loop and the solution in
+ * another, with the action and mode hoisted out, so the JIT can vectorise them; feasibility is
+ * checked in a final pass. A scenario with no valid answer gets NaN and an {@link Outcome} saying
+ * why.
+ */
+public final class TradeSolver {
+
+    private static final int BLOCK = 4096;
+    // A profit factor this close to zero is rounding noise (see FastTradeFunction), so treated as break-even
+    private static final double BREAK_EVEN = 1e-12;
+
+    public enum Unknown {
+        OPENING, CLOSING, TRADE_AMOUNT, SPREAD;
+
+        public static Unknown fromName(String name) {
+            String normalised = name.trim().toUpperCase().replace("TRADEAMOUNT", "TRADE_AMOUNT");
+            try {
+                return valueOf(normalised);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown variable to solve for '" + name + "', expected one of opening, closing, tradeAmount, spread");
+            }
+        }
+    }
+
+    public enum Target {
+        PROFIT, PROFIT_FACTOR;
+
+        public static Target fromName(String name) {
+            String normalised = name.trim().toUpperCase().replace("PROFITFACTOR", "PROFIT_FACTOR");
+            try {
+                return valueOf(normalised);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown target '" + name + "', expected profit or profitFactor");
+            }
+        }
+    }
+
+    public enum Outcome {
+        FEASIBLE("Feasible"),
+        INVALID_INPUT("Known inputs must be finite, with positive rates and amount and a non-negative spread"),
+        TOTAL_LOSS("Target loses the whole trade or more, which no positive rate can give"),
+        NON_POSITIVE_RATE("The required rate is not positive"),
+        OPPOSITE_SIGN("Target profit has the opposite sign to the profit per unit traded"),
+        NEGATIVE_SPREAD("Target needs a negative spread"),
+        NO_EFFECT("The unknown does not affect the target");
+
+        private final String description;
+
+        Outcome(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * One batch: {@code target[i]} with the known inputs of scenario {@code i}. The array for the
+     * unknown is ignored and may be null; so may {@code tradeAmount} for a profit-factor target
+     * (other than solving for the amount, which needs a profit target).
+     */
+    public record Scenarios(double[] target, double[] opening, double[] closing, double[] tradeAmount, double[] spread) {
+
+        public int size() {
+            return target.length;
+        }
+    }
+
+    public record Solution(Unknown unknown, double[] values, Outcome[] outcomes, long elapsedNanos) {
+
+        public boolean feasible(int index) {
+            return outcomes[index] == Outcome.FEASIBLE;
+        }
+
+        public long feasibleCount() {
+            return Arrays.stream(outcomes).filter(outcome -> outcome == Outcome.FEASIBLE).count();
+        }
+    }
+
+    private final TradeAction action;
+    private final boolean basedOnMarketRate;
+    private final double rateProduct;
+    private final ForkJoinPool pool;
+
+    public TradeSolver(TradeAction action, boolean basedOnMarketRate, double rateBK, double rateKN) {
+        this(action, basedOnMarketRate, rateBK, rateKN, ForkJoinPool.commonPool());
+    }
+
+    public TradeSolver(TradeAction action, boolean basedOnMarketRate, double rateBK, double rateKN, ForkJoinPool pool) {
+        if (action != TradeAction.SELL && action != TradeAction.BUY) {
+            throw new IllegalArgumentException("Unsupported TradeAction: " + action);
+        }
+        this.action = action;
+        this.basedOnMarketRate = basedOnMarketRate;
+        this.rateProduct = rateBK * rateKN;
+        this.pool = pool;
+    }
+
+    public Solution solve(Target target, Unknown unknown, Scenarios scenarios) {
+        int size = scenarios.size();
+        requireLength(scenarios.opening(), size, unknown != Unknown.OPENING, "opening");
+        requireLength(scenarios.closing(), size, unknown != Unknown.CLOSING, "closing");
+        requireLength(scenarios.spread(), size, unknown != Unknown.SPREAD, "spread");
+        requireLength(scenarios.tradeAmount(), size, target == Target.PROFIT && unknown != Unknown.TRADE_AMOUNT, "tradeAmount");
+
+        long start = System.nanoTime();
+        double[] values = new double[size];
+        Outcome[] outcomes = new Outcome[size];
+
+        if (unknown == Unknown.TRADE_AMOUNT && target == Target.PROFIT_FACTOR
+                || unknown == Unknown.SPREAD && !basedOnMarketRate) {
+            Arrays.fill(values, Double.NaN);
+            Arrays.fill(outcomes, Outcome.NO_EFFECT);
+            return new Solution(unknown, values, outcomes, System.nanoTime() - start);
+        }
+
+        int blocks = (size + BLOCK - 1) / BLOCK;
+        Runnable work = () -> IntStream.range(0, blocks).parallel().forEach(block -> {
+            int from = block * BLOCK;
+            int to = Math.min(size, from + BLOCK);
+            solveBlock(target, unknown, scenarios, values, outcomes, from, to);
+        });
+        if (pool == ForkJoinPool.commonPool()) {
+            work.run();
+        } else {
+            pool.submit(work).join();
+        }
+        return new Solution(unknown, values, outcomes, System.nanoTime() - start);
+    }
+
+    private void solveBlock(Target target, Unknown unknown, Scenarios scenarios,
+                            double[] values, Outcome[] outcomes, int from, int to) {
+        double[] targets = scenarios.target();
+        double[] openings = scenarios.opening();
+        double[] closings = scenarios.closing();
+        double[] tradeAmounts = scenarios.tradeAmount();
+        double[] spreads = scenarios.spread();
+        double market = basedOnMarketRate ? 0.5 : 0;
+        boolean sell = action == TradeAction.SELL;
+
+        // Pass 1: growth factor g = 1 + profit factor
+        double[] growth = new double[to - from];
+        if (unknown != Unknown.TRADE_AMOUNT) {
+            if (target == Target.PROFIT_FACTOR) {
+                for (int i = from; i < to; i++) {
+                    growth[i - from] = targets[i] + 1;
+                }
+            } else {
+                for (int i = from; i < to; i++) {
+                    growth[i - from] = targets[i] / (tradeAmounts[i] * rateProduct) + 1;
+                }
+            }
+        }
+
+        // Pass 2: the closed-form solution
+        switch (unknown) {
+            case OPENING -> {
+                for (int i = from; i < to; i++) {
+                    double h = spreads[i] * market;
+                    double g = growth[i - from];
+                    values[i] = sell ? g * (closings[i] + h) + h : (closings[i] - h) / g - h;
+                }
+            }
+            case CLOSING -> {
+                for (int i = from; i < to; i++) {
+                    double h = spreads[i] * market;
+                    double g = growth[i - from];
+                    values[i] = sell ? (openings[i] - h) / g - h : g * (openings[i] + h) + h;
+                }
+            }
+            case TRADE_AMOUNT -> {
+                for (int i = from; i < to; i++) {
+                    double h = spreads[i] * market;
+                    double ratio = sell
+                        ? (openings[i] - h) / (closings[i] + h)
+                        : (closings[i] - h) / (openings[i] + h);
+                    double profitFactor = ratio - 1;
+                    values[i] = Math.abs(profitFactor) < BREAK_EVEN ? Double.NaN : targets[i] / (rateProduct * profitFactor);
+                }
+            }
+            case SPREAD -> {
+                for (int i = from; i < to; i++) {
+                    double g = growth[i - from];
+                    values[i] = sell
+                        ? 2 * (openings[i] - g * closings[i]) / (1 + g)
+                        : 2 * (closings[i] - g * openings[i]) / (1 + g);
+                }
+            }
+        }
+
+        // Pass 3: feasibility
+        for (int i = from; i < to; i++) {
+            Outcome outcome = check(unknown, targets[i],
+                unknown == Unknown.OPENING ? values[i] : openings[i],
+                unknown == Unknown.CLOSING ? values[i] : closings[i],
+                unknown == Unknown.SPREAD ? values[i] : spreads[i],
+                tradeAmounts == null ? Double.NaN : tradeAmounts[i],
+                unknown == Unknown.TRADE_AMOUNT ? Double.NaN : growth[i - from],
+                target, values[i]);
+            outcomes[i] = outcome;
+            if (outcome != Outcome.FEASIBLE) {
+                values[i] = Double.NaN;
+            }
+        }
+    }
+
+    // Rates are checked after spread adjustment too, so a feasible scenario is one FastTradeFunction accepts
+    private Outcome check(Unknown unknown, double target, double opening, double closing, double spread,
+                          double tradeAmount, double growth, Target targetKind, double value) {
+        if (!Double.isFinite(target) || !(rateProduct > 0)
+                || unknown != Unknown.SPREAD && !(spread >= 0 && Double.isFinite(spread))
+                || unknown != Unknown.OPENING && !(opening > 0 && Double.isFinite(opening))
+                || unknown != Unknown.CLOSING && !(closing > 0 && Double.isFinite(closing))
+                || targetKind == Target.PROFIT && unknown != Unknown.TRADE_AMOUNT && !(tradeAmount > 0 && Double.isFinite(tradeAmount))) {
+            return Outcome.INVALID_INPUT;
+        }
+        if (unknown != Unknown.TRADE_AMOUNT && !(growth > 0)) {
+            return Outcome.TOTAL_LOSS;
+        }
+        if (unknown == Unknown.TRADE_AMOUNT) {
+            if (!Double.isFinite(value)) {
+                return Outcome.NO_EFFECT;
+            }
+            if (value < 0) {
+                return Outcome.OPPOSITE_SIGN;
+            }
+        }
+        if (unknown == Unknown.SPREAD && !(spread >= 0)) {
+            return Outcome.NEGATIVE_SPREAD;
+        }
+        double h = basedOnMarketRate ? spread / 2 : 0;
+        double entry = action == TradeAction.SELL ? opening - h : opening + h;
+        double exit = action == TradeAction.SELL ? closing + h : closing - h;
+        if (!(opening > 0) || !(closing > 0) || !(entry > 0) || !(exit > 0)
+                || !Double.isFinite(opening) || !Double.isFinite(closing)) {
+            return Outcome.NON_POSITIVE_RATE;
+        }
+        return Outcome.FEASIBLE;
+    }
+
+    private static void requireLength(double[] values, int size, boolean required, String name) {
+        if (required && (values == null || values.length != size)) {
+            throw new IllegalArgumentException("'" + name + "' needs one value per scenario (" + size + ")");
+        }
+    }
+}
@@ -2,7 +2,7 @@ package co.za.Main.TradeModules;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-public class Trade_Function {
+public class Trade_Function implements TradeCalculator {
 
     BigDecimal spread;
     BigDecimal rateBK;
@@ -12,6 +12,9 @@ public class Trade_Function {
     BigDecimal closing_factor;
     BigDecimal opening_value;
     BigDecimal closing_value;
+    // Rates as passed in, before any spread adjustment, so the mode can be changed later
+    BigDecimal raw_opening_value;
+    BigDecimal raw_closing_value;
     TradeAction action;
     boolean basedOnMarketRate = false; // Default to false (execution-based)
 
@@ -31,6 +34,8 @@ public class Trade_Function {
         this.tradeAmount = tradeAmount;
         this.opening_value = opening_value;
         this.closing_value = closing_value;
+        this.raw_opening_value = opening_value;
+        this.raw_closing_value = closing_value;
         this.action = action;
         this.spread = spread;
         this.rateBK = rateBK;
@@ -70,11 +75,11 @@ public class Trade_Function {
             // opening_value is the opening sell rate
             // closing_value is the closing buy rate
             BigDecimal adjOpen = !basedOnMarketRate
-                    ? opening_value
-                    : opening_value.subtract(spread.divide(BigDecimal.valueOf(2), 10, RoundingMode.HALF_UP));
+                    ? raw_opening_value
+                    : raw_opening_value.subtract(spread.divide(BigDecimal.valueOf(2), 10, RoundingMode.HALF_UP));
             BigDecimal adjClose = !basedOnMarketRate
-                    ? closing_value
-                    : closing_value.add(spread.divide(BigDecimal.valueOf(2), 10, RoundingMode.HALF_UP));
+                    ? raw_closing_value
+                    : raw_closing_value.add(spread.divide(BigDecimal.valueOf(2), 10, RoundingMode.HALF_UP));
 
             this.opening_value = adjOpen;
             this.closing_value = adjClose;
@@ -86,11 +91,11 @@ public class Trade_Function {
             // opening_value is the opening buy rate
             // closing_value is the closing sell rate
             BigDecimal adjOpen = !basedOnMarketRate
-                    ? opening_value
-                    : opening_value.add(spread.divide(BigDecimal.valueOf(2), 10, RoundingMode.HALF_UP));
+                    ? raw_opening_value
+                    : raw_opening_value.add(spread.divide(BigDecimal.valueOf(2), 10, RoundingMode.HALF_UP));
             BigDecimal adjClose = !basedOnMarketRate
-                    ? closing_value
-                    : closing_value.subtract(spread.divide(BigDecimal.valueOf(2), 10, RoundingMode.HALF_UP));
+                    ? raw_closing_value
+                    : raw_closing_value.subtract(spread.divide(BigDecimal.valueOf(2), 10, RoundingMode.HALF_UP));
 
             this.opening_value = adjOpen;
             this.closing_value = adjClose;
@@ -104,7 +109,11 @@ public class Trade_Function {
     }
 
     public void setBasedOnMarketRate(boolean basedOnMarketRate) {
-        this.basedOnMarketRate = basedOnMarketRate;
+        if (this.basedOnMarketRate != basedOnMarketRate) {
+            this.basedOnMarketRate = basedOnMarketRate;
+            // The factors were derived in the constructor; re-derive them for the new mode
+            run_trade_action();
+        }
     }
 
     public boolean isBasedOnMarketRate() {
@@ -115,6 +124,44 @@ public class Trade_Function {
         return tradeAmount.multiply(rateBK).multiply(rateKN).multiply((opening_factor.multiply(closing_factor)).subtract(BigDecimal.ONE));
     }
 
+    // Closed-form derivatives of returnProfit, rounded to 10 places like the other results.
+    // Profit = A * R * (fo * fc - 1) with R = rateBK * rateKN, and in market mode half the
+    // spread moves each adjusted rate against the trader.
+    //   SELL: fo = open, fc = 1 / close  ->  dP/dOpen =  A*R*fc,        dP/dClose = -A*R*fo*fc^2
+    //   BUY:  fo = 1 / open, fc = close  ->  dP/dOpen = -A*R*fc*fo^2,   dP/dClose =  A*R*fo
+    //   Both: dP/dSpread = -A*R*(reciprocal factor)*(1 + fo*fc) / 2, or zero in execution mode
+    public ProfitSensitivities returnSensitivities(BigDecimal tradeAmount) {
+        BigDecimal scale = tradeAmount.multiply(rateBK).multiply(rateKN);
+        BigDecimal growth = opening_factor.multiply(closing_factor);
+        BigDecimal profitFactor = growth.subtract(BigDecimal.ONE);
+
+        BigDecimal dOpening;
+        BigDecimal dClosing;
+        BigDecimal reciprocal;
+        if (action == TradeAction.SELL) {
+            dOpening = scale.multiply(closing_factor);
+            dClosing = scale.multiply(opening_factor).multiply(closing_factor).multiply(closing_factor).negate();
+            reciprocal = closing_factor;
+        } else {
+            dOpening = scale.multiply(closing_factor).multiply(opening_factor).multiply(opening_factor).negate();
+            dClosing = scale.multiply(opening_factor);
+            reciprocal = opening_factor;
+        }
+        BigDecimal dSpread = !basedOnMarketRate
+                ? BigDecimal.ZERO
+                : scale.multiply(reciprocal).multiply(BigDecimal.ONE.add(growth))
+                    .divide(BigDecimal.valueOf(2), 10, RoundingMode.HALF_UP).negate();
+
+        return new ProfitSensitivities(
+            returnProfit(tradeAmount),
+            dOpening.setScale(10, RoundingMode.HALF_UP),
+            dClosing.setScale(10, RoundingMode.HALF_UP),
+            dSpread.setScale(10, RoundingMode.HALF_UP),
+            tradeAmount.multiply(rateKN).multiply(profitFactor).setScale(10, RoundingMode.HALF_UP),
+            tradeAmount.multiply(rateBK).multiply(profitFactor).setScale(10, RoundingMode.HALF_UP),
+            rateBK.multiply(rateKN).multiply(profitFactor).setScale(10, RoundingMode.HALF_UP));
+    }
+
     public BigDecimal returnProfitFactor(BigDecimal tradeProfit, BigDecimal tradeAmount) {
         return tradeProfit.divide(tradeAmount.multiply(rateBK).multiply(rateKN), 10, RoundingMode.HALF_UP);
     }
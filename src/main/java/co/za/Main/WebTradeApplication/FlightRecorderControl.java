@@ -0,0 +1,201 @@
+package co.za.Main.WebTradeApplication;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import co.za.Main.Logging.Log;
+
+/**
+ * Starts and stops on-demand flight recordings, so a latency spike can be captured from a running
+ * server and opened in JDK Mission Control without a restart.
+ *
+ * Only one recording runs at a time. Every recording is bounded: it stops by itself after its
+ * duration and keeps at most its size limit on disk, and both are capped by the settings below.
+ * When a recording stops it is written to {@code directory}; only the latest file is kept, and
+ * starting a new recording deletes it. The events in {@link TradeEvents} are always enabled.
+ *
+ * trade.jfr.directory          - where recordings are written (default: the system temp directory)
+ * trade.jfr.maxDurationSeconds - longest recording allowed (default 600)
+ * trade.jfr.maxSizeMb          - largest recording allowed (default 256)
+ */
+public class FlightRecorderControl implements AutoCloseable {
+
+    /** What a recording is doing, and where its file is once it has stopped. */
+    public record Status(String state, String settings, Instant started, Duration duration,
+                         long maxSizeBytes, Path file, long fileBytes) {
+    }
+
+    private static final Log LOG = Log.get(FlightRecorderControl.class);
+    private static final DateTimeFormatter FILE_TIME =
+        DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+    private static final long BYTES_PER_MB = 1024L * 1024;
+
+    private final Path directory;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+
+    private Recording recording;
+    private String settings;
+    private Path file;
+
+    public FlightRecorderControl(Path directory, long maxDurationSeconds, long maxSizeMb) {
+        if (maxDurationSeconds < 1) {
+            throw new IllegalArgumentException("Recording duration limit must be at least 1s: " + maxDurationSeconds);
+        }
+        if (maxSizeMb < 1) {
+            throw new IllegalArgumentException("Recording size limit must be at least 1MB: " + maxSizeMb);
+        }
+        this.directory = directory;
+        this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+        this.maxSizeBytes = maxSizeMb * BYTES_PER_MB;
+    }
+
+    public static FlightRecorderControl fromSystemProperties() {
+        return new FlightRecorderControl(
+            Paths.get(System.getProperty("trade.jfr.directory", System.getProperty("java.io.tmpdir"))),
+            Long.getLong("trade.jfr.maxDurationSeconds", 600L),
+            Long.getLong("trade.jfr.maxSizeMb", 256L));
+    }
+
+    /**
+     * Starts a recording with a JDK configuration ("default" or "profile").
+     *
+     * @param durationSeconds how long to record, 0 for the maximum
+     * @param sizeMb          size limit, 0 for the maximum
+     * @throws IllegalStateException    if a recording is already running
+     * @throws IllegalArgumentException if the configuration is unknown or a limit is exceeded
+     */
+    public synchronized Status start(String configuration, long durationSeconds, long sizeMb) throws IOException {
+        if (isRunning()) {
+            throw new IllegalStateException("A recording is already running; stop it first");
+        }
+        Duration duration = durationSeconds == 0 ? maxDuration : Duration.ofSeconds(durationSeconds);
+        long sizeBytes = sizeMb == 0 ? maxSizeBytes : sizeMb * BYTES_PER_MB;
+        if (duration.isNegative() || duration.compareTo(maxDuration) > 0) {
+            throw new IllegalArgumentException("Duration must be between 1 and " + maxDuration.toSeconds()
+                + " seconds (trade.jfr.maxDurationSeconds)");
+        }
+        if (sizeBytes < 0 || sizeBytes > maxSizeBytes) {
+            throw new IllegalArgumentException("Size must be between 1 and " + maxSizeBytes / BYTES_PER_MB
+                + " MB (trade.jfr.maxSizeMb)");
+        }
+
+        Configuration config;
+        try {
+            config = Configuration.getConfiguration(configuration);
+        } catch (ParseException | IOException e) {
+            throw new IllegalArgumentException("Unknown recording settings: " + configuration + " (default or profile)");
+        }
+
+        discard();
+        Files.createDirectories(directory);
+        Path target = directory.resolve("trade-" + FILE_TIME.format(Instant.now()) + ".jfr");
+        Recording started = new Recording(config);
+        started.setName("trade-on-demand");
+        started.setDuration(duration);
+        started.setMaxSize(sizeBytes);
+        started.setToDisk(true);
+        // Written here when the recording stops, whether on request or when its duration runs out
+        started.setDestination(target);
+        for (Class<? extends jdk.jfr.Event> event : TradeEvents.ALL) {
+            started.enable(event).withThreshold(Duration.ZERO);
+        }
+        started.start();
+
+        recording = started;
+        settings = configuration;
+        file = target;
+        LOG.info("Flight recording started (" + configuration + ", " + duration.toSeconds()
+            + "s, " + sizeBytes / BYTES_PER_MB + "MB) -> " + target);
+        return status();
+    }
+
+    /**
+     * Stops the running recording and writes it out.
+     *
+     * @throws IllegalStateException if no recording is running
+     */
+    public synchronized Status stop() {
+        if (!isRunning()) {
+            throw new IllegalStateException("No recording is running");
+        }
+        recording.stop();
+        LOG.info("Flight recording written to " + file);
+        return status();
+    }
+
+    /**
+     * The file of the last recording, once it has stopped.
+     *
+     * @throws IllegalStateException if a recording is running or none has been made
+     */
+    public synchronized Path recordingFile() {
+        if (recording == null) {
+            throw new IllegalStateException("No recording has been made");
+        }
+        if (isRunning()) {
+            throw new IllegalStateException("The recording is still running; stop it first");
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalStateException("The recording file " + file + " no longer exists");
+        }
+        return file;
+    }
+
+    public synchronized Status status() {
+        if (recording == null) {
+            return new Status("none", null, null, null, 0, null, -1);
+        }
+        long fileBytes = -1;
+        if (!isRunning()) {
+            try {
+                fileBytes = Files.size(file);
+            } catch (IOException e) {
+                // Deleted from under us; reported as missing
+            }
+        }
+        // A recording with a destination closes itself once written, which to callers is just stopped
+        String state = isRunning() ? recording.getState().name().toLowerCase() : "stopped";
+        return new Status(state, settings, recording.getStartTime(),
+            recording.getDuration(), recording.getMaxSize(), file, fileBytes);
+    }
+
+    private boolean isRunning() {
+        return recording != null
+            && (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED);
+    }
+
+    // Only the latest recording is kept, so the directory cannot fill up with old ones
+    private void discard() {
+        if (recording == null) {
+            return;
+        }
+        recording.close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warn("Could not delete old recording " + file + ": " + e.getMessage());
+        }
+        recording = null;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (isRunning()) {
+            recording.stop();
+            LOG.info("Flight recording written to " + file);
+        }
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package co.za.Main.WebTradeApplication;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request body is not valid JSON or does not match the expected request shape.
+ * Handlers answer it with 400 Bad Request.
+ */
+public class JsonParseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JsonParseException(String message) {
+        super(message);
+    }
+}
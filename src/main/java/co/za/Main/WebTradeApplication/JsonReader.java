@@ -0,0 +1,431 @@
+package co.za.Main.WebTradeApplication;
+
+import java.math.BigDecimal;
+
+/**
+ * Minimal pull parser for JSON request bodies.
+ *
+ * The body is scanned once, left to right, without regular expressions or an intermediate tree.
+ * Callers walk the document with {@link #beginObject()}, {@link #nextName()} and the typed
+ * {@code next*} methods, and skip anything they do not recognise with {@link #skipValue()}.
+ * Errors report the line and column of the offending character.
+ *
+ * Numbers follow the JSON grammar, including negative values, fractions and exponents, and are
+ * returned as exact {@link BigDecimal}s. Numbers whose scale is beyond {@link #MAX_SCALE} either
+ * way are rejected, since "1e999999999" is a short body but a huge value to round or divide.
+ */
+public final class JsonReader {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private static final int MAX_DEPTH = 64;
+    public static final int MAX_SCALE = 1000;
+
+    // Scopes on the nesting stack
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final String in;
+    private int pos = 0;
+    private final int[] stack = new int[MAX_DEPTH + 1];
+    private int depth = 1;
+    private Token peeked = null;
+
+    public JsonReader(String json) {
+        this.in = json;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    public Token peek() throws JsonParseException {
+        if (peeked != null) {
+            return peeked;
+        }
+
+        int scope = stack[depth - 1];
+        switch (scope) {
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case NONEMPTY_DOCUMENT:
+                if (skipWhitespace() != -1) {
+                    throw error("Unexpected content after end of document");
+                }
+                return peeked = Token.END_DOCUMENT;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT: {
+                int c = skipWhitespace();
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw error("Expected ',' or '}' in object");
+                    }
+                    pos++;
+                    c = skipWhitespace();
+                }
+                if (c != '"') {
+                    throw error("Expected a quoted field name");
+                }
+                return peeked = Token.NAME;
+            }
+            case DANGLING_NAME:
+                if (skipWhitespace() != ':') {
+                    throw error("Expected ':' after field name");
+                }
+                pos++;
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                break;
+            case EMPTY_ARRAY:
+            case NONEMPTY_ARRAY: {
+                int c = skipWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                if (scope == NONEMPTY_ARRAY) {
+                    if (c != ',') {
+                        throw error("Expected ',' or ']' in array");
+                    }
+                    pos++;
+                }
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown scope " + scope);
+        }
+
+        return peeked = peekValue();
+    }
+
+    private Token peekValue() throws JsonParseException {
+        int c = skipWhitespace();
+        switch (c) {
+            case -1:
+                throw error("Unexpected end of input");
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return Token.NUMBER;
+                }
+                throw error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    public void beginObject() throws JsonParseException {
+        expect(Token.BEGIN_OBJECT);
+        pos++;
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws JsonParseException {
+        expect(Token.END_OBJECT);
+        pos++;
+        depth--;
+    }
+
+    public void beginArray() throws JsonParseException {
+        expect(Token.BEGIN_ARRAY);
+        pos++;
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws JsonParseException {
+        expect(Token.END_ARRAY);
+        pos++;
+        depth--;
+    }
+
+    /**
+     * True while the current object or array has more members.
+     */
+    public boolean hasNext() throws JsonParseException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws JsonParseException {
+        expect(Token.NAME);
+        String name = readString();
+        stack[depth - 1] = DANGLING_NAME;
+        return name;
+    }
+
+    public String nextString() throws JsonParseException {
+        expect(Token.STRING);
+        return readString();
+    }
+
+    /**
+     * Reads a number. Numeric strings such as "17.5" are accepted too, since the web interface
+     * sends some values as strings.
+     */
+    public BigDecimal nextDecimal() throws JsonParseException {
+        Token token = peek();
+        if (token == Token.STRING) {
+            peeked = null;
+            int start = pos;
+            String text = readString();
+            BigDecimal value;
+            try {
+                value = new BigDecimal(text.trim());
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("Expected a number but was \"" + text + "\"");
+            }
+            return checkScale(value, start);
+        }
+        expect(Token.NUMBER);
+        int start = pos;
+        BigDecimal value;
+        try {
+            value = new BigDecimal(scanNumber());
+        } catch (NumberFormatException e) {
+            // Valid JSON, but the exponent does not fit in an int
+            pos = start;
+            throw error("Number out of range");
+        }
+        return checkScale(value, start);
+    }
+
+    private BigDecimal checkScale(BigDecimal value, int start) throws JsonParseException {
+        if (Math.abs((long) value.scale()) > MAX_SCALE) {
+            pos = start;
+            throw error("Number out of range, more than " + MAX_SCALE + " digits either side of the decimal point");
+        }
+        return value;
+    }
+
+    public boolean nextBoolean() throws JsonParseException {
+        expect(Token.BOOLEAN);
+        if (in.startsWith("true", pos)) {
+            pos += 4;
+            return true;
+        }
+        if (in.startsWith("false", pos)) {
+            pos += 5;
+            return false;
+        }
+        throw error("Expected true or false");
+    }
+
+    public void nextNull() throws JsonParseException {
+        expect(Token.NULL);
+        if (!in.startsWith("null", pos)) {
+            throw error("Expected null");
+        }
+        pos += 4;
+    }
+
+    /**
+     * Skips the next value, including any nested objects or arrays.
+     */
+    public void skipValue() throws JsonParseException {
+        int target = depth;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT -> beginObject();
+                case BEGIN_ARRAY -> beginArray();
+                case END_OBJECT -> endObject();
+                case END_ARRAY -> endArray();
+                case NAME -> nextName();
+                case STRING -> nextString();
+                case NUMBER -> nextDecimal();
+                case BOOLEAN -> nextBoolean();
+                case NULL -> nextNull();
+                case END_DOCUMENT -> throw error("Unexpected end of input");
+            }
+        } while (depth > target);
+    }
+
+    /**
+     * Fails unless only whitespace remains after the top-level value.
+     */
+    public void endDocument() throws JsonParseException {
+        expect(Token.END_DOCUMENT);
+    }
+
+    private void expect(Token expected) throws JsonParseException {
+        Token actual = peek();
+        if (actual != expected) {
+            throw error("Expected " + describe(expected) + " but was " + describe(actual));
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) throws JsonParseException {
+        if (depth > MAX_DEPTH) {
+            throw error("Nesting deeper than " + MAX_DEPTH + " levels");
+        }
+        stack[depth++] = scope;
+    }
+
+    private int skipWhitespace() {
+        while (pos < in.length()) {
+            char c = in.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    // pos is on the opening quote
+    private String readString() throws JsonParseException {
+        int start = ++pos;
+        // Fast path: no escapes, return a single substring
+        while (pos < in.length()) {
+            char c = in.charAt(pos);
+            if (c == '"') {
+                return in.substring(start, pos++);
+            }
+            if (c == '\\') {
+                break;
+            }
+            if (c < 0x20) {
+                throw error("Unescaped control character in string");
+            }
+            pos++;
+        }
+
+        StringBuilder builder = new StringBuilder(pos - start + 16).append(in, start, pos);
+        while (pos < in.length()) {
+            char c = in.charAt(pos++);
+            if (c == '"') {
+                return builder.toString();
+            }
+            if (c < 0x20) {
+                pos--;
+                throw error("Unescaped control character in string");
+            }
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            if (pos >= in.length()) {
+                break;
+            }
+            char escaped = in.charAt(pos++);
+            switch (escaped) {
+                case '"', '\\', '/' -> builder.append(escaped);
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> {
+                    if (pos + 4 > in.length()) {
+                        throw error("Truncated \\u escape");
+                    }
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(in.charAt(pos++), 16);
+                        if (digit < 0) {
+                            pos--;
+                            throw error("Invalid hex digit in \\u escape");
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    builder.append((char) code);
+                }
+                default -> {
+                    pos--;
+                    throw error("Invalid escape '\\" + escaped + "'");
+                }
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    // -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?
+    private String scanNumber() throws JsonParseException {
+        int start = pos;
+        if (charAt(pos) == '-') {
+            pos++;
+        }
+        if (charAt(pos) == '0') {
+            pos++;
+        } else if (isDigit(charAt(pos))) {
+            while (isDigit(charAt(pos))) pos++;
+        } else {
+            throw error("Expected a digit");
+        }
+        if (charAt(pos) == '.') {
+            pos++;
+            if (!isDigit(charAt(pos))) {
+                throw error("Expected a digit after the decimal point");
+            }
+            while (isDigit(charAt(pos))) pos++;
+        }
+        if (charAt(pos) == 'e' || charAt(pos) == 'E') {
+            pos++;
+            if (charAt(pos) == '+' || charAt(pos) == '-') {
+                pos++;
+            }
+            if (!isDigit(charAt(pos))) {
+                throw error("Expected a digit in the exponent");
+            }
+            while (isDigit(charAt(pos))) pos++;
+        }
+        int next = charAt(pos);
+        if (next != -1 && next != ',' && next != '}' && next != ']'
+                && next != ' ' && next != '\t' && next != '\n' && next != '\r') {
+            throw error("Unexpected character '" + (char) next + "' in number");
+        }
+        return in.substring(start, pos);
+    }
+
+    private int charAt(int index) {
+        return index < in.length() ? in.charAt(index) : -1;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static String describe(Token token) {
+        return switch (token) {
+            case BEGIN_OBJECT -> "'{'";
+            case END_OBJECT -> "'}'";
+            case BEGIN_ARRAY -> "'['";
+            case END_ARRAY -> "']'";
+            case NAME -> "a field name";
+            case STRING -> "a string";
+            case NUMBER -> "a number";
+            case BOOLEAN -> "a boolean";
+            case NULL -> "null";
+            case END_DOCUMENT -> "end of input";
+        };
+    }
+
+    private JsonParseException error(String message) {
+        int line = 1;
+        int lineStart = 0;
+        int limit = Math.min(pos, in.length());
+        for (int i = 0; i < limit; i++) {
+            if (in.charAt(i) == '\n') {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        return new JsonParseException(message + " at line " + line + " column " + (pos - lineStart + 1));
+    }
+}
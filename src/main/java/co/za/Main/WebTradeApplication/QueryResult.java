@@ -0,0 +1,13 @@
+package co.za.Main.WebTradeApplication;
+
+import java.math.BigDecimal;
+
+/**
+ * Calculated return range for one trade variable, written to the returnmin/returnmax columns.
+ */
+public record QueryResult(String variable, BigDecimal returnMin, BigDecimal returnMax) {
+
+    public static QueryResult zero(String variable) {
+        return new QueryResult(variable, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,253 @@
+package co.za.Main.WebTradeApplication;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeBounds;
+import co.za.Main.TradeModules.TradeEngine;
+
+/**
+ * Remembers /api/query results so a repeated query skips the calculation, and usually the
+ * database and export too.
+ *
+ * Entries are keyed on everything a result depends on: the query parameters and every input
+ * range in the table, with decimals in canonical form so {@code 1.0} and {@code 1.00} share an
+ * entry. The cache holds at most {@code maxEntries}, evicting the least recently used, and drops
+ * entries older than {@code ttlMs} when they are next looked up.
+ *
+ * The input ranges themselves are kept in memory once read, so a repeated query needs no
+ * database access at all. The cache also remembers which key's results are currently written to
+ * the table; a hit on that key needs no write either. Handlers call {@link #invalidate()} while
+ * they still hold the writer after changing inputs or results, which clears everything. Input
+ * ranges read concurrently with an invalidation are discarded rather than cached, and because
+ * keys include the inputs, a result computed from inputs that have since changed can never be
+ * returned for the new ones.
+ *
+ * Invalidation only sees changes made through this process. The cached inputs and the record of
+ * which results are in the table therefore expire after {@code ttlMs} as well, so a change made to
+ * the database file by anything else, such as the console application, is picked up within
+ * {@code ttlMs}. Lower it if other processes write to the table often.
+ *
+ * trade.cache.maxEntries - entries kept, 0 turns the cache off (default 256)
+ * trade.cache.ttlMs      - how long an entry, the cached inputs and the written-results record stay
+ *                          valid (default 600000)
+ */
+public class QueryResultCache {
+
+    /** Canonical form of a query and the inputs it ran on. */
+    public record Key(TradeAction tradeAction, boolean basedOnMarketRate, BigDecimal spread,
+                      BigDecimal rateBK, BigDecimal rateKN, TradeEngine engine, TradeBounds bounds,
+                      List<BigDecimal> inputs) {
+
+        public static Key of(TradeRequests.QueryRequest request, TradeTableSnapshot snapshot) {
+            List<BigDecimal> inputs = new ArrayList<>(WebAppDataBase.VARIABLES.size() * 2);
+            for (TradeTableSnapshot.Row row : snapshot.rows()) {
+                inputs.add(canonical(row.minimum()));
+                inputs.add(canonical(row.maximum()));
+            }
+            return of(request, List.copyOf(inputs));
+        }
+
+        /** The query alone, with no inputs, for telling apart queries that have not read them yet. */
+        public static Key of(TradeRequests.QueryRequest request) {
+            return of(request, List.of());
+        }
+
+        private static Key of(TradeRequests.QueryRequest request, List<BigDecimal> inputs) {
+            // The engine only matters for corner bounds; interval bounds are always exact
+            TradeEngine engine = request.bounds() == TradeBounds.CORNERS ? request.engine() : TradeEngine.BIG_DECIMAL;
+            return new Key(request.tradeAction(), request.basedOnMarketRate(), canonical(request.spread()),
+                canonical(request.rateBK()), canonical(request.rateKN()), engine, request.bounds(), inputs);
+        }
+
+        private static BigDecimal canonical(BigDecimal value) {
+            return value.stripTrailingZeros();
+        }
+    }
+
+    /** A calculated table: the results, and the table rendered for the response. */
+    public record Entry(List<QueryResult> results, String json) {
+    }
+
+    private record Timed(Entry entry, long expiresAtNanos) {
+    }
+
+    /** The table's input ranges as of an invalidation generation. */
+    private record Inputs(long generation, TradeTableSnapshot snapshot, long expiresAtNanos) {
+    }
+
+    private record Written(Key key, long expiresAtNanos) {
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Timed> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Inputs> inputs = new AtomicReference<>();
+    private volatile Written written;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public QueryResultCache(int maxEntries, long ttlMs) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative: " + maxEntries);
+        }
+        if (ttlMs < 1) {
+            throw new IllegalArgumentException("Cache TTL must be at least 1ms: " + ttlMs);
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static QueryResultCache fromSystemProperties() {
+        return new QueryResultCache(
+            Integer.getInteger("trade.cache.maxEntries", 256),
+            Long.getLong("trade.cache.ttlMs", 600_000L));
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * Current invalidation generation; read it before loading inputs to pass to {@link #cacheInputs}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /** Input ranges cached since the last invalidation and within the TTL, or null. */
+    public TradeTableSnapshot inputs() {
+        Inputs current = inputs.get();
+        return current != null && current.generation() == generation.get()
+            && current.expiresAtNanos() - System.nanoTime() > 0 ? current.snapshot() : null;
+    }
+
+    /**
+     * Caches input ranges read at {@code readGeneration}, unless an invalidation has happened since.
+     */
+    public void cacheInputs(long readGeneration, TradeTableSnapshot snapshot) {
+        // If an invalidation slips in after this check, inputs() sees the older generation and ignores it
+        if (isEnabled() && readGeneration == generation.get()) {
+            inputs.set(new Inputs(readGeneration, snapshot, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public Entry get(Key key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            Timed timed = entries.get(key);
+            if (timed != null && timed.expiresAtNanos() - System.nanoTime() <= 0) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                timed = null;
+            }
+            if (timed == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return timed.entry();
+        }
+    }
+
+    public void put(Key key, Entry entry) {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entries.put(key, new Timed(entry, now + ttlNanos));
+            if (entries.size() > maxEntries) {
+                removeExpired(now);
+            }
+            Iterator<Key> eldest = entries.keySet().iterator();
+            while (entries.size() > maxEntries) {
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private void removeExpired(long now) {
+        Iterator<Map.Entry<Key, Timed>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().expiresAtNanos() - now <= 0) {
+                iterator.remove();
+                expirations.incrementAndGet();
+            }
+        }
+    }
+
+    /** Records that {@code key}'s results are now the ones stored in the table. */
+    public void markWritten(Key key) {
+        written = new Written(key, System.nanoTime() + ttlNanos);
+    }
+
+    public boolean isWritten(Key key) {
+        Written current = written;
+        return current != null && key.equals(current.key()) && current.expiresAtNanos() - System.nanoTime() > 0;
+    }
+
+    /**
+     * Forgets every entry, the cached inputs and which results are in the table.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        inputs.set(null);
+        written = null;
+        synchronized (entries) {
+            entries.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getTtlMs() {
+        return TimeUnit.NANOSECONDS.toMillis(ttlNanos);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+}
@@ -0,0 +1,217 @@
+package co.za.Main.WebTradeApplication;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates a stream of newline-delimited scenarios in parallel and writes one result line per
+ * scenario, in input order.
+ *
+ * At most {@code window} scenarios are in flight per stream. Once the window is full the runner
+ * waits for the oldest one and writes it before reading any more input, so memory stays bounded
+ * however long the stream is, and a slow client slows down reading instead of filling a queue.
+ *
+ * trade.batch.threads - worker threads shared by all batch requests (default: available processors)
+ * trade.batch.window  - scenarios in flight per request (default: threads * 4)
+ */
+public class ScenarioBatchRunner implements AutoCloseable {
+
+    /**
+     * Turns one scenario line into the JSON value reported under "data".
+     */
+    @FunctionalInterface
+    public interface Evaluator {
+        String evaluate(String scenario) throws Exception;
+    }
+
+    private final ExecutorService workers;
+    private final int threads;
+    private final int window;
+
+    public ScenarioBatchRunner(int threads, int window) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Batch threads must be at least 1: " + threads);
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("Batch window must be at least 1: " + window);
+        }
+        this.threads = threads;
+        this.window = window;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "trade-batch-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static ScenarioBatchRunner fromSystemProperties() {
+        int threads = Integer.getInteger("trade.batch.threads", Runtime.getRuntime().availableProcessors());
+        return new ScenarioBatchRunner(threads, Integer.getInteger("trade.batch.window", threads * 4));
+    }
+
+    /**
+     * Reads scenarios from {@code in} until end of input and writes one line per scenario to
+     * {@code out}: {@code {"line":n,"success":true,"data":...}} or
+     * {@code {"line":n,"success":false,"error":"..."}}. Blank lines are skipped but still counted.
+     * A failing scenario does not stop the stream.
+     *
+     * @return the number of scenarios evaluated
+     */
+    public int run(Reader in, Writer out, int maxLineChars, Evaluator evaluator) throws IOException {
+        Deque<Future<String>> inFlight = new ArrayDeque<>(window);
+        LineReader lines = new LineReader(in, maxLineChars);
+        int count = 0;
+
+        try {
+            String line;
+            while ((line = lines.next()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (inFlight.size() == window) {
+                    writeNext(inFlight, out);
+                }
+                inFlight.addLast(submit(lines.lineNumber(), line, lines.overLimit(), evaluator));
+                count++;
+            }
+            while (!inFlight.isEmpty()) {
+                writeNext(inFlight, out);
+            }
+            out.flush();
+        } finally {
+            // Only non-empty if the client went away or the input failed
+            for (Future<String> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+        return count;
+    }
+
+    private Future<String> submit(int lineNumber, String line, boolean overLimit, Evaluator evaluator) {
+        return workers.submit(() -> {
+            if (overLimit) {
+                return failure(lineNumber, "Scenario is longer than the allowed line length");
+            }
+            try {
+                return "{\"line\":" + lineNumber + ",\"success\":true,\"data\":" + evaluator.evaluate(line) + "}\n";
+            } catch (Exception e) {
+                return failure(lineNumber, e.getMessage());
+            }
+        });
+    }
+
+    private void writeNext(Deque<Future<String>> inFlight, Writer out) throws IOException {
+        Future<String> head = inFlight.peekFirst();
+        if (!head.isDone()) {
+            // About to wait: push what has been written so far to the client first
+            out.flush();
+        }
+        try {
+            out.write(head.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for scenario results", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Scenario evaluation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        inFlight.removeFirst();
+    }
+
+    private static String failure(int lineNumber, String message) {
+        return "{\"line\":" + lineNumber + ",\"success\":false,\"error\":\""
+            + WebServerApplication.escapeJson(message == null ? "Unknown error" : message) + "\"}\n";
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Splits input on \n or \r\n without ever holding more than maxLineChars of one line
+    private static final class LineReader {
+        private final Reader in;
+        private final int maxLineChars;
+        private final char[] buffer = new char[8192];
+        private int position = 0;
+        private int limit = 0;
+        private int lineNumber = 0;
+        private boolean overLimit;
+
+        LineReader(Reader in, int maxLineChars) {
+            this.in = in;
+            this.maxLineChars = maxLineChars;
+        }
+
+        String next() throws IOException {
+            StringBuilder line = new StringBuilder();
+            overLimit = false;
+            boolean sawAny = false;
+
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (!sawAny) {
+                            return null;
+                        }
+                        break;
+                    }
+                }
+                sawAny = true;
+                char c = buffer[position++];
+                if (c == '\n') {
+                    break;
+                }
+                if (line.length() < maxLineChars) {
+                    line.append(c);
+                } else {
+                    overLimit = true;
+                }
+            }
+
+            lineNumber++;
+            int end = line.length();
+            if (end > 0 && line.charAt(end - 1) == '\r') {
+                line.setLength(end - 1);
+            }
+            return line.toString();
+        }
+
+        int lineNumber() {
+            return lineNumber;
+        }
+
+        boolean overLimit() {
+            return overLimit;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package co.za.Main.WebTradeApplication;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import co.za.Main.Logging.Log;
+
+/**
+ * Ordered, versioned schema migrations for the trade table.
+ *
+ * The schema version is stored in SQLite's {@code PRAGMA user_version}. Each step runs in its own
+ * write transaction together with the version bump, so a crash never leaves a half-applied step.
+ * When the database is already current, {@link #migrate(Connection)} only reads the pragma.
+ *
+ * New steps are appended to {@link #MIGRATIONS} with the next version number; existing steps must
+ * never be edited once released.
+ */
+public final class SchemaMigrator {
+
+    @FunctionalInterface
+    interface MigrationStep {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    static final class Migration {
+        final int version;
+        final String description;
+        final MigrationStep step;
+
+        Migration(int version, String description, MigrationStep step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private static final Log LOG = Log.get(SchemaMigrator.class);
+    private static final String TABLE = WebAppDataBase.TABLE_NAME;
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "create trade table and seed variables", SchemaMigrator::createTradeTable),
+        new Migration(2, "rename sellvariable/buyvariable to openingvalue/closingvalue", SchemaMigrator::renameLegacyVariables),
+        new Migration(3, "add row revisions for compare-and-set writes", SchemaMigrator::addRevisionColumn)
+    );
+
+    public static final int CURRENT_VERSION = MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+
+    // Serialises migrations inside this JVM; BEGIN IMMEDIATE covers other processes
+    private static final Object LOCK = new Object();
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Brings the schema up to {@link #CURRENT_VERSION}.
+     *
+     * @return the number of steps applied, 0 when the schema was already current
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        synchronized (LOCK) {
+            int version = readVersion(connection);
+            if (version >= CURRENT_VERSION) {
+                return 0;
+            }
+
+            int applied = 0;
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(true);
+            try (Statement stmt = connection.createStatement()) {
+                for (Migration migration : MIGRATIONS) {
+                    if (migration.version <= version) {
+                        continue;
+                    }
+
+                    stmt.execute("BEGIN IMMEDIATE");
+                    try {
+                        // Another process may have migrated while we waited for the write lock
+                        if (readVersion(connection) >= migration.version) {
+                            stmt.execute("COMMIT");
+                            continue;
+                        }
+                        migration.step.apply(connection);
+                        stmt.execute("PRAGMA user_version = " + migration.version);
+                        stmt.execute("COMMIT");
+                    } catch (SQLException e) {
+                        stmt.execute("ROLLBACK");
+                        throw new SQLException("Schema migration " + migration.version + " ("
+                            + migration.description + ") failed: " + e.getMessage(), e);
+                    }
+
+                    LOG.info("Applied schema migration " + migration.version + ": " + migration.description);
+                    applied++;
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return applied;
+        }
+    }
+
+    public static int readVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void createTradeTable(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS %s (
+                    variable VARCHAR(50) DEFAULT '0',
+                    maximum DECIMAL(20,8) DEFAULT 0,
+                    minimum DECIMAL(20,8) DEFAULT 0,
+                    returnmin DECIMAL(20,8) DEFAULT 0,
+                    returnmax DECIMAL(20,8) DEFAULT 0
+                )
+                """.formatted(TABLE));
+
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + TABLE)) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    return;
+                }
+            }
+        }
+
+        String insertSQL = "INSERT INTO " + TABLE +
+            " (variable, minimum, maximum, returnmin, returnmax) VALUES (?, 0, 0, 0, 0)";
+        try (PreparedStatement pstmt = connection.prepareStatement(insertSQL)) {
+            for (String variable : WebAppDataBase.VARIABLES) {
+                pstmt.setString(1, variable);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+        LOG.info("Initialized " + WebAppDataBase.VARIABLES.size() + " variables with all zero values");
+    }
+
+    private static void renameLegacyVariables(Connection connection) throws SQLException {
+        renameIfAbsent(connection, "sellvariable", "openingvalue");
+        renameIfAbsent(connection, "buyvariable", "closingvalue");
+    }
+
+    // Each row records the table revision it last changed at; the table's revision is the highest
+    private static void addRevisionColumn(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE " + TABLE + " ADD COLUMN revision INTEGER NOT NULL DEFAULT 0");
+        }
+    }
+
+    private static void renameIfAbsent(Connection connection, String oldName, String newName) throws SQLException {
+        String sql = "UPDATE " + TABLE + " SET variable = ? WHERE variable = ?" +
+            " AND NOT EXISTS (SELECT 1 FROM " + TABLE + " WHERE variable = ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, newName);
+            pstmt.setString(2, oldName);
+            pstmt.setString(3, newName);
+            if (pstmt.executeUpdate() > 0) {
+                LOG.info("Migrated " + oldName + " → " + newName);
+            }
+        }
+    }
+}
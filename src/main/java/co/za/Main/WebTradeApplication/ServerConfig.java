@@ -0,0 +1,150 @@
+package co.za.Main.WebTradeApplication;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runtime settings for {@link WebServerApplication}.
+ *
+ * Values are read from system properties so they can be set on the command line, e.g.
+ * {@code -Dtrade.server.executor=pool -Dtrade.server.threads=16}.
+ *
+ * trade.server.port      - listen port (default 8080)
+ * trade.server.backlog   - TCP accept backlog, 0 lets the OS decide (default 0)
+ * trade.server.executor  - "virtual" for one virtual thread per request (default),
+ *                          "pool" for a bounded platform thread pool
+ * trade.server.threads   - pool size when executor=pool (default: available processors * 2)
+ * trade.server.queue     - max queued requests when executor=pool (default 1024)
+ * trade.server.maxBody   - largest accepted request body in bytes (default 65536)
+ */
+public class ServerConfig {
+
+    public enum ExecutorMode {
+        VIRTUAL, POOL
+    }
+
+    public static final int DEFAULT_MAX_BODY_BYTES = 64 * 1024;
+
+    private final int port;
+    private final int backlog;
+    private final ExecutorMode executorMode;
+    private final int poolThreads;
+    private final int poolQueueCapacity;
+    private final int maxBodyBytes;
+
+    public ServerConfig(int port, int backlog, ExecutorMode executorMode, int poolThreads, int poolQueueCapacity) {
+        this(port, backlog, executorMode, poolThreads, poolQueueCapacity, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    public ServerConfig(int port, int backlog, ExecutorMode executorMode, int poolThreads, int poolQueueCapacity,
+                        int maxBodyBytes) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Invalid port: " + port);
+        }
+        if (executorMode == null) {
+            throw new IllegalArgumentException("Executor mode is required");
+        }
+        if (backlog < 0) {
+            throw new IllegalArgumentException("Backlog cannot be negative: " + backlog);
+        }
+        if (poolThreads < 1) {
+            throw new IllegalArgumentException("Thread pool size must be at least 1: " + poolThreads);
+        }
+        if (poolQueueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1: " + poolQueueCapacity);
+        }
+        if (maxBodyBytes < 1) {
+            throw new IllegalArgumentException("Max body size must be at least 1 byte: " + maxBodyBytes);
+        }
+        this.port = port;
+        this.backlog = backlog;
+        this.executorMode = executorMode;
+        this.poolThreads = poolThreads;
+        this.poolQueueCapacity = poolQueueCapacity;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    public static ServerConfig fromSystemProperties() {
+        int defaultThreads = Runtime.getRuntime().availableProcessors() * 2;
+        return new ServerConfig(
+            Integer.getInteger("trade.server.port", 8080),
+            Integer.getInteger("trade.server.backlog", 0),
+            parseExecutorMode(System.getProperty("trade.server.executor", "virtual")),
+            Integer.getInteger("trade.server.threads", defaultThreads),
+            Integer.getInteger("trade.server.queue", 1024),
+            Integer.getInteger("trade.server.maxBody", DEFAULT_MAX_BODY_BYTES)
+        );
+    }
+
+    /**
+     * Parses a trade.server.executor value, ignoring case. A misspelt value fails startup rather
+     * than silently falling back to virtual threads.
+     */
+    public static ExecutorMode parseExecutorMode(String value) {
+        for (ExecutorMode mode : ExecutorMode.values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown executor mode '" + value + "' (trade.server.executor),"
+            + " expected virtual or pool");
+    }
+
+    /**
+     * Builds the executor the HttpServer dispatches requests to. Without one the JDK server
+     * runs every handler on its single dispatcher thread.
+     */
+    public ExecutorService createExecutor() {
+        if (executorMode == ExecutorMode.VIRTUAL) {
+            ThreadFactory factory = Thread.ofVirtual().name("trade-http-", 0).factory();
+            return Executors.newThreadPerTaskExecutor(factory);
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "trade-http-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Callers-runs pushes back on the dispatcher once the queue is full instead of dropping requests
+        return new ThreadPoolExecutor(poolThreads, poolThreads, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(poolQueueCapacity), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    public int getPoolThreads() {
+        return poolThreads;
+    }
+
+    public int getPoolQueueCapacity() {
+        return poolQueueCapacity;
+    }
+
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    @Override
+    public String toString() {
+        return executorMode == ExecutorMode.VIRTUAL
+            ? String.format("port=%d, backlog=%d, executor=virtual", port, backlog)
+            : String.format("port=%d, backlog=%d, executor=pool(%d threads, queue %d)",
+                port, backlog, poolThreads, poolQueueCapacity);
+    }
+}
@@ -0,0 +1,243 @@
+package co.za.Main.WebTradeApplication;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import co.za.Main.Metrics.LatencyHistogram;
+
+/**
+ * Request and phase timings for the web server, rendered in the Prometheus text format.
+ *
+ * Every handler registered through {@link #instrument} counts its requests by status code, its
+ * errors and the requests it is handling right now, and records each request's duration from
+ * dispatch until the handler returns, which is also committed as a {@link TradeEvents.Request}
+ * while a flight recording runs. Within a request, time is also recorded per {@link Phase}:
+ * the database handles time their own reads, writes and exports, and handlers time reading the
+ * body and calculating.
+ *
+ * All durations go into {@link LatencyHistogram}s, so recording is a few atomic increments and
+ * never blocks. Quantiles are over everything since the server started.
+ */
+public class ServerMetrics {
+
+    /** Parts of a request that are timed separately. */
+    public enum Phase {
+        /** Parsing the request, including reading the body when it is read whole. */
+        PARSE("parse"),
+        DB_READ("db_read"),
+        /** Calculating results, with no I/O. */
+        COMPUTE("compute"),
+        DB_WRITE("db_write"),
+        /** Writing the SQL dump, including the read it exports from. */
+        EXPORT("export");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /** Records nothing; for database handles opened outside the server. */
+    static final ServerMetrics NONE = new ServerMetrics(false);
+
+    private static final double[] QUANTILES = {50, 99, 99.9};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.99", "0.999"};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final boolean enabled;
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+    private final List<InstrumentedHandler> handlers = new CopyOnWriteArrayList<>();
+
+    public ServerMetrics() {
+        this(true);
+    }
+
+    private ServerMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records {@code phase} as having run from {@code startNanos}, a {@link System#nanoTime()}
+     * reading, until now.
+     */
+    public void record(Phase phase, long startNanos) {
+        if (enabled) {
+            phases[phase.ordinal()].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public LatencyHistogram getPhase(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    /**
+     * Wraps {@code handler} so its requests are counted and timed under {@code name}.
+     */
+    public HttpHandler instrument(String name, HttpHandler handler) {
+        InstrumentedHandler instrumented = new InstrumentedHandler(name, handler);
+        handlers.add(instrumented);
+        return instrumented;
+    }
+
+    /** Counts and timings of one instrumented handler. */
+    public static final class InstrumentedHandler implements HttpHandler {
+        private final String name;
+        private final HttpHandler delegate;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Map<Integer, LongAdder> responses = new ConcurrentHashMap<>();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicLong inFlight = new AtomicLong();
+
+        InstrumentedHandler(String name, HttpHandler delegate) {
+            this.name = name;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            TradeEvents.Request event = new TradeEvents.Request();
+            event.begin();
+            inFlight.incrementAndGet();
+            long started = System.nanoTime();
+            boolean completed = false;
+            try {
+                delegate.handle(exchange);
+                completed = true;
+            } finally {
+                latency.record(System.nanoTime() - started);
+                inFlight.decrementAndGet();
+                // -1 when the handler sent nothing, e.g. for a method it does not serve
+                int status = exchange.getResponseCode();
+                responses.computeIfAbsent(status, code -> new LongAdder()).increment();
+                if (!completed || status >= 500) {
+                    errors.increment();
+                }
+                if (event.shouldCommit()) {
+                    event.handler = name;
+                    event.method = exchange.getRequestMethod();
+                    event.uri = exchange.getRequestURI().toString();
+                    event.status = status;
+                    event.commit();
+                }
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getRequests(int status) {
+            LongAdder count = responses.get(status);
+            return count == null ? 0 : count.sum();
+        }
+
+        /** Requests answered with a 5xx status, or that failed with an exception. */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getInFlight() {
+            return inFlight.get();
+        }
+    }
+
+    public List<InstrumentedHandler> getHandlers() {
+        return List.copyOf(handlers);
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format, version 0.0.4.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "trade_http_requests_total", "counter", "Requests handled, by handler and status code.");
+        for (InstrumentedHandler handler : handlers) {
+            for (Map.Entry<Integer, LongAdder> response : handler.responses.entrySet()) {
+                int status = response.getKey();
+                out.append("trade_http_requests_total{handler=\"").append(handler.name)
+                    .append("\",code=\"").append(status < 0 ? "none" : Integer.toString(status))
+                    .append("\"} ").append(response.getValue().sum()).append('\n');
+            }
+        }
+
+        header(out, "trade_http_errors_total", "counter", "Requests answered with a 5xx status or failed with an exception.");
+        for (InstrumentedHandler handler : handlers) {
+            sample(out, "trade_http_errors_total", "handler", handler.name, Long.toString(handler.getErrors()));
+        }
+
+        header(out, "trade_http_in_flight_requests", "gauge", "Requests currently being handled.");
+        for (InstrumentedHandler handler : handlers) {
+            sample(out, "trade_http_in_flight_requests", "handler", handler.name, Long.toString(handler.getInFlight()));
+        }
+
+        String requestDuration = "trade_http_request_duration_seconds";
+        header(out, requestDuration, "summary", "Time from dispatch until the handler returned.");
+        List<LatencyHistogram.Snapshot> latencies = new ArrayList<>(handlers.size());
+        for (InstrumentedHandler handler : handlers) {
+            latencies.add(handler.latency.snapshot());
+            summary(out, requestDuration, "handler", handler.name, latencies.get(latencies.size() - 1));
+        }
+        header(out, requestDuration + "_max", "gauge", "Longest request, by handler.");
+        for (int i = 0; i < latencies.size(); i++) {
+            sample(out, requestDuration + "_max", "handler", handlers.get(i).name, seconds(latencies.get(i).getMax()));
+        }
+
+        String phaseDuration = "trade_phase_duration_seconds";
+        header(out, phaseDuration, "summary", "Time spent in each phase of request handling.");
+        LatencyHistogram.Snapshot[] snapshots = new LatencyHistogram.Snapshot[phases.length];
+        for (Phase phase : Phase.values()) {
+            snapshots[phase.ordinal()] = phases[phase.ordinal()].snapshot();
+            summary(out, phaseDuration, "phase", phase.label, snapshots[phase.ordinal()]);
+        }
+        header(out, phaseDuration + "_max", "gauge", "Longest single run of each phase.");
+        for (Phase phase : Phase.values()) {
+            sample(out, phaseDuration + "_max", "phase", phase.label, seconds(snapshots[phase.ordinal()].getMax()));
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String value, String sample) {
+        out.append(name).append('{').append(label).append("=\"").append(value).append("\"} ")
+            .append(sample).append('\n');
+    }
+
+    private static void summary(StringBuilder out, String name, String label, String value,
+                                LatencyHistogram.Snapshot snapshot) {
+        for (int i = 0; i < QUANTILES.length; i++) {
+            out.append(name).append('{').append(label).append("=\"").append(value)
+                .append("\",quantile=\"").append(QUANTILE_LABELS[i]).append("\"} ")
+                .append(snapshot.getCount() == 0 ? "NaN" : seconds(snapshot.percentile(QUANTILES[i]))).append('\n');
+        }
+        sample(out, name + "_sum", label, value, seconds(snapshot.getSum()));
+        sample(out, name + "_count", label, value, Long.toString(snapshot.getCount()));
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / NANOS_PER_SECOND);
+    }
+}
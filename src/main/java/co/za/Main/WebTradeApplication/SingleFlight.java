@@ -0,0 +1,71 @@
+package co.za.Main.WebTradeApplication;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs one computation per key at a time and shares its outcome with every caller that asks for
+ * the same key while it is running.
+ *
+ * The first caller for a key runs the work on its own thread. Callers that arrive before it
+ * finishes wait for it instead of starting their own, and receive its result or its exception.
+ * Nothing is remembered once the work finishes; the next caller runs it again.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs {@code work}, or waits for the run already in flight for {@code key}.
+     */
+    public V run(K key, Callable<V> work) throws Exception {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        executions.increment();
+        try {
+            V result = work.call();
+            flight.complete(result);
+            return result;
+        } catch (Exception | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) throws Exception {
+        try {
+            return flight.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw (Error) e.getCause();
+        }
+    }
+
+    /** Computations started, one per distinct key in flight. */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /** Callers that shared a computation another caller had started. */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public int getInFlight() {
+        return flights.size();
+    }
+}
@@ -0,0 +1,215 @@
+package co.za.Main.WebTradeApplication;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import co.za.Main.Logging.Log;
+
+/**
+ * Writes the WebAppDataBase.sql dump on a background thread so requests never wait on file I/O.
+ *
+ * Handlers call {@link #requestExport()} after changing the table. Requests only mark the table
+ * dirty; bursts of changes are coalesced into a single export. All exports run on one thread and
+ * read through a pooled reader connection.
+ *
+ * trade.export.mode    - "debounce" exports once the table has been quiet for the delay, or after
+ *                        MAX_DEBOUNCE_DELAYS delays of continuous changes at the latest (default),
+ *                        "interval" exports every delay while dirty,
+ *                        "shutdown" only exports when the server stops
+ * trade.export.delayMs - debounce / interval delay (default 2000)
+ *
+ * Every mode also flushes pending changes on shutdown, and {@link #exportNow(long)} exports on demand.
+ */
+public class SqlExportScheduler implements AutoCloseable {
+
+    public enum Mode {
+        DEBOUNCE, INTERVAL, SHUTDOWN
+    }
+
+    private static final Log LOG = Log.get(SqlExportScheduler.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    // A table that never goes quiet is still exported this often, in delays
+    static final int MAX_DEBOUNCE_DELAYS = 10;
+
+    private final WebAppDataBasePool pool;
+    private final Path target;
+    private final Mode mode;
+    private final long delayMs;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    // Set by requestExport and read on the export thread to push a debounced export back
+    private volatile long lastChangeNanos;
+    private volatile long burstStartNanos;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong exports = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public SqlExportScheduler(WebAppDataBasePool pool, Path target, Mode mode, long delayMs) {
+        if (delayMs < 0) {
+            throw new IllegalArgumentException("Export delay cannot be negative: " + delayMs);
+        }
+        this.pool = pool;
+        this.target = target;
+        this.mode = mode;
+        this.delayMs = delayMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trade-sql-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (mode == Mode.INTERVAL) {
+            long period = Math.max(delayMs, 1);
+            scheduler.scheduleWithFixedDelay(this::exportIfDirty, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static SqlExportScheduler fromSystemProperties(WebAppDataBasePool pool, Path target) {
+        return new SqlExportScheduler(pool, target,
+            parseMode(System.getProperty("trade.export.mode", "debounce")),
+            Long.getLong("trade.export.delayMs", 2000L));
+    }
+
+    /**
+     * Parses a trade.export.mode value, ignoring case, and names the allowed values when it is not one.
+     */
+    public static Mode parseMode(String value) {
+        for (Mode mode : Mode.values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export mode '" + value + "' (trade.export.mode),"
+            + " expected debounce, interval or shutdown");
+    }
+
+    /**
+     * Marks the table as changed. Never blocks and never touches the file system.
+     */
+    public void requestExport() {
+        requests.incrementAndGet();
+        lastChangeNanos = System.nanoTime();
+        dirty.set(true);
+
+        if (mode == Mode.DEBOUNCE && scheduled.compareAndSet(false, true)) {
+            burstStartNanos = lastChangeNanos;
+            try {
+                scheduler.schedule(this::runDebounced, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // Rejected during shutdown; close() flushes the dirty flag instead
+                scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Exports immediately on the export thread, whether or not anything changed, and waits for it.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException once the scheduler has been closed
+     */
+    public Path exportNow(long timeoutMs) throws SQLException {
+        Future<Path> future = scheduler.submit(() -> {
+            dirty.set(false);
+            export();
+            return target;
+        });
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for export", e);
+        } catch (ExecutionException e) {
+            throw new SQLException("Export failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new SQLException("Export did not complete within " + timeoutMs + "ms", e);
+        }
+    }
+
+    private void runDebounced() {
+        // Changes since this run was scheduled push the export back, up to the burst limit
+        long now = System.nanoTime();
+        long quietAt = lastChangeNanos + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        long latestAt = burstStartNanos + TimeUnit.MILLISECONDS.toNanos(delayMs * MAX_DEBOUNCE_DELAYS);
+        long waitNanos = Math.min(quietAt, latestAt) - now;
+        if (waitNanos > 0) {
+            try {
+                scheduler.schedule(this::runDebounced, waitNanos, TimeUnit.NANOSECONDS);
+                return;
+            } catch (RuntimeException e) {
+                // Shutting down; export now rather than leave it to close()
+            }
+        }
+
+        // Cleared before the export so a change arriving during it schedules the next one
+        scheduled.set(false);
+        exportIfDirty();
+    }
+
+    private void exportIfDirty() {
+        // Clear first so a change arriving during the export triggers another one
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+
+        try {
+            export();
+        } catch (SQLException e) {
+            LOG.error("Background SQL export failed: " + e.getMessage());
+        }
+    }
+
+    private void export() throws SQLException {
+        try (WebAppDataBase db = pool.openReader()) {
+            db.exportToSQL(target);
+            exports.incrementAndGet();
+        } catch (SQLException e) {
+            failures.incrementAndGet();
+            // Leave the table dirty so the next trigger retries
+            dirty.set(true);
+            throw e;
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getExportCount() {
+        return exports.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Stops the export thread, writing any pending changes first.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // The export thread is gone, so this runs on the caller without racing it
+        exportIfDirty();
+    }
+}
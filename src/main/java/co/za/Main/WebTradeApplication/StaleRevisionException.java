@@ -0,0 +1,29 @@
+package co.za.Main.WebTradeApplication;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when a compare-and-set write finds the trade table at a different revision than the one
+ * the caller read. Nothing was written; the caller can re-read and try again.
+ */
+public class StaleRevisionException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long expectedRevision;
+    private final long currentRevision;
+
+    public StaleRevisionException(long expectedRevision, long currentRevision) {
+        super("Trade table is at revision " + currentRevision + ", not " + expectedRevision);
+        this.expectedRevision = expectedRevision;
+        this.currentRevision = currentRevision;
+    }
+
+    public long getExpectedRevision() {
+        return expectedRevision;
+    }
+
+    public long getCurrentRevision() {
+        return currentRevision;
+    }
+}
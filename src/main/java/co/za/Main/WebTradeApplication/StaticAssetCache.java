@@ -0,0 +1,321 @@
+package co.za.Main.WebTradeApplication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import co.za.Main.Logging.Log;
+
+/**
+ * Loads static files once and keeps them in memory, ready to send.
+ *
+ * Each asset holds its raw bytes, a gzip variant for compressible types, a strong ETag per
+ * variant and its Last-Modified time. A watch service on every directory an asset was loaded from evicts entries
+ * when their file changes on disk, so edits to trade-index.html show up on the next request.
+ *
+ * Only the files named in the allowlist are served, and only if they have a known extension.
+ * Everything else under the root, including any path with a segment starting with ".", is
+ * treated as missing, so the database, build output and source files never leak.
+ *
+ * trade.static.files - comma-separated paths under the working directory that may be served
+ *                      (default trade-index.html)
+ */
+public class StaticAssetCache implements AutoCloseable {
+
+    public static final class Asset {
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final String contentType;
+        private final String etag;
+        private final String gzipEtag;
+        private final long lastModifiedSeconds;
+        private final String lastModifiedHeader;
+
+        Asset(byte[] body, byte[] gzipBody, String contentType, String etag, long lastModifiedMillis) {
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.contentType = contentType;
+            this.etag = etag;
+            // A strong validator must differ between content-codings
+            this.gzipEtag = etag.substring(0, etag.length() - 1) + "-gz\"";
+            // HTTP dates have one-second resolution
+            this.lastModifiedSeconds = lastModifiedMillis / 1000;
+            this.lastModifiedHeader = HTTP_DATE.format(Instant.ofEpochSecond(lastModifiedSeconds));
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        /** Gzip-encoded body, or null when compression would not help. */
+        public byte[] getGzipBody() {
+            return gzipBody;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /** ETag of the gzip variant: the identity ETag with "-gz" inside the quotes. */
+        public String getGzipEtag() {
+            return gzipEtag;
+        }
+
+        public long getLastModifiedSeconds() {
+            return lastModifiedSeconds;
+        }
+
+        public String getLastModifiedHeader() {
+            return lastModifiedHeader;
+        }
+    }
+
+    public static final DateTimeFormatter HTTP_DATE =
+        DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private static final Log LOG = Log.get(StaticAssetCache.class);
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+        Map.entry("html", "text/html; charset=UTF-8"),
+        Map.entry("htm", "text/html; charset=UTF-8"),
+        Map.entry("css", "text/css; charset=UTF-8"),
+        Map.entry("js", "text/javascript; charset=UTF-8"),
+        Map.entry("json", "application/json; charset=UTF-8"),
+        Map.entry("txt", "text/plain; charset=UTF-8"),
+        Map.entry("svg", "image/svg+xml"),
+        Map.entry("png", "image/png"),
+        Map.entry("jpg", "image/jpeg"),
+        Map.entry("jpeg", "image/jpeg"),
+        Map.entry("gif", "image/gif"),
+        Map.entry("ico", "image/x-icon"),
+        Map.entry("woff2", "font/woff2"),
+        Map.entry("pdf", "application/pdf")
+    );
+
+    private static final Set<String> COMPRESSIBLE = Set.of("html", "htm", "css", "js", "json", "txt", "svg");
+
+    public static final String DEFAULT_FILES = "trade-index.html";
+
+    private final Path root;
+    private final Set<Path> allowed;
+    private final Map<Path, Asset> assets = new ConcurrentHashMap<>();
+    // Bumped on every change to a path, so a load that overlapped a change is not cached
+    private final Map<Path, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+    private final WatchService watchService;
+    private final Thread watchThread;
+
+    /**
+     * @param files paths relative to {@code root}, such as "trade-index.html" or "css/app.css"
+     */
+    public StaticAssetCache(Path root, Set<String> files) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        Set<Path> allowed = new HashSet<>();
+        for (String file : files) {
+            Path resolved = resolveUnderRoot(file);
+            if (resolved == null) {
+                throw new IllegalArgumentException("Static file must be a plain path under the root: " + file);
+            }
+            allowed.add(resolved);
+        }
+        this.allowed = Set.copyOf(allowed);
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watchThread = new Thread(this::watchLoop, "trade-static-watch");
+        this.watchThread.setDaemon(true);
+        this.watchThread.start();
+    }
+
+    /**
+     * Returns the cached asset for a request path such as "/trade-index.html", loading it on
+     * first use. Returns null when the path is outside the root, has an unknown extension or
+     * does not exist.
+     */
+    public Asset get(String requestPath) throws IOException {
+        Path file = resolve(requestPath);
+        if (file == null) {
+            return null;
+        }
+
+        Asset asset = assets.get(file);
+        if (asset != null) {
+            return asset;
+        }
+
+        // Watch before reading so a change made while loading is seen. Its eviction may run before
+        // the entry exists, so the loaded asset is only cached if no change was seen meanwhile
+        watchDirectory(file.getParent());
+        AtomicLong generation = generations.computeIfAbsent(file, path -> new AtomicLong());
+        long loadedAt = generation.get();
+        Asset loaded = load(file);
+        if (loaded != null) {
+            assets.compute(file, (path, current) -> generation.get() == loadedAt ? loaded : current);
+        }
+        return loaded;
+    }
+
+    /** Serves the files in trade.static.files from the working directory. */
+    public static StaticAssetCache fromSystemProperties() throws IOException {
+        Set<String> files = new HashSet<>();
+        for (String file : System.getProperty("trade.static.files", DEFAULT_FILES).split(",")) {
+            if (!file.isBlank()) {
+                files.add(file.trim());
+            }
+        }
+        return new StaticAssetCache(Path.of(""), files);
+    }
+
+    private Path resolve(String requestPath) {
+        Path file = resolveUnderRoot(requestPath);
+        return file != null && allowed.contains(file) ? file : null;
+    }
+
+    // Null for anything that is not a plain relative path to a known file type under the root
+    private Path resolveUnderRoot(String path) {
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        if (relative.isEmpty()) {
+            return null;
+        }
+        for (String segment : relative.split("[/\\\\]")) {
+            // Covers "..", hidden files and hidden directories alike
+            if (segment.isEmpty() || segment.startsWith(".")) {
+                return null;
+            }
+        }
+
+        Path file;
+        try {
+            file = root.resolve(relative).normalize();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        if (!file.startsWith(root)) {
+            return null;
+        }
+        return CONTENT_TYPES.containsKey(extension(file)) ? file : null;
+    }
+
+    /** Reads a file and prepares its variants. Overridden in tests to change the file mid-load. */
+    protected Asset load(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        byte[] body = Files.readAllBytes(file);
+        String extension = extension(file);
+
+        byte[] gzipBody = null;
+        if (COMPRESSIBLE.contains(extension)) {
+            byte[] compressed = gzip(body);
+            if (compressed.length < body.length) {
+                gzipBody = compressed;
+            }
+        }
+
+        return new Asset(body, gzipBody, CONTENT_TYPES.get(extension), etag(body),
+            attributes.lastModifiedTime().toMillis());
+    }
+
+    private void watchDirectory(Path directory) throws IOException {
+        if (watchedDirectories.add(directory)) {
+            directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    dropAll();
+                    continue;
+                }
+                Path changed = directory.resolve((Path) event.context());
+                AtomicLong generation = generations.get(changed);
+                if (generation != null) {
+                    generation.incrementAndGet();
+                }
+                if (assets.remove(changed) != null) {
+                    LOG.info("Static asset changed on disk, reloading: " + root.relativize(changed));
+                }
+            }
+
+            if (!key.reset()) {
+                watchedDirectories.remove(directory);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        dropAll();
+    }
+
+    // Private so the watch thread, started from the constructor, never calls an overridable method
+    private void dropAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        assets.clear();
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        watchThread.interrupt();
+    }
+}
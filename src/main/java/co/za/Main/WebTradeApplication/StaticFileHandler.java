@@ -0,0 +1,114 @@
+package co.za.Main.WebTradeApplication;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.function.Supplier;
+import co.za.Main.Logging.Log;
+
+/**
+ * Serves the files a {@link StaticAssetCache} allows, with validators for conditional requests
+ * and a gzip body for clients that accept one. "/" maps to the index file, or to the fallback
+ * page when the index is missing.
+ */
+public class StaticFileHandler implements HttpHandler {
+
+    private static final Log LOG = Log.get(StaticFileHandler.class);
+
+    private final StaticAssetCache assets;
+    private final String indexFile;
+    private final Supplier<String> fallbackHtml;
+
+    public StaticFileHandler(StaticAssetCache assets, String indexFile, Supplier<String> fallbackHtml) {
+        this.assets = assets;
+        this.indexFile = indexFile;
+        this.fallbackHtml = fallbackHtml;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        boolean head = "HEAD".equals(method);
+        if (!"GET".equals(method) && !head) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        StaticAssetCache.Asset asset = assets.get("/".equals(path) ? indexFile : path);
+
+        if (asset == null) {
+            if ("/".equals(path)) {
+                LOG.warn("Could not find " + indexFile + ", using fallback HTML");
+                byte[] fallback = fallbackHtml.get().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+                exchange.sendResponseHeaders(200, head ? -1 : fallback.length);
+                if (!head) exchange.getResponseBody().write(fallback);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+            return;
+        }
+
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean gzip = asset.getGzipBody() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        Headers responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set("Access-Control-Allow-Origin", "*");
+        responseHeaders.set("ETag", gzip ? asset.getGzipEtag() : asset.getEtag());
+        responseHeaders.set("Last-Modified", asset.getLastModifiedHeader());
+        // Always revalidate; unchanged assets cost a 304 with no body
+        responseHeaders.set("Cache-Control", "no-cache");
+        responseHeaders.set("Vary", "Accept-Encoding");
+
+        if (isNotModified(exchange.getRequestHeaders(), asset)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = asset.getBody();
+        if (gzip) {
+            body = asset.getGzipBody();
+            responseHeaders.set("Content-Encoding", "gzip");
+        }
+
+        responseHeaders.set("Content-Type", asset.getContentType());
+        exchange.sendResponseHeaders(200, head ? -1 : body.length);
+        if (!head) exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static boolean isNotModified(Headers requestHeaders, StaticAssetCache.Asset asset) {
+        String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            // If-None-Match takes precedence over If-Modified-Since. Either variant's tag matches: both
+            // carry the same content, and the response names the variant actually sent
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) candidate = candidate.substring(2);
+                if ("*".equals(candidate) || asset.getEtag().equals(candidate)
+                    || asset.getGzipEtag().equals(candidate)) return true;
+            }
+            return false;
+        }
+
+        String ifModifiedSince = requestHeaders.getFirst("If-Modified-Since");
+        if (ifModifiedSince != null) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince, StaticAssetCache.HTTP_DATE).toEpochSecond();
+                return asset.getLastModifiedSeconds() <= since;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
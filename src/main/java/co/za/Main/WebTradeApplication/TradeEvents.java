@@ -0,0 +1,122 @@
+package co.za.Main.WebTradeApplication;
+
+import java.math.BigDecimal;
+import java.util.List;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import co.za.Main.TradeModules.TradeAction;
+
+/**
+ * Flight recorder events for the server's own work, so a recording lines requests, calculations
+ * and database statements up against GC pauses and lock contention on the same timeline.
+ *
+ * Events are created and committed on the thread doing the work. While no recording is running
+ * each one costs little more than the allocation, which escape analysis usually removes.
+ */
+public final class TradeEvents {
+
+    /** Every event type here, for recordings to enable. */
+    static final List<Class<? extends Event>> ALL =
+        List.of(Request.class, Evaluation.class, SqlStatement.class, SqlExport.class);
+
+    private TradeEvents() {
+    }
+
+    @Name("co.za.trade.Request")
+    @Label("HTTP Request")
+    @Category({"Trade", "HTTP"})
+    @Description("One request, from dispatch until its handler returned")
+    @StackTrace(false)
+    public static final class Request extends Event {
+        @Label("Handler")
+        public String handler;
+
+        @Label("Method")
+        public String method;
+
+        @Label("URI")
+        public String uri;
+
+        @Label("Status")
+        @Description("Response status, or -1 if none was sent")
+        public int status;
+    }
+
+    @Name("co.za.trade.Evaluation")
+    @Label("Trade Evaluation Batch")
+    @Category({"Trade", "Calculation"})
+    @Description("Trade model evaluations run together for one query or scenario list")
+    @StackTrace(false)
+    public static final class Evaluation extends Event {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Trade Action")
+        public String tradeAction;
+
+        @Label("Based On Market Rate")
+        public boolean basedOnMarketRate;
+
+        @Label("Engine")
+        public String engine;
+
+        @Label("Spread")
+        public String spread;
+
+        @Label("Rate BK")
+        public String rateBK;
+
+        @Label("Rate KN")
+        public String rateKN;
+
+        @Label("Evaluations")
+        @Description("Results or scenarios calculated in the batch")
+        public int evaluations;
+
+        void describe(String operation, TradeAction tradeAction, boolean basedOnMarketRate, String engine,
+                      BigDecimal spread, BigDecimal rateBK, BigDecimal rateKN, int evaluations) {
+            this.operation = operation;
+            this.tradeAction = tradeAction.name();
+            this.basedOnMarketRate = basedOnMarketRate;
+            this.engine = engine;
+            this.spread = spread.toPlainString();
+            this.rateBK = rateBK.toPlainString();
+            this.rateKN = rateKN.toPlainString();
+            this.evaluations = evaluations;
+        }
+    }
+
+    @Name("co.za.trade.SqlStatement")
+    @Label("SQLite Statement")
+    @Category({"Trade", "Database"})
+    @StackTrace(false)
+    public static final class SqlStatement extends Event {
+        @Label("Statement")
+        public String statement;
+
+        @Label("Rows")
+        @Description("Rows read or changed")
+        public int rows;
+    }
+
+    @Name("co.za.trade.SqlExport")
+    @Label("SQL Export")
+    @Category({"Trade", "Database"})
+    @StackTrace(false)
+    public static final class SqlExport extends Event {
+        @Label("Target")
+        public String target;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Size")
+        @DataAmount
+        public long bytes;
+    }
+}
@@ -0,0 +1,792 @@
+package co.za.Main.WebTradeApplication;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import co.za.Main.TradeModules.Distribution;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeBounds;
+import co.za.Main.TradeModules.TradeEngine;
+import co.za.Main.TradeModules.TradeSolver;
+
+/**
+ * Typed request bodies for the API handlers, each parsed in a single pass with {@link JsonReader}.
+ *
+ * Unknown fields are skipped so older and newer clients keep working. Missing optional fields take
+ * the same defaults the handlers have always used.
+ */
+public final class TradeRequests {
+
+    public static final BigDecimal DEFAULT_SPREAD = new BigDecimal("0.01");
+
+    // Only the user-editable input columns may be updated through the API
+    private static final Set<String> UPDATABLE_COLUMNS = Set.of("minimum", "maximum");
+
+    private TradeRequests() {
+    }
+
+    public record QueryRequest(TradeAction tradeAction, boolean basedOnMarketRate,
+                               BigDecimal spread, BigDecimal rateBK, BigDecimal rateKN,
+                               TradeEngine engine, TradeBounds bounds) {
+
+        public static QueryRequest parse(String body) throws JsonParseException {
+            QueryFields fields = new QueryFields();
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!fields.read(reader.nextName(), reader)) {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            return fields.toRequest();
+        }
+    }
+
+    /**
+     * Everything a query needs, carried in the request instead of read from the database:
+     * the query parameters plus a minimum/maximum pair per variable under "inputs", e.g.
+     * {@code "inputs": {"tradeamount": {"minimum": 10000, "maximum": 20000}, ...}}.
+     * Variables left out are zero, as they are in a freshly reset table.
+     *
+     * As nothing here was checked on the way into the database, the request is validated more
+     * strictly than /api/query: tradeAction must be BUY or SELL, rateBK and rateKN must be positive,
+     * and each variable may appear once with its minimum no greater than its maximum.
+     */
+    public record ComputeRequest(QueryRequest parameters, TradeTableSnapshot inputs) {
+
+        public static ComputeRequest parse(String body) throws JsonParseException {
+            QueryFields fields = new QueryFields();
+            Map<String, TradeTableSnapshot.Row> rows = new HashMap<>();
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("inputs".equals(name)) {
+                    readInputs(reader, rows);
+                } else if ("tradeAction".equals(name) && reader.peek() == JsonReader.Token.STRING) {
+                    fields.tradeAction = readExactAction(reader);
+                } else if (!fields.read(name, reader)) {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            requirePositive("rateBK", fields.rateBK);
+            requirePositive("rateKN", fields.rateKN);
+            return new ComputeRequest(fields.toRequest(), new TradeTableSnapshot(rows));
+        }
+
+        private static TradeAction readExactAction(JsonReader reader) throws JsonParseException {
+            String action = reader.nextString();
+            if ("BUY".equalsIgnoreCase(action)) {
+                return TradeAction.BUY;
+            }
+            if ("SELL".equalsIgnoreCase(action)) {
+                return TradeAction.SELL;
+            }
+            throw new JsonParseException("Unknown tradeAction '" + action + "', expected BUY or SELL");
+        }
+
+        private static void requirePositive(String name, BigDecimal value) throws JsonParseException {
+            if (value.signum() <= 0) {
+                throw new JsonParseException("Field '" + name + "' must be positive: " + value.toPlainString());
+            }
+        }
+
+        private static void readInputs(JsonReader reader, Map<String, TradeTableSnapshot.Row> rows) throws JsonParseException {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String variable = reader.nextName();
+                if (!WebAppDataBase.VARIABLES.contains(variable)) {
+                    throw new JsonParseException("Unknown input variable '" + variable + "', expected one of " + WebAppDataBase.VARIABLES);
+                }
+                if (rows.containsKey(variable)) {
+                    throw new JsonParseException("Input variable '" + variable + "' is given more than once");
+                }
+
+                BigDecimal minimum = BigDecimal.ZERO;
+                BigDecimal maximum = BigDecimal.ZERO;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "minimum", "min" -> minimum = readDecimal(reader, BigDecimal.ZERO);
+                        case "maximum", "max" -> maximum = readDecimal(reader, BigDecimal.ZERO);
+                        default -> reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (minimum.compareTo(maximum) > 0) {
+                    throw new JsonParseException("Input '" + variable + "' minimum " + minimum.toPlainString()
+                        + " is greater than its maximum " + maximum.toPlainString());
+                }
+
+                rows.put(variable, new TradeTableSnapshot.Row(variable, maximum, minimum, BigDecimal.ZERO, BigDecimal.ZERO));
+            }
+            reader.endObject();
+        }
+    }
+
+    /**
+     * A profit-surface sweep: the query parameters, an opening and a closing axis given as
+     * {@code {"minimum": .., "maximum": .., "steps": ..}}, the trade amounts to evaluate and the
+     * output format, "csv" (default) or "binary".
+     */
+    public record SurfaceRequest(QueryRequest parameters, Axis opening, Axis closing,
+                                 double[] tradeAmounts, String format) {
+
+        public record Axis(double minimum, double maximum, int steps) {
+        }
+
+        public long points() {
+            return (long) opening.steps() * closing.steps() * tradeAmounts.length;
+        }
+
+        public static SurfaceRequest parse(String body) throws JsonParseException {
+            QueryFields fields = new QueryFields();
+            Axis opening = null;
+            Axis closing = null;
+            List<Double> tradeAmounts = new ArrayList<>();
+            String format = "csv";
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "opening" -> opening = readAxis(reader, name);
+                    case "closing" -> closing = readAxis(reader, name);
+                    case "tradeAmounts" -> {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            tradeAmounts.add(reader.nextDecimal().doubleValue());
+                        }
+                        reader.endArray();
+                    }
+                    case "format" -> format = reader.nextString().toLowerCase();
+                    default -> {
+                        if (!fields.read(name, reader)) {
+                            reader.skipValue();
+                        }
+                    }
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            if (opening == null || closing == null || tradeAmounts.isEmpty()) {
+                throw new JsonParseException("Fields 'opening', 'closing' and a non-empty 'tradeAmounts' are required");
+            }
+            if (!"csv".equals(format) && !"binary".equals(format)) {
+                throw new JsonParseException("Unknown format '" + format + "', expected csv or binary");
+            }
+            return new SurfaceRequest(fields.toRequest(), opening, closing,
+                tradeAmounts.stream().mapToDouble(Double::doubleValue).toArray(), format);
+        }
+
+        private static Axis readAxis(JsonReader reader, String name) throws JsonParseException {
+            BigDecimal minimum = null;
+            BigDecimal maximum = null;
+            BigDecimal steps = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "minimum", "min" -> minimum = reader.nextDecimal();
+                    case "maximum", "max" -> maximum = reader.nextDecimal();
+                    case "steps" -> steps = reader.nextDecimal();
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (minimum == null || maximum == null || steps == null) {
+                throw new JsonParseException("'" + name + "' needs minimum, maximum and steps");
+            }
+            int stepCount;
+            try {
+                stepCount = steps.intValueExact();
+            } catch (ArithmeticException e) {
+                throw new JsonParseException("'" + name + "' steps must be a whole number: " + steps.toPlainString());
+            }
+            if (stepCount < 1) {
+                throw new JsonParseException("'" + name + "' steps must be at least 1: " + stepCount);
+            }
+            return new Axis(minimum.doubleValue(), maximum.doubleValue(), stepCount);
+        }
+    }
+
+    /**
+     * A Monte Carlo run: the query parameters plus a distribution for each of "opening", "closing",
+     * "tradeAmount" and optionally "spread". Each is either a plain number, held fixed, or e.g.
+     * {@code {"distribution": "normal", "mean": 17.7, "sd": 0.1}},
+     * {@code {"distribution": "uniform", "minimum": .., "maximum": ..}} or
+     * {@code {"distribution": "triangular", "minimum": .., "mode": .., "maximum": ..}}.
+     * "seed" is optional; without one a random seed is chosen and reported back.
+     */
+    public record SimulateRequest(QueryRequest parameters, Distribution opening, Distribution closing,
+                                  Distribution tradeAmount, Distribution spread, long samples, long seed, int bins) {
+
+        public static final long DEFAULT_SAMPLES = 1_000_000;
+        public static final int DEFAULT_BINS = 50;
+        public static final int MAX_BINS = 10_000;
+
+        public static SimulateRequest parse(String body) throws JsonParseException {
+            QueryFields fields = new QueryFields();
+            Distribution opening = null;
+            Distribution closing = null;
+            Distribution tradeAmount = null;
+            Distribution spread = null;
+            long samples = DEFAULT_SAMPLES;
+            Long seed = null;
+            int bins = DEFAULT_BINS;
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "opening" -> opening = readDistribution(reader, name);
+                    case "closing" -> closing = readDistribution(reader, name);
+                    case "tradeAmount" -> tradeAmount = readDistribution(reader, name);
+                    case "spread" -> spread = readDistribution(reader, name);
+                    case "samples" -> samples = readWhole(reader, name, 1, Long.MAX_VALUE);
+                    case "seed" -> seed = readWhole(reader, name, Long.MIN_VALUE, Long.MAX_VALUE);
+                    case "bins" -> bins = (int) readWhole(reader, name, 1, MAX_BINS);
+                    default -> {
+                        if (!fields.read(name, reader)) {
+                            reader.skipValue();
+                        }
+                    }
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            if (opening == null || closing == null || tradeAmount == null) {
+                throw new JsonParseException("Fields 'opening', 'closing' and 'tradeAmount' are required");
+            }
+            QueryRequest parameters = fields.toRequest();
+            if (spread == null) {
+                spread = Distribution.fixed(parameters.spread().doubleValue());
+            }
+            return new SimulateRequest(parameters, opening, closing, tradeAmount, spread, samples,
+                seed != null ? seed : new SplittableRandom().nextLong(), bins);
+        }
+
+        private static Distribution readDistribution(JsonReader reader, String name) throws JsonParseException {
+            if (reader.peek() == JsonReader.Token.NUMBER) {
+                return Distribution.fixed(reader.nextDecimal().doubleValue());
+            }
+
+            Distribution.Shape shape = null;
+            Map<String, Double> values = new HashMap<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                switch (field) {
+                    case "distribution" -> {
+                        try {
+                            shape = Distribution.Shape.fromName(reader.nextString());
+                        } catch (IllegalArgumentException e) {
+                            throw new JsonParseException("'" + name + "': " + e.getMessage());
+                        }
+                    }
+                    case "value", "mean", "sd", "mode" -> values.put(field, reader.nextDecimal().doubleValue());
+                    case "minimum", "min" -> values.put("minimum", reader.nextDecimal().doubleValue());
+                    case "maximum", "max" -> values.put("maximum", reader.nextDecimal().doubleValue());
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (shape == null) {
+                throw new JsonParseException("'" + name + "' needs a 'distribution' of fixed, uniform, normal or triangular");
+            }
+            try {
+                return switch (shape) {
+                    case FIXED -> Distribution.fixed(required(values, name, "value"));
+                    case UNIFORM -> Distribution.uniform(required(values, name, "minimum"), required(values, name, "maximum"));
+                    case NORMAL -> Distribution.normal(required(values, name, "mean"), required(values, name, "sd"));
+                    case TRIANGULAR -> Distribution.triangular(required(values, name, "minimum"),
+                        required(values, name, "mode"), required(values, name, "maximum"));
+                };
+            } catch (IllegalArgumentException e) {
+                throw new JsonParseException("'" + name + "': " + e.getMessage());
+            }
+        }
+
+        private static double required(Map<String, Double> values, String name, String field) throws JsonParseException {
+            Double value = values.get(field);
+            if (value == null) {
+                throw new JsonParseException("'" + name + "' distribution needs '" + field + "'");
+            }
+            return value;
+        }
+
+        private static long readWhole(JsonReader reader, String name, long minimum, long maximum) throws JsonParseException {
+            BigDecimal value = reader.nextDecimal();
+            long whole;
+            try {
+                whole = value.longValueExact();
+            } catch (ArithmeticException e) {
+                throw new JsonParseException("'" + name + "' must be a whole number: " + value.toPlainString());
+            }
+            if (whole < minimum || whole > maximum) {
+                throw new JsonParseException("'" + name + "' must be between " + minimum + " and " + maximum + ": " + whole);
+            }
+            return whole;
+        }
+    }
+
+    /**
+     * Point scenarios to differentiate: the query parameters plus
+     * {@code "scenarios": [{"opening": .., "closing": .., "tradeAmount": ..}, ...]}.
+     */
+    public record SensitivitiesRequest(QueryRequest parameters, List<Scenario> scenarios) {
+
+        public record Scenario(BigDecimal opening, BigDecimal closing, BigDecimal tradeAmount) {
+        }
+
+        public static SensitivitiesRequest parse(String body) throws JsonParseException {
+            QueryFields fields = new QueryFields();
+            List<Scenario> scenarios = new ArrayList<>();
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("scenarios".equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        scenarios.add(readScenario(reader, scenarios.size() + 1));
+                    }
+                    reader.endArray();
+                } else if (!fields.read(name, reader)) {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            if (scenarios.isEmpty()) {
+                throw new JsonParseException("Field 'scenarios' must hold at least one scenario");
+            }
+            return new SensitivitiesRequest(fields.toRequest(), List.copyOf(scenarios));
+        }
+
+        private static Scenario readScenario(JsonReader reader, int index) throws JsonParseException {
+            BigDecimal opening = null;
+            BigDecimal closing = null;
+            BigDecimal tradeAmount = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "opening" -> opening = reader.nextDecimal();
+                    case "closing" -> closing = reader.nextDecimal();
+                    case "tradeAmount" -> tradeAmount = reader.nextDecimal();
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (opening == null || closing == null || tradeAmount == null) {
+                throw new JsonParseException("Scenario " + index + " needs opening, closing and tradeAmount");
+            }
+            return new Scenario(opening, closing, tradeAmount);
+        }
+    }
+
+    /**
+     * A solver batch: the query parameters, "solveFor" (opening, closing, tradeAmount or spread),
+     * "target" (profit, the default, or profitFactor) and
+     * {@code "scenarios": [{"target": .., "opening": .., "closing": .., "tradeAmount": .., "spread": ..}, ...]}.
+     * Each scenario's spread defaults to the request's; other missing inputs make that scenario
+     * invalid rather than failing the batch.
+     */
+    public record SolveRequest(QueryRequest parameters, TradeSolver.Target target, TradeSolver.Unknown unknown,
+                               TradeSolver.Scenarios scenarios) {
+
+        public static SolveRequest parse(String body) throws JsonParseException {
+            QueryFields fields = new QueryFields();
+            TradeSolver.Target target = TradeSolver.Target.PROFIT;
+            TradeSolver.Unknown unknown = null;
+            List<double[]> rows = new ArrayList<>();
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                try {
+                    switch (name) {
+                        case "solveFor" -> unknown = TradeSolver.Unknown.fromName(reader.nextString());
+                        case "target" -> target = TradeSolver.Target.fromName(reader.nextString());
+                        case "scenarios" -> {
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                rows.add(readScenario(reader));
+                            }
+                            reader.endArray();
+                        }
+                        default -> {
+                            if (!fields.read(name, reader)) {
+                                reader.skipValue();
+                            }
+                        }
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new JsonParseException(e.getMessage());
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            if (unknown == null) {
+                throw new JsonParseException("Field 'solveFor' is required: opening, closing, tradeAmount or spread");
+            }
+            if (rows.isEmpty()) {
+                throw new JsonParseException("Field 'scenarios' must hold at least one scenario");
+            }
+
+            QueryRequest parameters = fields.toRequest();
+            int size = rows.size();
+            double[][] columns = new double[5][size];
+            for (int i = 0; i < size; i++) {
+                double[] row = rows.get(i);
+                for (int column = 0; column < 5; column++) {
+                    columns[column][i] = row[column];
+                }
+                if (Double.isNaN(columns[4][i])) {
+                    columns[4][i] = parameters.spread().doubleValue();
+                }
+            }
+            return new SolveRequest(parameters, target, unknown,
+                new TradeSolver.Scenarios(columns[0], columns[1], columns[2], columns[3], columns[4]));
+        }
+
+        // target, opening, closing, tradeAmount, spread; NaN where missing
+        private static double[] readScenario(JsonReader reader) throws JsonParseException {
+            double[] row = {Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+            reader.beginObject();
+            while (reader.hasNext()) {
+                int column = switch (reader.nextName()) {
+                    case "target" -> 0;
+                    case "opening" -> 1;
+                    case "closing" -> 2;
+                    case "tradeAmount" -> 3;
+                    case "spread" -> 4;
+                    default -> -1;
+                };
+                if (column < 0) {
+                    reader.skipValue();
+                } else {
+                    row[column] = reader.nextDecimal().doubleValue();
+                }
+            }
+            reader.endObject();
+            return row;
+        }
+    }
+
+    /**
+     * Opens or closes a live position: {"action":"open","symbol":"USDZAR","tradeAmount":10000,...}
+     * with the usual query parameters and an optional "opening" rate, or {"action":"close","id":3}.
+     * "resetLatency" clears the tick-to-P&L latency histogram.
+     */
+    public record LiveRequest(Action action, String symbol, QueryRequest parameters,
+                              double tradeAmount, double opening, long id) {
+
+        public enum Action {
+            OPEN, CLOSE, RESET_LATENCY;
+
+            static Action fromName(String name) {
+                return switch (name) {
+                    case "open" -> OPEN;
+                    case "close" -> CLOSE;
+                    case "resetLatency" -> RESET_LATENCY;
+                    default -> throw new IllegalArgumentException("Unknown live action: " + name + " (open, close or resetLatency)");
+                };
+            }
+        }
+
+        public static LiveRequest parse(String body) throws JsonParseException {
+            QueryFields fields = new QueryFields();
+            Action action = null;
+            String symbol = null;
+            double tradeAmount = Double.NaN;
+            double opening = Double.NaN;
+            long id = -1;
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                try {
+                    switch (name) {
+                        case "action" -> action = Action.fromName(reader.nextString());
+                        case "symbol" -> symbol = reader.nextString().trim();
+                        case "tradeAmount" -> tradeAmount = reader.nextDecimal().doubleValue();
+                        case "opening" -> opening = reader.nextDecimal().doubleValue();
+                        case "id" -> id = reader.nextDecimal().longValueExact();
+                        default -> {
+                            if (!fields.read(name, reader)) {
+                                reader.skipValue();
+                            }
+                        }
+                    }
+                } catch (IllegalArgumentException | ArithmeticException e) {
+                    throw new JsonParseException(e.getMessage());
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            if (action == null) {
+                throw new JsonParseException("Field 'action' is required: open, close or resetLatency");
+            }
+            if (action == Action.OPEN) {
+                if (symbol == null || symbol.isEmpty()) {
+                    throw new JsonParseException("Field 'symbol' is required to open a position");
+                }
+                if (!(tradeAmount > 0) || Double.isInfinite(tradeAmount)) {
+                    throw new JsonParseException("Field 'tradeAmount' must be a positive number to open a position");
+                }
+            }
+            if (action == Action.CLOSE && id < 0) {
+                throw new JsonParseException("Field 'id' is required to close a position");
+            }
+            return new LiveRequest(action, symbol, fields.toRequest(), tradeAmount, opening, id);
+        }
+    }
+
+    public record RecordingRequest(Action action, String settings, long durationSeconds, long maxSizeMb) {
+
+        public enum Action {
+            START, STOP;
+
+            static Action fromName(String name) {
+                return switch (name) {
+                    case "start" -> START;
+                    case "stop" -> STOP;
+                    default -> throw new IllegalArgumentException("Unknown recording action: " + name + " (start or stop)");
+                };
+            }
+        }
+
+        public static RecordingRequest parse(String body) throws JsonParseException {
+            Action action = null;
+            String settings = "profile";
+            long durationSeconds = 0;
+            long maxSizeMb = 0;
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                try {
+                    switch (name) {
+                        case "action" -> action = Action.fromName(reader.nextString());
+                        case "settings" -> settings = reader.nextString().trim();
+                        case "durationSeconds" -> durationSeconds = reader.nextDecimal().longValueExact();
+                        case "maxSizeMb" -> maxSizeMb = reader.nextDecimal().longValueExact();
+                        default -> reader.skipValue();
+                    }
+                } catch (IllegalArgumentException | ArithmeticException e) {
+                    throw new JsonParseException(e.getMessage());
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            if (action == null) {
+                throw new JsonParseException("Field 'action' is required: start or stop");
+            }
+            return new RecordingRequest(action, settings, durationSeconds, maxSizeMb);
+        }
+    }
+
+    // Shared by every request that carries query parameters
+    private static final class QueryFields {
+        TradeAction tradeAction = TradeAction.SELL;
+        boolean basedOnMarketRate = false;
+        BigDecimal spread = DEFAULT_SPREAD;
+        BigDecimal rateBK = BigDecimal.ONE;
+        BigDecimal rateKN = BigDecimal.ONE;
+        TradeEngine engine = TradeEngine.BIG_DECIMAL;
+        TradeBounds bounds = TradeBounds.INTERVAL;
+
+        boolean read(String name, JsonReader reader) throws JsonParseException {
+            switch (name) {
+                case "tradeAction" -> tradeAction = readAction(reader, tradeAction);
+                case "basedOnMarketRate" -> basedOnMarketRate = readBoolean(reader, basedOnMarketRate);
+                case "spread" -> spread = readDecimal(reader, spread);
+                case "rateBK" -> rateBK = readDecimal(reader, rateBK);
+                case "rateKN" -> rateKN = readDecimal(reader, rateKN);
+                case "engine" -> engine = readEngine(reader, engine);
+                case "bounds" -> bounds = readBounds(reader, bounds);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        QueryRequest toRequest() {
+            return new QueryRequest(tradeAction, basedOnMarketRate, spread, rateBK, rateKN, engine, bounds);
+        }
+    }
+
+    /**
+     * One input cell to set. With {@code expectedRevision} the update only applies if the table is
+     * still at that revision; without it, it is {@link WebAppDataBase#ANY_REVISION}.
+     */
+    public record UpdateRequest(String variable, String column, BigDecimal value, long expectedRevision) {
+
+        public static UpdateRequest parse(String body) throws JsonParseException {
+            String variable = null;
+            String column = null;
+            BigDecimal value = null;
+            long expectedRevision = WebAppDataBase.ANY_REVISION;
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "variable" -> variable = reader.nextString();
+                    case "column" -> column = reader.nextString();
+                    case "value" -> value = reader.nextDecimal();
+                    case "expectedRevision" -> expectedRevision = readRevision(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            if (variable == null || column == null || value == null) {
+                throw new JsonParseException("Fields 'variable', 'column' and 'value' are required");
+            }
+            if (!WebAppDataBase.VARIABLES.contains(variable)) {
+                throw new JsonParseException("Unknown variable '" + variable + "', expected one of " + WebAppDataBase.VARIABLES);
+            }
+            if (!UPDATABLE_COLUMNS.contains(column)) {
+                throw new JsonParseException("Column '" + column + "' cannot be updated, expected one of " + UPDATABLE_COLUMNS);
+            }
+            return new UpdateRequest(variable, column, value, expectedRevision);
+        }
+
+        private static long readRevision(JsonReader reader) throws JsonParseException {
+            try {
+                long revision = reader.nextDecimal().longValueExact();
+                if (revision < 0) {
+                    throw new JsonParseException("Field 'expectedRevision' cannot be negative: " + revision);
+                }
+                return revision;
+            } catch (ArithmeticException e) {
+                throw new JsonParseException("Field 'expectedRevision' must be a whole number");
+            }
+        }
+    }
+
+    public record ResetRequest(String resetType) {
+
+        public static ResetRequest parse(String body) throws JsonParseException {
+            String resetType = "";
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("resetType".equals(reader.nextName())) {
+                    resetType = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            return new ResetRequest(resetType);
+        }
+    }
+
+    public record CalculateRatesRequest(TradeAction tradeAction) {
+
+        public static CalculateRatesRequest parse(String body) throws JsonParseException {
+            TradeAction tradeAction = TradeAction.SELL;
+
+            JsonReader reader = new JsonReader(body);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("tradeAction".equals(reader.nextName())) {
+                    tradeAction = readAction(reader, tradeAction);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            reader.endDocument();
+
+            return new CalculateRatesRequest(tradeAction);
+        }
+    }
+
+    // Anything other than BUY is treated as SELL, as the handlers always have
+    static TradeAction readAction(JsonReader reader, TradeAction defaultValue) throws JsonParseException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            reader.nextNull();
+            return defaultValue;
+        }
+        return "BUY".equalsIgnoreCase(reader.nextString()) ? TradeAction.BUY : TradeAction.SELL;
+    }
+
+    static TradeEngine readEngine(JsonReader reader, TradeEngine defaultValue) throws JsonParseException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            reader.nextNull();
+            return defaultValue;
+        }
+        String name = reader.nextString();
+        try {
+            return TradeEngine.fromName(name);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage());
+        }
+    }
+
+    static TradeBounds readBounds(JsonReader reader, TradeBounds defaultValue) throws JsonParseException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            reader.nextNull();
+            return defaultValue;
+        }
+        String name = reader.nextString();
+        try {
+            return TradeBounds.fromName(name);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage());
+        }
+    }
+
+    static BigDecimal readDecimal(JsonReader reader, BigDecimal defaultValue) throws JsonParseException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            reader.nextNull();
+            return defaultValue;
+        }
+        return reader.nextDecimal();
+    }
+
+    static boolean readBoolean(JsonReader reader, boolean defaultValue) throws JsonParseException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            reader.nextNull();
+            return defaultValue;
+        }
+        return reader.nextBoolean();
+    }
+}
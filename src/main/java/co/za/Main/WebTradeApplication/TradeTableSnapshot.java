@@ -0,0 +1,122 @@
+package co.za.Main.WebTradeApplication;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of every row of the trade table, read with a single statement.
+ *
+ * Rows are kept in {@link WebAppDataBase#VARIABLES} order. Missing variables and NULL cells read
+ * as zero, matching {@link WebAppDataBase#getValueFromColumn(String, String)}. The revision is the
+ * table's input revision at the time of the read, or 0 for inputs that did not come from the table.
+ */
+public final class TradeTableSnapshot {
+
+    public record Row(String variable, BigDecimal maximum, BigDecimal minimum,
+                      BigDecimal returnMin, BigDecimal returnMax) {
+
+        static Row zero(String variable) {
+            return new Row(variable, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        }
+    }
+
+    private final Map<String, Row> rows;
+    private final long revision;
+
+    public TradeTableSnapshot(Map<String, Row> rowsByVariable) {
+        this(rowsByVariable, 0);
+    }
+
+    public TradeTableSnapshot(Map<String, Row> rowsByVariable, long revision) {
+        Map<String, Row> ordered = new LinkedHashMap<>();
+        for (String variable : WebAppDataBase.VARIABLES) {
+            ordered.put(variable, rowsByVariable.getOrDefault(variable, Row.zero(variable)));
+        }
+        // Keep anything unexpected at the end so nothing read from the table is silently lost
+        for (Map.Entry<String, Row> entry : rowsByVariable.entrySet()) {
+            ordered.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        this.rows = Collections.unmodifiableMap(ordered);
+        this.revision = revision;
+    }
+
+    /**
+     * Returns a copy with the given calculated ranges in place of the stored ones.
+     */
+    public TradeTableSnapshot withResults(List<QueryResult> results) {
+        Map<String, Row> updated = new LinkedHashMap<>(rows);
+        for (QueryResult result : results) {
+            Row row = row(result.variable());
+            updated.put(result.variable(), new Row(row.variable(), row.maximum(), row.minimum(),
+                result.returnMin(), result.returnMax()));
+        }
+        return new TradeTableSnapshot(updated, revision);
+    }
+
+    /**
+     * The calculated range of every row, the inverse of {@link #withResults(List)}.
+     */
+    public List<QueryResult> results() {
+        List<QueryResult> results = new ArrayList<>(rows.size());
+        for (Row row : rows.values()) {
+            results.add(new QueryResult(row.variable(), row.returnMin(), row.returnMax()));
+        }
+        return results;
+    }
+
+    public long revision() {
+        return revision;
+    }
+
+    public Row row(String variable) {
+        Row row = rows.get(variable);
+        return row != null ? row : Row.zero(variable);
+    }
+
+    public List<Row> rows() {
+        return Collections.unmodifiableList(new ArrayList<>(rows.values()));
+    }
+
+    public BigDecimal minimum(String variable) {
+        return row(variable).minimum();
+    }
+
+    public BigDecimal maximum(String variable) {
+        return row(variable).maximum();
+    }
+
+    public BigDecimal returnMin(String variable) {
+        return row(variable).returnMin();
+    }
+
+    public BigDecimal returnMax(String variable) {
+        return row(variable).returnMax();
+    }
+
+    /**
+     * Renders the rows in {@link WebAppDataBase#VARIABLES} order as the JSON array served by
+     * /api/data, each cell as a plain decimal string.
+     */
+    public String toRowsJson() {
+        StringBuilder json = new StringBuilder("[");
+        
+        for (int i = 0; i < WebAppDataBase.VARIABLES.size(); i++) {
+            Row row = row(WebAppDataBase.VARIABLES.get(i));
+            if (i > 0) json.append(",");
+            
+            json.append("{\"variable\":\"").append(row.variable())
+                .append("\",\"maximum\":\"").append(row.maximum().toPlainString())
+                .append("\",\"minimum\":\"").append(row.minimum().toPlainString())
+                .append("\",\"returnmin\":\"").append(row.returnMin().toPlainString())
+                .append("\",\"returnmax\":\"").append(row.returnMax().toPlainString())
+                .append("\"}");
+        }
+        
+        json.append("]");
+        return json.toString();
+    }
+}
@@ -2,27 +2,84 @@ package co.za.Main.WebTradeApplication;
 
 import java.math.BigDecimal;
 import java.sql.*;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import co.za.Main.Logging.Log;
 
 public class WebAppDataBase implements AutoCloseable {
 
+    private static final Log LOG = Log.get(WebAppDataBase.class);
+    // Exports share one temp file per target, so only one may write at a time
+    private static final Object EXPORT_LOCK = new Object();
+    // How long a connection waits on a locked database before SQLite reports SQLITE_BUSY
+    private static final int BUSY_TIMEOUT_MS = 5000;
+
+    static final String DEFAULT_URL = "jdbc:sqlite:WebAppDataBase.db";
+    static final String TABLE_NAME = "WebAppDataBase";
+    public static final List<String> VARIABLES =
+        List.of("tradeprofit", "profitfactor", "tradeamount", "openingvalue", "closingvalue");
+    /** Passed as the expected revision to write regardless of the table's revision. */
+    public static final long ANY_REVISION = -1;
+    // Subqueries that do not depend on the row are evaluated once per statement, so every row changed
+    // by one statement gets the same revision
+    private static final String NEXT_REVISION = "(SELECT MAX(revision) + 1 FROM " + TABLE_NAME + ")";
+    private static final String REVISION_MATCHES = " AND (SELECT MAX(revision) FROM " + TABLE_NAME + ") = ?";
+
     private Connection connection;
+    // Set when the connection is borrowed from a WebAppDataBasePool; close() hands it back instead
+    private Runnable release;
+    private ServerMetrics metrics = ServerMetrics.NONE;
     private String dataBaseName = "WebAppDataBase.db";
-    private String tableName = "WebAppDataBase";
+    private String tableName = TABLE_NAME;
     private String FILENAME = "WebAppDataBase";
 
     public WebAppDataBase() throws SQLException {
         this(false);
     }
 
+    /**
+     * Lightweight handle over a pooled connection. No schema work is done here; the pool
+     * prepares the schema once at startup. Reads, writes and exports are timed into {@code metrics}.
+     */
+    WebAppDataBase(Connection connection, Runnable release, ServerMetrics metrics) {
+        this.connection = connection;
+        this.release = release;
+        this.metrics = metrics;
+    }
+
+    /** Where this handle records its read, write and export timings. */
+    ServerMetrics getMetrics() {
+        return metrics;
+    }
+
     public WebAppDataBase(boolean resetOnStartup) throws SQLException {
         if (resetOnStartup) {
             deleteExistingFiles();
         }
         connection = DriverManager.getConnection("jdbc:sqlite:" + dataBaseName);
+        configureConnection();
         createTable();
     }
 
+    private void configureConnection() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+            // WAL lets readers proceed while a writer holds the database
+            stmt.execute("PRAGMA journal_mode = WAL");
+        }
+    }
+
     public void deleteExistingFiles() {
         try {
             File dbFile = new File(dataBaseName);
@@ -30,230 +87,411 @@ public class WebAppDataBase implements AutoCloseable {
             
             if (dbFile.exists()) {
                 boolean deleted = dbFile.delete();
-                System.out.println("Database file " + (deleted ? "deleted" : "delete failed"));
+                LOG.info("Database file " + (deleted ? "deleted" : "delete failed"));
             }
             
             if (sqlFile.exists()) {
                 boolean deleted = sqlFile.delete();
-                System.out.println("SQL file " + (deleted ? "deleted" : "delete failed"));
+                LOG.info("SQL file " + (deleted ? "deleted" : "delete failed"));
             }
         } catch (Exception e) {
-            System.err.println("Error deleting files: " + e.getMessage());
+            LOG.error("Error deleting files: " + e.getMessage());
         }
     }
 
+    /**
+     * Ensures the schema is at the current version. This is a single PRAGMA read once the
+     * database has been migrated.
+     */
     public void createTable() throws SQLException {
-        String sql = String.format("""
-            CREATE TABLE IF NOT EXISTS %s (
-                variable VARCHAR(50) DEFAULT '0',
-                maximum DECIMAL(20,8) DEFAULT 0,
-                minimum DECIMAL(20,8) DEFAULT 0,
-                returnmin DECIMAL(20,8) DEFAULT 0,
-                returnmax DECIMAL(20,8) DEFAULT 0
-            )
-            """, tableName);
-        
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(sql);
-            populateTableIfEmpty();
-        }
-    }
-
-    private void populateTableIfEmpty() throws SQLException {
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
-            
-            if (rs.next() && rs.getInt(1) == 0) {
-                System.out.println("Table is empty - populating with zero values...");
-                populateWithZeros();
-            } else {
-                System.out.println("Table already contains data - checking if migration needed...");
-                // Check if old variable names exist and migrate if needed
-                migrateOldVariableNamesIfNeeded();
-            }
-        }
+        SchemaMigrator.migrate(connection);
     }
 
     /**
-     * Migrate old variable names (buyvariable, sellvariable) to new names (openingvalue, closingvalue)
+     * @return the table's new revision
      */
-    private void migrateOldVariableNamesIfNeeded() throws SQLException {
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT variable FROM " + tableName)) {
-            
-            boolean hasBuyVariable = false;
-            boolean hasSellVariable = false;
-            boolean hasOpeningValue = false;
-            boolean hasClosingValue = false;
-            
-            while (rs.next()) {
-                String var = rs.getString("variable");
-                if ("buyvariable".equals(var)) hasBuyVariable = true;
-                if ("sellvariable".equals(var)) hasSellVariable = true;
-                if ("openingvalue".equals(var)) hasOpeningValue = true;
-                if ("closingvalue".equals(var)) hasClosingValue = true;
-            }
-            
-            // If old names exist but new names don't, perform migration
-            if ((hasBuyVariable || hasSellVariable) && (!hasOpeningValue || !hasClosingValue)) {
-                System.out.println("=== MIGRATION DETECTED ===");
-                System.out.println("Migrating from old variable names to new variable names...");
-                
-                if (hasSellVariable && !hasOpeningValue) {
-                    stmt.executeUpdate("UPDATE " + tableName + " SET variable = 'openingvalue' WHERE variable = 'sellvariable'");
-                    System.out.println("✅ Migrated sellvariable → openingvalue");
-                }
-                
-                if (hasBuyVariable && !hasClosingValue) {
-                    stmt.executeUpdate("UPDATE " + tableName + " SET variable = 'closingvalue' WHERE variable = 'buyvariable'");
-                    System.out.println("✅ Migrated buyvariable → closingvalue");
-                }
-                
-                System.out.println("=== MIGRATION COMPLETE ===");
-            }
-        }
-    }
-
-    private void populateWithZeros() throws SQLException {
-        // UPDATED: Use openingvalue and closingvalue instead of buyvariable and sellvariable
-        String[] variables = {"tradeprofit", "profitfactor", "tradeamount", "openingvalue", "closingvalue"};
-        
-        String insertSQL = "INSERT INTO " + tableName + 
-            " (variable, minimum, maximum, returnmin, returnmax) VALUES (?, 0, 0, 0, 0)";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(insertSQL)) {
-            for (String variable : variables) {
-                pstmt.setString(1, variable);
-                pstmt.executeUpdate();
-                System.out.println("Initialized " + variable + " with all zero values");
-            }
-        }
-    }
-
-    public void resetInputValuesToZero() throws SQLException {
-        System.out.println("Resetting input values (min/max) to zero...");
-        
-        String sql = "UPDATE " + tableName + " SET minimum = 0, maximum = 0";
+    public long resetInputValuesToZero() throws SQLException {
+        String sql = "UPDATE " + tableName + " SET minimum = 0, maximum = 0, revision = " + NEXT_REVISION;
+        TradeEvents.SqlStatement event = beginStatement();
+        long started = System.nanoTime();
+        int rowsAffected = 0;
         try (Statement stmt = connection.createStatement()) {
-            int rowsAffected = stmt.executeUpdate(sql);
-            System.out.println("Reset " + rowsAffected + " input values to zero.");
+            rowsAffected = stmt.executeUpdate(sql);
+            LOG.info("Reset " + rowsAffected + " input values to zero");
+        } finally {
+            finishStatement(event, ServerMetrics.Phase.DB_WRITE, started, sql, rowsAffected);
         }
+        return getRevision();
     }
 
-    public void resetAllValuesToZero() throws SQLException {
-        System.out.println("Resetting ALL values to zero...");
-        
-        String sql = "UPDATE " + tableName + " SET minimum = 0, maximum = 0, returnmin = 0, returnmax = 0";
+    /**
+     * @return the table's new revision
+     */
+    public long resetAllValuesToZero() throws SQLException {
+        String sql = "UPDATE " + tableName
+            + " SET minimum = 0, maximum = 0, returnmin = 0, returnmax = 0, revision = " + NEXT_REVISION;
+        TradeEvents.SqlStatement event = beginStatement();
+        long started = System.nanoTime();
+        int rowsAffected = 0;
         try (Statement stmt = connection.createStatement()) {
-            int rowsAffected = stmt.executeUpdate(sql);
-            System.out.println("Reset " + rowsAffected + " rows - all values set to zero.");
+            rowsAffected = stmt.executeUpdate(sql);
+            LOG.info("Reset " + rowsAffected + " rows - all values set to zero");
+        } finally {
+            finishStatement(event, ServerMetrics.Phase.DB_WRITE, started, sql, rowsAffected);
         }
+        return getRevision();
     }
 
     public BigDecimal getValueFromColumn(String variable, String columnName) throws SQLException {
         String sql = String.format("SELECT %s FROM %s WHERE variable = ?", columnName, tableName);
+        TradeEvents.SqlStatement event = beginStatement();
+        long started = System.nanoTime();
+        int rowsRead = 0;
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, variable);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
+                rowsRead = 1;
                 BigDecimal value = rs.getBigDecimal(columnName);
                 return value != null ? value : BigDecimal.ZERO;
             } else {
-                System.err.println("Variable not found: " + variable + " - returning ZERO");
+                LOG.warn("Variable not found: " + variable + " - returning ZERO");
                 return BigDecimal.ZERO;
             }
+        } finally {
+            finishStatement(event, ServerMetrics.Phase.DB_READ, started, sql, rowsRead);
+        }
+    }
+
+    /**
+     * Reads every row and column of the trade table in one statement, so the rows and the revision
+     * all come from the same committed state of the table.
+     */
+    public TradeTableSnapshot readSnapshot() throws SQLException {
+        String sql = "SELECT variable, maximum, minimum, returnmin, returnmax, revision FROM " + tableName;
+        Map<String, TradeTableSnapshot.Row> rows = new HashMap<>();
+        long revision = 0;
+        TradeEvents.SqlStatement event = beginStatement();
+        long started = System.nanoTime();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                String variable = rs.getString(1);
+                rows.put(variable, new TradeTableSnapshot.Row(variable,
+                    valueOrZero(rs.getBigDecimal(2)),
+                    valueOrZero(rs.getBigDecimal(3)),
+                    valueOrZero(rs.getBigDecimal(4)),
+                    valueOrZero(rs.getBigDecimal(5))));
+                revision = Math.max(revision, rs.getLong(6));
+            }
+        } finally {
+            finishStatement(event, ServerMetrics.Phase.DB_READ, started, sql, rows.size());
         }
+        return new TradeTableSnapshot(rows, revision);
     }
 
-    public void updateValue(String variable, String columnName, BigDecimal value) throws SQLException {
-        String sql = String.format("UPDATE %s SET %s = ? WHERE variable = ?", tableName, columnName);
+    /**
+     * The table's revision: the highest row revision. It goes up by one with every change to the
+     * inputs; calculated results are written against it but do not change it.
+     */
+    public long getRevision() throws SQLException {
+        String sql = "SELECT MAX(revision) FROM " + tableName;
+        TradeEvents.SqlStatement event = beginStatement();
+        long started = System.nanoTime();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } finally {
+            finishStatement(event, ServerMetrics.Phase.DB_READ, started, sql, 1);
+        }
+    }
+
+    private static BigDecimal valueOrZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    public long updateValue(String variable, String columnName, BigDecimal value) throws SQLException {
+        return updateValue(variable, columnName, value, ANY_REVISION);
+    }
+
+    /**
+     * Sets one input cell, provided the table is still at {@code expectedRevision}, and moves the
+     * table to the next revision. The check and the write are one statement.
+     *
+     * @param expectedRevision the revision the caller read, or {@link #ANY_REVISION}
+     * @return the table's new revision
+     * @throws StaleRevisionException if the table has moved on from {@code expectedRevision}
+     */
+    public long updateValue(String variable, String columnName, BigDecimal value, long expectedRevision)
+            throws SQLException {
+        String sql = String.format("UPDATE %s SET %s = ?, revision = %s WHERE variable = ?", tableName, columnName, NEXT_REVISION)
+            + (expectedRevision == ANY_REVISION ? "" : REVISION_MATCHES);
+        TradeEvents.SqlStatement event = beginStatement();
+        long started = System.nanoTime();
+        int rowsAffected = 0;
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setBigDecimal(1, value);
             pstmt.setString(2, variable);
-            int rowsAffected = pstmt.executeUpdate();
+            if (expectedRevision != ANY_REVISION) {
+                pstmt.setLong(3, expectedRevision);
+            }
+            rowsAffected = pstmt.executeUpdate();
             if (rowsAffected == 0) {
+                long current = getRevision();
+                if (expectedRevision != ANY_REVISION && current != expectedRevision) {
+                    throw new StaleRevisionException(expectedRevision, current);
+                }
                 throw new SQLException("No rows updated for variable: " + variable);
             }
-            System.out.println("Updated " + variable + "." + columnName + " = " + value.toPlainString());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Updated " + variable + "." + columnName + " = " + value.toPlainString());
+            }
+        } finally {
+            finishStatement(event, ServerMetrics.Phase.DB_WRITE, started, sql, rowsAffected);
         }
+        return expectedRevision == ANY_REVISION ? getRevision() : expectedRevision + 1;
     }
 
     public void updateQueryResult(String variable, BigDecimal returnMin, BigDecimal returnMax) throws SQLException {
         String sql = "UPDATE " + tableName + " SET returnmin = ?, returnmax = ? WHERE variable = ?";
+        TradeEvents.SqlStatement event = beginStatement();
+        long started = System.nanoTime();
+        int rowsAffected = 0;
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setBigDecimal(1, returnMin);
             pstmt.setBigDecimal(2, returnMax);
             pstmt.setString(3, variable);
-            int rowsAffected = pstmt.executeUpdate();
-            if (rowsAffected > 0) {
-                System.out.println("Updated calculations for " + variable + 
+            rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0 && LOG.isDebugEnabled()) {
+                LOG.debug("Updated calculations for " + variable +
                     " - returnmin: " + returnMin.toPlainString() +
                     ", returnmax: " + returnMax.toPlainString());
             }
+        } finally {
+            finishStatement(event, ServerMetrics.Phase.DB_WRITE, started, sql, rowsAffected);
+        }
+    }
+
+    /**
+     * Writes all calculated result pairs in one transaction with a single batched statement,
+     * so readers see either the previous result set or the new one, never a mix.
+     */
+    public void updateQueryResults(List<QueryResult> results) throws SQLException {
+        updateQueryResults(results, ANY_REVISION);
+    }
+
+    /**
+     * Writes results calculated from the inputs at {@code basedOnRevision}, provided the inputs are
+     * still at that revision. Results do not change the revision, so either every row is written
+     * or, if the inputs have changed, none is.
+     *
+     * @throws StaleRevisionException if the inputs have changed since {@code basedOnRevision}
+     */
+    public void updateQueryResults(List<QueryResult> results, long basedOnRevision) throws SQLException {
+        String sql = "UPDATE " + tableName + " SET returnmin = ?, returnmax = ? WHERE variable = ?"
+            + (basedOnRevision == ANY_REVISION ? "" : REVISION_MATCHES);
+        TradeEvents.SqlStatement event = beginStatement();
+        long started = System.nanoTime();
+        int rowsAffected = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (QueryResult result : results) {
+                pstmt.setBigDecimal(1, result.returnMin());
+                pstmt.setBigDecimal(2, result.returnMax());
+                pstmt.setString(3, result.variable());
+                if (basedOnRevision != ANY_REVISION) {
+                    pstmt.setLong(4, basedOnRevision);
+                }
+                pstmt.addBatch();
+            }
+            for (int count : pstmt.executeBatch()) {
+                rowsAffected += Math.max(count, 0);
+            }
+            if (rowsAffected == 0 && !results.isEmpty() && basedOnRevision != ANY_REVISION) {
+                long current = getRevision();
+                if (current != basedOnRevision) {
+                    throw new StaleRevisionException(basedOnRevision, current);
+                }
+            }
+            connection.commit();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Updated calculations for " + results.size() + " variables in one transaction");
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Restoring auto-commit below would otherwise commit whatever part of the batch ran
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+            finishStatement(event, ServerMetrics.Phase.DB_WRITE, started, sql, rowsAffected);
         }
     }
 
+    /**
+     * Logs the current input ranges at debug level. The scan exists only for that log, so it is
+     * skipped when debug logging is off.
+     */
     public void refreshInputValues() throws SQLException {
-        System.out.println("Refreshing input values from current database state...");
+        if (!LOG.isDebugEnabled()) {
+            return;
+        }
+        String sql = "SELECT variable, minimum, maximum FROM " + tableName;
+        TradeEvents.SqlStatement event = beginStatement();
+        long started = System.nanoTime();
+        int rowsRead = 0;
         try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT variable, minimum, maximum FROM " + tableName)) {
+             ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
+                rowsRead++;
                 String var = rs.getString("variable");
                 BigDecimal min = rs.getBigDecimal("minimum");
                 BigDecimal max = rs.getBigDecimal("maximum");
-                System.out.println("Current " + var + ": min=" + 
+                LOG.debug("Current " + var + ": min=" +
                     (min != null ? min.toPlainString() : "NULL") + 
                     ", max=" + (max != null ? max.toPlainString() : "NULL"));
             }
+        } finally {
+            finishStatement(event, ServerMetrics.Phase.DB_READ, started, sql, rowsRead);
+        }
+    }
+
+    private static TradeEvents.SqlStatement beginStatement() {
+        TradeEvents.SqlStatement event = new TradeEvents.SqlStatement();
+        event.begin();
+        return event;
+    }
+
+    // Times the statement into the server metrics and, while a flight recording runs, records the event
+    private void finishStatement(TradeEvents.SqlStatement event, ServerMetrics.Phase phase, long started,
+                                 String sql, int rows) {
+        metrics.record(phase, started);
+        if (event.shouldCommit()) {
+            event.statement = sql;
+            event.rows = rows;
+            event.commit();
         }
     }
 
+    public Path getDefaultExportPath() {
+        return Paths.get(FILENAME + ".sql");
+    }
+
     public void exportToSQL() throws SQLException {
-        String fileName =  FILENAME + ".sql";
+        exportToSQL(getDefaultExportPath());
+    }
+
+    /**
+     * Writes the table as a SQL dump. The dump is written to a temporary file next to the
+     * target and moved into place, so readers of the file never see a partial export.
+     */
+    public void exportToSQL(Path target) throws SQLException {
+        TradeEvents.SqlExport event = new TradeEvents.SqlExport();
+        event.begin();
+        long started = System.nanoTime();
+        int rows = 0;
+        try {
+            synchronized (EXPORT_LOCK) {
+                rows = writeExport(target);
+            }
+        } finally {
+            metrics.record(ServerMetrics.Phase.EXPORT, started);
+            if (event.shouldCommit()) {
+                event.target = target.toString();
+                event.rows = rows;
+                event.bytes = sizeOf(target);
+                event.commit();
+            }
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // Each row keeps its own revision, so a restored table resumes at the same table revision
+    private int writeExportRows(PrintWriter printWriter) throws SQLException {
+        String sql = "SELECT variable, maximum, minimum, returnmin, returnmax, revision FROM " + tableName;
+        int rows = 0;
+        TradeEvents.SqlStatement event = beginStatement();
+        long started = System.nanoTime();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                rows++;
+                printWriter.printf(
+                    "INSERT INTO %s (variable, maximum, minimum, returnmin, returnmax, revision) VALUES ('%s', %s, %s, %s, %s, %d);%n",
+                    tableName,
+                    rs.getString(1),
+                    valueOrZero(rs.getBigDecimal(2)).toPlainString(),
+                    valueOrZero(rs.getBigDecimal(3)).toPlainString(),
+                    valueOrZero(rs.getBigDecimal(4)).toPlainString(),
+                    valueOrZero(rs.getBigDecimal(5)).toPlainString(),
+                    rs.getLong(6)
+                );
+            }
+        } finally {
+            finishStatement(event, ServerMetrics.Phase.DB_READ, started, sql, rows);
+        }
+        return rows;
+    }
+
+    // Returns the number of rows exported
+    private int writeExport(Path target) throws SQLException {
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+        int rows = 0;
         
-        try (java.io.FileWriter writer = new java.io.FileWriter(fileName);
-             java.io.PrintWriter printWriter = new java.io.PrintWriter(writer)) {
-            
-            printWriter.println("-- " + tableName + " Export");
-            printWriter.println("-- Generated on: " + new java.util.Date());
-            printWriter.println();
-            
-            printWriter.println("DROP TABLE IF EXISTS " + tableName + ";");
-            printWriter.println();
-            printWriter.println("CREATE TABLE " + tableName + " (");
-            printWriter.println("    variable VARCHAR(50) DEFAULT '0',");
-            printWriter.println("    maximum DECIMAL(20,8) DEFAULT 0,");
-            printWriter.println("    minimum DECIMAL(20,8) DEFAULT 0,");
-            printWriter.println("    returnmin DECIMAL(20,8) DEFAULT 0,");
-            printWriter.println("    returnmax DECIMAL(20,8) DEFAULT 0");
-            printWriter.println(");");
-            printWriter.println();
-            
-            String sql = "SELECT * FROM " + tableName;
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8);
+                 PrintWriter printWriter = new PrintWriter(writer)) {
+                
+                printWriter.println("-- " + tableName + " Export");
+                printWriter.println("-- Generated on: " + new java.util.Date());
+                printWriter.println();
+                
+                printWriter.println("DROP TABLE IF EXISTS " + tableName + ";");
+                printWriter.println();
+                printWriter.println("CREATE TABLE " + tableName + " (");
+                printWriter.println("    variable VARCHAR(50) DEFAULT '0',");
+                printWriter.println("    maximum DECIMAL(20,8) DEFAULT 0,");
+                printWriter.println("    minimum DECIMAL(20,8) DEFAULT 0,");
+                printWriter.println("    returnmin DECIMAL(20,8) DEFAULT 0,");
+                printWriter.println("    returnmax DECIMAL(20,8) DEFAULT 0,");
+                printWriter.println("    revision INTEGER NOT NULL DEFAULT 0");
+                printWriter.println(");");
+                // Marks the restored table as current, so the migrator leaves it alone
+                printWriter.println("PRAGMA user_version = " + SchemaMigrator.CURRENT_VERSION + ";");
+                printWriter.println();
                 
                 printWriter.println("-- Insert data");
-                while (rs.next()) {
-                    printWriter.printf(
-                        "INSERT INTO %s (variable, maximum, minimum, returnmin, returnmax) VALUES ('%s', %s, %s, %s, %s);%n",
-                        tableName,
-                        rs.getString("variable"),
-                        rs.getBigDecimal("maximum").toPlainString(),
-                        rs.getBigDecimal("minimum").toPlainString(),
-                        rs.getBigDecimal("returnmin").toPlainString(),
-                        rs.getBigDecimal("returnmax").toPlainString()
-                    );
+                rows = writeExportRows(printWriter);
+                printWriter.println();
+                printWriter.println("-- End of export");
+                if (printWriter.checkError()) {
+                    throw new IOException("write to " + tempFile + " failed");
                 }
             }
             
-            printWriter.println();
-            printWriter.println("-- End of export");
-            System.out.println("Database exported to " + fileName);
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            LOG.debug("Database exported to " + target);
+            return rows;
             
-        } catch (java.io.IOException e) {
-            throw new SQLException("Error writing to SQL file: " + e.getMessage());
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // Best effort; the stale temp file does not affect the real export
+            }
+            throw new SQLException("Error writing to SQL file: " + e.getMessage(), e);
         }
     }
 
@@ -280,6 +518,13 @@ public class WebAppDataBase implements AutoCloseable {
 
     @Override
     public void close() throws SQLException {
+        if (release != null) {
+            Runnable pending = release;
+            release = null;
+            connection = null;
+            pending.run();
+            return;
+        }
         if (connection != null && !connection.isClosed()) {
             connection.close();
         }
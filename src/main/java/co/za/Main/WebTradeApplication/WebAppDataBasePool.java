@@ -0,0 +1,205 @@
+package co.za.Main.WebTradeApplication;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.sqlite.SQLiteConfig;
+import co.za.Main.Logging.Log;
+
+/**
+ * Bounded pool of long-lived SQLite connections, created once when the server starts.
+ *
+ * SQLite allows a single writer at a time, so the pool keeps exactly one writer connection and
+ * a configurable number of read-only connections. With WAL journaling readers never block on
+ * the writer. Connections are validated when borrowed and replaced if they have gone bad.
+ *
+ * Handlers borrow a {@link WebAppDataBase} handle and close it when done, which returns the
+ * connection to the pool instead of closing it. Schema migrations run once, on the writer, before
+ * any reader is opened.
+ *
+ * trade.db.readers         - number of read-only connections (default: available processors)
+ * trade.db.borrowTimeoutMs - how long to wait for a free connection (default 5000)
+ */
+public class WebAppDataBasePool implements AutoCloseable {
+
+    private static final Log LOG = Log.get(WebAppDataBasePool.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+    private static final int BUSY_TIMEOUT_MS = 5000;
+
+    private final String url;
+    private final long borrowTimeoutMs;
+    private final ServerMetrics metrics;
+    private final BlockingQueue<Connection> readers;
+    private final BlockingQueue<Connection> writer = new ArrayBlockingQueue<>(1);
+    private final List<Connection> allConnections = new ArrayList<>();
+    private volatile boolean closed = false;
+
+    public WebAppDataBasePool(String url, int readerCount, long borrowTimeoutMs) throws SQLException {
+        this(url, readerCount, borrowTimeoutMs, ServerMetrics.NONE);
+    }
+
+    /**
+     * @param metrics where borrowed handles record their database read, write and export timings
+     */
+    public WebAppDataBasePool(String url, int readerCount, long borrowTimeoutMs, ServerMetrics metrics)
+            throws SQLException {
+        if (readerCount < 1) {
+            throw new IllegalArgumentException("Reader pool size must be at least 1: " + readerCount);
+        }
+        this.url = url;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.metrics = metrics;
+        this.readers = new ArrayBlockingQueue<>(readerCount);
+
+        try {
+            // The writer opens first so the database file, schema and WAL mode exist before readers attach
+            Connection writerConnection = openConnection(false);
+            SchemaMigrator.migrate(writerConnection);
+            writer.add(writerConnection);
+
+            for (int i = 0; i < readerCount; i++) {
+                readers.add(openConnection(true));
+            }
+        } catch (SQLException e) {
+            closeAll();
+            throw e;
+        }
+
+        LOG.info("Database pool ready: 1 writer, " + readerCount + " readers (" + url
+            + ", schema v" + SchemaMigrator.CURRENT_VERSION + ")");
+    }
+
+    public static WebAppDataBasePool fromSystemProperties(ServerMetrics metrics) throws SQLException {
+        return new WebAppDataBasePool(
+            WebAppDataBase.DEFAULT_URL,
+            Integer.getInteger("trade.db.readers", Runtime.getRuntime().availableProcessors()),
+            Long.getLong("trade.db.borrowTimeoutMs", 5000L),
+            metrics
+        );
+    }
+
+    /**
+     * Borrows a read-only handle. Any attempt to write through it fails.
+     */
+    public WebAppDataBase openReader() throws SQLException {
+        return borrow(readers, true);
+    }
+
+    /**
+     * Borrows the single writer handle. Callers hold it for as short a time as possible.
+     */
+    public WebAppDataBase openWriter() throws SQLException {
+        return borrow(writer, false);
+    }
+
+    private WebAppDataBase borrow(BlockingQueue<Connection> queue, boolean readOnly) throws SQLException {
+        if (closed) {
+            throw new SQLException("Database pool is closed");
+        }
+
+        Connection connection;
+        try {
+            connection = queue.poll(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        if (connection == null) {
+            throw new SQLException("Timed out after " + borrowTimeoutMs + "ms waiting for a "
+                + (readOnly ? "reader" : "writer") + " connection");
+        }
+
+        try {
+            connection = validate(connection, readOnly);
+        } catch (SQLException e) {
+            // Keep the pool at full size; the slot is retried on the next borrow
+            queue.offer(connection);
+            throw e;
+        }
+
+        Connection borrowed = connection;
+        return new WebAppDataBase(borrowed, () -> release(queue, borrowed), metrics);
+    }
+
+    private Connection validate(Connection connection, boolean readOnly) throws SQLException {
+        if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+            return connection;
+        }
+
+        LOG.warn("Replacing invalid " + (readOnly ? "reader" : "writer") + " connection");
+        closeQuietly(connection);
+        Connection replacement = openConnection(readOnly);
+        synchronized (allConnections) {
+            allConnections.remove(connection);
+        }
+        return replacement;
+    }
+
+    private void release(BlockingQueue<Connection> queue, Connection connection) {
+        if (closed) {
+            closeQuietly(connection);
+            return;
+        }
+
+        try {
+            // A handler that failed mid-transaction must not leak it to the next borrower
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOG.error("Error resetting pooled connection: " + e.getMessage());
+        }
+
+        if (!queue.offer(connection)) {
+            closeQuietly(connection);
+        }
+    }
+
+    private Connection openConnection(boolean readOnly) throws SQLException {
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setBusyTimeout(BUSY_TIMEOUT_MS);
+        if (readOnly) {
+            sqliteConfig.setReadOnly(true);
+        } else {
+            sqliteConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        }
+
+        Connection connection = DriverManager.getConnection(url, sqliteConfig.toProperties());
+        synchronized (allConnections) {
+            allConnections.add(connection);
+        }
+        return connection;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOG.error("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        closeAll();
+    }
+
+    // Also called from the constructor, so it must not be overridable
+    private void closeAll() {
+        closed = true;
+        readers.clear();
+        writer.clear();
+        synchronized (allConnections) {
+            for (Connection connection : allConnections) {
+                closeQuietly(connection);
+            }
+            allConnections.clear();
+        }
+    }
+}
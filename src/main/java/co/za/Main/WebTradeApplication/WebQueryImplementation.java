@@ -2,252 +2,303 @@ package co.za.Main.WebTradeApplication;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
-import co.za.Main.TradeModules.Trade_Function;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import co.za.Main.TradeModules.IntervalBoundsEngine;
+import co.za.Main.TradeModules.IntervalBoundsEngine.Interval;
 import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeBounds;
+import co.za.Main.TradeModules.TradeCalculator;
+import co.za.Main.TradeModules.TradeEngine;
+import co.za.Main.Logging.Log;
 
 public class WebQueryImplementation {
     
+    private static final Log LOG = Log.get(WebQueryImplementation.class);
+    
     private TradeAction tradeAction;
     private BigDecimal spread;
     private BigDecimal rateBK;
     private BigDecimal rateKN;
     private boolean basedOnMarketRate;
+    private TradeEngine engine;
+    private TradeBounds bounds;
     
     public WebQueryImplementation(TradeAction tradeAction, boolean basedOnMarketRate, 
                                 BigDecimal spread, BigDecimal rateBK, BigDecimal rateKN) {
+        this(tradeAction, basedOnMarketRate, spread, rateBK, rateKN, TradeEngine.BIG_DECIMAL, TradeBounds.INTERVAL);
+    }
+    
+    /**
+     * The engine only applies to {@link TradeBounds#CORNERS}; interval bounds are always exact BigDecimal.
+     */
+    public WebQueryImplementation(TradeAction tradeAction, boolean basedOnMarketRate, 
+                                BigDecimal spread, BigDecimal rateBK, BigDecimal rateKN,
+                                TradeEngine engine, TradeBounds bounds) {
         this.tradeAction = tradeAction;
+        this.engine = engine;
+        this.bounds = bounds;
         this.basedOnMarketRate = basedOnMarketRate;
         this.spread = spread;
         this.rateBK = rateBK;
         this.rateKN = rateKN;
         
-        System.out.println("=== Enhanced Trade Query Implementation Initialized ===");
-        System.out.println("Trade Action: " + tradeAction);
-        System.out.println("Based on Market Rate: " + basedOnMarketRate);
-        System.out.println("Spread: " + spread);
-        System.out.println("Rate PK: " + rateBK);
-        System.out.println("Rate PN: " + rateKN);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Query initialized: action=" + tradeAction + ", basedOnMarketRate=" + basedOnMarketRate
+                + ", spread=" + spread + ", rateBK=" + rateBK + ", rateKN=" + rateKN
+                + ", bounds=" + (bounds == TradeBounds.CORNERS ? "CORNERS (" + engine + ")" : bounds));
+        }
     }
     
     public void populateTable(WebAppDataBase db) throws SQLException {
-        System.out.println("=== Running Enhanced Trade Calculations ===");
-        System.out.println("Trade Action: " + tradeAction);
-        System.out.println("Calculation Mode: " + (basedOnMarketRate ? "MARKET-BASED" : "EXECUTION-BASED"));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Running trade calculations: action=" + tradeAction
+                + ", mode=" + (basedOnMarketRate ? "MARKET-BASED" : "EXECUTION-BASED"));
+        }
         
         try {
             // Refresh input values first
             db.refreshInputValues();
             
-            // Get all min/max values from database
-            BigDecimal tradeProfitMax = db.getValueFromColumn("tradeprofit", "maximum");
-            BigDecimal tradeProfitMin = db.getValueFromColumn("tradeprofit", "minimum");
-            BigDecimal profitFactorMin = db.getValueFromColumn("profitfactor", "minimum");
-            BigDecimal profitFactorMax = db.getValueFromColumn("profitfactor", "maximum");
-            BigDecimal tradeAmountMax = db.getValueFromColumn("tradeamount", "maximum");
-            BigDecimal tradeAmountMin = db.getValueFromColumn("tradeamount", "minimum");
-            BigDecimal openingMin = db.getValueFromColumn("openingvalue", "minimum");
-            BigDecimal openingMax = db.getValueFromColumn("openingvalue", "maximum");
-            BigDecimal closingMin = db.getValueFromColumn("closingvalue", "minimum");
-            BigDecimal closingMax = db.getValueFromColumn("closingvalue", "maximum");
+            // One read for all inputs, one transaction for all results
+            TradeTableSnapshot snapshot = db.readSnapshot();
+            long started = System.nanoTime();
+            List<QueryResult> results = calculate(snapshot);
+            db.getMetrics().record(ServerMetrics.Phase.COMPUTE, started);
+            db.updateQueryResults(results, snapshot.revision());
+
+            LOG.debug("Trade calculations completed");
+            
+        } catch (Exception e) {
+            LOG.error("Error during enhanced calculations: " + e.getMessage(), e);
+            throw new SQLException("Enhanced calculation failed: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Calculates the return range of every variable from the input ranges in the snapshot.
+     * Nothing is written; the results are returned in {@link WebAppDataBase#VARIABLES} order.
+     */
+    public List<QueryResult> calculate(TradeTableSnapshot snapshot) {
+        TradeEvents.Evaluation event = new TradeEvents.Evaluation();
+        event.begin();
+        List<QueryResult> results = calculateTable(snapshot);
+        if (event.shouldCommit()) {
+            event.describe("table", tradeAction, basedOnMarketRate,
+                bounds == TradeBounds.CORNERS ? engine.name() : bounds.name(), spread, rateBK, rateKN, results.size());
+            event.commit();
+        }
+        return results;
+    }
+    
+    private List<QueryResult> calculateTable(TradeTableSnapshot snapshot) {
+        BigDecimal tradeProfitMax = snapshot.maximum("tradeprofit");
+        BigDecimal tradeProfitMin = snapshot.minimum("tradeprofit");
+        BigDecimal tradeAmountMax = snapshot.maximum("tradeamount");
+        BigDecimal tradeAmountMin = snapshot.minimum("tradeamount");
+        BigDecimal openingMin = snapshot.minimum("openingvalue");
+        BigDecimal openingMax = snapshot.maximum("openingvalue");
+        BigDecimal closingMin = snapshot.minimum("closingvalue");
+        BigDecimal closingMax = snapshot.maximum("closingvalue");
 
-            System.out.println("Current Input Values Retrieved:");
-            System.out.println("- Trade Profit: " + tradeProfitMin + " to " + tradeProfitMax);
-            System.out.println("- Trade Amount: " + tradeAmountMin + " to " + tradeAmountMax);
-            System.out.println("- Opening Value: " + openingMin + " to " + openingMax);
-            System.out.println("- Closing Value: " + closingMin + " to " + closingMax);
-            System.out.println("- Profit Factor: " + profitFactorMin + " to " + profitFactorMax);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Input values: tradeprofit " + tradeProfitMin + " to " + tradeProfitMax
+                + ", tradeamount " + tradeAmountMin + " to " + tradeAmountMax
+                + ", openingvalue " + openingMin + " to " + openingMax
+                + ", closingvalue " + closingMin + " to " + closingMax
+                + ", profitfactor " + snapshot.minimum("profitfactor") + " to " + snapshot.maximum("profitfactor"));
+        }
 
-            // Calculate and update tradeprofit
-            calculateTradeProfitValues(db, tradeAmountMin, tradeAmountMax, 
-                                     openingMin, openingMax, 
-                                     closingMin, closingMax);
+        if (bounds == TradeBounds.INTERVAL) {
+            return calculateIntervals(Interval.of(tradeProfitMin, tradeProfitMax), Interval.of(tradeAmountMin, tradeAmountMax),
+                                      Interval.of(openingMin, openingMax), Interval.of(closingMin, closingMax));
+        }
 
-            // Calculate and update profitfactor
-            calculateProfitFactorValues(db, tradeProfitMin, tradeProfitMax,
-                                      tradeAmountMin, tradeAmountMax,
-                                      openingMin, openingMax,
-                                      closingMin, closingMax);
+        // The lowest and highest profit corners. Profit, profit factor and trade amount all
+        // evaluate the same two curves, so they are built once and shared.
+        TradeCalculator lowCurve = null;
+        TradeCalculator highCurve = null;
+        if (isPositive(openingMin, openingMax, closingMin, closingMax)) {
+            try {
+                lowCurve = curve(openingMin, closingMax);
+                highCurve = curve(openingMax, closingMin);
+            } catch (ArithmeticException e) {
+                LOG.warn("Error building rate curves: " + e.getMessage());
+            }
+        }
 
-            // Calculate and update tradeamount
-            calculateTradeAmountValues(db, tradeProfitMin, tradeProfitMax, 
-                                     openingMin, openingMax, 
-                                     closingMin, closingMax);
+        List<QueryResult> results = new ArrayList<>(WebAppDataBase.VARIABLES.size());
 
-            // Calculate and update openingvalue
-            calculateOpeningValues(db, tradeProfitMin, tradeProfitMax, 
-                                 tradeAmountMin, tradeAmountMax, 
-                                 closingMin, closingMax);
+        results.add(calculateTradeProfitValues(lowCurve, highCurve, tradeAmountMin, tradeAmountMax));
 
-            // Calculate and update closingvalue
-            calculateClosingValues(db, tradeProfitMin, tradeProfitMax, 
-                                 tradeAmountMin, tradeAmountMax, 
-                                 openingMin, openingMax);
+        results.add(calculateProfitFactorValues(lowCurve, highCurve,
+                                                tradeProfitMin, tradeProfitMax,
+                                                tradeAmountMin, tradeAmountMax));
 
-            // Export results
-            db.exportToSQL();
-            System.out.println("=== Enhanced Trade calculations completed successfully ===");
-            
-        } catch (Exception e) {
-            System.err.println("Error during enhanced calculations: " + e.getMessage());
-            e.printStackTrace();
-            throw new SQLException("Enhanced calculation failed: " + e.getMessage(), e);
+        results.add(calculateTradeAmountValues(lowCurve, highCurve, tradeProfitMin, tradeProfitMax));
+
+        results.add(calculateOpeningValues(tradeProfitMin, tradeProfitMax,
+                                           tradeAmountMin, tradeAmountMax,
+                                           closingMin, closingMax));
+
+        results.add(calculateClosingValues(tradeProfitMin, tradeProfitMax,
+                                           tradeAmountMin, tradeAmountMax,
+                                           openingMin, openingMax));
+        return results;
+    }
+    
+    // One pass of interval arithmetic per output, under the same input checks as the corner method
+    private List<QueryResult> calculateIntervals(Interval tradeProfit, Interval tradeAmount,
+                                                 Interval opening, Interval closing) {
+        IntervalBoundsEngine intervals = new IntervalBoundsEngine(tradeAction, basedOnMarketRate, spread, rateBK, rateKN);
+        boolean ratesValid = isPositive(opening.min(), closing.min());
+        boolean amountValid = isPositive(tradeAmount.min());
+        
+        List<QueryResult> results = new ArrayList<>(WebAppDataBase.VARIABLES.size());
+        results.add(bounded("tradeprofit", ratesValid,
+            () -> intervals.profit(tradeAmount, opening, closing)));
+        results.add(bounded("profitfactor", ratesValid && amountValid,
+            () -> intervals.profitFactor(tradeProfit, tradeAmount)));
+        results.add(bounded("tradeamount", ratesValid,
+            () -> intervals.tradeAmount(tradeProfit, opening, closing)));
+        results.add(bounded("openingvalue", amountValid && isPositive(closing.min()),
+            () -> intervals.opening(tradeProfit, tradeAmount, closing)));
+        results.add(bounded("closingvalue", amountValid && isPositive(opening.min()),
+            () -> intervals.closing(tradeProfit, tradeAmount, opening)));
+        return results;
+    }
+    
+    private static QueryResult bounded(String variable, boolean valid, Supplier<Interval> range) {
+        try {
+            if (valid) {
+                Interval result = range.get();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Calculated " + variable + " range");
+                }
+                return new QueryResult(variable, result.min(), result.max());
+            } else {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Skipping " + variable + " calculation - invalid input values");
+                }
+                return QueryResult.zero(variable);
+            }
+        } catch (ArithmeticException e) {
+            LOG.warn("Error calculating " + variable + ": " + e.getMessage());
+            return QueryResult.zero(variable);
+        }
+    }
+    
+    private TradeCalculator curve(BigDecimal opening, BigDecimal closing) {
+        return engine.create(tradeAction, basedOnMarketRate, spread, rateBK, rateKN, opening, closing);
+    }
+    
+    private static boolean isPositive(BigDecimal... values) {
+        for (BigDecimal value : values) {
+            if (value.signum() <= 0) {
+                return false;
+            }
         }
+        return true;
     }
     
-    private void calculateTradeProfitValues(WebAppDataBase db, 
-                                          BigDecimal tradeAmountMin, BigDecimal tradeAmountMax,
-                                          BigDecimal openingMin, BigDecimal openingMax,
-                                          BigDecimal closingMin, BigDecimal closingMax) throws SQLException {
+    private QueryResult calculateTradeProfitValues(TradeCalculator lowCurve, TradeCalculator highCurve,
+                                                   BigDecimal tradeAmountMin, BigDecimal tradeAmountMax) {
         try {
-            if (openingMax.compareTo(BigDecimal.ZERO) > 0 && closingMin.compareTo(BigDecimal.ZERO) > 0 &&
-                openingMin.compareTo(BigDecimal.ZERO) > 0 && closingMax.compareTo(BigDecimal.ZERO) > 0) {
-                
-                Trade_Function funcMin = new Trade_Function(tradeAction, spread, rateBK, rateKN, 
-                    tradeAmountMin, openingMin, closingMax);
-                funcMin.setBasedOnMarketRate(basedOnMarketRate);
-                
-                Trade_Function funcMax = new Trade_Function(tradeAction, spread, rateBK, rateKN, 
-                    tradeAmountMax, openingMax, closingMin);
-                funcMax.setBasedOnMarketRate(basedOnMarketRate);
+            if (lowCurve != null && highCurve != null) {
+                BigDecimal tradeProfitMinResult = lowCurve.returnProfit(tradeAmountMin);
+                BigDecimal tradeProfitMaxResult = highCurve.returnProfit(tradeAmountMax);
                 
-                BigDecimal tradeProfitMinResult = funcMin.returnProfit(tradeAmountMin);
-                BigDecimal tradeProfitMaxResult = funcMax.returnProfit(tradeAmountMax);
-                
-                db.updateQueryResult("tradeprofit", tradeProfitMinResult, tradeProfitMaxResult);
-                System.out.println("✅ Updated tradeprofit calculations");
+                LOG.debug("Calculated tradeprofit range");
+                return new QueryResult("tradeprofit", tradeProfitMinResult, tradeProfitMaxResult);
             } else {
-                System.out.println("⚠️ Skipping tradeprofit calculation - invalid input values");
-                db.updateQueryResult("tradeprofit", BigDecimal.ZERO, BigDecimal.ZERO);
+                LOG.debug("Skipping tradeprofit calculation - invalid input values");
+                return QueryResult.zero("tradeprofit");
             }
         } catch (ArithmeticException e) {
-            System.out.println("❌ Error calculating tradeprofit: " + e.getMessage());
-            db.updateQueryResult("tradeprofit", BigDecimal.ZERO, BigDecimal.ZERO);
+            LOG.warn("Error calculating tradeprofit: " + e.getMessage());
+            return QueryResult.zero("tradeprofit");
         }
     }
     
-    private void calculateProfitFactorValues(WebAppDataBase db,
-                                           BigDecimal tradeProfitMin, BigDecimal tradeProfitMax,
-                                           BigDecimal tradeAmountMin, BigDecimal tradeAmountMax,
-                                           BigDecimal openingMin, BigDecimal openingMax,
-                                           BigDecimal closingMin, BigDecimal closingMax) throws SQLException {
+    private QueryResult calculateProfitFactorValues(TradeCalculator lowCurve, TradeCalculator highCurve,
+                                                    BigDecimal tradeProfitMin, BigDecimal tradeProfitMax,
+                                                    BigDecimal tradeAmountMin, BigDecimal tradeAmountMax) {
         try {
-            if (tradeAmountMax.compareTo(BigDecimal.ZERO) > 0 && tradeAmountMin.compareTo(BigDecimal.ZERO) > 0 &&
-                openingMax.compareTo(BigDecimal.ZERO) > 0 && closingMin.compareTo(BigDecimal.ZERO) > 0 &&
-                openingMin.compareTo(BigDecimal.ZERO) > 0 && closingMax.compareTo(BigDecimal.ZERO) > 0) {
-                
-                Trade_Function funcMin = new Trade_Function(tradeAction, spread, rateBK, rateKN, 
-                    tradeAmountMax, openingMin, closingMax);
-                funcMin.setBasedOnMarketRate(basedOnMarketRate);
-                
-                Trade_Function funcMax = new Trade_Function(tradeAction, spread, rateBK, rateKN, 
-                    tradeAmountMin, openingMax, closingMin);
-                funcMax.setBasedOnMarketRate(basedOnMarketRate);
-                
-                BigDecimal profitFactorMinResult = funcMin.returnProfitFactor(tradeProfitMin, tradeAmountMax);
-                BigDecimal profitFactorMaxResult = funcMax.returnProfitFactor(tradeProfitMax, tradeAmountMin);
+            if (lowCurve != null && highCurve != null && isPositive(tradeAmountMin, tradeAmountMax)) {
+                BigDecimal profitFactorMinResult = lowCurve.returnProfitFactor(tradeProfitMin, tradeAmountMax);
+                BigDecimal profitFactorMaxResult = highCurve.returnProfitFactor(tradeProfitMax, tradeAmountMin);
                 
-                db.updateQueryResult("profitfactor", profitFactorMinResult, profitFactorMaxResult);
-                System.out.println("✅ Updated profitfactor calculations");
+                LOG.debug("Calculated profitfactor range");
+                return new QueryResult("profitfactor", profitFactorMinResult, profitFactorMaxResult);
             } else {
-                System.out.println("⚠️ Skipping profitfactor calculation - invalid input values");
-                db.updateQueryResult("profitfactor", BigDecimal.ZERO, BigDecimal.ZERO);
+                LOG.debug("Skipping profitfactor calculation - invalid input values");
+                return QueryResult.zero("profitfactor");
             }
         } catch (ArithmeticException e) {
-            System.out.println("❌ Error calculating profitfactor: " + e.getMessage());
-            db.updateQueryResult("profitfactor", BigDecimal.ZERO, BigDecimal.ZERO);
+            LOG.warn("Error calculating profitfactor: " + e.getMessage());
+            return QueryResult.zero("profitfactor");
         }
     }
     
-    private void calculateTradeAmountValues(WebAppDataBase db,
-                                          BigDecimal tradeProfitMin, BigDecimal tradeProfitMax,
-                                          BigDecimal openingMin, BigDecimal openingMax,
-                                          BigDecimal closingMin, BigDecimal closingMax) throws SQLException {
+    private QueryResult calculateTradeAmountValues(TradeCalculator lowCurve, TradeCalculator highCurve,
+                                                   BigDecimal tradeProfitMin, BigDecimal tradeProfitMax) {
         try {
-            if (openingMax.compareTo(BigDecimal.ZERO) > 0 && openingMin.compareTo(BigDecimal.ZERO) > 0 &&
-                closingMin.compareTo(BigDecimal.ZERO) > 0 && closingMax.compareTo(BigDecimal.ZERO) > 0) {
-                
-                Trade_Function funcMin = new Trade_Function(tradeAction, spread, rateBK, rateKN, 
-                    BigDecimal.ONE, openingMin, closingMax);
-                funcMin.setBasedOnMarketRate(basedOnMarketRate);
-                
-                Trade_Function funcMax = new Trade_Function(tradeAction, spread, rateBK, rateKN, 
-                    BigDecimal.ONE, openingMax, closingMin);
-                funcMax.setBasedOnMarketRate(basedOnMarketRate);
-                
-                BigDecimal tradeAmountMinResult = funcMin.returnTradeAmount(tradeProfitMin, BigDecimal.ONE);
-                BigDecimal tradeAmountMaxResult = funcMax.returnTradeAmount(tradeProfitMax, BigDecimal.ONE);
+            if (lowCurve != null && highCurve != null) {
+                BigDecimal tradeAmountMinResult = lowCurve.returnTradeAmount(tradeProfitMin, BigDecimal.ONE);
+                BigDecimal tradeAmountMaxResult = highCurve.returnTradeAmount(tradeProfitMax, BigDecimal.ONE);
                 
-                db.updateQueryResult("tradeamount", tradeAmountMinResult, tradeAmountMaxResult);
-                System.out.println("✅ Updated tradeamount calculations");
+                LOG.debug("Calculated tradeamount range");
+                return new QueryResult("tradeamount", tradeAmountMinResult, tradeAmountMaxResult);
             } else {
-                System.out.println("⚠️ Skipping tradeamount calculation - invalid input values");
-                db.updateQueryResult("tradeamount", BigDecimal.ZERO, BigDecimal.ZERO);
+                LOG.debug("Skipping tradeamount calculation - invalid input values");
+                return QueryResult.zero("tradeamount");
             }
         } catch (ArithmeticException e) {
-            System.out.println("❌ Error calculating tradeamount: " + e.getMessage());
-            db.updateQueryResult("tradeamount", BigDecimal.ZERO, BigDecimal.ZERO);
+            LOG.warn("Error calculating tradeamount: " + e.getMessage());
+            return QueryResult.zero("tradeamount");
         }
     }
     
-    private void calculateOpeningValues(WebAppDataBase db,
-                                       BigDecimal tradeProfitMin, BigDecimal tradeProfitMax,
-                                       BigDecimal tradeAmountMin, BigDecimal tradeAmountMax,
-                                       BigDecimal closingMin, BigDecimal closingMax) throws SQLException {
+    // Solving for the opening rate only uses the closing leg; ONE stands in for the unknown opening
+    private QueryResult calculateOpeningValues(BigDecimal tradeProfitMin, BigDecimal tradeProfitMax,
+                                               BigDecimal tradeAmountMin, BigDecimal tradeAmountMax,
+                                               BigDecimal closingMin, BigDecimal closingMax) {
         try {
-            if (tradeAmountMax.compareTo(BigDecimal.ZERO) > 0 && tradeAmountMin.compareTo(BigDecimal.ZERO) > 0 &&
-                closingMin.compareTo(BigDecimal.ZERO) > 0 && closingMax.compareTo(BigDecimal.ZERO) > 0) {
+            if (isPositive(tradeAmountMin, tradeAmountMax, closingMin, closingMax)) {
+                BigDecimal openingMinResult = curve(BigDecimal.ONE, closingMax).returnOpening(tradeProfitMin, tradeAmountMax);
+                BigDecimal openingMaxResult = curve(BigDecimal.ONE, closingMin).returnOpening(tradeProfitMax, tradeAmountMin);
                 
-                Trade_Function funcMin = new Trade_Function(tradeAction, spread, rateBK, rateKN, 
-                    tradeAmountMax, BigDecimal.ONE, closingMax);
-                funcMin.setBasedOnMarketRate(basedOnMarketRate);
-                
-                Trade_Function funcMax = new Trade_Function(tradeAction, spread, rateBK, rateKN, 
-                    tradeAmountMin, BigDecimal.ONE, closingMin);
-                funcMax.setBasedOnMarketRate(basedOnMarketRate);
-                
-                BigDecimal openingMinResult = funcMin.returnOpening(tradeProfitMin, tradeAmountMax);
-                BigDecimal openingMaxResult = funcMax.returnOpening(tradeProfitMax, tradeAmountMin);
-                
-                db.updateQueryResult("openingvalue", openingMinResult, openingMaxResult);
-                System.out.println("✅ Updated openingvalue calculations");
+                LOG.debug("Calculated openingvalue range");
+                return new QueryResult("openingvalue", openingMinResult, openingMaxResult);
             } else {
-                System.out.println("⚠️ Skipping openingvalue calculation - invalid input values");
-                db.updateQueryResult("openingvalue", BigDecimal.ZERO, BigDecimal.ZERO);
+                LOG.debug("Skipping openingvalue calculation - invalid input values");
+                return QueryResult.zero("openingvalue");
             }
         } catch (ArithmeticException e) {
-            System.out.println("❌ Error calculating openingvalue: " + e.getMessage());
-            db.updateQueryResult("openingvalue", BigDecimal.ZERO, BigDecimal.ZERO);
+            LOG.warn("Error calculating openingvalue: " + e.getMessage());
+            return QueryResult.zero("openingvalue");
         }
     }
     
-    private void calculateClosingValues(WebAppDataBase db,
-                                      BigDecimal tradeProfitMin, BigDecimal tradeProfitMax,
-                                      BigDecimal tradeAmountMin, BigDecimal tradeAmountMax,
-                                      BigDecimal openingMin, BigDecimal openingMax) throws SQLException {
+    // Solving for the closing rate only uses the opening leg; ONE stands in for the unknown closing
+    private QueryResult calculateClosingValues(BigDecimal tradeProfitMin, BigDecimal tradeProfitMax,
+                                               BigDecimal tradeAmountMin, BigDecimal tradeAmountMax,
+                                               BigDecimal openingMin, BigDecimal openingMax) {
         try {
-            if (openingMin.compareTo(BigDecimal.ZERO) > 0 && openingMax.compareTo(BigDecimal.ZERO) > 0 &&
-                tradeAmountMax.compareTo(BigDecimal.ZERO) > 0 && tradeAmountMin.compareTo(BigDecimal.ZERO) > 0) {
-                
-                Trade_Function funcMin = new Trade_Function(tradeAction, spread, rateBK, rateKN, 
-                    tradeAmountMax, openingMin, BigDecimal.ONE);
-                funcMin.setBasedOnMarketRate(basedOnMarketRate);
-                
-                Trade_Function funcMax = new Trade_Function(tradeAction, spread, rateBK, rateKN, 
-                    tradeAmountMin, openingMax, BigDecimal.ONE);
-                funcMax.setBasedOnMarketRate(basedOnMarketRate);
-                
-                BigDecimal closingMinResult = funcMin.returnClosing(tradeProfitMin, tradeAmountMax);
-                BigDecimal closingMaxResult = funcMax.returnClosing(tradeProfitMax, tradeAmountMin);
+            if (isPositive(openingMin, openingMax, tradeAmountMin, tradeAmountMax)) {
+                BigDecimal closingMinResult = curve(openingMin, BigDecimal.ONE).returnClosing(tradeProfitMin, tradeAmountMax);
+                BigDecimal closingMaxResult = curve(openingMax, BigDecimal.ONE).returnClosing(tradeProfitMax, tradeAmountMin);
                 
-                db.updateQueryResult("closingvalue", closingMinResult, closingMaxResult);
-                System.out.println("✅ Updated closingvalue calculations");
+                LOG.debug("Calculated closingvalue range");
+                return new QueryResult("closingvalue", closingMinResult, closingMaxResult);
             } else {
-                System.out.println("⚠️ Skipping closingvalue calculation - invalid input values");
-                db.updateQueryResult("closingvalue", BigDecimal.ZERO, BigDecimal.ZERO);
+                LOG.debug("Skipping closingvalue calculation - invalid input values");
+                return QueryResult.zero("closingvalue");
             }
         } catch (ArithmeticException e) {
-            System.out.println("❌ Error calculating closingvalue: " + e.getMessage());
-            db.updateQueryResult("closingvalue", BigDecimal.ZERO, BigDecimal.ZERO);
+            LOG.warn("Error calculating closingvalue: " + e.getMessage());
+            return QueryResult.zero("closingvalue");
         }
     }
-}
\ No newline at end of file
+}
@@ -3,50 +3,126 @@ package co.za.Main.WebTradeApplication;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.Headers;
 import java.io.*;
 import java.net.InetSocketAddress;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import co.za.Main.MarketData.LivePnlEngine;
+import co.za.Main.MarketData.LivePosition;
+import co.za.Main.MarketData.LiveRateFeed;
+import co.za.Main.Metrics.LatencyHistogram;
+import co.za.Main.TradeModules.MonteCarloSimulator;
+import co.za.Main.TradeModules.ProfitDistribution;
+import co.za.Main.TradeModules.ProfitSensitivities;
+import co.za.Main.TradeModules.ProfitSurface;
+import co.za.Main.TradeModules.ProfitSurfaceSweep;
 import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeEngine;
+import co.za.Main.TradeModules.TradeSolver;
+import co.za.Main.TradeModules.Trade_Function;
+import co.za.Main.Logging.Log;
 import java.sql.SQLException;
 
 public class WebServerApplication {
     
     private HttpServer server;
+    private ExecutorService executor;
+    private WebAppDataBasePool dataBasePool;
+    private SqlExportScheduler sqlExporter;
+    private StaticAssetCache staticAssets;
+    private ScenarioBatchRunner batchRunner;
+    private QueryResultCache queryCache;
+    private final SingleFlight<QueryFlight, QueryOutcome> queryFlights = new SingleFlight<>();
+    private final LongAdder staleQueryWrites = new LongAdder();
+    private ServerMetrics metrics;
+    private LivePnlEngine liveEngine;
+    private LiveRateFeed liveFeed;
+    private FlightRecorderControl flightRecorder;
+    private final ServerConfig config;
     private String filename = "trade-index.html";
+    private static final Log LOG = Log.get(WebServerApplication.class);
+    private static final long EXPORT_TIMEOUT_MS = 30_000;
+    // A query whose inputs change under it is recalculated this many times before it gives up
+    private static final int QUERY_WRITE_ATTEMPTS = 3;
+    private static final long SURFACE_MAX_POINTS = Long.getLong("trade.surface.maxPoints", 8_000_000L);
+    // A full surface is held in memory while it streams out, so sweeps run one at a time
+    private final Semaphore surfacePermit = new Semaphore(1);
+    private static final long SIMULATE_MAX_SAMPLES = Long.getLong("trade.simulate.maxSamples", 50_000_000L);
+    private static final double[] SIMULATE_PERCENTILES = {1, 5, 50, 95, 99};
+    private static final double[] LIVE_PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] LIVE_PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+    // Admin endpoints answer only local clients unless this is set
+    private static final boolean ADMIN_ALLOW_REMOTE = Boolean.getBoolean("trade.admin.allowRemote");
     
     public WebServerApplication() throws IOException {
+        this(ServerConfig.fromSystemProperties());
+    }
+    
+    public WebServerApplication(ServerConfig config) throws IOException {
+        this.config = config;
         setupServer();
     }
     
     private void setupServer() throws IOException {
-        server = HttpServer.create(new InetSocketAddress(8080), 0);
+        metrics = new ServerMetrics();
+        try {
+            dataBasePool = WebAppDataBasePool.fromSystemProperties(metrics);
+        } catch (SQLException e) {
+            throw new IOException("Could not open database pool: " + e.getMessage(), e);
+        }
+        try (WebAppDataBase db = dataBasePool.openReader()) {
+            sqlExporter = SqlExportScheduler.fromSystemProperties(dataBasePool, db.getDefaultExportPath());
+        } catch (SQLException e) {
+            dataBasePool.close();
+            throw new IOException("Could not start SQL exporter: " + e.getMessage(), e);
+        }
         
-        server.createContext("/", new StaticFileHandler());
-        server.createContext("/api/data", new DataHandler());
-        server.createContext("/api/update", new UpdateHandler());
-        server.createContext("/api/query", new QueryHandler());
-        server.createContext("/api/reset", new ResetHandler());
-        server.createContext("/api/calculate-rates", new CalculateRatesHandler());
+        // Headers and body go out as separate writes; with Nagle on, keep-alive clients wait out a
+        // delayed ACK (about 40ms) on every response. Read once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(config.getPort()), config.getBacklog());
+        executor = config.createExecutor();
+        server.setExecutor(executor);
         
-        server.start();
-        System.out.println("Trade Web Server running at: http://localhost:8080");
-    }
-    
-    class StaticFileHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if ("GET".equals(exchange.getRequestMethod())) {
-                String html = getHtmlContent();
-                exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
-                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-                exchange.sendResponseHeaders(200, html.getBytes().length);
-                exchange.getResponseBody().write(html.getBytes());
-                exchange.getResponseBody().close();
-            }
+        staticAssets = StaticAssetCache.fromSystemProperties();
+        batchRunner = ScenarioBatchRunner.fromSystemProperties();
+        queryCache = QueryResultCache.fromSystemProperties();
+        liveEngine = LivePnlEngine.fromSystemProperties();
+        liveFeed = LiveRateFeed.fromSystemProperties(liveEngine);
+        flightRecorder = FlightRecorderControl.fromSystemProperties();
+        if (liveFeed != null) {
+            LOG.info("Live rates from " + liveFeed.getDescription());
         }
+        server.createContext("/", metrics.instrument("static", new StaticFileHandler(staticAssets, filename, this::getFallbackHtml)));
+        server.createContext("/api/data", metrics.instrument("data", new DataHandler()));
+        server.createContext("/api/update", metrics.instrument("update", new UpdateHandler()));
+        server.createContext("/api/query", metrics.instrument("query", new QueryHandler()));
+        server.createContext("/api/cache", metrics.instrument("cache", new CacheHandler()));
+        server.createContext("/api/compute", metrics.instrument("compute", new ComputeHandler()));
+        server.createContext("/api/batch", metrics.instrument("batch", new BatchHandler()));
+        server.createContext("/api/surface", metrics.instrument("surface", new SurfaceHandler()));
+        server.createContext("/api/simulate", metrics.instrument("simulate", new SimulateHandler()));
+        server.createContext("/api/sensitivities", metrics.instrument("sensitivities", new SensitivitiesHandler()));
+        server.createContext("/api/solve", metrics.instrument("solve", new SolveHandler()));
+        server.createContext("/api/live", metrics.instrument("live", new LiveHandler()));
+        server.createContext("/api/reset", metrics.instrument("reset", new ResetHandler()));
+        server.createContext("/api/calculate-rates", metrics.instrument("calculate_rates", new CalculateRatesHandler()));
+        server.createContext("/api/export", metrics.instrument("export", new ExportHandler()));
+        server.createContext("/api/metrics", metrics.instrument("metrics", new MetricsHandler()));
+        server.createContext("/api/admin/jfr", metrics.instrument("admin_jfr", new FlightRecordingHandler()));
+        
+        server.start();
+        LOG.info("Trade Web Server running at: http://localhost:" + config.getPort() + " (" + config + ")");
     }
     
     class DataHandler implements HttpHandler {
@@ -61,9 +137,10 @@ public class WebServerApplication {
             }
             
             if ("GET".equals(exchange.getRequestMethod())) {
-                try (WebAppDataBase db = new WebAppDataBase()) {
-                    String json = buildDataJson(db);
-                    sendJsonResponse(exchange, json);
+                try (WebAppDataBase db = dataBasePool.openReader()) {
+                    TradeTableSnapshot snapshot = db.readSnapshot();
+                    sendJsonResponse(exchange, "{\"revision\":" + snapshot.revision()
+                        + ",\"data\":" + snapshot.toRowsJson() + "}");
                 } catch (Exception e) {
                     sendErrorResponse(exchange, "Error fetching data: " + e.getMessage());
                 }
@@ -84,17 +161,23 @@ public class WebServerApplication {
             
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
-                    String body = readBody(exchange);
+                    TradeRequests.UpdateRequest request = parseBody(exchange, TradeRequests.UpdateRequest::parse);
                     
-                    String variable = parseStringValue(body, "variable");
-                    String column = parseStringValue(body, "column");
-                    BigDecimal value = new BigDecimal(parseStringValue(body, "value"));
-                    
-                    try (WebAppDataBase db = new WebAppDataBase()) {
-                        db.updateValue(variable, column, value);
-                        sendJsonResponse(exchange, "{\"success\":true,\"message\":\"Value updated successfully\"}");
+                    try (WebAppDataBase db = dataBasePool.openWriter()) {
+                        long revision = db.updateValue(request.variable(), request.column(), request.value(),
+                            request.expectedRevision());
+                        queryCache.invalidate();
+                        sqlExporter.requestExport();
+                        sendJsonResponse(exchange, "{\"success\":true,\"message\":\"Value updated successfully\",\"revision\":"
+                            + revision + "}");
                     }
                     
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid update request: " + e.getMessage());
+                } catch (StaleRevisionException e) {
+                    sendErrorResponse(exchange, 409, e.getMessage());
                 } catch (Exception e) {
                     sendErrorResponse(exchange, "Error updating value: " + e.getMessage());
                 }
@@ -115,24 +198,34 @@ public class WebServerApplication {
             
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
-                    String body = readBody(exchange);
-                    String resetType = parseStringValue(body, "resetType");
+                    String resetType = parseBody(exchange, TradeRequests.ResetRequest::parse).resetType();
                     
-                    try (WebAppDataBase db = new WebAppDataBase()) {
+                    try (WebAppDataBase db = dataBasePool.openWriter()) {
+                        long revision;
                         switch (resetType) {
                             case "zero":
-                                db.resetAllValuesToZero();
-                                sendJsonResponse(exchange, "{\"success\":true,\"message\":\"All values reset to zero\"}");
+                                revision = db.resetAllValuesToZero();
+                                queryCache.invalidate();
+                                sqlExporter.requestExport();
+                                sendJsonResponse(exchange, "{\"success\":true,\"message\":\"All values reset to zero\",\"revision\":"
+                                    + revision + "}");
                                 break;
                             case "input":
-                                db.resetInputValuesToZero();
-                                sendJsonResponse(exchange, "{\"success\":true,\"message\":\"Input values reset to zero\"}");
+                                revision = db.resetInputValuesToZero();
+                                queryCache.invalidate();
+                                sqlExporter.requestExport();
+                                sendJsonResponse(exchange, "{\"success\":true,\"message\":\"Input values reset to zero\",\"revision\":"
+                                    + revision + "}");
                                 break;
                             default:
-                                sendErrorResponse(exchange, "Invalid reset type: " + resetType);
+                                sendErrorResponse(exchange, 400, "Invalid reset type: " + resetType);
                         }
                     }
                     
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid reset request: " + e.getMessage());
                 } catch (Exception e) {
                     sendErrorResponse(exchange, "Error resetting values: " + e.getMessage());
                 }
@@ -154,30 +247,20 @@ public class WebServerApplication {
             
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
-                    String body = readBody(exchange);
-                    
-                    String tradeActionStr = parseStringValue(body, "tradeAction");
-                    TradeAction tradeAction = "BUY".equalsIgnoreCase(tradeActionStr) 
-                        ? TradeAction.BUY 
-                        : TradeAction.SELL;
-                    
-                    System.out.println("=== Calculate Rates Request ===");
-                    System.out.println("Trade Action: " + tradeAction);
+                    TradeAction tradeAction = parseBody(exchange, TradeRequests.CalculateRatesRequest::parse).tradeAction();
                     
-                    try (WebAppDataBase db = new WebAppDataBase()) {
+                    try (WebAppDataBase db = dataBasePool.openReader()) {
                         // Get opening and closing values from database
-                        BigDecimal openingMin = db.getValueFromColumn("openingvalue", "minimum");
-                        BigDecimal openingMax = db.getValueFromColumn("openingvalue", "maximum");
-                        BigDecimal closingMin = db.getValueFromColumn("closingvalue", "minimum");
-                        BigDecimal closingMax = db.getValueFromColumn("closingvalue", "maximum");
+                        TradeTableSnapshot snapshot = db.readSnapshot();
+                        BigDecimal openingMin = snapshot.minimum("openingvalue");
+                        BigDecimal openingMax = snapshot.maximum("openingvalue");
+                        BigDecimal closingMin = snapshot.minimum("closingvalue");
+                        BigDecimal closingMax = snapshot.maximum("closingvalue");
                         
                         // Use maximum values (or could use average)
                         BigDecimal openingValue = openingMax.compareTo(BigDecimal.ZERO) > 0 ? openingMax : openingMin;
                         BigDecimal closingValue = closingMax.compareTo(BigDecimal.ZERO) > 0 ? closingMax : closingMin;
                         
-                        System.out.println("Opening Value: " + openingValue.toPlainString());
-                        System.out.println("Closing Value: " + closingValue.toPlainString());
-                        
                         BigDecimal rateBK;
                         BigDecimal rateKN;
                         
@@ -192,8 +275,11 @@ public class WebServerApplication {
                                 : BigDecimal.ONE;
                         }
                         
-                        System.out.println("Calculated rateBK: " + rateBK.toPlainString());
-                        System.out.println("Calculated rateKN: " + rateKN.toPlainString());
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Calculated rates for " + tradeAction + " from opening " + openingValue.toPlainString()
+                                + ", closing " + closingValue.toPlainString()
+                                + ": rateBK=" + rateBK.toPlainString() + ", rateKN=" + rateKN.toPlainString());
+                        }
                         
                         String response = String.format(
                             "{\"success\":true,\"rateBK\":\"%s\",\"rateKN\":\"%s\",\"message\":\"Rates calculated successfully\"}",
@@ -204,17 +290,51 @@ public class WebServerApplication {
                         sendJsonResponse(exchange, response);
                     }
                     
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid calculate-rates request: " + e.getMessage());
                 } catch (SQLException e) {
-                    System.err.println("Database error: " + e.getMessage());
+                    LOG.error("Database error: " + e.getMessage(), e);
                     sendErrorResponse(exchange, "Database error: " + e.getMessage());
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    LOG.error("Error calculating rates: " + e.getMessage(), e);
                     sendErrorResponse(exchange, "Error calculating rates: " + e.getMessage());
                 }
             }
         }
     }
     
+    class ExportHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            addCorsHeaders(exchange);
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            
+            if ("POST".equals(exchange.getRequestMethod())) {
+                try {
+                    java.nio.file.Path file = sqlExporter.exportNow(EXPORT_TIMEOUT_MS);
+                    sendJsonResponse(exchange, String.format(
+                        "{\"success\":true,\"message\":\"Database exported\",\"file\":\"%s\",\"exports\":%d,\"requests\":%d}",
+                        file.getFileName(), sqlExporter.getExportCount(), sqlExporter.getRequestCount()));
+                } catch (SQLException e) {
+                    sendErrorResponse(exchange, "Error exporting database: " + e.getMessage());
+                } catch (RejectedExecutionException e) {
+                    // The exporter has been closed because the server is stopping
+                    sendErrorResponse(exchange, 503, "Export unavailable: server is shutting down");
+                } catch (Exception e) {
+                    LOG.error("Error exporting database: " + e.getMessage(), e);
+                    sendErrorResponse(exchange, "Error exporting database: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
     class QueryHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
@@ -228,49 +348,662 @@ public class WebServerApplication {
             
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
-                    String body = readBody(exchange);
+                    TradeRequests.QueryRequest request = parseBody(exchange, TradeRequests.QueryRequest::parse);
+                    TradeAction tradeAction = request.tradeAction();
+                    boolean basedOnMarketRate = request.basedOnMarketRate();
+                    BigDecimal spread = request.spread();
+                    BigDecimal rateBK = request.rateBK();
+                    BigDecimal rateKN = request.rateKN();
                     
-                    String tradeActionStr = parseStringValue(body, "tradeAction");
-                    TradeAction tradeAction = "BUY".equalsIgnoreCase(tradeActionStr) 
-                        ? TradeAction.BUY 
-                        : TradeAction.SELL;
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Query parameters: action=" + tradeAction + ", basedOnMarketRate=" + basedOnMarketRate
+                            + ", spread=" + spread + ", rateBK=" + rateBK + ", rateKN=" + rateKN);
+                    }
                     
-                    boolean basedOnMarketRate = parseBooleanValue(body, "basedOnMarketRate");
-                    BigDecimal spread = parseDecimalValue(body, "spread", new BigDecimal("0.01"));
-                    BigDecimal rateBK = parseDecimalValue(body, "rateBK", BigDecimal.ONE);
-                    BigDecimal rateKN = parseDecimalValue(body, "rateKN", BigDecimal.ONE);
+                    String responseMsg = String.format(
+                        "Query executed successfully! (Action: %s, Mode: %s, Spread: %s, RateBK: %s, RateKN: %s)", 
+                        tradeAction,
+                        basedOnMarketRate ? "Market-Based" : "Execution-Based", 
+                        spread, rateBK, rateKN
+                    );
                     
-                    System.out.println("Query Parameters:");
-                    System.out.println("- Trade Action: " + tradeAction);
-                    System.out.println("- Based on Market Rate: " + basedOnMarketRate);
-                    System.out.println("- Spread: " + spread);
-                    System.out.println("- Rate BK: " + rateBK);
-                    System.out.println("- Rate KN: " + rateKN);
+                    // Identical queries that arrive together share one run. The generation keeps a query that
+                    // starts after an input change from joining a run that may have read the old inputs.
+                    QueryOutcome outcome = queryFlights.run(
+                        new QueryFlight(queryCache.generation(), QueryResultCache.Key.of(request)),
+                        () -> runQuery(request));
                     
-                    try (WebAppDataBase db = new WebAppDataBase()) {
-                        WebQueryImplementation queryImpl = new WebQueryImplementation(
-                            tradeAction, basedOnMarketRate, spread, rateBK, rateKN);
-                        queryImpl.populateTable(db);
-                        
-                        String json = buildDataJson(db);
-                        String responseMsg = String.format(
-                            "Query executed successfully! (Action: %s, Mode: %s, Spread: %s, RateBK: %s, RateKN: %s)", 
-                            tradeAction,
-                            basedOnMarketRate ? "Market-Based" : "Execution-Based", 
-                            spread, rateBK, rateKN
-                        );
-                        
-                        sendJsonResponse(exchange, "{\"success\":true,\"message\":\"" + responseMsg + "\",\"data\":" + json + "}");
-                    }
+                    sendJsonResponse(exchange, "{\"success\":true,\"message\":\"" + responseMsg + "\",\"cached\":"
+                        + outcome.cached() + ",\"revision\":" + outcome.revision() + ",\"data\":" + outcome.json() + "}");
                     
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid query request: " + e.getMessage());
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    LOG.error("Error running query: " + e.getMessage(), e);
                     sendErrorResponse(exchange, "Error running query: " + e.getMessage());
                 }
             }
         }
     }
     
+    class CacheHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            addCorsHeaders(exchange);
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            
+            if ("GET".equals(exchange.getRequestMethod())) {
+                long hits = queryCache.getHits();
+                long lookups = hits + queryCache.getMisses();
+                String json = "{\"success\":true,\"enabled\":" + queryCache.isEnabled()
+                    + ",\"size\":" + queryCache.size()
+                    + ",\"maxEntries\":" + queryCache.getMaxEntries()
+                    + ",\"ttlMs\":" + queryCache.getTtlMs()
+                    + ",\"hits\":" + hits
+                    + ",\"misses\":" + queryCache.getMisses()
+                    + ",\"hitRate\":" + (lookups == 0 ? "null" : Double.toString((double) hits / lookups))
+                    + ",\"evictions\":" + queryCache.getEvictions()
+                    + ",\"expirations\":" + queryCache.getExpirations()
+                    + ",\"invalidations\":" + queryCache.getInvalidations()
+                    + ",\"staleWrites\":" + staleQueryWrites.sum()
+                    + ",\"coalescing\":{\"executions\":" + queryFlights.getExecutions()
+                    + ",\"coalesced\":" + queryFlights.getCoalesced()
+                    + ",\"inFlight\":" + queryFlights.getInFlight() + "}}";
+                sendJsonResponse(exchange, json);
+            }
+        }
+    }
+    
+    /**
+     * Request counts, errors, in-flight requests and latency quantiles per handler and per phase,
+     * in the Prometheus text format for scraping.
+     */
+    class MetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            addCorsHeaders(exchange);
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            
+            if ("GET".equals(exchange.getRequestMethod())) {
+                byte[] body = metrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Runs a query entirely from the request body. Nothing is read from or written to the
+     * database, so concurrent calls only compete for CPU.
+     */
+    class ComputeHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            addCorsHeaders(exchange);
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            
+            if ("POST".equals(exchange.getRequestMethod())) {
+                try {
+                    String json = compute(readBody(exchange));
+                    sendJsonResponse(exchange, "{\"success\":true,\"data\":" + json + "}");
+                    
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid compute request: " + e.getMessage());
+                } catch (Exception e) {
+                    LOG.error("Error running computation: " + e.getMessage(), e);
+                    sendErrorResponse(exchange, "Error running computation: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Evaluates newline-delimited compute requests, one per line, and streams one result line
+     * back per scenario as they complete, in input order. The request body is read as it
+     * arrives, so there is no overall size limit; each line is limited to the usual body size.
+     */
+    class BatchHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            addCorsHeaders(exchange);
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            
+            if ("POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+                // Length 0 selects chunked transfer encoding
+                exchange.sendResponseHeaders(200, 0);
+                
+                try (Reader in = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
+                     Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                    int count = batchRunner.run(in, out, config.getMaxBodyBytes(), WebServerApplication.this::compute);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Batch evaluated " + count + " scenarios");
+                    }
+                } catch (IOException e) {
+                    // Headers are already sent; all we can do is drop the connection
+                    LOG.warn("Batch stream aborted: " + e.getMessage());
+                    exchange.close();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sweeps profit and profit factor over an opening x closing grid and streams the whole
+     * surface back as CSV or binary (see {@link ProfitSurface#writeBinary}).
+     */
+    class SurfaceHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            addCorsHeaders(exchange);
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            
+            if ("POST".equals(exchange.getRequestMethod())) {
+                TradeRequests.SurfaceRequest request;
+                try {
+                    request = parseBody(exchange, TradeRequests.SurfaceRequest::parse);
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                    return;
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid surface request: " + e.getMessage());
+                    return;
+                }
+                if (request.points() > SURFACE_MAX_POINTS) {
+                    sendErrorResponse(exchange, 413, "Surface of " + request.points()
+                        + " points exceeds the limit of " + SURFACE_MAX_POINTS + " (trade.surface.maxPoints)");
+                    return;
+                }
+                
+                surfacePermit.acquireUninterruptibly();
+                try {
+                    ProfitSurface surface;
+                    try {
+                        long started = System.nanoTime();
+                        TradeRequests.QueryRequest parameters = request.parameters();
+                        ProfitSurfaceSweep sweep = new ProfitSurfaceSweep(parameters.tradeAction(), parameters.basedOnMarketRate(),
+                            parameters.spread().doubleValue(), parameters.rateBK().doubleValue(), parameters.rateKN().doubleValue());
+                        TradeRequests.SurfaceRequest.Axis opening = request.opening();
+                        TradeRequests.SurfaceRequest.Axis closing = request.closing();
+                        surface = sweep.sweep(
+                            ProfitSurfaceSweep.grid(opening.minimum(), opening.maximum(), opening.steps()),
+                            ProfitSurfaceSweep.grid(closing.minimum(), closing.maximum(), closing.steps()),
+                            request.tradeAmounts());
+                        metrics.record(ServerMetrics.Phase.COMPUTE, started);
+                    } catch (IllegalArgumentException e) {
+                        sendErrorResponse(exchange, 400, "Invalid surface request: " + e.getMessage());
+                        return;
+                    } catch (Exception e) {
+                        LOG.error("Error computing surface: " + e.getMessage(), e);
+                        sendErrorResponse(exchange, "Error computing surface: " + e.getMessage());
+                        return;
+                    }
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(String.format("Swept %,d surface points in %.1f ms (%,.0f points/s)",
+                            surface.points(), surface.getElapsedNanos() / 1e6, surface.pointsPerSecond()));
+                    }
+                    
+                    boolean binary = "binary".equals(request.format());
+                    Headers headers = exchange.getResponseHeaders();
+                    headers.set("Content-Type", binary ? "application/octet-stream" : "text/csv; charset=utf-8");
+                    headers.set("X-Surface-Points", Long.toString(surface.points()));
+                    headers.set("X-Surface-Elapsed-Ms", String.format("%.3f", surface.getElapsedNanos() / 1e6));
+                    headers.set("X-Surface-Points-Per-Second", String.format("%.0f", surface.pointsPerSecond()));
+                    exchange.sendResponseHeaders(200, 0);
+                    
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        if (binary) {
+                            surface.writeBinary(out);
+                        } else {
+                            surface.writeCsv(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024));
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // Headers are already sent; all we can do is drop the connection
+                        LOG.warn("Surface stream aborted: " + e.getMessage());
+                        exchange.close();
+                    }
+                } finally {
+                    surfacePermit.release();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Runs a Monte Carlo simulation of the profit distribution and returns its statistics,
+     * percentiles and histogram. Memory use does not grow with the sample count.
+     */
+    class SimulateHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            addCorsHeaders(exchange);
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            
+            if ("POST".equals(exchange.getRequestMethod())) {
+                try {
+                    TradeRequests.SimulateRequest request = parseBody(exchange, TradeRequests.SimulateRequest::parse);
+                    if (request.samples() > SIMULATE_MAX_SAMPLES) {
+                        sendErrorResponse(exchange, 413, request.samples() + " samples exceeds the limit of "
+                            + SIMULATE_MAX_SAMPLES + " (trade.simulate.maxSamples)");
+                        return;
+                    }
+                    
+                    long started = System.nanoTime();
+                    TradeRequests.QueryRequest parameters = request.parameters();
+                    MonteCarloSimulator simulator = new MonteCarloSimulator(parameters.tradeAction(),
+                        parameters.basedOnMarketRate(), parameters.rateBK().doubleValue(), parameters.rateKN().doubleValue());
+                    ProfitDistribution distribution = simulator.simulate(request.opening(), request.closing(),
+                        request.tradeAmount(), request.spread(), request.samples(), request.seed(), request.bins());
+                    metrics.record(ServerMetrics.Phase.COMPUTE, started);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(String.format("Simulated %,d samples in %.1f ms (%,.0f samples/s)",
+                            distribution.getSamples(), distribution.getElapsedNanos() / 1e6, distribution.samplesPerSecond()));
+                    }
+                    
+                    sendJsonResponse(exchange, "{\"success\":true,\"data\":" + buildSimulationJson(distribution) + "}");
+                    
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid simulation request: " + e.getMessage());
+                } catch (Exception e) {
+                    LOG.error("Error running simulation: " + e.getMessage(), e);
+                    sendErrorResponse(exchange, "Error running simulation: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns profit and its derivatives with respect to opening, closing, spread, rateBK, rateKN
+     * and trade amount for each scenario in the body. A scenario that cannot be evaluated, e.g.
+     * with a zero rate, gets its own error entry without failing the rest.
+     */
+    class SensitivitiesHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            addCorsHeaders(exchange);
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            
+            if ("POST".equals(exchange.getRequestMethod())) {
+                try {
+                    TradeRequests.SensitivitiesRequest request = parseBody(exchange, TradeRequests.SensitivitiesRequest::parse);
+                    TradeRequests.QueryRequest parameters = request.parameters();
+                    
+                    TradeEvents.Evaluation event = new TradeEvents.Evaluation();
+                    event.begin();
+                    long started = System.nanoTime();
+                    StringBuilder json = new StringBuilder("{\"success\":true,\"data\":[");
+                    for (int i = 0; i < request.scenarios().size(); i++) {
+                        TradeRequests.SensitivitiesRequest.Scenario scenario = request.scenarios().get(i);
+                        if (i > 0) json.append(",");
+                        json.append("{\"opening\":\"").append(scenario.opening().toPlainString())
+                            .append("\",\"closing\":\"").append(scenario.closing().toPlainString())
+                            .append("\",\"tradeAmount\":\"").append(scenario.tradeAmount().toPlainString()).append("\",");
+                        try {
+                            Trade_Function function = new Trade_Function(parameters.tradeAction(), parameters.spread(),
+                                parameters.rateBK(), parameters.rateKN(), scenario.tradeAmount(), scenario.opening(), scenario.closing());
+                            function.setBasedOnMarketRate(parameters.basedOnMarketRate());
+                            ProfitSensitivities sensitivities = function.returnSensitivities(scenario.tradeAmount());
+                            
+                            json.append("\"success\":true,\"profit\":\"").append(sensitivities.profit().toPlainString())
+                                .append("\",\"sensitivities\":{\"opening\":\"").append(sensitivities.opening().toPlainString())
+                                .append("\",\"closing\":\"").append(sensitivities.closing().toPlainString())
+                                .append("\",\"spread\":\"").append(sensitivities.spread().toPlainString())
+                                .append("\",\"rateBK\":\"").append(sensitivities.rateBK().toPlainString())
+                                .append("\",\"rateKN\":\"").append(sensitivities.rateKN().toPlainString())
+                                .append("\",\"tradeAmount\":\"").append(sensitivities.tradeAmount().toPlainString())
+                                .append("\"}}");
+                        } catch (ArithmeticException e) {
+                            json.append("\"success\":false,\"error\":\"").append(escapeJson(e.getMessage())).append("\"}");
+                        }
+                    }
+                    json.append("]}");
+                    metrics.record(ServerMetrics.Phase.COMPUTE, started);
+                    if (event.shouldCommit()) {
+                        event.describe("sensitivities", parameters.tradeAction(), parameters.basedOnMarketRate(),
+                            TradeEngine.BIG_DECIMAL.name(), parameters.spread(), parameters.rateBK(), parameters.rateKN(),
+                            request.scenarios().size());
+                        event.commit();
+                    }
+                    
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Calculated sensitivities for " + request.scenarios().size() + " scenarios");
+                    }
+                    sendJsonResponse(exchange, json.toString());
+                    
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid sensitivities request: " + e.getMessage());
+                } catch (Exception e) {
+                    LOG.error("Error calculating sensitivities: " + e.getMessage(), e);
+                    sendErrorResponse(exchange, "Error calculating sensitivities: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Solves each scenario for the opening rate, closing rate, trade amount or spread that hits its
+     * target profit or profit factor. Every scenario is reported as feasible with its value, or
+     * infeasible with the reason.
+     */
+    class SolveHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            addCorsHeaders(exchange);
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            
+            if ("POST".equals(exchange.getRequestMethod())) {
+                try {
+                    TradeRequests.SolveRequest request = parseBody(exchange, TradeRequests.SolveRequest::parse);
+                    long started = System.nanoTime();
+                    TradeRequests.QueryRequest parameters = request.parameters();
+                    TradeSolver solver = new TradeSolver(parameters.tradeAction(), parameters.basedOnMarketRate(),
+                        parameters.rateBK().doubleValue(), parameters.rateKN().doubleValue());
+                    TradeSolver.Solution solution = solver.solve(request.target(), request.unknown(), request.scenarios());
+                    metrics.record(ServerMetrics.Phase.COMPUTE, started);
+                    
+                    double[] values = solution.values();
+                    StringBuilder json = new StringBuilder(64 + values.length * 48);
+                    json.append("{\"success\":true,\"solveFor\":\"").append(request.unknown().name().toLowerCase())
+                        .append("\",\"feasible\":").append(solution.feasibleCount())
+                        .append(",\"data\":[");
+                    for (int i = 0; i < values.length; i++) {
+                        if (i > 0) json.append(",");
+                        if (solution.feasible(i)) {
+                            json.append("{\"feasible\":true,\"value\":").append(values[i]).append("}");
+                        } else {
+                            json.append("{\"feasible\":false,\"reason\":\"")
+                                .append(solution.outcomes()[i].getDescription()).append("\"}");
+                        }
+                    }
+                    json.append("]}");
+                    
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(String.format("Solved %d scenarios for %s (%d feasible) in %.3f ms", values.length,
+                            request.unknown(), solution.feasibleCount(), solution.elapsedNanos() / 1e6));
+                    }
+                    sendJsonResponse(exchange, json.toString());
+                    
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid solve request: " + e.getMessage());
+                } catch (Exception e) {
+                    LOG.error("Error solving: " + e.getMessage(), e);
+                    sendErrorResponse(exchange, "Error solving: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Starts and stops on-demand flight recordings, reports the current one, and downloads the
+     * finished file from /api/admin/jfr/download.
+     */
+    class FlightRecordingHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!ADMIN_ALLOW_REMOTE && !exchange.getRemoteAddress().getAddress().isLoopbackAddress()) {
+                sendErrorResponse(exchange, 403, "Admin endpoints only answer local clients (trade.admin.allowRemote)");
+                return;
+            }
+            
+            if ("GET".equals(exchange.getRequestMethod())) {
+                if (exchange.getRequestURI().getPath().endsWith("/download")) {
+                    java.nio.file.Path file;
+                    try {
+                        file = flightRecorder.recordingFile();
+                    } catch (IllegalStateException e) {
+                        sendErrorResponse(exchange, 409, e.getMessage());
+                        return;
+                    }
+                    Headers headers = exchange.getResponseHeaders();
+                    headers.set("Content-Type", "application/octet-stream");
+                    headers.set("Content-Disposition", "attachment; filename=\"" + file.getFileName() + "\"");
+                    exchange.sendResponseHeaders(200, java.nio.file.Files.size(file));
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        java.nio.file.Files.copy(file, out);
+                    }
+                } else {
+                    sendJsonResponse(exchange, "{\"success\":true,\"data\":" + buildRecordingJson(flightRecorder.status()) + "}");
+                }
+            }
+            
+            if ("POST".equals(exchange.getRequestMethod())) {
+                try {
+                    TradeRequests.RecordingRequest request = parseBody(exchange, TradeRequests.RecordingRequest::parse);
+                    FlightRecorderControl.Status status = switch (request.action()) {
+                        case START -> flightRecorder.start(request.settings(), request.durationSeconds(), request.maxSizeMb());
+                        case STOP -> flightRecorder.stop();
+                    };
+                    sendJsonResponse(exchange, "{\"success\":true,\"data\":" + buildRecordingJson(status) + "}");
+                    
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid recording request: " + e.getMessage());
+                } catch (IllegalArgumentException e) {
+                    sendErrorResponse(exchange, 400, e.getMessage());
+                } catch (IllegalStateException e) {
+                    sendErrorResponse(exchange, 409, e.getMessage());
+                } catch (Exception e) {
+                    LOG.error("Error controlling the flight recorder: " + e.getMessage(), e);
+                    sendErrorResponse(exchange, "Error controlling the flight recorder: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    class LiveHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            addCorsHeaders(exchange);
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            
+            if ("GET".equals(exchange.getRequestMethod())) {
+                try {
+                    sendJsonResponse(exchange, buildLiveJson());
+                } catch (Exception e) {
+                    LOG.error("Error reading live positions: " + e.getMessage(), e);
+                    sendErrorResponse(exchange, "Error reading live positions: " + e.getMessage());
+                }
+            }
+            
+            if ("POST".equals(exchange.getRequestMethod())) {
+                try {
+                    TradeRequests.LiveRequest request = parseBody(exchange, TradeRequests.LiveRequest::parse);
+                    switch (request.action()) {
+                        case OPEN -> {
+                            TradeRequests.QueryRequest parameters = request.parameters();
+                            LivePosition position = liveEngine.open(request.symbol(), parameters.tradeAction(),
+                                parameters.basedOnMarketRate(), parameters.spread().doubleValue(),
+                                parameters.rateBK().doubleValue(), parameters.rateKN().doubleValue(),
+                                request.tradeAmount(), request.opening());
+                            LOG.info("Opened live position " + position.getId() + " on " + position.getSymbol());
+                            sendJsonResponse(exchange, "{\"success\":true,\"data\":" + buildPositionJson(position) + "}");
+                        }
+                        case CLOSE -> {
+                            LivePosition position = liveEngine.close(request.id());
+                            if (position == null) {
+                                sendErrorResponse(exchange, 404, "No open position with id " + request.id());
+                            } else {
+                                LOG.info("Closed live position " + position.getId());
+                                sendJsonResponse(exchange, "{\"success\":true,\"data\":" + buildPositionJson(position) + "}");
+                            }
+                        }
+                        case RESET_LATENCY -> {
+                            liveEngine.getLatency().reset();
+                            sendJsonResponse(exchange, "{\"success\":true,\"message\":\"Latency histogram cleared\"}");
+                        }
+                    }
+                    
+                } catch (PayloadTooLargeException e) {
+                    sendErrorResponse(exchange, 413, e.getMessage());
+                } catch (JsonParseException e) {
+                    sendErrorResponse(exchange, 400, "Invalid live request: " + e.getMessage());
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    sendErrorResponse(exchange, 400, e.getMessage());
+                } catch (Exception e) {
+                    LOG.error("Error updating live positions: " + e.getMessage(), e);
+                    sendErrorResponse(exchange, "Error updating live positions: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /** A query's canonical parameters, and the inputs generation it started under. */
+    private record QueryFlight(long generation, QueryResultCache.Key query) {
+    }
+    
+    /** What a query run sends back, shared by every request coalesced into it. */
+    private record QueryOutcome(String json, boolean cached, long revision) {
+    }
+    
+    /**
+     * Answers a query from the cache where it can, writing the results to the table either way.
+     *
+     * Inputs are read and results calculated without holding the writer. The writer is only taken
+     * for the write, which succeeds only if the inputs are still at the revision they were read at;
+     * otherwise the query starts again from fresh inputs.
+     */
+    private QueryOutcome runQuery(TradeRequests.QueryRequest request) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            // Look the query up against the current inputs; the inputs themselves are cached too
+            long generation = queryCache.generation();
+            TradeTableSnapshot inputs = queryCache.inputs();
+            if (inputs == null) {
+                try (WebAppDataBase db = dataBasePool.openReader()) {
+                    inputs = db.readSnapshot();
+                }
+                queryCache.cacheInputs(generation, inputs);
+            }
+            QueryResultCache.Key key = QueryResultCache.Key.of(request, inputs);
+            QueryResultCache.Entry cached = queryCache.get(key);
+            if (cached != null && queryCache.isWritten(key)) {
+                return new QueryOutcome(cached.json(), true, inputs.revision());
+            }
+            
+            List<QueryResult> results;
+            String json;
+            if (cached != null) {
+                results = cached.results();
+                json = cached.json();
+            } else {
+                long started = System.nanoTime();
+                WebQueryImplementation queryImpl = new WebQueryImplementation(request.tradeAction(),
+                    request.basedOnMarketRate(), request.spread(), request.rateBK(), request.rateKN(),
+                    request.engine(), request.bounds());
+                results = queryImpl.calculate(inputs);
+                metrics.record(ServerMetrics.Phase.COMPUTE, started);
+                json = buildDataJson(inputs.withResults(results));
+            }
+            
+            try (WebAppDataBase db = dataBasePool.openWriter()) {
+                db.updateQueryResults(results, inputs.revision());
+                if (cached == null) {
+                    queryCache.put(key, new QueryResultCache.Entry(results, json));
+                }
+                queryCache.markWritten(key);
+                sqlExporter.requestExport();
+                return new QueryOutcome(json, cached != null, inputs.revision());
+            } catch (StaleRevisionException e) {
+                staleQueryWrites.increment();
+                if (attempt == QUERY_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                // Normally an input change has already dropped the cached inputs; this covers
+                // a change made by another process
+                queryCache.invalidate();
+            }
+        }
+    }
+    
+    // Shared by /api/compute and /api/batch: parse, calculate in memory, render like /api/data
+    private String compute(String body) throws JsonParseException {
+        long started = System.nanoTime();
+        TradeRequests.ComputeRequest request = TradeRequests.ComputeRequest.parse(body);
+        metrics.record(ServerMetrics.Phase.PARSE, started);
+        TradeRequests.QueryRequest parameters = request.parameters();
+        
+        started = System.nanoTime();
+        WebQueryImplementation queryImpl = new WebQueryImplementation(
+            parameters.tradeAction(), parameters.basedOnMarketRate(),
+            parameters.spread(), parameters.rateBK(), parameters.rateKN(), parameters.engine(), parameters.bounds());
+        List<QueryResult> results = queryImpl.calculate(request.inputs());
+        metrics.record(ServerMetrics.Phase.COMPUTE, started);
+        return buildDataJson(request.inputs().withResults(results));
+    }
+    
+    @FunctionalInterface
+    private interface BodyParser<T> {
+        T parse(String body) throws JsonParseException;
+    }
+    
+    // Reading the body counts towards the parse phase: for small bodies it is mostly waiting on the client
+    private <T> T parseBody(HttpExchange exchange, BodyParser<T> parser) throws IOException {
+        long started = System.nanoTime();
+        try {
+            return parser.parse(readBody(exchange));
+        } finally {
+            metrics.record(ServerMetrics.Phase.PARSE, started);
+        }
+    }
+    
     private void addCorsHeaders(HttpExchange exchange) {
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
         exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET,POST,OPTIONS");
@@ -278,84 +1011,211 @@ public class WebServerApplication {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
     }
     
+    /**
+     * Reads the whole request body as UTF-8, refusing anything larger than the configured limit
+     * before it is buffered.
+     */
     private String readBody(HttpExchange exchange) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody()))) {
-            return reader.lines().reduce("", (a, b) -> a + b);
+        int limit = config.getMaxBodyBytes();
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.trim()) > limit) {
+                    throw new PayloadTooLargeException(limit);
+                }
+            } catch (NumberFormatException e) {
+                throw new JsonParseException("Invalid Content-Length: " + contentLength);
+            }
+        }
+        
+        try (InputStream in = exchange.getRequestBody()) {
+            // Read one byte past the limit so chunked bodies without a length are caught too
+            byte[] body = in.readNBytes(limit + 1);
+            if (body.length > limit) {
+                throw new PayloadTooLargeException(limit);
+            }
+            return new String(body, StandardCharsets.UTF_8);
         }
     }
     
-    private String parseStringValue(String json, String key) {
-        Pattern pattern = Pattern.compile("\"" + key + "\"\\s*:\\s*\"([^\"]+)\"");
-        Matcher matcher = pattern.matcher(json);
-        return matcher.find() ? matcher.group(1) : "";
-    }
-    
-    private boolean parseBooleanValue(String json, String key) {
-        Pattern pattern = Pattern.compile("\"" + key + "\"\\s*:\\s*(true|false)");
-        Matcher matcher = pattern.matcher(json);
-        return matcher.find() && "true".equals(matcher.group(1));
-    }
-    
-    private BigDecimal parseDecimalValue(String json, String key, BigDecimal defaultValue) {
-        try {
-            Pattern pattern = Pattern.compile("\"" + key + "\"\\s*:\\s*([0-9]*\\.?[0-9]+)");
-            Matcher matcher = pattern.matcher(json);
-            return matcher.find() ? new BigDecimal(matcher.group(1)) : defaultValue;
-        } catch (NumberFormatException e) {
-            System.err.println("Error parsing decimal value for " + key + ", using default: " + defaultValue);
-            return defaultValue;
+    static class PayloadTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        PayloadTooLargeException(int limit) {
+            super("Request body exceeds " + limit + " bytes");
         }
     }
     
     private void sendJsonResponse(HttpExchange exchange, String json) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.sendResponseHeaders(200, json.getBytes().length);
-        exchange.getResponseBody().write(json.getBytes());
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
         exchange.getResponseBody().close();
     }
     
     private void sendErrorResponse(HttpExchange exchange, String error) throws IOException {
-        String json = "{\"success\":false,\"error\":\"" + error.replace("\"", "\\\"") + "\"}";
+        sendErrorResponse(exchange, 500, error);
+    }
+    
+    private void sendErrorResponse(HttpExchange exchange, int status, String error) throws IOException {
+        byte[] json = ("{\"success\":false,\"error\":\"" + escapeJson(error) + "\"}").getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.sendResponseHeaders(500, json.getBytes().length);
-        exchange.getResponseBody().write(json.getBytes());
+        exchange.sendResponseHeaders(status, json.length);
+        exchange.getResponseBody().write(json);
         exchange.getResponseBody().close();
     }
     
-    private String buildDataJson(WebAppDataBase db) throws Exception {
-        String[] variables = {"tradeprofit", "profitfactor", "tradeamount", "openingvalue", "closingvalue"};
-        StringBuilder json = new StringBuilder("{\"data\":[");
+    static String escapeJson(String value) {
+        if (value == null) return "";
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) escaped.append(String.format("\\u%04x", (int) c));
+                    else escaped.append(c);
+                }
+            }
+        }
+        return escaped.toString();
+    }
+    
+    private String buildDataJson(TradeTableSnapshot snapshot) {
+        return "{\"data\":" + snapshot.toRowsJson() + "}";
+    }
+    
+    private String buildSimulationJson(ProfitDistribution distribution) {
+        StringBuilder json = new StringBuilder(256 + distribution.bins() * 64);
+        json.append("{\"samples\":").append(distribution.getSamples())
+            .append(",\"rejected\":").append(distribution.getRejected())
+            .append(",\"seed\":").append(distribution.getSeed())
+            .append(",\"expectedProfit\":").append(jsonNumber(distribution.getMean()))
+            .append(",\"standardDeviation\":").append(jsonNumber(distribution.getStandardDeviation()))
+            .append(",\"lossProbability\":").append(jsonNumber(distribution.lossProbability()))
+            .append(",\"minimum\":").append(jsonNumber(distribution.getMinimum()))
+            .append(",\"maximum\":").append(jsonNumber(distribution.getMaximum()))
+            .append(",\"percentiles\":{");
+        for (int i = 0; i < SIMULATE_PERCENTILES.length; i++) {
+            if (i > 0) json.append(",");
+            json.append("\"P").append((int) SIMULATE_PERCENTILES[i]).append("\":")
+                .append(jsonNumber(distribution.percentile(SIMULATE_PERCENTILES[i])));
+        }
+        json.append("},\"histogram\":[");
+        long[] counts = distribution.histogram();
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) json.append(",");
+            json.append("{\"from\":").append(jsonNumber(distribution.binEdge(i)))
+                .append(",\"to\":").append(jsonNumber(distribution.binEdge(i + 1)))
+                .append(",\"count\":").append(counts[i]).append("}");
+        }
+        json.append("],\"elapsedMs\":").append(distribution.getElapsedNanos() / 1_000 / 1e3)
+            .append("}");
+        return json.toString();
+    }
+    
+    // JSON has no NaN or infinity
+    private String buildLiveJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"success\":true,\"feed\":");
+        if (liveFeed == null) {
+            json.append("null");
+        } else {
+            json.append("{\"source\":\"").append(escapeJson(liveFeed.getDescription()))
+                .append("\",\"lines\":").append(liveFeed.getLines())
+                .append(",\"rejected\":").append(liveFeed.getRejected()).append("}");
+        }
+        json.append(",\"ticks\":{\"published\":").append(liveEngine.getPublished())
+            .append(",\"processed\":").append(liveEngine.getProcessed())
+            .append(",\"backlog\":").append(liveEngine.getBacklog())
+            .append(",\"ringCapacity\":").append(liveEngine.getRingCapacity())
+            .append(",\"stalls\":").append(liveEngine.getStalls())
+            .append(",\"positionsRemarked\":").append(liveEngine.getRemarked()).append("}");
         
-        for (int i = 0; i < variables.length; i++) {
-            String var = variables[i];
-            BigDecimal max = db.getValueFromColumn(var, "maximum");
-            BigDecimal min = db.getValueFromColumn(var, "minimum");
-            BigDecimal returnMin = db.getValueFromColumn(var, "returnmin");
-            BigDecimal returnMax = db.getValueFromColumn(var, "returnmax");
-            
-            json.append(String.format(
-                "{\"variable\":\"%s\",\"maximum\":\"%s\",\"minimum\":\"%s\"," +
-                "\"returnmin\":\"%s\",\"returnmax\":\"%s\"}",
-                var, max.toPlainString(), min.toPlainString(),
-                returnMin.toPlainString(), returnMax.toPlainString()));
-            
-            if (i < variables.length - 1) json.append(",");
+        // Tick-to-P&L latency in microseconds
+        LatencyHistogram.Snapshot latency = liveEngine.getLatency().snapshot();
+        json.append(",\"latency\":{\"count\":").append(latency.getCount())
+            .append(",\"meanMicros\":").append(jsonNumber(latency.getMean() / 1e3));
+        for (int i = 0; i < LIVE_PERCENTILES.length; i++) {
+            json.append(",\"").append(LIVE_PERCENTILE_NAMES[i]).append("Micros\":")
+                .append(latency.percentile(LIVE_PERCENTILES[i]) / 1e3);
         }
+        json.append(",\"maxMicros\":").append(latency.getMax() / 1e3)
+            .append(",\"underOneMillisecond\":").append(latency.getCount() == 0 ? "null"
+                : Double.toString((double) latency.countAtOrBelow(1_000_000) / latency.getCount()))
+            .append("}");
         
-        json.append("]}");
+        json.append(",\"symbols\":[");
+        boolean first = true;
+        for (LivePnlEngine.Quote quote : liveEngine.quotes()) {
+            if (!first) json.append(",");
+            first = false;
+            json.append("{\"symbol\":\"").append(escapeJson(quote.symbol()))
+                .append("\",\"rate\":").append(quote.rate())
+                .append(",\"timestamp\":").append(quote.timestamp())
+                .append(",\"ticks\":").append(quote.ticks())
+                .append(",\"positions\":").append(quote.positions()).append("}");
+        }
+        
+        json.append("],\"positions\":[");
+        double totalProfit = 0;
+        first = true;
+        for (LivePosition position : liveEngine.positions()) {
+            if (!first) json.append(",");
+            first = false;
+            json.append(buildPositionJson(position));
+            LivePosition.Mark mark = position.getMark();
+            if (mark != null) {
+                totalProfit += mark.profit();
+            }
+        }
+        json.append("],\"totalProfit\":").append(jsonNumber(totalProfit)).append("}");
         return json.toString();
     }
     
-    private String getHtmlContent() {
-        try {
-            return new String(java.nio.file.Files.readAllBytes(
-                java.nio.file.Paths.get(filename)));
-        } catch (Exception e) {
-            System.err.println("Could not find " + filename + ", using fallback HTML");
-            return getFallbackHtml();
+    private String buildPositionJson(LivePosition position) {
+        LivePosition.Mark mark = position.getMark();
+        return new StringBuilder(256)
+            .append("{\"id\":").append(position.getId())
+            .append(",\"symbol\":\"").append(escapeJson(position.getSymbol()))
+            .append("\",\"tradeAction\":\"").append(position.getAction())
+            .append("\",\"basedOnMarketRate\":").append(position.isBasedOnMarketRate())
+            .append(",\"spread\":").append(position.getSpread())
+            .append(",\"rateBK\":").append(position.getRateBK())
+            .append(",\"rateKN\":").append(position.getRateKN())
+            .append(",\"tradeAmount\":").append(position.getTradeAmount())
+            .append(",\"opening\":").append(position.getOpening())
+            .append(",\"openedAt\":").append(position.getOpenedAt())
+            .append(",\"closing\":").append(mark == null ? "null" : jsonNumber(mark.closing()))
+            .append(",\"profit\":").append(mark == null ? "null" : jsonNumber(mark.profit()))
+            .append(",\"markedAt\":").append(mark == null ? "null" : Long.toString(mark.timestamp()))
+            .append("}").toString();
+    }
+    
+    private String buildRecordingJson(FlightRecorderControl.Status status) {
+        StringBuilder json = new StringBuilder(256).append("{\"state\":\"").append(status.state()).append("\"");
+        if (status.started() != null) {
+            json.append(",\"settings\":\"").append(escapeJson(status.settings()))
+                .append("\",\"started\":\"").append(status.started())
+                .append("\",\"durationSeconds\":").append(status.duration().toSeconds())
+                .append(",\"maxSizeBytes\":").append(status.maxSizeBytes())
+                .append(",\"file\":\"").append(escapeJson(status.file().toString())).append("\"");
+            if (status.fileBytes() >= 0) {
+                json.append(",\"fileBytes\":").append(status.fileBytes());
+            }
         }
+        return json.append("}").toString();
+    }
+    
+    private static String jsonNumber(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "null";
     }
     
     private String getFallbackHtml() {
@@ -383,5 +1243,29 @@ public class WebServerApplication {
 
     public void stop() {
         if (server != null) server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (batchRunner != null) batchRunner.close();
+        if (liveFeed != null) liveFeed.close();
+        if (liveEngine != null) liveEngine.close();
+        if (flightRecorder != null) flightRecorder.close();
+        if (staticAssets != null) {
+            try {
+                staticAssets.close();
+            } catch (IOException e) {
+                LOG.error("Error closing static asset watcher: " + e.getMessage());
+            }
+        }
+        if (sqlExporter != null) sqlExporter.close();
+        if (dataBasePool != null) dataBasePool.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package co.za.MainTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.*;
+import co.za.Main.Logging.AsyncLogAppender;
+import co.za.Main.Logging.Log;
+import co.za.Main.Logging.LogLevel;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_AsyncLogAppender {
+
+    @Test
+    public void testLinesFromManyThreadsAreAllWritten() throws Exception {
+        StringWriter out = new StringWriter();
+        int threads = 4;
+        int perThread = 500;
+        try (AsyncLogAppender appender = new AsyncLogAppender(4096, out)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.execute(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        appender.append(LogLevel.INFO, "Test", "line " + thread + "-" + i, null);
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            appender.append(LogLevel.ERROR, "Test", "failed", new IllegalStateException("boom"));
+
+            assertTrue(appender.flush(5000));
+            assertEquals(0, appender.getDropped());
+            assertEquals(threads * perThread + 1, appender.getWritten());
+        }
+
+        String text = out.toString();
+        for (int t = 0; t < threads; t++) {
+            // Each thread's lines keep their order
+            int previous = -1;
+            for (int i = 0; i < perThread; i++) {
+                int at = text.indexOf("Test - line " + t + "-" + i + "\n");
+                assertTrue(at > previous, "line " + t + "-" + i);
+                previous = at;
+            }
+        }
+        assertTrue(text.matches("(?s).*\\d{4}-\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d\\.\\d{3} ERROR \\[[^]]+] Test - failed\n"
+            + "java.lang.IllegalStateException: boom\n.*"));
+    }
+
+    @Test
+    public void testFullBufferDropsInsteadOfBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Writer blocked = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try (AsyncLogAppender appender = new AsyncLogAppender(8, blocked)) {
+            long started = System.nanoTime();
+            int accepted = 0;
+            for (int i = 0; i < 1000; i++) {
+                if (appender.append(LogLevel.INFO, "Test", "line " + i, null)) {
+                    accepted++;
+                }
+            }
+            assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+            // The ring, plus what the writer took before it blocked
+            assertTrue(accepted >= 8 && accepted < 1000, "accepted " + accepted);
+            assertEquals(1000 - accepted, appender.getDropped());
+
+            release.countDown();
+            assertTrue(appender.flush(5000));
+            assertEquals(accepted, appender.getWritten());
+        }
+    }
+
+    @Test
+    public void testWarningsAndErrorsGoToTheErrorWriter() {
+        StringWriter out = new StringWriter();
+        StringWriter errors = new StringWriter();
+        try (AsyncLogAppender appender = new AsyncLogAppender(64, out, errors)) {
+            appender.append(LogLevel.INFO, "Test", "started", null);
+            appender.append(LogLevel.WARN, "Test", "slow", null);
+            appender.append(LogLevel.DEBUG, "Test", "detail", null);
+            appender.append(LogLevel.ERROR, "Test", "failed", new IllegalStateException("boom"));
+            assertTrue(appender.flush(5000));
+        }
+        assertTrue(out.toString().matches("(?s)[^\n]* INFO  \\[[^]]+] Test - started\n[^\n]* DEBUG \\[[^]]+] Test - detail\n"), out.toString());
+        assertTrue(errors.toString().matches("(?s)[^\n]* WARN  \\[[^]]+] Test - slow\n[^\n]* ERROR \\[[^]]+] Test - failed\n"
+            + "java.lang.IllegalStateException: boom\n.*"), errors.toString());
+    }
+
+    @Test
+    public void testLogFollowsRedirectedStandardStreams() {
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        Log log = Log.get(Test_AsyncLogAppender.class);
+        try {
+            System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+            System.setErr(new PrintStream(errors, true, StandardCharsets.UTF_8));
+            log.info("to standard output");
+            log.error("to standard error");
+            assertTrue(Log.appender().flush(5000));
+        } finally {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("Test_AsyncLogAppender - to standard output\n"));
+        assertFalse(out.toString(StandardCharsets.UTF_8).contains("to standard error"));
+        assertTrue(errors.toString(StandardCharsets.UTF_8).contains("Test_AsyncLogAppender - to standard error\n"));
+    }
+
+    @Test
+    public void testIdleWriterParksUntilWoken() throws Exception {
+        StringWriter out = new StringWriter();
+        try (AsyncLogAppender appender = new AsyncLogAppender(64, out)) {
+            for (int i = 0; i < 3; i++) {
+                appender.append(LogLevel.INFO, "Test", "line " + i, null);
+                assertTrue(appender.flush(5000));
+                // With nothing queued the writer waits without a timeout instead of polling
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (!writerThreads().stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+                    assertTrue(System.nanoTime() < deadline, "Writer did not park");
+                    Thread.sleep(5);
+                }
+            }
+            assertEquals(3, appender.getWritten());
+        }
+        assertTrue(out.toString().contains("Test - line 2\n"));
+    }
+
+    private static List<Thread> writerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals("trade-log-writer"))
+            .toList();
+    }
+
+    @Test
+    public void testLevelFiltering() {
+        LogLevel original = Log.getLevel();
+        Log log = Log.get(Test_AsyncLogAppender.class);
+        try {
+            Log.setLevel(LogLevel.WARN);
+            assertFalse(log.isDebugEnabled());
+            assertFalse(log.isEnabled(LogLevel.INFO));
+            assertTrue(log.isEnabled(LogLevel.WARN));
+            assertTrue(log.isEnabled(LogLevel.ERROR));
+
+            Log.setLevel(LogLevel.DEBUG);
+            assertTrue(log.isDebugEnabled());
+
+            Log.setLevel(LogLevel.OFF);
+            assertFalse(log.isEnabled(LogLevel.ERROR));
+            assertFalse(log.isEnabled(LogLevel.OFF));
+        } finally {
+            Log.setLevel(original);
+        }
+        assertEquals(LogLevel.WARN, LogLevel.fromName(" warn "));
+        assertThrows(IllegalArgumentException.class, () -> LogLevel.fromName("verbose"));
+    }
+}
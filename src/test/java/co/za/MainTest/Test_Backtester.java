@@ -0,0 +1,115 @@
+package co.za.MainTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import co.za.Main.MarketData.BacktestResult;
+import co.za.Main.MarketData.Backtester;
+import co.za.Main.MarketData.HoldingStrategy;
+import co.za.Main.MarketData.RateTickFile;
+import co.za.Main.TradeModules.TradeAction;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_Backtester {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testMatchesSequentialReplayAcrossSegments() throws IOException {
+        // Over two million ticks, so the trades are split into several mapped segments
+        int count = 2_500_000;
+        long[] timestamps = new long[count];
+        double[] rates = new double[count];
+        SplittableRandom random = new SplittableRandom(99);
+        double rate = 17.7;
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 1000L;
+            rate *= 1 + random.nextGaussian() * 1e-4;
+            rates[i] = rate;
+        }
+        Path path = directory.resolve("ticks.bin");
+        RateTickFile.write(path, timestamps, rates);
+
+        HoldingStrategy strategy = new HoldingStrategy(TradeAction.SELL, true, 0.001, 1, 1, 1000, 30, 1);
+        long trades = count - 30;
+        double equity = 0;
+        double peak = 0;
+        double drawdown = 0;
+        long wins = 0;
+        for (int i = 0; i < trades; i++) {
+            double profit = strategy.profit(rates[i], rates[i + 30]);
+            equity += profit;
+            peak = Math.max(peak, equity);
+            drawdown = Math.max(drawdown, peak - equity);
+            wins += profit > 0 ? 1 : 0;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try (RateTickFile file = RateTickFile.open(path)) {
+            BacktestResult result = new Backtester(file, pool).run(strategy, 100);
+
+            assertEquals(count, result.getTicks());
+            assertEquals(trades, result.getTrades());
+            assertEquals(wins, result.getWins());
+            assertEquals(equity, result.getTotalProfit(), 1e-6 * Math.max(1, Math.abs(equity)));
+            assertEquals(drawdown, result.getMaxDrawdown(), 1e-6 * Math.max(1, drawdown));
+            assertEquals(equity / trades, result.getMeanProfit(), 1e-9);
+
+            assertEquals(100, result.curvePoints());
+            assertEquals(timestamps[count - 1], result.curveTimestamp(result.curvePoints() - 1));
+            assertEquals(equity, result.curveEquity(result.curvePoints() - 1), 1e-6 * Math.max(1, Math.abs(equity)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSpacedEntriesAndShortSeries() throws IOException {
+        Path path = directory.resolve("short.bin");
+        RateTickFile.write(path, new long[] {1, 2, 3, 4, 5, 6}, new double[] {10, 11, 12, 13, 14, 15});
+        try (RateTickFile file = RateTickFile.open(path)) {
+            // Buying at 10 and 12, selling two ticks later at 12 and 14
+            BacktestResult result = new Backtester(file).run(new HoldingStrategy(TradeAction.BUY, false, 0, 1, 1, 100, 2, 2), 10);
+            assertEquals(2, result.getTrades());
+            assertEquals(100 * (12.0 / 10 - 1) + 100 * (14.0 / 12 - 1), result.getTotalProfit(), 1e-9);
+            assertEquals(0, result.getMaxDrawdown());
+            assertEquals(2, result.curvePoints());
+
+            BacktestResult none = new Backtester(file).run(new HoldingStrategy(TradeAction.BUY, false, 0, 1, 1, 100, 6, 1), 10);
+            assertEquals(0, none.getTrades());
+        }
+    }
+
+    @Test
+    public void testCsvConversion() throws IOException {
+        Path csv = directory.resolve("ticks.csv");
+        Files.writeString(csv, """
+            timestamp,rate
+            1700000000000,17.70
+            2023-11-14T22:13:21Z,17.71
+            2023-11-14 22:13:22,17.69
+            """);
+        Path binary = directory.resolve("ticks.bin");
+        assertEquals(3, RateTickFile.convertCsv(csv, binary));
+
+        try (RateTickFile file = RateTickFile.open(binary)) {
+            RateTickFile.Window window = file.map(0, file.ticks());
+            assertEquals(1_700_000_000_000L, window.timestamp(0));
+            assertEquals(1_700_000_001_000L, window.timestamp(1));
+            assertEquals(1_700_000_002_000L, window.timestamp(2));
+            assertEquals(17.69, window.rate(2));
+        }
+
+        Files.writeString(csv, "1700000000000,17.70\n1600000000000,17.71\n");
+        IOException backwards = assertThrows(IOException.class, () -> RateTickFile.convertCsv(csv, binary));
+        assertTrue(backwards.getMessage().contains("line 2"), backwards.getMessage());
+
+        Files.writeString(binary, "not ticks");
+        assertThrows(IOException.class, () -> RateTickFile.open(binary));
+    }
+}
@@ -0,0 +1,80 @@
+package co.za.MainTest;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.*;
+import co.za.Main.TradeModules.FastTradeFunction;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeCalculator;
+import co.za.Main.TradeModules.TradeEngine;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_FastTradeFunction {
+
+    BigDecimal spread = new BigDecimal("0.01");
+    BigDecimal rateKN = new BigDecimal("1.0");
+    BigDecimal rateBK = new BigDecimal("17.7055");
+    BigDecimal tradeAmount = new BigDecimal("10000");
+    BigDecimal tradeProfit = new BigDecimal("-88");
+
+    String[] openings = {"17.6967", "17.5", "18.25", "1.0843"};
+    String[] closings = {"17.7055", "17.9", "16.8", "1.0851"};
+
+    @Test
+    public void testMatchesBigDecimalEngine() {
+        for (TradeAction action : new TradeAction[] {TradeAction.SELL, TradeAction.BUY}) {
+            for (boolean market : new boolean[] {false, true}) {
+                for (int i = 0; i < openings.length; i++) {
+                    BigDecimal opening = new BigDecimal(openings[i]);
+                    BigDecimal closing = new BigDecimal(closings[i]);
+                    TradeCalculator exact = TradeEngine.BIG_DECIMAL.create(action, market, spread, rateBK, rateKN, opening, closing);
+                    TradeCalculator fast = TradeEngine.DOUBLE.create(action, market, spread, rateBK, rateKN, opening, closing);
+                    String label = action + (market ? " market " : " execution ") + opening + "/" + closing;
+
+                    assertClose(exact.returnProfit(tradeAmount), fast.returnProfit(tradeAmount), label);
+                    assertClose(exact.returnProfitFactor(tradeProfit, tradeAmount), fast.returnProfitFactor(tradeProfit, tradeAmount), label);
+                    assertClose(exact.returnTradeAmount(tradeProfit, tradeAmount), fast.returnTradeAmount(tradeProfit, tradeAmount), label);
+                    assertClose(exact.returnOpening(tradeProfit, tradeAmount), fast.returnOpening(tradeProfit, tradeAmount), label);
+                    assertClose(exact.returnClosing(tradeProfit, tradeAmount), fast.returnClosing(tradeProfit, tradeAmount), label);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCrossCheckReturnsBigDecimalResult() {
+        long before = TradeEngine.mismatches();
+        BigDecimal opening = new BigDecimal("17.6967");
+        BigDecimal closing = new BigDecimal("17.7055");
+
+        TradeCalculator exact = TradeEngine.BIG_DECIMAL.create(TradeAction.SELL, true, spread, rateBK, rateKN, opening, closing);
+        TradeCalculator checked = TradeEngine.CROSS_CHECK.create(TradeAction.SELL, true, spread, rateBK, rateKN, opening, closing);
+
+        assertEquals(exact.returnProfit(tradeAmount), checked.returnProfit(tradeAmount));
+        assertEquals(exact.returnOpening(tradeProfit, tradeAmount), checked.returnOpening(tradeProfit, tradeAmount));
+        assertEquals(before, TradeEngine.mismatches());
+    }
+
+    @Test
+    public void testZeroRatesAreRejectedLikeTradeFunction() {
+        assertThrows(ArithmeticException.class,
+            () -> new FastTradeFunction(TradeAction.SELL, false, 0.01, 1, 1, 17.7, 0));
+        assertThrows(ArithmeticException.class,
+            () -> new FastTradeFunction(TradeAction.BUY, false, 0.01, 1, 1, 0, 17.7));
+        assertThrows(IllegalArgumentException.class,
+            () -> new FastTradeFunction(TradeAction.NO_TRADE, false, 0.01, 1, 1, 17.7, 17.7));
+    }
+
+    @Test
+    public void testEngineNames() {
+        assertEquals(TradeEngine.CROSS_CHECK, TradeEngine.fromName("cross-check"));
+        assertEquals(TradeEngine.BIG_DECIMAL, TradeEngine.fromName("bigdecimal"));
+        assertEquals(TradeEngine.DOUBLE, TradeEngine.fromName(" Double "));
+        assertThrows(IllegalArgumentException.class, () -> TradeEngine.fromName("float"));
+    }
+
+    private static void assertClose(BigDecimal expected, BigDecimal actual, String label) {
+        double difference = Math.abs(expected.doubleValue() - actual.doubleValue());
+        assertTrue(difference <= TradeEngine.CROSS_CHECK_TOLERANCE * Math.max(1, Math.abs(expected.doubleValue())),
+            label + " expected: " + expected + ", actual: " + actual + ", diff: " + difference);
+    }
+}
@@ -0,0 +1,79 @@
+package co.za.MainTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import co.za.Main.WebTradeApplication.FlightRecorderControl;
+import co.za.Main.WebTradeApplication.TradeEvents;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_FlightRecorderControl {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRecordingCapturesTradeEvents() throws IOException {
+        try (FlightRecorderControl control = new FlightRecorderControl(directory, 60, 16)) {
+            assertEquals("none", control.status().state());
+            assertThrows(IllegalStateException.class, control::recordingFile);
+
+            FlightRecorderControl.Status started = control.start("default", 30, 0);
+            assertEquals("running", started.state());
+            assertEquals(16L * 1024 * 1024, started.maxSizeBytes());
+            assertThrows(IllegalStateException.class, () -> control.start("default", 30, 0));
+            assertThrows(IllegalStateException.class, control::recordingFile);
+
+            TradeEvents.Request request = new TradeEvents.Request();
+            request.begin();
+            request.handler = "query";
+            request.method = "POST";
+            request.uri = "/api/query";
+            request.status = 200;
+            request.commit();
+
+            FlightRecorderControl.Status stopped = control.stop();
+            assertEquals("stopped", stopped.state());
+            assertThrows(IllegalStateException.class, control::stop);
+
+            Path file = control.recordingFile();
+            assertEquals(stopped.file(), file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("co.za.trade.Request"))
+                .toList();
+            assertEquals(1, events.size());
+            assertEquals("/api/query", events.get(0).getString("uri"));
+            assertEquals(200, events.get(0).getInt("status"));
+
+            // Only the latest recording is kept
+            control.start("default", 1, 1);
+            assertFalse(Files.exists(file));
+        }
+    }
+
+    @Test
+    public void testRecordingsAreBounded() throws Exception {
+        try (FlightRecorderControl control = new FlightRecorderControl(directory, 60, 16)) {
+            assertThrows(IllegalArgumentException.class, () -> control.start("default", 61, 0));
+            assertThrows(IllegalArgumentException.class, () -> control.start("default", 0, 17));
+            assertThrows(IllegalArgumentException.class, () -> control.start("default", -1, 0));
+            assertThrows(IllegalArgumentException.class, () -> control.start("no-such-settings", 1, 0));
+
+            // The duration stops the recording and writes the file without a stop request
+            assertEquals(60, control.start("default", 0, 0).duration().toSeconds());
+            control.stop();
+            control.start("default", 1, 0);
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (!"stopped".equals(control.status().state())) {
+                assertTrue(System.nanoTime() < deadline, "Recording did not stop at the end of its duration");
+                Thread.sleep(50);
+            }
+            assertTrue(Files.size(control.recordingFile()) > 0);
+        }
+    }
+}
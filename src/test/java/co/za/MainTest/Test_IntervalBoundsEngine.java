@@ -0,0 +1,114 @@
+package co.za.MainTest;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+import org.junit.jupiter.api.*;
+import co.za.Main.TradeModules.IntervalBoundsEngine;
+import co.za.Main.TradeModules.IntervalBoundsEngine.Interval;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeCurve;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_IntervalBoundsEngine {
+
+    static final int SAMPLES = 5;
+
+    BigDecimal spread = new BigDecimal("0.01");
+    BigDecimal rateBK = new BigDecimal("17.7055");
+    BigDecimal rateKN = new BigDecimal("1.0");
+
+    Interval tradeAmount = Interval.of(new BigDecimal("5000"), new BigDecimal("20000"));
+    Interval opening = Interval.of(new BigDecimal("17.60"), new BigDecimal("17.80"));
+    // Entirely below the opening range, so the profit per unit never crosses zero
+    Interval closing = Interval.of(new BigDecimal("17.20"), new BigDecimal("17.40"));
+
+    Interval[] tradeProfits = {
+        Interval.of(new BigDecimal("-500"), new BigDecimal("-88")),
+        Interval.of(new BigDecimal("-88"), new BigDecimal("300")),
+        Interval.of(new BigDecimal("50"), new BigDecimal("400"))
+    };
+
+    @Test
+    public void testBoundsMatchBruteForceSampling() {
+        for (TradeAction action : new TradeAction[] {TradeAction.SELL, TradeAction.BUY}) {
+            for (boolean market : new boolean[] {false, true}) {
+                IntervalBoundsEngine engine = new IntervalBoundsEngine(action, market, spread, rateBK, rateKN);
+                String label = action + (market ? " market" : " execution");
+
+                assertTight(engine.profit(tradeAmount, opening, closing), label + " profit",
+                    s -> curve(action, market, s[2], s[3]).returnProfit(s[1]));
+
+                for (Interval tradeProfit : tradeProfits) {
+                    String profitLabel = label + " profit " + tradeProfit;
+                    assertTight(engine.profitFactor(tradeProfit, tradeAmount), profitLabel + " profitfactor",
+                        s -> curve(action, market, s[2], s[3]).returnProfitFactor(s[0], s[1]), tradeProfit);
+                    assertTight(engine.tradeAmount(tradeProfit, opening, closing), profitLabel + " tradeamount",
+                        s -> curve(action, market, s[2], s[3]).returnTradeAmount(s[0], s[1]), tradeProfit);
+                    assertTight(engine.opening(tradeProfit, tradeAmount, closing), profitLabel + " opening",
+                        s -> curve(action, market, s[2], s[3]).returnOpening(s[0], s[1]), tradeProfit);
+                    assertTight(engine.closing(tradeProfit, tradeAmount, opening), profitLabel + " closing",
+                        s -> curve(action, market, s[2], s[3]).returnClosing(s[0], s[1]), tradeProfit);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNegativeProfitUsesLargestAmountForMinimum() {
+        // Selling below the buy-back rate loses money, so the biggest trade loses the most
+        IntervalBoundsEngine engine = new IntervalBoundsEngine(TradeAction.SELL, false, spread, rateBK, rateKN);
+        Interval profit = engine.profit(tradeAmount, closing, opening);
+
+        assertTrue(profit.max().signum() < 0);
+        double worst = curve(TradeAction.SELL, false, closing.min(), opening.max()).returnProfit(tradeAmount.max()).doubleValue();
+        assertEquals(worst, profit.min().doubleValue(), Math.abs(worst) * 1e-7);
+        assertTrue(profit.min().doubleValue() <= worst);
+    }
+
+    @Test
+    public void testTradeAmountIsUnboundedWhenBreakEvenIsInRange() {
+        IntervalBoundsEngine engine = new IntervalBoundsEngine(TradeAction.SELL, false, spread, rateBK, rateKN);
+        // Opening and closing overlap, so some pair gives zero profit per unit
+        assertThrows(ArithmeticException.class,
+            () -> engine.tradeAmount(tradeProfits[2], opening, Interval.of(new BigDecimal("17.5"), new BigDecimal("17.9"))));
+    }
+
+    private TradeCurve curve(TradeAction action, boolean market, BigDecimal opening, BigDecimal closing) {
+        return new TradeCurve(action, market, spread, rateBK, rateKN, opening, closing);
+    }
+
+    private void assertTight(Interval bounds, String label, Function<BigDecimal[], BigDecimal> function) {
+        assertTight(bounds, label, function, Interval.point(BigDecimal.ZERO));
+    }
+
+    // Samples [tradeProfit, tradeAmount, opening, closing] on a grid including every corner
+    private void assertTight(Interval bounds, String label, Function<BigDecimal[], BigDecimal> function, Interval tradeProfit) {
+        double lowest = Double.POSITIVE_INFINITY;
+        double highest = Double.NEGATIVE_INFINITY;
+        for (int p = 0; p < SAMPLES; p++) {
+            for (int a = 0; a < SAMPLES; a++) {
+                for (int o = 0; o < SAMPLES; o++) {
+                    for (int c = 0; c < SAMPLES; c++) {
+                        BigDecimal[] sample = {sample(tradeProfit, p), sample(tradeAmount, a), sample(opening, o), sample(closing, c)};
+                        double value = function.apply(sample).doubleValue();
+                        lowest = Math.min(lowest, value);
+                        highest = Math.max(highest, value);
+                    }
+                }
+            }
+        }
+
+        double min = bounds.min().doubleValue();
+        double max = bounds.max().doubleValue();
+        double tolerance = 1e-7 * Math.max(1, Math.max(Math.abs(min), Math.abs(max)));
+        assertTrue(min <= lowest + tolerance, label + ": bound " + min + " above sample " + lowest);
+        assertTrue(max >= highest - tolerance, label + ": bound " + max + " below sample " + highest);
+        assertEquals(lowest, min, tolerance, label + " minimum is not tight");
+        assertEquals(highest, max, tolerance, label + " maximum is not tight");
+    }
+
+    private static BigDecimal sample(Interval range, int index) {
+        BigDecimal step = range.max().subtract(range.min()).divide(BigDecimal.valueOf(SAMPLES - 1));
+        return range.min().add(step.multiply(BigDecimal.valueOf(index)));
+    }
+}
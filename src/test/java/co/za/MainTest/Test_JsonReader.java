@@ -0,0 +1,128 @@
+package co.za.MainTest;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.*;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.WebTradeApplication.JsonParseException;
+import co.za.Main.WebTradeApplication.JsonReader;
+import co.za.Main.WebTradeApplication.TradeRequests;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_JsonReader {
+
+    @Test
+    public void testQueryRequestWithNegativeAndExponentValues() throws Exception {
+        TradeRequests.QueryRequest request = TradeRequests.QueryRequest.parse(
+            "{\"tradeAction\":\"buy\",\"spread\":-0.02,\"rateBK\":1.77055E1,\"rateKN\":\"0.5\",\"basedOnMarketRate\":true}");
+
+        assertEquals(TradeAction.BUY, request.tradeAction());
+        assertTrue(request.basedOnMarketRate());
+        assertEquals(0, new BigDecimal("-0.02").compareTo(request.spread()));
+        assertEquals(0, new BigDecimal("17.7055").compareTo(request.rateBK()));
+        assertEquals(0, new BigDecimal("0.5").compareTo(request.rateKN()));
+    }
+
+    @Test
+    public void testQueryRequestDefaultsAndUnknownFields() throws Exception {
+        TradeRequests.QueryRequest request = TradeRequests.QueryRequest.parse(
+            "{ \"extra\": {\"nested\": [1, 2, {\"x\": null}]}, \"rateKN\": null }");
+
+        assertEquals(TradeAction.SELL, request.tradeAction());
+        assertFalse(request.basedOnMarketRate());
+        assertEquals(TradeRequests.DEFAULT_SPREAD, request.spread());
+        assertEquals(BigDecimal.ONE, request.rateBK());
+        assertEquals(BigDecimal.ONE, request.rateKN());
+    }
+
+    @Test
+    public void testUpdateRequestRejectsUnknownColumn() {
+        JsonParseException e = assertThrows(JsonParseException.class, () -> TradeRequests.UpdateRequest.parse(
+            "{\"variable\":\"tradeamount\",\"column\":\"returnmin = 0 --\",\"value\":\"1\"}"));
+        assertTrue(e.getMessage().contains("cannot be updated"), e.getMessage());
+    }
+
+    @Test
+    public void testStringEscapes() throws Exception {
+        JsonReader reader = new JsonReader("[\"a\\\"b\\\\c\\u0041\\n\"]");
+        reader.beginArray();
+        assertEquals("a\"b\\cA\n", reader.nextString());
+        reader.endArray();
+        reader.endDocument();
+    }
+
+    @Test
+    public void testErrorsReportPosition() {
+        JsonParseException e = assertThrows(JsonParseException.class,
+            () -> TradeRequests.ResetRequest.parse("{\n  \"resetType\" \"zero\"\n}"));
+        assertTrue(e.getMessage().contains("line 2 column 15"), e.getMessage());
+    }
+
+    @Test
+    public void testMalformedNumbersAreRejected() {
+        for (String body : new String[] {"{\"spread\":01}", "{\"spread\":1.}", "{\"spread\":-}", "{\"spread\":1e}", "{\"spread\":.5}"}) {
+            assertThrows(JsonParseException.class, () -> TradeRequests.QueryRequest.parse(body), body);
+        }
+    }
+
+    @Test
+    public void testOutOfRangeNumbersAreRejected() throws Exception {
+        for (String body : new String[] {
+                "{\"spread\":1e9999999999}",
+                "{\"spread\":1e999999999}",
+                "{\"spread\":1e-1001}",
+                "{\"spread\":\"1e9999999999\"}",
+                "{\"spread\":\"1e999999999\"}",
+                "{\"spread\":\"0." + "0".repeat(1000) + "1\"}",
+                "{\"extra\":[1e999999999],\"spread\":0.01}"}) {
+            JsonParseException e = assertThrows(JsonParseException.class, () -> TradeRequests.QueryRequest.parse(body), body);
+            assertTrue(e.getMessage().contains("line 1"), e.getMessage());
+        }
+
+        // The bound itself is still accepted
+        assertEquals(0, new BigDecimal("1e1000").compareTo(
+            TradeRequests.QueryRequest.parse("{\"spread\":1e1000}").spread()));
+        assertEquals(0, new BigDecimal("1e-1000").compareTo(
+            TradeRequests.QueryRequest.parse("{\"spread\":\"1e-1000\"}").spread()));
+    }
+
+    @Test
+    public void testTrailingContentIsRejected() {
+        assertThrows(JsonParseException.class, () -> TradeRequests.ResetRequest.parse("{\"resetType\":\"zero\"} {}"));
+    }
+
+    @Test
+    public void testComputeRequestCarriesInputs() throws Exception {
+        TradeRequests.ComputeRequest request = TradeRequests.ComputeRequest.parse(
+            "{\"tradeAction\":\"BUY\",\"inputs\":{\"tradeamount\":{\"minimum\":100,\"maximum\":\"250.5\"}}}");
+
+        assertEquals(TradeAction.BUY, request.parameters().tradeAction());
+        assertEquals(0, new BigDecimal("100").compareTo(request.inputs().minimum("tradeamount")));
+        assertEquals(0, new BigDecimal("250.5").compareTo(request.inputs().maximum("tradeamount")));
+        assertEquals(BigDecimal.ZERO, request.inputs().maximum("openingvalue"));
+
+        assertThrows(JsonParseException.class, () -> TradeRequests.ComputeRequest.parse(
+            "{\"inputs\":{\"bogus\":{\"minimum\":1}}}"));
+    }
+
+    @Test
+    public void testComputeRequestIsValidated() throws Exception {
+        String inputs = ",\"inputs\":{\"tradeamount\":{\"minimum\":100,\"maximum\":200}}}";
+        assertEquals(TradeAction.SELL, TradeRequests.ComputeRequest.parse("{\"tradeAction\":\"sell\"" + inputs)
+            .parameters().tradeAction());
+        assertEquals(TradeAction.SELL, TradeRequests.ComputeRequest.parse("{\"tradeAction\":null" + inputs)
+            .parameters().tradeAction());
+
+        for (String body : new String[] {
+                "{\"tradeAction\":\"HOLD\"" + inputs,
+                "{\"tradeAction\":\"NO_TRADE\"" + inputs,
+                "{\"rateBK\":0" + inputs,
+                "{\"rateKN\":-1" + inputs,
+                "{\"inputs\":{\"tradeamount\":{\"minimum\":200,\"maximum\":100}}}",
+                "{\"inputs\":{\"tradeamount\":{\"maximum\":1},\"tradeamount\":{\"maximum\":2}}}",
+                "{\"inputs\":[]}",
+                "{\"spread\":\"wide\"" + inputs}) {
+            JsonParseException e = assertThrows(JsonParseException.class, () -> TradeRequests.ComputeRequest.parse(body), body);
+            assertNotNull(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package co.za.MainTest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.*;
+import co.za.Main.MarketData.LivePnlEngine;
+import co.za.Main.MarketData.LivePosition;
+import co.za.Main.MarketData.LiveRateFeed;
+import co.za.Main.MarketData.TickFeedSimulator;
+import co.za.Main.MarketData.TickRingBuffer;
+import co.za.Main.Metrics.LatencyHistogram;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeCalculator;
+import co.za.Main.TradeModules.TradeEngine;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_LivePnlEngine {
+
+    @Test
+    public void testRingKeepsOrderAcrossThreads() throws InterruptedException {
+        TickRingBuffer ring = new TickRingBuffer(64);
+        int count = 200_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!ring.offer(i % 3, i * 0.5, i, i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        long[] next = {0};
+        while (next[0] < count) {
+            if (ring.isEmpty()) {
+                Thread.yield();
+            }
+            ring.drain((symbol, rate, timestamp, received) -> {
+                long expected = next[0]++;
+                assertEquals(expected, timestamp);
+                assertEquals(expected % 3, symbol);
+                assertEquals(expected * 0.5, rate);
+            }, 16);
+        }
+        producer.join();
+        assertTrue(ring.isEmpty());
+        assertFalse(new TickRingBuffer(2).drain((symbol, rate, timestamp, received) -> fail(), 1) > 0);
+    }
+
+    @Test
+    public void testTicksRemarkOnlyTheirOwnSymbol() {
+        try (LivePnlEngine engine = new LivePnlEngine(1024)) {
+            LivePosition sell = engine.open("USDZAR", TradeAction.SELL, true, 0.01, 17.7055, 1, 10000, 17.6967);
+            LivePosition buy = engine.open("USDZAR", TradeAction.BUY, false, 0.01, 17.7055, 1, 10000, 17.5);
+            LivePosition other = engine.open("EURZAR", TradeAction.SELL, false, 0.01, 1, 1, 5000, 19.2);
+            assertNull(sell.getMark());
+
+            int usdzar = engine.symbolId("USDZAR");
+            double[] rates = {17.71, 17.65, 17.7055};
+            for (int i = 0; i < rates.length; i++) {
+                assertTrue(engine.publish(usdzar, rates[i], 1000 + i, System.nanoTime()));
+            }
+            awaitTrue(() -> engine.getProcessed() == rates.length);
+
+            assertEquals(17.7055, sell.getMark().closing());
+            assertEquals(1002, sell.getMark().timestamp());
+            assertClose(profit(TradeAction.SELL, true, "17.6967", "17.7055"), sell.getMark().profit());
+            assertClose(profit(TradeAction.BUY, false, "17.5", "17.7055"), buy.getMark().profit());
+            assertNull(other.getMark());
+            assertEquals(2L * rates.length, engine.getRemarked());
+            assertEquals(rates.length, engine.getLatency().count());
+
+            // Opening at the market marks the position straight away
+            LivePosition late = engine.open("USDZAR", TradeAction.SELL, false, 0.01, 17.7055, 1, 10000, Double.NaN);
+            assertEquals(17.7055, late.getOpening());
+            assertEquals(late.profitAt(17.7055), late.getMark().profit());
+
+            assertSame(buy, engine.close(buy.getId()));
+            assertNull(engine.close(buy.getId()));
+            assertEquals(List.of(sell, late, other), engine.positions());
+            assertThrows(IllegalStateException.class,
+                () -> engine.open("GBPZAR", TradeAction.SELL, false, 0.01, 1, 1, 100, Double.NaN));
+        }
+    }
+
+    @Test
+    public void testSocketFeedFromSimulator() throws IOException {
+        try (LivePnlEngine engine = new LivePnlEngine(256);
+             LiveRateFeed feed = LiveRateFeed.socket(engine, 0)) {
+            LivePosition position = engine.open("USDZAR", TradeAction.BUY, true, 0.01, 1, 1, 10000, 17.7);
+            TickFeedSimulator simulator = new TickFeedSimulator(new String[] {"USDZAR", "EURZAR"},
+                new double[] {17.7, 19.2}, 1e-4, 42);
+
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), feed.getPort());
+                 Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+                out.write("# comment\nnot a tick\nUSDZAR,-1\n\n");
+                simulator.run(out, 10_000, 0);
+            }
+            awaitTrue(() -> engine.getProcessed() == 10_000);
+
+            assertEquals(10_002, feed.getLines());
+            assertEquals(2, feed.getRejected());
+            List<LivePnlEngine.Quote> quotes = engine.quotes();
+            assertEquals(2, quotes.size());
+            for (LivePnlEngine.Quote quote : quotes) {
+                assertEquals(5_000, quote.ticks());
+            }
+            assertEquals(position.profitAt(quotes.get(0).rate()), position.getMark().profit());
+            assertEquals(5_000, engine.getRemarked());
+
+            LatencyHistogram.Snapshot latency = engine.getLatency().snapshot();
+            assertEquals(10_000, latency.getCount());
+            assertTrue(latency.percentile(50) <= latency.getMax());
+        }
+    }
+
+    @Test
+    public void testHistogramPercentilesWithinBucketWidth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 100);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(10_000_000, snapshot.getMax());
+        for (double percentile : new double[] {1, 50, 90, 99, 99.9}) {
+            double exact = percentile * 100_000;
+            long reported = snapshot.percentile(percentile);
+            assertTrue(reported >= exact && reported <= exact * 1.0625, percentile + ": " + reported);
+        }
+        assertEquals(10_000_000, snapshot.percentile(100));
+        assertEquals(0, new LatencyHistogram().snapshot().percentile(50));
+    }
+
+    private double profit(TradeAction action, boolean market, String opening, String closing) {
+        TradeCalculator exact = TradeEngine.BIG_DECIMAL.create(action, market, new BigDecimal("0.01"),
+            new BigDecimal("17.7055"), BigDecimal.ONE, new BigDecimal(opening), new BigDecimal(closing));
+        return exact.returnProfit(new BigDecimal("10000")).doubleValue();
+    }
+
+    // The BigDecimal model rounds to 10 places, so compare within the engines' cross-check tolerance
+    private static void assertClose(double expected, double actual) {
+        assertEquals(expected, actual, TradeEngine.CROSS_CHECK_TOLERANCE * Math.max(1, Math.abs(expected)));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the compute thread");
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package co.za.MainTest;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.*;
+import co.za.Main.TradeModules.Distribution;
+import co.za.Main.TradeModules.FastTradeFunction;
+import co.za.Main.TradeModules.MonteCarloSimulator;
+import co.za.Main.TradeModules.ProfitDistribution;
+import co.za.Main.TradeModules.TradeAction;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_MonteCarloSimulator {
+
+    double rateBK = 17.7055;
+    double rateKN = 1.0;
+    Distribution spread = Distribution.fixed(0.01);
+
+    @Test
+    public void testSameSeedGivesSameResultOnAnyPool() {
+        Distribution opening = Distribution.uniform(17.6, 17.8);
+        Distribution closing = Distribution.normal(17.5, 0.05);
+        Distribution tradeAmount = Distribution.triangular(5000, 10000, 20000);
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            // 300k samples is several chunks, so the pools really do split the work differently
+            ProfitDistribution a = new MonteCarloSimulator(TradeAction.SELL, true, rateBK, rateKN, single)
+                .simulate(opening, closing, tradeAmount, spread, 300_000, 42, 40);
+            ProfitDistribution b = new MonteCarloSimulator(TradeAction.SELL, true, rateBK, rateKN, four)
+                .simulate(opening, closing, tradeAmount, spread, 300_000, 42, 40);
+            ProfitDistribution c = new MonteCarloSimulator(TradeAction.SELL, true, rateBK, rateKN, four)
+                .simulate(opening, closing, tradeAmount, spread, 300_000, 43, 40);
+
+            assertEquals(a.getMean(), b.getMean());
+            assertEquals(a.getStandardDeviation(), b.getStandardDeviation());
+            assertEquals(a.percentile(5), b.percentile(5));
+            assertEquals(a.percentile(99), b.percentile(99));
+            assertArrayEquals(a.histogram(), b.histogram());
+            assertNotEquals(a.getMean(), c.getMean());
+        } finally {
+            single.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    public void testPercentilesMatchTheInputDistribution() {
+        // Selling profit falls as the closing rate rises, so profit P5 is the profit at closing P95
+        double mean = 17.5;
+        double sd = 0.05;
+        ProfitDistribution result = new MonteCarloSimulator(TradeAction.SELL, false, rateBK, rateKN)
+            .simulate(Distribution.fixed(17.7), Distribution.normal(mean, sd), Distribution.fixed(10000),
+                spread, 1_000_000, 7, 50);
+
+        double atP95 = new FastTradeFunction(TradeAction.SELL, false, 0.01, rateBK, rateKN, 17.7, mean + 1.6449 * sd).returnProfit(10000);
+        double atP50 = new FastTradeFunction(TradeAction.SELL, false, 0.01, rateBK, rateKN, 17.7, mean).returnProfit(10000);
+        double atP5 = new FastTradeFunction(TradeAction.SELL, false, 0.01, rateBK, rateKN, 17.7, mean - 1.6449 * sd).returnProfit(10000);
+
+        assertEquals(0, result.getRejected());
+        assertEquals(atP95, result.percentile(5), Math.abs(atP95) * 0.005);
+        assertEquals(atP50, result.percentile(50), Math.abs(atP50) * 0.005);
+        assertEquals(atP5, result.percentile(95), Math.abs(atP5) * 0.005);
+        assertTrue(result.percentile(1) <= result.percentile(5));
+        assertTrue(result.percentile(95) <= result.percentile(99));
+        assertEquals(1_000_000, java.util.Arrays.stream(result.histogram()).sum());
+    }
+
+    @Test
+    public void testUniformAmountGivesLinearProfit() {
+        FastTradeFunction function = new FastTradeFunction(TradeAction.BUY, true, 0.01, rateBK, rateKN, 17.5, 17.7);
+        ProfitDistribution result = new MonteCarloSimulator(TradeAction.BUY, true, rateBK, rateKN)
+            .simulate(Distribution.fixed(17.5), Distribution.fixed(17.7), Distribution.uniform(0, 20000),
+                spread, 500_000, 1, 10);
+
+        double perUnit = function.returnProfit(1);
+        assertEquals(10000 * perUnit, result.getMean(), 20000 * perUnit * 0.005);
+        assertEquals(20000 * perUnit / Math.sqrt(12), result.getStandardDeviation(), 20000 * perUnit * 0.005);
+        assertEquals(0.0, result.lossProbability());
+        for (long count : result.histogram()) {
+            assertEquals(50_000, count, 1_500);
+        }
+    }
+
+    @Test
+    public void testUndefinedSamplesAreRejected() {
+        // About half the closing rates drawn are negative
+        ProfitDistribution result = new MonteCarloSimulator(TradeAction.SELL, false, rateBK, rateKN)
+            .simulate(Distribution.fixed(17.7), Distribution.normal(0, 1), Distribution.fixed(10000),
+                spread, 100_000, 3, 10);
+
+        assertEquals(50_000, result.getRejected(), 1_500);
+        assertEquals(result.accepted(), java.util.Arrays.stream(result.histogram()).sum());
+        assertTrue(result.getMinimum() > 0);
+
+        ProfitDistribution none = new MonteCarloSimulator(TradeAction.SELL, false, rateBK, rateKN)
+            .simulate(Distribution.fixed(-1), Distribution.fixed(17.7), Distribution.fixed(10000), spread, 10, 3, 10);
+        assertEquals(10, none.getRejected());
+        assertTrue(Double.isNaN(none.percentile(50)));
+    }
+}
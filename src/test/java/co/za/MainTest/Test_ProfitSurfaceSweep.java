@@ -0,0 +1,73 @@
+package co.za.MainTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.StringWriter;
+import org.junit.jupiter.api.*;
+import co.za.Main.TradeModules.FastTradeFunction;
+import co.za.Main.TradeModules.ProfitSurface;
+import co.za.Main.TradeModules.ProfitSurfaceSweep;
+import co.za.Main.TradeModules.TradeAction;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_ProfitSurfaceSweep {
+
+    double spread = 0.01;
+    double rateBK = 17.7055;
+    double rateKN = 1.0;
+    double[] tradeAmounts = {10000, 25000};
+
+    @Test
+    public void testEveryPointMatchesFastTradeFunction() {
+        for (TradeAction action : new TradeAction[] {TradeAction.SELL, TradeAction.BUY}) {
+            ProfitSurfaceSweep sweep = new ProfitSurfaceSweep(action, true, spread, rateBK, rateKN);
+            // Uneven sizes so tiles split both ways and leave ragged edges
+            double[] openings = ProfitSurfaceSweep.grid(17.0, 18.0, 301);
+            double[] closings = ProfitSurfaceSweep.grid(17.2, 18.1, 257);
+            ProfitSurface surface = sweep.sweep(openings, closings, tradeAmounts);
+
+            assertEquals(2L * 301 * 257, surface.points());
+            for (int o = 0; o < openings.length; o += 7) {
+                for (int c = 0; c < closings.length; c += 5) {
+                    FastTradeFunction function = new FastTradeFunction(action, true, spread, rateBK, rateKN, openings[o], closings[c]);
+                    for (int a = 0; a < tradeAmounts.length; a++) {
+                        double expected = function.returnProfit(tradeAmounts[a]);
+                        assertEquals(expected, surface.profit(a, o, c), Math.abs(expected) * 1e-12);
+                        assertEquals(function.returnProfitFactor(expected, tradeAmounts[a]), surface.profitFactor(o, c), 1e-15);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGridIncludesBothEnds() {
+        assertArrayEquals(new double[] {1.0, 1.5, 2.0}, ProfitSurfaceSweep.grid(1.0, 2.0, 3));
+        assertArrayEquals(new double[] {1.0}, ProfitSurfaceSweep.grid(1.0, 2.0, 1));
+        assertThrows(IllegalArgumentException.class, () -> ProfitSurfaceSweep.grid(1.0, 2.0, 0));
+    }
+
+    @Test
+    public void testCsvAndBinaryOutput() throws Exception {
+        ProfitSurface surface = new ProfitSurfaceSweep(TradeAction.SELL, false, spread, rateBK, rateKN)
+            .sweep(ProfitSurfaceSweep.grid(17.6, 17.8, 3), ProfitSurfaceSweep.grid(17.5, 17.7, 4), tradeAmounts);
+
+        StringWriter csv = new StringWriter();
+        surface.writeCsv(csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals(1 + 2 * 3 * 4, lines.length);
+        assertEquals("tradeamount,opening,closing,profit,profitfactor", lines[0]);
+        assertEquals(surface.profit(0, 0, 1), Double.parseDouble(lines[2].split(",")[3]));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        surface.writeBinary(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(ProfitSurface.BINARY_MAGIC, in.readInt());
+        assertEquals(ProfitSurface.BINARY_VERSION, in.readInt());
+        assertEquals(3, in.readInt());
+        assertEquals(4, in.readInt());
+        assertEquals(2, in.readInt());
+        assertEquals(4 * 5 + 8 * (3 + 4 + 2 + 3 * 4 + 2 * 3 * 4), bytes.size());
+    }
+}
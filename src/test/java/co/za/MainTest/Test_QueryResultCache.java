@@ -0,0 +1,109 @@
+package co.za.MainTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.*;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeBounds;
+import co.za.Main.TradeModules.TradeEngine;
+import co.za.Main.WebTradeApplication.QueryResult;
+import co.za.Main.WebTradeApplication.QueryResultCache;
+import co.za.Main.WebTradeApplication.TradeRequests.QueryRequest;
+import co.za.Main.WebTradeApplication.TradeTableSnapshot;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_QueryResultCache {
+
+    private static QueryRequest query(String spread, TradeEngine engine, TradeBounds bounds) {
+        return new QueryRequest(TradeAction.SELL, true, new BigDecimal(spread), new BigDecimal("17.7055"),
+            BigDecimal.ONE, engine, bounds);
+    }
+
+    private static TradeTableSnapshot inputs(String openingMax) {
+        return new TradeTableSnapshot(Map.of("openingvalue", new TradeTableSnapshot.Row("openingvalue",
+            new BigDecimal(openingMax), new BigDecimal("17.5"), BigDecimal.ZERO, BigDecimal.ZERO)));
+    }
+
+    private static QueryResultCache.Entry entry(String json) {
+        return new QueryResultCache.Entry(List.of(QueryResult.zero("tradeprofit")), json);
+    }
+
+    @Test
+    public void testKeysAreCanonical() {
+        QueryResultCache.Key key = QueryResultCache.Key.of(query("0.01", TradeEngine.BIG_DECIMAL, TradeBounds.INTERVAL), inputs("18"));
+        assertEquals(key, QueryResultCache.Key.of(query("0.0100", TradeEngine.DOUBLE, TradeBounds.INTERVAL), inputs("18.000")));
+        assertNotEquals(key, QueryResultCache.Key.of(query("0.01", TradeEngine.BIG_DECIMAL, TradeBounds.INTERVAL), inputs("18.001")));
+        assertNotEquals(key, QueryResultCache.Key.of(query("0.01", TradeEngine.BIG_DECIMAL, TradeBounds.CORNERS), inputs("18")));
+        assertNotEquals(QueryResultCache.Key.of(query("0.01", TradeEngine.BIG_DECIMAL, TradeBounds.CORNERS), inputs("18")),
+            QueryResultCache.Key.of(query("0.01", TradeEngine.DOUBLE, TradeBounds.CORNERS), inputs("18")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictionAndExpiry() throws InterruptedException {
+        QueryResultCache cache = new QueryResultCache(2, 60_000);
+        QueryResultCache.Key[] keys = new QueryResultCache.Key[3];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = QueryResultCache.Key.of(query("0.0" + (i + 1), TradeEngine.BIG_DECIMAL, TradeBounds.INTERVAL), inputs("18"));
+        }
+        cache.put(keys[0], entry("a"));
+        cache.put(keys[1], entry("b"));
+        assertEquals("a", cache.get(keys[0]).json());
+        // keys[1] is now the least recently used
+        cache.put(keys[2], entry("c"));
+        assertNull(cache.get(keys[1]));
+        assertEquals("a", cache.get(keys[0]).json());
+        assertEquals("c", cache.get(keys[2]).json());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+
+        QueryResultCache shortLived = new QueryResultCache(2, 1);
+        shortLived.put(keys[0], entry("a"));
+        Thread.sleep(5);
+        assertNull(shortLived.get(keys[0]));
+        assertEquals(1, shortLived.getExpirations());
+        assertEquals(0, shortLived.size());
+
+        QueryResultCache off = new QueryResultCache(0, 1000);
+        off.put(keys[0], entry("a"));
+        assertNull(off.get(keys[0]));
+        assertEquals(0, off.getMisses());
+    }
+
+    @Test
+    public void testInvalidationClearsEntriesAndStaleInputs() {
+        QueryResultCache cache = new QueryResultCache(4, 60_000);
+        QueryResultCache.Key key = QueryResultCache.Key.of(query("0.01", TradeEngine.BIG_DECIMAL, TradeBounds.INTERVAL), inputs("18"));
+        long generation = cache.generation();
+        cache.cacheInputs(generation, inputs("18"));
+        cache.put(key, entry("a"));
+        cache.markWritten(key);
+        assertNotNull(cache.inputs());
+        assertTrue(cache.isWritten(key));
+
+        cache.invalidate();
+        assertNull(cache.inputs());
+        assertNull(cache.get(key));
+        assertFalse(cache.isWritten(key));
+        assertEquals(1, cache.getInvalidations());
+
+        // Inputs read before the invalidation must not be cached after it
+        cache.cacheInputs(generation, inputs("18"));
+        assertNull(cache.inputs());
+        cache.cacheInputs(cache.generation(), inputs("19"));
+        assertEquals(new BigDecimal("19"), cache.inputs().maximum("openingvalue"));
+    }
+
+    @Test
+    public void testInputsAndWrittenResultsExpire() throws InterruptedException {
+        // Another process may change the table without invalidating this cache
+        QueryResultCache cache = new QueryResultCache(4, 1);
+        QueryResultCache.Key key = QueryResultCache.Key.of(query("0.01", TradeEngine.BIG_DECIMAL, TradeBounds.INTERVAL), inputs("18"));
+        cache.cacheInputs(cache.generation(), inputs("18"));
+        cache.markWritten(key);
+        Thread.sleep(5);
+        assertNull(cache.inputs());
+        assertFalse(cache.isWritten(key));
+    }
+}
@@ -0,0 +1,105 @@
+package co.za.MainTest;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import co.za.Main.WebTradeApplication.QueryResult;
+import co.za.Main.WebTradeApplication.TradeTableSnapshot;
+import co.za.Main.WebTradeApplication.WebAppDataBase;
+import co.za.Main.WebTradeApplication.WebAppDataBasePool;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_QueryResultWrites {
+
+    @TempDir
+    Path directory;
+
+    private String url;
+    private WebAppDataBasePool pool;
+
+    @BeforeEach
+    public void openPool() throws SQLException {
+        url = "jdbc:sqlite:" + directory.resolve("trade.db");
+        pool = new WebAppDataBasePool(url, 1, 1000);
+    }
+
+    @AfterEach
+    public void closePool() {
+        pool.close();
+    }
+
+    private static List<QueryResult> results(int offset) {
+        List<QueryResult> results = new ArrayList<>();
+        for (String variable : WebAppDataBase.VARIABLES) {
+            int value = offset + results.size();
+            results.add(new QueryResult(variable, BigDecimal.valueOf(-value), BigDecimal.valueOf(value)));
+        }
+        return results;
+    }
+
+    private void assertResults(int offset) throws SQLException {
+        try (WebAppDataBase db = pool.openReader()) {
+            TradeTableSnapshot snapshot = db.readSnapshot();
+            for (QueryResult expected : results(offset)) {
+                BigDecimal max = offset == 0 ? BigDecimal.ZERO : expected.returnMax();
+                assertEquals(0, max.compareTo(snapshot.returnMax(expected.variable())), expected.variable());
+            }
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    @Test
+    public void testEveryResultIsWritten() throws SQLException {
+        try (WebAppDataBase db = pool.openWriter()) {
+            db.updateQueryResults(results(10));
+        }
+        assertResults(10);
+    }
+
+    @Test
+    public void testAFailingRowLeavesEveryResultUnchanged() throws SQLException {
+        try (WebAppDataBase db = pool.openWriter()) {
+            db.updateQueryResults(results(10));
+        }
+
+        // The last row of the batch fails, after the others have been updated
+        String last = WebAppDataBase.VARIABLES.get(WebAppDataBase.VARIABLES.size() - 1);
+        execute("CREATE TRIGGER reject_last BEFORE UPDATE OF returnmax ON WebAppDataBase"
+            + " WHEN NEW.variable = '" + last + "' BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+        try (WebAppDataBase db = pool.openWriter()) {
+            assertThrows(SQLException.class, () -> db.updateQueryResults(results(20)));
+        }
+        assertResults(10);
+
+        // The writer is back in auto-commit mode, so later writes are not held in a transaction
+        execute("DROP TRIGGER reject_last");
+        try (WebAppDataBase db = pool.openWriter()) {
+            db.updateQueryResults(results(30));
+            db.updateValue("tradeamount", "maximum", new BigDecimal("1000"));
+        }
+        assertResults(30);
+    }
+
+    @Test
+    public void testABadResultLeavesEveryResultUnchanged() throws SQLException {
+        List<QueryResult> results = Arrays.asList(results(20).get(0), null);
+        try (WebAppDataBase db = pool.openWriter()) {
+            assertThrows(NullPointerException.class, () -> db.updateQueryResults(results));
+        }
+        assertResults(0);
+    }
+}
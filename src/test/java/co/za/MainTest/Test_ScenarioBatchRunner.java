@@ -0,0 +1,82 @@
+package co.za.MainTest;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import co.za.Main.WebTradeApplication.ScenarioBatchRunner;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_ScenarioBatchRunner {
+
+    @Test
+    public void testResultsKeepInputOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            input.append(i).append("\r\n");
+        }
+
+        StringWriter out = new StringWriter();
+        try (ScenarioBatchRunner runner = new ScenarioBatchRunner(4, 8)) {
+            int count = runner.run(new StringReader(input.toString()), out, 100, scenario -> {
+                // Every third scenario is slow so later ones finish first
+                Thread.sleep(Integer.parseInt(scenario) % 3 == 0 ? 2 : 0);
+                return scenario;
+            });
+            assertEquals(200, count);
+        }
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(200, lines.length);
+        for (int i = 0; i < 200; i++) {
+            assertEquals("{\"line\":" + (i + 1) + ",\"success\":true,\"data\":" + i + "}", lines[i]);
+        }
+    }
+
+    @Test
+    public void testFailuresAreReportedPerLine() throws Exception {
+        StringWriter out = new StringWriter();
+        try (ScenarioBatchRunner runner = new ScenarioBatchRunner(2, 2)) {
+            runner.run(new StringReader("1\n\nbad \"quote\"\n" + "x".repeat(50) + "\n3"), out, 20, scenario -> {
+                if (scenario.startsWith("bad")) {
+                    throw new IllegalArgumentException("Cannot evaluate " + scenario);
+                }
+                return scenario;
+            });
+        }
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("{\"line\":1,\"success\":true,\"data\":1}", lines[0]);
+        assertEquals("{\"line\":3,\"success\":false,\"error\":\"Cannot evaluate bad \\\"quote\\\"\"}", lines[1]);
+        assertTrue(lines[2].startsWith("{\"line\":4,\"success\":false"), lines[2]);
+        assertEquals("{\"line\":5,\"success\":true,\"data\":3}", lines[3]);
+    }
+
+    @Test
+    public void testInFlightScenariosStayWithinWindow() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger evaluated = new AtomicInteger();
+        int window = 3;
+
+        StringWriter out = new StringWriter() {
+            @Override
+            public void write(String str) {
+                // Everything submitted but not yet written counts against the window
+                assertTrue(running.get() <= window, "In flight: " + running.get());
+                running.decrementAndGet();
+                super.write(str);
+            }
+        };
+
+        try (ScenarioBatchRunner runner = new ScenarioBatchRunner(8, window)) {
+            runner.run(new StringReader("a\n".repeat(100)), out, 10, scenario -> {
+                running.incrementAndGet();
+                evaluated.incrementAndGet();
+                return "0";
+            });
+        }
+        assertEquals(100, evaluated.get());
+        assertEquals(0, running.get());
+    }
+}
@@ -0,0 +1,142 @@
+package co.za.MainTest;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import co.za.Main.WebTradeApplication.SchemaMigrator;
+import co.za.Main.WebTradeApplication.TradeTableSnapshot;
+import co.za.Main.WebTradeApplication.WebAppDataBase;
+import co.za.Main.WebTradeApplication.WebAppDataBasePool;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_SchemaMigrator {
+
+    @TempDir
+    Path directory;
+
+    private String url;
+
+    @BeforeEach
+    public void setUp() {
+        url = "jdbc:sqlite:" + directory.resolve("trade.db");
+    }
+
+    @Test
+    public void testLegacyDatabaseIsMigratedToTheCurrentSchema() throws SQLException {
+        createLegacyDatabase();
+
+        try (Connection connection = DriverManager.getConnection(url)) {
+            assertEquals(0, SchemaMigrator.readVersion(connection));
+            assertEquals(SchemaMigrator.CURRENT_VERSION, SchemaMigrator.migrate(connection));
+            assertEquals(3, SchemaMigrator.readVersion(connection));
+
+            assertTrue(columns(connection).contains("revision"));
+            Map<String, String> rows = rows(connection);
+            assertEquals(Set.copyOf(WebAppDataBase.VARIABLES), rows.keySet());
+            // The legacy rows keep their values under the new names, at revision 0
+            assertEquals("17.5|17.8|0", rows.get("openingvalue"));
+            assertEquals("17.2|17.6|0", rows.get("closingvalue"));
+            assertEquals("1000|5000|0", rows.get("tradeamount"));
+        }
+    }
+
+    @Test
+    public void testMigratingACurrentDatabaseIsANoOp() throws SQLException {
+        createLegacyDatabase();
+
+        try (Connection connection = DriverManager.getConnection(url)) {
+            SchemaMigrator.migrate(connection);
+            Set<String> columns = columns(connection);
+            Map<String, String> rows = rows(connection);
+
+            assertEquals(0, SchemaMigrator.migrate(connection));
+            assertEquals(SchemaMigrator.CURRENT_VERSION, SchemaMigrator.readVersion(connection));
+            assertEquals(columns, columns(connection));
+            assertEquals(rows, rows(connection));
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void testEmptyDatabaseIsCreatedAndSeeded() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            assertEquals(SchemaMigrator.CURRENT_VERSION, SchemaMigrator.migrate(connection));
+            Map<String, String> rows = rows(connection);
+            assertEquals(Set.copyOf(WebAppDataBase.VARIABLES), rows.keySet());
+            assertEquals("0|0|0", rows.get("openingvalue"));
+        }
+    }
+
+    @Test
+    public void testPoolMigratesALegacyDatabaseOnStartup() throws SQLException {
+        createLegacyDatabase();
+
+        try (WebAppDataBasePool pool = new WebAppDataBasePool(url, 1, 1000);
+             WebAppDataBase db = pool.openReader()) {
+            TradeTableSnapshot snapshot = db.readSnapshot();
+            assertEquals(0, snapshot.revision());
+            assertEquals(0, new BigDecimal("17.8").compareTo(snapshot.maximum("openingvalue")));
+            assertEquals(0, new BigDecimal("17.2").compareTo(snapshot.minimum("closingvalue")));
+        }
+    }
+
+    // The table as released before schema versioning, with the original variable names
+    private void createLegacyDatabase() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE WebAppDataBase (
+                    variable VARCHAR(50) DEFAULT '0',
+                    maximum DECIMAL(20,8) DEFAULT 0,
+                    minimum DECIMAL(20,8) DEFAULT 0,
+                    returnmin DECIMAL(20,8) DEFAULT 0,
+                    returnmax DECIMAL(20,8) DEFAULT 0
+                )
+                """);
+            stmt.execute("""
+                INSERT INTO WebAppDataBase (variable, minimum, maximum, returnmin, returnmax) VALUES
+                    ('tradeprofit', 0, 0, 0, 0),
+                    ('profitfactor', 0, 0, 0, 0),
+                    ('tradeamount', 1000, 5000, 0, 0),
+                    ('sellvariable', 17.5, 17.8, 0, 0),
+                    ('buyvariable', 17.2, 17.6, 0, 0)
+                """);
+        }
+    }
+
+    private static Set<String> columns(Connection connection) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(WebAppDataBase)")) {
+            while (rs.next()) {
+                columns.add(rs.getString("name"));
+            }
+        }
+        return columns;
+    }
+
+    // variable -> "minimum|maximum|revision"
+    private static Map<String, String> rows(Connection connection) throws SQLException {
+        Map<String, String> rows = new LinkedHashMap<>();
+        boolean revisions = columns(connection).contains("revision");
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM WebAppDataBase")) {
+            while (rs.next()) {
+                rows.put(rs.getString("variable"), rs.getBigDecimal("minimum").stripTrailingZeros().toPlainString()
+                    + "|" + rs.getBigDecimal("maximum").stripTrailingZeros().toPlainString()
+                    + "|" + (revisions ? rs.getLong("revision") : "-"));
+            }
+        }
+        return rows;
+    }
+}
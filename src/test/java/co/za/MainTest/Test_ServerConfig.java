@@ -0,0 +1,87 @@
+package co.za.MainTest;
+
+import java.util.Map;
+import java.util.Properties;
+import org.junit.jupiter.api.*;
+import co.za.Main.WebTradeApplication.ServerConfig;
+import co.za.Main.WebTradeApplication.ServerConfig.ExecutorMode;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_ServerConfig {
+
+    private Properties saved;
+
+    @BeforeEach
+    public void saveProperties() {
+        saved = (Properties) System.getProperties().clone();
+    }
+
+    @AfterEach
+    public void restoreProperties() {
+        System.setProperties(saved);
+    }
+
+    private static ServerConfig withProperties(Map<String, String> properties) {
+        properties.forEach(System::setProperty);
+        return ServerConfig.fromSystemProperties();
+    }
+
+    @Test
+    public void testDefaults() {
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        assertEquals(8080, config.getPort());
+        assertEquals(0, config.getBacklog());
+        assertEquals(ExecutorMode.VIRTUAL, config.getExecutorMode());
+        assertEquals(Runtime.getRuntime().availableProcessors() * 2, config.getPoolThreads());
+        assertEquals(1024, config.getPoolQueueCapacity());
+        assertEquals(ServerConfig.DEFAULT_MAX_BODY_BYTES, config.getMaxBodyBytes());
+    }
+
+    @Test
+    public void testPropertiesAreRead() {
+        ServerConfig config = withProperties(Map.of(
+            "trade.server.port", "9090",
+            "trade.server.backlog", "128",
+            "trade.server.executor", "POOL",
+            "trade.server.threads", "16",
+            "trade.server.queue", "64",
+            "trade.server.maxBody", "1024"));
+        assertEquals(9090, config.getPort());
+        assertEquals(128, config.getBacklog());
+        assertEquals(ExecutorMode.POOL, config.getExecutorMode());
+        assertEquals(16, config.getPoolThreads());
+        assertEquals(64, config.getPoolQueueCapacity());
+        assertEquals(1024, config.getMaxBodyBytes());
+        assertEquals("port=9090, backlog=128, executor=pool(16 threads, queue 64)", config.toString());
+    }
+
+    @Test
+    public void testExecutorModes() {
+        assertEquals(ExecutorMode.VIRTUAL, ServerConfig.parseExecutorMode("virtual"));
+        assertEquals(ExecutorMode.VIRTUAL, ServerConfig.parseExecutorMode(" Virtual "));
+        assertEquals(ExecutorMode.POOL, ServerConfig.parseExecutorMode("pool"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> ServerConfig.parseExecutorMode("pooled"));
+        assertTrue(e.getMessage().contains("pooled"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> ServerConfig.parseExecutorMode(""));
+        assertThrows(IllegalArgumentException.class,
+            () -> withProperties(Map.of("trade.server.executor", "platform")));
+    }
+
+    @Test
+    public void testInvalidValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ServerConfig(-1, 0, ExecutorMode.VIRTUAL, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ServerConfig(65536, 0, ExecutorMode.VIRTUAL, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ServerConfig(8080, -1, ExecutorMode.VIRTUAL, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ServerConfig(8080, 0, null, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ServerConfig(8080, 0, ExecutorMode.POOL, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ServerConfig(8080, 0, ExecutorMode.POOL, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ServerConfig(8080, 0, ExecutorMode.POOL, 1, 1, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> withProperties(Map.of("trade.server.maxBody", "-5")));
+
+        // Port 0 asks the OS for a free port
+        assertEquals(0, new ServerConfig(0, 0, ExecutorMode.VIRTUAL, 1, 1).getPort());
+    }
+}
@@ -0,0 +1,120 @@
+package co.za.MainTest;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.*;
+import co.za.Main.WebTradeApplication.ServerMetrics;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_ServerMetrics {
+
+    private static HttpServer server;
+    private static ServerMetrics metrics;
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    public static void startServer() throws IOException {
+        metrics = new ServerMetrics();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ok", metrics.instrument("ok", exchange -> {
+            metrics.record(ServerMetrics.Phase.COMPUTE, System.nanoTime() - 2_000_000);
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        }));
+        server.createContext("/text", metrics.instrument("text", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        }));
+        server.createContext("/fail", metrics.instrument("fail", exchange -> {
+            int status = exchange.getRequestURI().getQuery() == null ? 500 : 400;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        }));
+        server.createContext("/throw", metrics.instrument("throw", exchange -> {
+            throw new IOException("handler failed");
+        }));
+        server.start();
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    private static int get(String path) throws IOException, InterruptedException {
+        URI uri = URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+            + server.getAddress().getPort() + path);
+        return client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Test
+    public void testRequestsCountedByStatusAndErrors() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, get("/ok"));
+        }
+        assertEquals(500, get("/fail"));
+        assertEquals(400, get("/fail?client"));
+        assertThrows(IOException.class, () -> get("/throw"));
+
+        ServerMetrics.InstrumentedHandler ok = handler("ok");
+        awaitRequests(ok, 200, 3);
+        assertEquals(3, ok.getRequests(200));
+        assertEquals(0, ok.getErrors());
+        assertEquals(0, ok.getInFlight());
+        assertEquals(3, ok.getLatency().count());
+        assertTrue(metrics.getPhase(ServerMetrics.Phase.COMPUTE).snapshot().getMax() >= 2_000_000);
+
+        ServerMetrics.InstrumentedHandler fail = handler("fail");
+        awaitRequests(fail, 500, 1);
+        awaitRequests(fail, 400, 1);
+        assertEquals(1, fail.getRequests(500));
+        assertEquals(1, fail.getRequests(400));
+        // Client errors are counted by status but are not server errors
+        assertEquals(1, fail.getErrors());
+        // The client may retry once when the connection drops, but every attempt is an error
+        ServerMetrics.InstrumentedHandler thrower = handler("throw");
+        assertTrue(thrower.getErrors() > 0);
+        assertEquals(thrower.getLatency().count(), thrower.getErrors());
+        assertEquals(0, thrower.getInFlight());
+    }
+
+    @Test
+    public void testPrometheusText() throws Exception {
+        assertEquals(200, get("/text"));
+        awaitRequests(handler("text"), 200, 1);
+        String text = metrics.toPrometheus();
+
+        assertTrue(text.contains("# TYPE trade_http_requests_total counter\n"));
+        assertTrue(text.matches("(?s).*\ntrade_http_requests_total\\{handler=\"text\",code=\"200\"} 1\n.*"));
+        assertTrue(text.contains("trade_http_in_flight_requests{handler=\"text\"} 0\n"));
+        assertTrue(text.contains("trade_http_request_duration_seconds{handler=\"text\",quantile=\"0.999\"} "));
+        assertTrue(text.contains("trade_phase_duration_seconds_count{phase=\"parse\"} 0\n"));
+        // A phase that never ran has no quantiles yet
+        assertTrue(text.contains("trade_phase_duration_seconds{phase=\"export\",quantile=\"0.5\"} NaN\n"));
+        for (String line : text.split("\n")) {
+            assertTrue(line.startsWith("# HELP ") || line.startsWith("# TYPE ")
+                || line.matches("trade_[a-z_]+\\{[a-z]+=\"[a-z_]+\"(,[a-z]+=\"[0-9.a-z]+\")?} (NaN|[0-9.E-]+)"), line);
+        }
+    }
+
+    // A request is counted once its handler returns, which can be just after the client has the response
+    private static void awaitRequests(ServerMetrics.InstrumentedHandler handler, int status, long count)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (handler.getRequests(status) < count || handler.getInFlight() > 0) {
+            assertTrue(System.nanoTime() < deadline, handler.getName() + " requests were not counted");
+            Thread.sleep(1);
+        }
+    }
+
+    private static ServerMetrics.InstrumentedHandler handler(String name) {
+        return metrics.getHandlers().stream().filter(handler -> handler.getName().equals(name)).findFirst().orElseThrow();
+    }
+}
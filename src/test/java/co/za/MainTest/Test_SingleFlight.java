@@ -0,0 +1,93 @@
+package co.za.MainTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import co.za.Main.WebTradeApplication.SingleFlight;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_SingleFlight {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    public void testConcurrentCallersShareOneRun() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flights.run("query", () -> {
+                    release.await();
+                    return runs.incrementAndGet();
+                })));
+            }
+            awaitCoalesced(flights, CALLERS - 1);
+            assertEquals(1, flights.getInFlight());
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, runs.get());
+        assertEquals(1, flights.getExecutions());
+        assertEquals(CALLERS - 1, flights.getCoalesced());
+        assertEquals(0, flights.getInFlight());
+
+        // Once finished nothing is remembered, and different keys never share
+        assertEquals(2, flights.run("query", runs::incrementAndGet));
+        assertEquals(3, flights.run("other", runs::incrementAndGet));
+        assertEquals(3, flights.getExecutions());
+    }
+
+    @Test
+    public void testFailureReachesEveryCaller() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flights.run("query", () -> {
+                    release.await();
+                    throw new IllegalStateException("database locked");
+                })));
+            }
+            awaitCoalesced(flights, CALLERS - 1);
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                assertEquals("database locked", e.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, flights.getExecutions());
+        assertEquals(0, flights.getInFlight());
+        // A failed run is not remembered either
+        assertEquals(7, flights.run("query", () -> 7));
+    }
+
+    private static void awaitCoalesced(SingleFlight<?, ?> flights, int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (flights.getCoalesced() < callers) {
+            assertTrue(System.nanoTime() < deadline, "Callers did not join the running flight");
+            Thread.sleep(5);
+        }
+    }
+}
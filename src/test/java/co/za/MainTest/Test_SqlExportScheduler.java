@@ -0,0 +1,188 @@
+package co.za.MainTest;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import co.za.Main.WebTradeApplication.SchemaMigrator;
+import co.za.Main.WebTradeApplication.SqlExportScheduler;
+import co.za.Main.WebTradeApplication.TradeTableSnapshot;
+import co.za.Main.WebTradeApplication.WebAppDataBase;
+import co.za.Main.WebTradeApplication.WebAppDataBasePool;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_SqlExportScheduler {
+
+    @TempDir
+    Path directory;
+
+    private WebAppDataBasePool pool;
+    private Path target;
+
+    @BeforeEach
+    public void openPool() throws SQLException {
+        pool = new WebAppDataBasePool("jdbc:sqlite:" + directory.resolve("trade.db"), 1, 1000);
+        target = directory.resolve("trade.sql");
+    }
+
+    @AfterEach
+    public void closePool() {
+        pool.close();
+    }
+
+    @Test
+    public void testModesAreParsed() {
+        assertEquals(SqlExportScheduler.Mode.DEBOUNCE, SqlExportScheduler.parseMode("debounce"));
+        assertEquals(SqlExportScheduler.Mode.INTERVAL, SqlExportScheduler.parseMode(" Interval "));
+        assertEquals(SqlExportScheduler.Mode.SHUTDOWN, SqlExportScheduler.parseMode("SHUTDOWN"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> SqlExportScheduler.parseMode("debounced"));
+        assertTrue(e.getMessage().contains("'debounced'") && e.getMessage().contains("debounce, interval or shutdown"),
+            e.getMessage());
+    }
+
+    @Test
+    public void testDebounceWaitsForTheTableToGoQuiet() throws Exception {
+        try (SqlExportScheduler exporter = new SqlExportScheduler(pool, target, SqlExportScheduler.Mode.DEBOUNCE, 500)) {
+            // Changes keep arriving for twice the delay, so no export may start yet
+            long burstEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1000);
+            while (System.nanoTime() < burstEnd) {
+                exporter.requestExport();
+                Thread.sleep(50);
+            }
+            assertEquals(0, exporter.getExportCount());
+
+            awaitExports(exporter, 1);
+            Thread.sleep(750);
+            assertEquals(1, exporter.getExportCount(), "The whole burst should be one export");
+            assertTrue(Files.exists(target));
+        }
+    }
+
+    @Test
+    public void testDebounceStillExportsWhileChangesNeverStop() throws Exception {
+        try (SqlExportScheduler exporter = new SqlExportScheduler(pool, target, SqlExportScheduler.Mode.DEBOUNCE, 50)) {
+            // Well past MAX_DEBOUNCE_DELAYS delays without a quiet period
+            long burstEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1500);
+            while (System.nanoTime() < burstEnd) {
+                exporter.requestExport();
+                Thread.sleep(10);
+            }
+            assertTrue(exporter.getExportCount() >= 1);
+            assertTrue(exporter.getExportCount() < exporter.getRequestCount() / 10);
+        }
+    }
+
+    @Test
+    public void testShutdownModeOnlyExportsOnClose() throws Exception {
+        SqlExportScheduler exporter = new SqlExportScheduler(pool, target, SqlExportScheduler.Mode.SHUTDOWN, 10);
+        for (int i = 0; i < 5; i++) {
+            exporter.requestExport();
+        }
+        Thread.sleep(100);
+        assertEquals(0, exporter.getExportCount());
+        assertFalse(Files.exists(target));
+
+        exporter.close();
+        assertEquals(1, exporter.getExportCount());
+        assertEquals(5, exporter.getRequestCount());
+        assertTrue(Files.exists(target));
+    }
+
+    @Test
+    public void testExportNowReplacesTheFileWhole() throws Exception {
+        Files.writeString(target, "stale export");
+        try (SqlExportScheduler exporter = new SqlExportScheduler(pool, target, SqlExportScheduler.Mode.SHUTDOWN, 0)) {
+            exporter.requestExport();
+            assertEquals(target, exporter.exportNow(5000));
+            assertEquals(1, exporter.getExportCount());
+        }
+        // The pending change went out with the on-demand export, so closing wrote nothing more
+        String dump = Files.readString(target);
+        assertTrue(dump.startsWith("-- "), dump);
+        assertTrue(dump.contains("CREATE TABLE"), dump);
+        assertFalse(dump.contains("stale export"));
+        // Written beside the target and moved into place
+        assertFalse(Files.exists(target.resolveSibling(target.getFileName() + ".tmp")));
+        try (var files = Files.list(directory)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith("trade.sql.")));
+        }
+    }
+
+    @Test
+    public void testExportNowIsRejectedOnceClosed() {
+        SqlExportScheduler exporter = new SqlExportScheduler(pool, target, SqlExportScheduler.Mode.SHUTDOWN, 0);
+        exporter.close();
+        // The export handler answers this with 503 while the server stops
+        assertThrows(RejectedExecutionException.class, () -> exporter.exportNow(1000));
+    }
+
+    @Test
+    public void testDumpRestoresTheTableAtTheCurrentSchemaVersion() throws Exception {
+        try (WebAppDataBase db = pool.openWriter()) {
+            db.updateValue("openingvalue", "maximum", new BigDecimal("17.8"));
+            db.updateValue("closingvalue", "minimum", new BigDecimal("17.2"));
+            db.updateValue("tradeamount", "maximum", new BigDecimal("5000"));
+            db.exportToSQL(target);
+        }
+
+        String restoredUrl = "jdbc:sqlite:" + directory.resolve("restored.db");
+        try (Connection connection = DriverManager.getConnection(restoredUrl);
+             Statement stmt = connection.createStatement()) {
+            StringBuilder statement = new StringBuilder();
+            for (String line : Files.readAllLines(target)) {
+                if (line.isBlank() || line.startsWith("--")) {
+                    continue;
+                }
+                statement.append(line).append('\n');
+                if (line.endsWith(";")) {
+                    stmt.execute(statement.toString());
+                    statement.setLength(0);
+                }
+            }
+            assertEquals(SchemaMigrator.CURRENT_VERSION, SchemaMigrator.readVersion(connection));
+        }
+
+        // Same cells and the same revision on every row, and the pool finds nothing to migrate
+        assertEquals(rowRevisions("jdbc:sqlite:" + directory.resolve("trade.db")), rowRevisions(restoredUrl));
+        try (WebAppDataBasePool restored = new WebAppDataBasePool(restoredUrl, 1, 1000);
+             WebAppDataBase copy = restored.openReader();
+             WebAppDataBase original = pool.openReader()) {
+            TradeTableSnapshot expected = original.readSnapshot();
+            TradeTableSnapshot actual = copy.readSnapshot();
+            assertEquals(3, expected.revision());
+            assertEquals(expected.revision(), actual.revision());
+            assertEquals(expected.toRowsJson(), actual.toRowsJson());
+        }
+    }
+
+    private static Map<String, Long> rowRevisions(String url) throws SQLException {
+        Map<String, Long> revisions = new HashMap<>();
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT variable, revision FROM WebAppDataBase")) {
+            while (rs.next()) {
+                revisions.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return revisions;
+    }
+
+    private static void awaitExports(SqlExportScheduler exporter, long exports) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (exporter.getExportCount() < exports) {
+            assertTrue(System.nanoTime() < deadline, "Export did not run");
+            Thread.sleep(10);
+        }
+    }
+}
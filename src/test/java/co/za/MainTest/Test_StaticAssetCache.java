@@ -0,0 +1,219 @@
+package co.za.MainTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import com.sun.net.httpserver.HttpServer;
+import co.za.Main.WebTradeApplication.StaticAssetCache;
+import co.za.Main.WebTradeApplication.StaticFileHandler;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_StaticAssetCache {
+
+    private static final String INDEX = "<html><body>" + "trade ".repeat(200) + "</body></html>";
+
+    @TempDir
+    Path root;
+
+    private StaticAssetCache assets;
+    private HttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        Files.writeString(root.resolve("trade-index.html"), INDEX);
+        Files.createDirectories(root.resolve("css"));
+        Files.writeString(root.resolve("css/app.css"), "body { margin: 0; }");
+        // Present under the root, but never on the allowlist
+        Files.writeString(root.resolve("notes.txt"), "private notes");
+        Files.createDirectories(root.resolve(".vscode"));
+        Files.writeString(root.resolve(".vscode/launch.json"), "{}");
+        Files.createDirectories(root.resolve("target/surefire-reports"));
+        Files.writeString(root.resolve("target/surefire-reports/report.txt"), "report");
+
+        assets = new StaticAssetCache(root, Set.of("trade-index.html", "css/app.css"));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", new StaticFileHandler(assets, "trade-index.html", () -> "fallback"));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        server.stop(0);
+        assets.close();
+    }
+
+    @Test
+    public void testOnlyAllowlistedFilesAreServed() throws Exception {
+        assertEquals(200, get("/").statusCode());
+        assertEquals(INDEX, get("/trade-index.html").body());
+        HttpResponse<String> css = get("/css/app.css");
+        assertEquals(200, css.statusCode());
+        assertEquals("text/css; charset=UTF-8", css.headers().firstValue("Content-Type").orElse(null));
+
+        for (String path : new String[] {
+                "/notes.txt",
+                "/.vscode/launch.json",
+                "/target/surefire-reports/report.txt",
+                "/css/../notes.txt",
+                "/%2e%2e/etc/passwd",
+                "/css/%2e%2e/trade-index.html",
+                "/css/..%5c..%5cnotes.txt"}) {
+            assertEquals(404, get(path).statusCode(), path);
+        }
+
+        assertNull(assets.get("/../" + root.getFileName() + "/trade-index.html"));
+        assertNull(assets.get("/.vscode/launch.json"));
+        assertNull(assets.get("//trade-index.html"));
+        assertNotNull(assets.get("/css/app.css"));
+    }
+
+    @Test
+    public void testAllowlistRejectsHiddenAndEscapingPaths() {
+        for (String file : new String[] {".env", ".vscode/launch.json", "../trade-index.html", "WebAppDataBase.db"}) {
+            assertThrows(IllegalArgumentException.class, () -> new StaticAssetCache(root, Set.of(file)), file);
+        }
+    }
+
+    @Test
+    public void testConditionalRequestsGetNotModified() throws Exception {
+        HttpResponse<String> first = get("/trade-index.html");
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        String lastModified = first.headers().firstValue("Last-Modified").orElseThrow();
+
+        assertEquals(304, get("/trade-index.html", "If-None-Match", etag).statusCode());
+        assertEquals(304, get("/trade-index.html", "If-None-Match", "\"other\", W/" + etag).statusCode());
+        assertEquals(200, get("/trade-index.html", "If-None-Match", "\"other\"").statusCode());
+
+        assertEquals(304, get("/trade-index.html", "If-Modified-Since", lastModified).statusCode());
+        String before = StaticAssetCache.HTTP_DATE.format(Instant.EPOCH);
+        assertEquals(200, get("/trade-index.html", "If-Modified-Since", before).statusCode());
+        assertEquals(200, get("/trade-index.html", "If-Modified-Since", "yesterday").statusCode());
+        // A non-matching ETag wins over a matching date
+        HttpRequest both = request("/trade-index.html")
+            .header("If-None-Match", "\"other\"")
+            .header("If-Modified-Since", lastModified)
+            .build();
+        assertEquals(200, client.send(both, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    public void testGzipOnlyWhenAccepted() throws Exception {
+        HttpResponse<String> plain = get("/trade-index.html");
+        assertTrue(plain.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(INDEX, plain.body());
+
+        HttpRequest gzipRequest = request("/trade-index.html").header("Accept-Encoding", "br, gzip").build();
+        HttpResponse<byte[]> gzipped = client.send(gzipRequest, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals("Accept-Encoding", gzipped.headers().firstValue("Vary").orElse(null));
+        assertTrue(gzipped.body().length < INDEX.length());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            assertEquals(INDEX, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        // Each coding has its own strong validator, and either revalidates
+        String plainTag = plain.headers().firstValue("ETag").orElseThrow();
+        String gzipTag = gzipped.headers().firstValue("ETag").orElseThrow();
+        assertEquals(plainTag.substring(0, plainTag.length() - 1) + "-gz\"", gzipTag);
+        HttpRequest revalidate = request("/trade-index.html").header("Accept-Encoding", "gzip")
+            .header("If-None-Match", gzipTag).build();
+        HttpResponse<byte[]> notModified = client.send(revalidate, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(304, notModified.statusCode());
+        assertEquals(gzipTag, notModified.headers().firstValue("ETag").orElse(null));
+        assertEquals(304, get("/trade-index.html", "If-None-Match", gzipTag).statusCode());
+
+        // Too small to gain from compression, so it always goes out as is
+        HttpRequest cssRequest = request("/css/app.css").header("Accept-Encoding", "gzip").build();
+        HttpResponse<String> css = client.send(cssRequest, HttpResponse.BodyHandlers.ofString());
+        assertTrue(css.headers().firstValue("Content-Encoding").isEmpty());
+    }
+
+    @Test
+    public void testEditedFileIsReloaded() throws Exception {
+        String etag = assets.get("/trade-index.html").getEtag();
+        Files.writeString(root.resolve("trade-index.html"), "<html>edited</html>");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (etag.equals(assets.get("/trade-index.html").getEtag())) {
+            assertTrue(System.nanoTime() < deadline, "Edit was not picked up by the watcher");
+            Thread.sleep(20);
+        }
+        HttpResponse<String> reloaded = get("/trade-index.html", "If-None-Match", etag);
+        assertEquals(200, reloaded.statusCode());
+        assertEquals("<html>edited</html>", reloaded.body());
+    }
+
+    @Test
+    public void testChangeDuringLoadIsNotCached() throws Exception {
+        // Edits the file after it has been read, before the loaded asset is cached
+        class EditingCache extends StaticAssetCache {
+            volatile String edit;
+            volatile boolean invalidate;
+
+            EditingCache() throws IOException {
+                super(root, Set.of("trade-index.html"));
+            }
+
+            @Override
+            protected Asset load(Path file) throws IOException {
+                Asset asset = super.load(file);
+                String content = edit;
+                if (content != null) {
+                    edit = null;
+                    Files.writeString(file, content);
+                    if (invalidate) {
+                        invalidateAll();
+                    } else {
+                        // Give the watcher time to evict the entry that does not exist yet
+                        try {
+                            Thread.sleep(500);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+                return asset;
+            }
+        }
+
+        try (EditingCache cache = new EditingCache()) {
+            cache.edit = "<html>watched</html>";
+            assertEquals(INDEX, new String(cache.get("/trade-index.html").getBody(), StandardCharsets.UTF_8));
+            assertEquals("<html>watched</html>", new String(cache.get("/trade-index.html").getBody(), StandardCharsets.UTF_8));
+
+            cache.invalidateAll();
+            cache.invalidate = true;
+            cache.edit = "<html>invalidated</html>";
+            assertEquals("<html>watched</html>", new String(cache.get("/trade-index.html").getBody(), StandardCharsets.UTF_8));
+            assertEquals("<html>invalidated</html>", new String(cache.get("/trade-index.html").getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path));
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(request(path).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path, String header, String value) throws Exception {
+        return client.send(request(path).header(header, value).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,82 @@
+package co.za.MainTest;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import co.za.Main.WebTradeApplication.QueryResult;
+import co.za.Main.WebTradeApplication.StaleRevisionException;
+import co.za.Main.WebTradeApplication.TradeTableSnapshot;
+import co.za.Main.WebTradeApplication.WebAppDataBase;
+import co.za.Main.WebTradeApplication.WebAppDataBasePool;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_TableRevisions {
+
+    @TempDir
+    Path directory;
+
+    private WebAppDataBasePool pool;
+
+    @BeforeEach
+    public void openPool() throws SQLException {
+        pool = new WebAppDataBasePool("jdbc:sqlite:" + directory.resolve("trade.db"), 1, 1000);
+    }
+
+    @AfterEach
+    public void closePool() {
+        pool.close();
+    }
+
+    @Test
+    public void testInputChangesAdvanceTheRevision() throws SQLException {
+        try (WebAppDataBase db = pool.openWriter()) {
+            assertEquals(0, db.getRevision());
+            assertEquals(1, db.updateValue("openingvalue", "minimum", new BigDecimal("17.5")));
+            assertEquals(2, db.updateValue("openingvalue", "maximum", new BigDecimal("17.8"), 1));
+
+            StaleRevisionException stale = assertThrows(StaleRevisionException.class,
+                () -> db.updateValue("openingvalue", "maximum", new BigDecimal("99"), 1));
+            assertEquals(1, stale.getExpectedRevision());
+            assertEquals(2, stale.getCurrentRevision());
+            assertEquals(0, new BigDecimal("17.8").compareTo(db.readSnapshot().maximum("openingvalue")));
+
+            // A reset changes every row in one step
+            assertEquals(3, db.resetInputValuesToZero());
+            assertEquals(4, db.resetAllValuesToZero());
+        }
+        try (WebAppDataBase db = pool.openReader()) {
+            TradeTableSnapshot snapshot = db.readSnapshot();
+            assertEquals(4, snapshot.revision());
+            assertEquals(0, snapshot.maximum("openingvalue").signum());
+        }
+    }
+
+    @Test
+    public void testResultsOnlyWrittenAgainstTheirInputs() throws SQLException {
+        List<QueryResult> results = List.of(
+            new QueryResult("tradeprofit", new BigDecimal("-5"), new BigDecimal("5")),
+            new QueryResult("profitfactor", new BigDecimal("1"), new BigDecimal("2")));
+
+        TradeTableSnapshot read;
+        try (WebAppDataBase db = pool.openReader()) {
+            read = db.readSnapshot();
+        }
+        // The inputs change between the read and the write, as an /api/update would
+        try (WebAppDataBase db = pool.openWriter()) {
+            db.updateValue("tradeamount", "maximum", new BigDecimal("1000"));
+            assertThrows(StaleRevisionException.class, () -> db.updateQueryResults(results, read.revision()));
+            assertEquals(0, db.readSnapshot().returnMax("tradeprofit").signum());
+
+            TradeTableSnapshot current = db.readSnapshot();
+            db.updateQueryResults(results, current.revision());
+            TradeTableSnapshot written = db.readSnapshot();
+            assertEquals(0, new BigDecimal("5").compareTo(written.returnMax("tradeprofit")));
+            assertEquals(0, new BigDecimal("2").compareTo(written.returnMax("profitfactor")));
+            // Results are derived from the inputs, so writing them leaves the revision alone
+            assertEquals(current.revision(), written.revision());
+        }
+    }
+}
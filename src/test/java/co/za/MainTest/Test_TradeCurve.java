@@ -0,0 +1,68 @@
+package co.za.MainTest;
+
+import java.math.BigDecimal;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.*;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeCurve;
+import co.za.Main.TradeModules.Trade_Function;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_TradeCurve {
+
+    BigDecimal spread = new BigDecimal("0.01");
+    BigDecimal rateKN = new BigDecimal("1.0");
+    BigDecimal rateBK = new BigDecimal("17.7055");
+    BigDecimal tradeAmount = new BigDecimal("10000");
+    BigDecimal tradeProfit = new BigDecimal("-88");
+    BigDecimal opening_value = new BigDecimal("17.6967");
+    BigDecimal closing_value = new BigDecimal("17.7055");
+
+    @Test
+    public void testMatchesTradeFunctionExactly() {
+        for (TradeAction action : new TradeAction[] {TradeAction.SELL, TradeAction.BUY}) {
+            for (boolean market : new boolean[] {false, true}) {
+                Trade_Function function = new Trade_Function(action, spread, rateBK, rateKN, tradeAmount, opening_value, closing_value);
+                function.setBasedOnMarketRate(market);
+                TradeCurve curve = new TradeCurve(action, market, spread, rateBK, rateKN, opening_value, closing_value);
+                String label = action + (market ? " market" : " execution");
+
+                assertEquals(function.returnProfit(tradeAmount), curve.returnProfit(tradeAmount), label);
+                assertEquals(function.returnProfitFactor(tradeProfit, tradeAmount), curve.returnProfitFactor(tradeProfit, tradeAmount), label);
+                assertEquals(function.returnTradeAmount(tradeProfit, tradeAmount), curve.returnTradeAmount(tradeProfit, tradeAmount), label);
+                assertEquals(function.returnOpening(tradeProfit, tradeAmount), curve.returnOpening(tradeProfit, tradeAmount), label);
+                assertEquals(function.returnClosing(tradeProfit, tradeAmount), curve.returnClosing(tradeProfit, tradeAmount), label);
+            }
+        }
+    }
+
+    @Test
+    public void testEqualInputsGiveEqualCurves() {
+        TradeCurve curve = new TradeCurve(TradeAction.SELL, true, spread, rateBK, rateKN, opening_value, closing_value);
+        TradeCurve sameValues = new TradeCurve(TradeAction.SELL, true, new BigDecimal("0.010"), new BigDecimal("17.70550"),
+            BigDecimal.ONE, new BigDecimal("17.69670"), closing_value);
+        TradeCurve otherMode = new TradeCurve(TradeAction.SELL, false, spread, rateBK, rateKN, opening_value, closing_value);
+
+        assertEquals(curve, sameValues);
+        assertEquals(curve.hashCode(), sameValues.hashCode());
+        assertNotEquals(curve, otherMode);
+    }
+
+    @Test
+    public void testSharedCurveGivesSameResultOnEveryThread() {
+        TradeCurve curve = new TradeCurve(TradeAction.BUY, true, spread, rateBK, rateKN, opening_value, closing_value);
+        BigDecimal expected = curve.returnOpening(tradeProfit, tradeAmount);
+
+        assertTrue(IntStream.range(0, 10_000).parallel()
+            .mapToObj(i -> curve.returnOpening(tradeProfit, tradeAmount))
+            .allMatch(expected::equals));
+    }
+
+    @Test
+    public void testZeroRatesAreRejected() {
+        assertThrows(ArithmeticException.class,
+            () -> new TradeCurve(TradeAction.SELL, false, spread, rateBK, rateKN, opening_value, BigDecimal.ZERO));
+        assertThrows(ArithmeticException.class,
+            () -> new TradeCurve(TradeAction.BUY, false, spread, rateBK, rateKN, BigDecimal.ZERO, closing_value));
+    }
+}
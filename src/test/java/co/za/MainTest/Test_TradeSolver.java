@@ -0,0 +1,122 @@
+package co.za.MainTest;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.*;
+import co.za.Main.TradeModules.FastTradeFunction;
+import co.za.Main.TradeModules.TradeAction;
+import co.za.Main.TradeModules.TradeSolver;
+import co.za.Main.TradeModules.TradeSolver.Outcome;
+import co.za.Main.TradeModules.TradeSolver.Scenarios;
+import co.za.Main.TradeModules.TradeSolver.Solution;
+import co.za.Main.TradeModules.TradeSolver.Target;
+import co.za.Main.TradeModules.TradeSolver.Unknown;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_TradeSolver {
+
+    static final int SCENARIOS = 10_000;
+
+    double rateBK = 17.7055;
+    double rateKN = 1.0;
+
+    @Test
+    public void testSolutionsReproduceTheTargetProfit() {
+        for (TradeAction action : new TradeAction[] {TradeAction.SELL, TradeAction.BUY}) {
+            for (boolean market : new boolean[] {false, true}) {
+                TradeSolver solver = new TradeSolver(action, market, rateBK, rateKN);
+                for (Unknown unknown : Unknown.values()) {
+                    if (unknown == Unknown.SPREAD && !market) {
+                        continue;
+                    }
+                    Scenarios scenarios = randomScenarios(action, market, 11);
+                    Solution solution = solver.solve(Target.PROFIT, unknown, scenarios);
+                    String label = action + (market ? " market " : " execution ") + unknown;
+
+                    // Random targets include some that cannot be reached, but most must be
+                    assertTrue(solution.feasibleCount() > SCENARIOS / 2, label + ": " + solution.feasibleCount());
+                    for (int i = 0; i < SCENARIOS; i++) {
+                        if (!solution.feasible(i)) {
+                            assertTrue(Double.isNaN(solution.values()[i]));
+                            continue;
+                        }
+                        double value = solution.values()[i];
+                        double opening = unknown == Unknown.OPENING ? value : scenarios.opening()[i];
+                        double closing = unknown == Unknown.CLOSING ? value : scenarios.closing()[i];
+                        double tradeAmount = unknown == Unknown.TRADE_AMOUNT ? value : scenarios.tradeAmount()[i];
+                        double spread = unknown == Unknown.SPREAD ? value : scenarios.spread()[i];
+
+                        double profit = new FastTradeFunction(action, market, spread, rateBK, rateKN, opening, closing)
+                            .returnProfit(tradeAmount);
+                        assertEquals(scenarios.target()[i], profit, 1e-6 * Math.max(1, tradeAmount * rateBK),
+                            label + " scenario " + i);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testProfitFactorTarget() {
+        TradeSolver solver = new TradeSolver(TradeAction.SELL, true, rateBK, rateKN);
+        Scenarios scenarios = new Scenarios(new double[] {0.01, -0.02}, null, new double[] {17.5, 17.5}, null, new double[] {0.01, 0.01});
+        Solution solution = solver.solve(Target.PROFIT_FACTOR, Unknown.OPENING, scenarios);
+
+        for (int i = 0; i < 2; i++) {
+            FastTradeFunction function = new FastTradeFunction(TradeAction.SELL, true, 0.01, rateBK, rateKN, solution.values()[i], 17.5);
+            double profit = function.returnProfit(1000);
+            assertEquals(scenarios.target()[i], function.returnProfitFactor(profit, 1000), 1e-12);
+        }
+    }
+
+    @Test
+    public void testInfeasibleScenariosSayWhy() {
+        TradeSolver sell = new TradeSolver(TradeAction.SELL, true, rateBK, rateKN);
+        double[] spreads = {0.01, 0.01, 0.01};
+
+        // Losing more than the whole trade, and a spread that would have to be negative
+        Solution opening = sell.solve(Target.PROFIT_FACTOR, Unknown.OPENING,
+            new Scenarios(new double[] {-1.5, 0.01, Double.NaN}, null, new double[] {17.5, 17.5, 17.5}, null, spreads));
+        assertEquals(Outcome.TOTAL_LOSS, opening.outcomes()[0]);
+        assertEquals(Outcome.FEASIBLE, opening.outcomes()[1]);
+        assertEquals(Outcome.INVALID_INPUT, opening.outcomes()[2]);
+
+        Solution spread = sell.solve(Target.PROFIT_FACTOR, Unknown.SPREAD,
+            new Scenarios(new double[] {0.5, 0.0}, new double[] {17.5, 17.5}, new double[] {17.5, 17.4}, null, null));
+        assertEquals(Outcome.NEGATIVE_SPREAD, spread.outcomes()[0]);
+        assertEquals(Outcome.FEASIBLE, spread.outcomes()[1]);
+
+        // Per-unit profit is negative, so no amount makes money; at break-even no amount changes anything
+        Solution amount = sell.solve(Target.PROFIT, Unknown.TRADE_AMOUNT,
+            new Scenarios(new double[] {100, 100}, new double[] {17.5, 17.5}, new double[] {17.6, 17.49}, null, new double[] {0.01, 0.01}));
+        assertEquals(Outcome.OPPOSITE_SIGN, amount.outcomes()[0]);
+        assertEquals(Outcome.NO_EFFECT, amount.outcomes()[1]);
+
+        // Buying needs a very low opening rate for a huge gain; past the half spread it goes negative
+        Solution buyOpening = new TradeSolver(TradeAction.BUY, true, rateBK, rateKN).solve(Target.PROFIT_FACTOR, Unknown.OPENING,
+            new Scenarios(new double[] {1e6}, null, new double[] {17.5}, null, new double[] {0.01}));
+        assertEquals(Outcome.NON_POSITIVE_RATE, buyOpening.outcomes()[0]);
+
+        Solution execution = new TradeSolver(TradeAction.SELL, false, rateBK, rateKN).solve(Target.PROFIT, Unknown.SPREAD,
+            new Scenarios(new double[] {100}, new double[] {17.5}, new double[] {17.4}, new double[] {1000}, null));
+        assertEquals(Outcome.NO_EFFECT, execution.outcomes()[0]);
+    }
+
+    private Scenarios randomScenarios(TradeAction action, boolean market, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] target = new double[SCENARIOS];
+        double[] opening = new double[SCENARIOS];
+        double[] closing = new double[SCENARIOS];
+        double[] tradeAmount = new double[SCENARIOS];
+        double[] spread = new double[SCENARIOS];
+        for (int i = 0; i < SCENARIOS; i++) {
+            opening[i] = random.nextDouble(17.0, 18.0);
+            closing[i] = random.nextDouble(17.0, 18.0);
+            tradeAmount[i] = random.nextDouble(1000, 50000);
+            spread[i] = random.nextDouble(0, 0.05);
+            // Profits near what these rates give, so most targets are reachable
+            target[i] = new FastTradeFunction(action, market, spread[i], rateBK, rateKN, opening[i], closing[i])
+                .returnProfit(tradeAmount[i]) * random.nextDouble(0.5, 1.5) + random.nextDouble(-50, 50);
+        }
+        return new Scenarios(target, opening, closing, tradeAmount, spread);
+    }
+}
@@ -0,0 +1,120 @@
+package co.za.MainTest;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import co.za.Main.WebTradeApplication.TradeTableSnapshot;
+import co.za.Main.WebTradeApplication.WebAppDataBase;
+import co.za.Main.WebTradeApplication.WebAppDataBasePool;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_TradeTableSnapshot {
+
+    private static final List<String> COLUMNS = List.of("maximum", "minimum", "returnmin", "returnmax");
+
+    @TempDir
+    Path directory;
+
+    private String url;
+    private WebAppDataBasePool pool;
+
+    @BeforeEach
+    public void openPool() throws SQLException {
+        url = "jdbc:sqlite:" + directory.resolve("trade.db");
+        pool = new WebAppDataBasePool(url, 1, 1000);
+    }
+
+    @AfterEach
+    public void closePool() {
+        pool.close();
+    }
+
+    // Every cell of every row gets its own value, so a swapped column or row shows up
+    private void seedTable() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement stmt = connection.createStatement()) {
+            for (int i = 0; i < WebAppDataBase.VARIABLES.size(); i++) {
+                stmt.executeUpdate(String.format(
+                    "UPDATE WebAppDataBase SET maximum = %d.25, minimum = -%d.5, returnmin = %d.125,"
+                        + " returnmax = %d.75, revision = %d WHERE variable = '%s'",
+                    i + 10, i + 20, i + 30, i + 40, i + 3, WebAppDataBase.VARIABLES.get(i)));
+            }
+            // A NULL cell reads as zero
+            stmt.executeUpdate("UPDATE WebAppDataBase SET returnmax = NULL WHERE variable = 'tradeprofit'");
+        }
+    }
+
+    @Test
+    public void testSnapshotHoldsEveryCellAndTheRevision() throws SQLException {
+        seedTable();
+
+        try (WebAppDataBase db = pool.openReader()) {
+            TradeTableSnapshot snapshot = db.readSnapshot();
+            assertEquals(WebAppDataBase.VARIABLES.size() + 2, snapshot.revision());
+            assertEquals(db.getRevision(), snapshot.revision());
+
+            List<TradeTableSnapshot.Row> rows = snapshot.rows();
+            assertEquals(WebAppDataBase.VARIABLES.size(), rows.size());
+            for (int i = 0; i < WebAppDataBase.VARIABLES.size(); i++) {
+                String variable = WebAppDataBase.VARIABLES.get(i);
+                TradeTableSnapshot.Row row = rows.get(i);
+                assertEquals(variable, row.variable());
+
+                BigDecimal returnMax = i == 0 ? BigDecimal.ZERO : new BigDecimal((i + 40) + ".75");
+                assertEquals(0, new BigDecimal((i + 10) + ".25").compareTo(row.maximum()), variable);
+                assertEquals(0, new BigDecimal("-" + (i + 20) + ".5").compareTo(row.minimum()), variable);
+                assertEquals(0, new BigDecimal((i + 30) + ".125").compareTo(row.returnMin()), variable);
+                assertEquals(0, returnMax.compareTo(row.returnMax()), variable);
+
+                // The snapshot agrees with the per-cell reads it replaced
+                assertEquals(db.getValueFromColumn(variable, "maximum"), snapshot.maximum(variable));
+                assertEquals(db.getValueFromColumn(variable, "minimum"), snapshot.minimum(variable));
+                assertEquals(db.getValueFromColumn(variable, "returnmin"), snapshot.returnMin(variable));
+                assertEquals(db.getValueFromColumn(variable, "returnmax"), snapshot.returnMax(variable));
+            }
+        }
+    }
+
+    @Test
+    public void testRowsJsonMatchesThePerCellRendering() throws SQLException {
+        seedTable();
+
+        try (WebAppDataBase db = pool.openReader()) {
+            assertEquals(perCellJson(db), db.readSnapshot().toRowsJson());
+        }
+    }
+
+    @Test
+    public void testFreshTableRendersZeros() throws SQLException {
+        try (WebAppDataBase db = pool.openReader()) {
+            TradeTableSnapshot snapshot = db.readSnapshot();
+            assertEquals(0, snapshot.revision());
+            assertEquals(perCellJson(db), snapshot.toRowsJson());
+        }
+    }
+
+    // The /api/data rows as they were built before the snapshot, one SELECT per cell
+    private static String perCellJson(WebAppDataBase db) throws SQLException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < WebAppDataBase.VARIABLES.size(); i++) {
+            String variable = WebAppDataBase.VARIABLES.get(i);
+            BigDecimal[] cells = new BigDecimal[COLUMNS.size()];
+            for (int c = 0; c < cells.length; c++) {
+                cells[c] = db.getValueFromColumn(variable, COLUMNS.get(c));
+            }
+            json.append(String.format(
+                "{\"variable\":\"%s\",\"maximum\":\"%s\",\"minimum\":\"%s\","
+                    + "\"returnmin\":\"%s\",\"returnmax\":\"%s\"}",
+                variable, cells[0].toPlainString(), cells[1].toPlainString(),
+                cells[2].toPlainString(), cells[3].toPlainString()));
+            if (i < WebAppDataBase.VARIABLES.size() - 1) json.append(",");
+        }
+        return json.append("]").toString();
+    }
+}
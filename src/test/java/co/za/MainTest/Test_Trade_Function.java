@@ -2,6 +2,7 @@ package co.za.MainTest;
 
 import java.math.BigDecimal;
 import org.junit.jupiter.api.*;
+import co.za.Main.TradeModules.ProfitSensitivities;
 import co.za.Main.TradeModules.Trade_Function;
 import co.za.Main.TradeModules.TradeAction;
 import java.math.RoundingMode;
@@ -126,4 +127,64 @@ public class Test_Trade_Function {
         
         logger.info("Market rate mode toggle test passed");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMarketRateModeAppliesSpread() {
+        BigDecimal executionProfit = tradeFunction.returnProfit(tradeAmount);
+
+        // Selling at market rates costs half the spread on each leg
+        tradeFunction.setBasedOnMarketRate(true);
+        BigDecimal marketProfit = tradeFunction.returnProfit(tradeAmount);
+        assertTrue(marketProfit.compareTo(executionProfit) < 0,
+            "Market: " + marketProfit + ", Execution: " + executionProfit);
+
+        tradeFunction.setBasedOnMarketRate(false);
+        assertEquals(0, executionProfit.compareTo(tradeFunction.returnProfit(tradeAmount)));
+    }
+
+    @Test
+    public void testSensitivitiesMatchCentralDifferences() {
+        BigDecimal bump = new BigDecimal("0.01");
+        BigDecimal two = BigDecimal.valueOf(2);
+        for (TradeAction side : new TradeAction[] {TradeAction.SELL, TradeAction.BUY}) {
+            for (boolean market : new boolean[] {false, true}) {
+                String label = side + (market ? " market" : " execution");
+                ProfitSensitivities sensitivities = profitAt(side, market, spread, rateBK, opening_value, closing_value)
+                    .returnSensitivities(tradeAmount);
+
+                assertEquals(0, sensitivities.profit().compareTo(
+                    profitAt(side, market, spread, rateBK, opening_value, closing_value).returnProfit(tradeAmount)), label);
+                assertClose(label + " opening", sensitivities.opening(),
+                    profitAt(side, market, spread, rateBK, opening_value.add(bump), closing_value).returnProfit(tradeAmount)
+                        .subtract(profitAt(side, market, spread, rateBK, opening_value.subtract(bump), closing_value).returnProfit(tradeAmount))
+                        .divide(bump.multiply(two), 10, RoundingMode.HALF_UP));
+                assertClose(label + " closing", sensitivities.closing(),
+                    profitAt(side, market, spread, rateBK, opening_value, closing_value.add(bump)).returnProfit(tradeAmount)
+                        .subtract(profitAt(side, market, spread, rateBK, opening_value, closing_value.subtract(bump)).returnProfit(tradeAmount))
+                        .divide(bump.multiply(two), 10, RoundingMode.HALF_UP));
+                assertClose(label + " spread", sensitivities.spread(),
+                    profitAt(side, market, spread.add(bump), rateBK, opening_value, closing_value).returnProfit(tradeAmount)
+                        .subtract(profitAt(side, market, spread.subtract(bump), rateBK, opening_value, closing_value).returnProfit(tradeAmount))
+                        .divide(bump.multiply(two), 10, RoundingMode.HALF_UP));
+                assertClose(label + " rateBK", sensitivities.rateBK(),
+                    profitAt(side, market, spread, rateBK.add(bump), opening_value, closing_value).returnProfit(tradeAmount)
+                        .subtract(profitAt(side, market, spread, rateBK.subtract(bump), opening_value, closing_value).returnProfit(tradeAmount))
+                        .divide(bump.multiply(two), 10, RoundingMode.HALF_UP));
+            }
+        }
+    }
+
+    private Trade_Function profitAt(TradeAction side, boolean market, BigDecimal spread, BigDecimal rateBK,
+                                    BigDecimal opening, BigDecimal closing) {
+        Trade_Function function = new Trade_Function(side, spread, rateBK, rateKN, tradeAmount, opening, closing);
+        function.setBasedOnMarketRate(market);
+        return function;
+    }
+
+    // A 0.01 bump keeps both the truncation error and the 10-place rounding noise well below 1e-4
+    private void assertClose(String label, BigDecimal expected, BigDecimal actual) {
+        BigDecimal allowed = expected.abs().multiply(new BigDecimal("0.0001")).max(new BigDecimal("0.01"));
+        assertTrue(expected.subtract(actual).abs().compareTo(allowed) <= 0,
+            label + " expected: " + expected + ", finite difference: " + actual);
+    }
+}
@@ -0,0 +1,83 @@
+package co.za.MainTest;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import co.za.Main.WebTradeApplication.WebAppDataBase;
+import co.za.Main.WebTradeApplication.WebAppDataBasePool;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Test_WebAppDataBasePool {
+
+    @TempDir
+    Path directory;
+
+    private WebAppDataBasePool pool;
+
+    @BeforeEach
+    public void openPool() throws SQLException {
+        pool = new WebAppDataBasePool("jdbc:sqlite:" + directory.resolve("trade.db"), 1, 1000);
+    }
+
+    @AfterEach
+    public void closePool() {
+        pool.close();
+    }
+
+    @Test
+    public void testReadersRejectWrites() throws SQLException {
+        try (WebAppDataBase db = pool.openReader()) {
+            assertThrows(SQLException.class, () -> db.updateValue("openingvalue", "maximum", new BigDecimal("17.8")));
+            assertThrows(SQLException.class, () -> db.resetAllValuesToZero());
+            assertEquals(0, db.readSnapshot().maximum("openingvalue").signum());
+        }
+    }
+
+    @Test
+    public void testReleaseRollsBackAnOpenTransaction() throws Exception {
+        // Leave a write uncommitted, as a handler that failed mid-transaction would
+        try (WebAppDataBase db = pool.openWriter()) {
+            Connection connection = connectionOf(db);
+            connection.setAutoCommit(false);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("UPDATE WebAppDataBase SET maximum = 99 WHERE variable = 'openingvalue'");
+            }
+        }
+
+        // The single writer is handed out again, back in auto-commit mode and without the write
+        try (WebAppDataBase db = pool.openWriter()) {
+            assertTrue(connectionOf(db).getAutoCommit());
+            assertEquals(0, db.readSnapshot().maximum("openingvalue").signum());
+        }
+        try (WebAppDataBase db = pool.openReader()) {
+            assertEquals(0, db.readSnapshot().maximum("openingvalue").signum());
+        }
+    }
+
+    @Test
+    public void testClosedPoolRefusesToLend() throws SQLException {
+        pool.close();
+        assertThrows(SQLException.class, () -> pool.openReader());
+        assertThrows(SQLException.class, () -> pool.openWriter());
+    }
+
+    @Test
+    public void testBorrowTimesOutWhenExhausted() throws SQLException {
+        try (WebAppDataBase held = pool.openWriter()) {
+            SQLException e = assertThrows(SQLException.class, () -> pool.openWriter());
+            assertTrue(e.getMessage().contains("Timed out"), e.getMessage());
+        }
+    }
+
+    // Handles do not expose their connection, so reach the pooled one directly
+    private static Connection connectionOf(WebAppDataBase db) throws ReflectiveOperationException {
+        Field field = WebAppDataBase.class.getDeclaredField("connection");
+        field.setAccessible(true);
+        return (Connection) field.get(db);
+    }
+}